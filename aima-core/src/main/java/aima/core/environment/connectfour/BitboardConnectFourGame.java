@@ -0,0 +1,87 @@
+package aima.core.environment.connectfour;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import aima.core.search.adversarial.UndoableGame;
+
+/**
+ * Implementation of the Connect Four game based on
+ * {@link BitboardConnectFourState}. Players and actions are the same as in
+ * {@link ConnectFourGame}. Searches can apply and take back moves in place
+ * (see {@link UndoableGame}).
+ */
+public class BitboardConnectFourGame implements UndoableGame<BitboardConnectFourState, Integer, String> {
+
+	private String[] players = new String[] { "red", "yellow" };
+	private BitboardConnectFourState initialState = new BitboardConnectFourState(6, 7);
+
+	@Override
+	public BitboardConnectFourState getInitialState() {
+		return initialState;
+	}
+
+	@Override
+	public String[] getPlayers() {
+		return players;
+	}
+
+	@Override
+	public String getPlayer(BitboardConnectFourState state) {
+		return players[state.getPlayerToMove() - 1];
+	}
+
+	@Override
+	public List<Integer> getActions(BitboardConnectFourState state) {
+		List<Integer> result = new ArrayList<>(state.getCols());
+		for (int i = 0; i < state.getCols(); i++)
+			if (!state.isColumnFull(i))
+				result.add(i);
+		return result;
+	}
+
+	@Override
+	public BitboardConnectFourState getResult(BitboardConnectFourState state, Integer action) {
+		BitboardConnectFourState result = state.clone();
+		result.dropDisk(action);
+		return result;
+	}
+
+	@Override
+	public BitboardConnectFourState copyState(BitboardConnectFourState state) {
+		return state.clone();
+	}
+
+	@Override
+	public void makeMove(BitboardConnectFourState state, Integer action) {
+		state.dropDisk(action);
+	}
+
+	@Override
+	public void unmakeMove(BitboardConnectFourState state, Integer action) {
+		state.undoDisk(action);
+	}
+
+	@Override
+	public boolean isTerminal(BitboardConnectFourState state) {
+		return state.getUtility() != -1;
+	}
+
+	@Override
+	public double getUtility(BitboardConnectFourState state, String player) {
+		double result = state.getUtility();
+		if (result != -1) {
+			if (Objects.equals(player, players[1]))
+				result = 1 - result;
+		} else {
+			throw new IllegalArgumentException("State is not terminal.");
+		}
+		return result;
+	}
+
+	@Override
+	public long getHashKey(BitboardConnectFourState state) {
+		return state.getHashKey();
+	}
+}
@@ -0,0 +1,192 @@
+package aima.core.environment.connectfour;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A state of the Connect Four game which represents the board by two bit
+ * masks, one for the disks of each player. Each column occupies
+ * <code>rows + 1</code> consecutive bits, starting with the bottom row. The
+ * additional bit on top of each column is always zero and separates the
+ * columns, so four disks in a line can be detected by shifting a mask by the
+ * distance between neighboring positions (1 for vertical, rows + 1 for
+ * horizontal, rows and rows + 2 for diagonal lines). Boards with up to 64
+ * bits are supported, e.g. 6 rows and 7 columns.
+ * <br>
+ * Moves can be taken back by {@link #undoDisk(int)}, which removes the top
+ * disk of a column. The Zobrist key is updated incrementally and is equal to
+ * the key of a {@link ConnectFourState} with the same disks.
+ */
+public class BitboardConnectFourState implements Cloneable {
+	/** Zobrist tables indexed by bit position, one per board size. */
+	private static final Map<Integer, long[]> ZOBRIST_KEYS = new ConcurrentHashMap<>();
+
+	private final int rows;
+	private final int cols;
+	/** Random numbers for disks of player 1 and 2 at each bit position, shared by all states of the same size. */
+	private final long[] zobristKeys;
+	private long disks1;
+	private long disks2;
+	private int moveCount;
+	/**
+	 * Indicates the utility of the state. 1: win for player 1, 0: win for
+	 * player 2, 0.5: draw, -1 for all non-terminal states.
+	 */
+	private double utility = -1;
+	private long hashKey;
+
+	public BitboardConnectFourState(int rows, int cols) {
+		if (cols * (rows + 1) > 64)
+			throw new IllegalArgumentException("Board too large for 64 bit masks.");
+		this.rows = rows;
+		this.cols = cols;
+		zobristKeys = ZOBRIST_KEYS.computeIfAbsent(rows << 8 | cols, size -> createZobristKeys());
+	}
+
+	/** Maps the keys of ConnectFourState, which indexes positions by row * cols + col, to bit positions. */
+	private long[] createZobristKeys() {
+		long[] keys = ConnectFourState.getZobristKeys(2 * rows * cols);
+		long[] result = new long[2 * 64];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int bit = getBitIndex(row, col);
+				result[2 * bit] = keys[2 * (row * cols + col)];
+				result[2 * bit + 1] = keys[2 * (row * cols + col) + 1];
+			}
+		}
+		return result;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getCols() {
+		return cols;
+	}
+
+	public double getUtility() {
+		return utility;
+	}
+
+	/** Returns the player number of the disk at the position (row 0 is the top row), or 0. */
+	public int getPlayerNum(int row, int col) {
+		long bit = 1L << getBitIndex(row, col);
+		return (disks1 & bit) != 0 ? 1 : (disks2 & bit) != 0 ? 2 : 0;
+	}
+
+	public int getPlayerToMove() {
+		return moveCount % 2 + 1;
+	}
+
+	public int getMoves() {
+		return moveCount;
+	}
+
+	/** Returns the bit mask of the disks of player 1 or 2. */
+	public long getDisks(int playerNum) {
+		return playerNum == 1 ? disks1 : disks2;
+	}
+
+	/**
+	 * Returns the Zobrist key of the board, which is updated incrementally by
+	 * {@link #dropDisk(int)} and {@link #undoDisk(int)}.
+	 */
+	public long getHashKey() {
+		return hashKey;
+	}
+
+	public boolean isColumnFull(int col) {
+		return ((disks1 | disks2) & (1L << getBitIndex(0, col))) != 0;
+	}
+
+	/** Drops a disk of the player to move into the column, unless it is full. */
+	public void dropDisk(int col) {
+		long move = getMoveBit(col);
+		if (move != 0) {
+			int playerNum = getPlayerToMove();
+			long disks;
+			if (playerNum == 1)
+				disks = disks1 |= move;
+			else
+				disks = disks2 |= move;
+			hashKey ^= zobristKeys[2 * Long.numberOfTrailingZeros(move) + playerNum - 1];
+			moveCount++;
+			if (hasFourInALine(disks))
+				utility = playerNum == 1 ? 1.0 : 0.0;
+			else if (moveCount == rows * cols)
+				utility = 0.5;
+		}
+	}
+
+	/**
+	 * Removes the top disk of the column. This takes back the last move if it
+	 * was made in the column.
+	 */
+	public void undoDisk(int col) {
+		long column = (disks1 | disks2) & getColumnMask(col);
+		if (column != 0) {
+			long top = Long.highestOneBit(column);
+			int playerNum = (disks1 & top) != 0 ? 1 : 2;
+			disks1 &= ~top;
+			disks2 &= ~top;
+			hashKey ^= zobristKeys[2 * Long.numberOfTrailingZeros(top) + playerNum - 1];
+			moveCount--;
+			utility = -1;
+		}
+	}
+
+	/** Returns true if a disk of the player in the column completes four in a line. */
+	public boolean isWinMoveFor(int col, int playerNum) {
+		long move = getMoveBit(col);
+		return move != 0 && hasFourInALine(getDisks(playerNum) | move);
+	}
+
+	/** Returns the bit of the lowest empty position in the column, or 0 if the column is full. */
+	private long getMoveBit(int col) {
+		return ((disks1 | disks2) + (1L << getBitIndex(rows - 1, col))) & getColumnMask(col);
+	}
+
+	private long getColumnMask(int col) {
+		return ((1L << rows) - 1) << (col * (rows + 1));
+	}
+
+	private int getBitIndex(int row, int col) {
+		return col * (rows + 1) + rows - 1 - row;
+	}
+
+	private boolean hasFourInALine(long disks) {
+		return hasFourInALine(disks, 1) || hasFourInALine(disks, rows) || hasFourInALine(disks, rows + 1)
+				|| hasFourInALine(disks, rows + 2);
+	}
+
+	private static boolean hasFourInALine(long disks, int shift) {
+		long pairs = disks & (disks >>> shift);
+		return (pairs & (pairs >>> 2 * shift)) != 0;
+	}
+
+	@Override
+	public BitboardConnectFourState clone() {
+		BitboardConnectFourState result = null;
+		try {
+			result = (BitboardConnectFourState) super.clone();
+		} catch (CloneNotSupportedException e) {
+			e.printStackTrace();
+		}
+		return result;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(hashKey);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj != null && getClass() == obj.getClass()) {
+			BitboardConnectFourState s = (BitboardConnectFourState) obj;
+			return rows == s.rows && cols == s.cols && disks1 == s.disks1 && disks2 == s.disks2;
+		}
+		return false;
+	}
+}
@@ -17,6 +17,7 @@ public class ConnectFourAIPlayer extends
 
 	public ConnectFourAIPlayer(Game<ConnectFourState, Integer, String> game, int time) {
 		super(game, 0.0, 1.0, time);
+		setTranspositionTableSize(1 << 18);
 	}
 
 	@Override
@@ -47,7 +48,8 @@ public class ConnectFourAIPlayer extends
 
 	/**
 	 * Orders actions with respect to the number of potential win positions
-	 * which profit from the action.
+	 * which profit from the action. The best action found by previous
+	 * searches is tried first (see super implementation).
 	 */
 	@Override
 	public List<Integer> orderActions(ConnectFourState state,
@@ -64,6 +66,6 @@ public class ConnectFourAIPlayer extends
 			for (ActionValuePair<Integer> pair : actionEstimates)
 				result.add(pair.getAction());
 		}
-		return result;
+		return super.orderActions(state, result, player, depth);
 	}
 }
@@ -92,4 +92,9 @@ public class ConnectFourGame implements Game<ConnectFourState, Integer, String>
 		}
 		return result;
 	}
+
+	@Override
+	public long getHashKey(ConnectFourState state) {
+		return state.getHashKey();
+	}
 }
@@ -1,5 +1,7 @@
 package aima.core.environment.connectfour;
 
+import java.util.Random;
+
 /**
  * A state of the Connect Four game is characterized by a board containing a
  * grid of spaces for disks, the next player to move, and some utility
@@ -10,6 +12,15 @@ package aima.core.environment.connectfour;
  * 
  */
 public class ConnectFourState implements Cloneable {
+	/** Seed for the random numbers of the Zobrist keys, equal for all states. */
+	private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+	/**
+	 * Random numbers for the Zobrist keys. The sequence does not depend on the
+	 * board size, so one table serves all states. It is created for the
+	 * standard board and grows on demand.
+	 */
+	private static long[] sharedZobristKeys = createZobristKeys(2 * 6 * 7);
+
 	private int cols;
 	/**
 	 * Uses special bit coding. First bit: disk of player 1, second bit: disk of
@@ -26,11 +37,38 @@ public class ConnectFourState implements Cloneable {
 	private double utility;
 	public int winPositions1;
 	public int winPositions2;
+	/**
+	 * Random numbers for disks of player 1 and 2 at each position, shared by
+	 * all states.
+	 */
+	private long[] zobristKeys;
+	private long hashKey;
 
 	public ConnectFourState(int rows, int cols) {
 		utility = -1;
 		this.cols = cols;
 		board = new byte[rows * cols];
+		zobristKeys = getZobristKeys(2 * board.length);
+	}
+
+	/**
+	 * Returns a table with at least <code>count</code> random numbers for
+	 * Zobrist keys. Disks of player 1 and 2 at position
+	 * <code>row * cols + col</code> use the numbers at index
+	 * <code>2 * (row * cols + col)</code> and the next one.
+	 */
+	static synchronized long[] getZobristKeys(int count) {
+		if (sharedZobristKeys.length < count)
+			sharedZobristKeys = createZobristKeys(count);
+		return sharedZobristKeys;
+	}
+
+	private static long[] createZobristKeys(int count) {
+		long[] result = new long[count];
+		Random random = new Random(ZOBRIST_SEED);
+		for (int i = 0; i < count; i++)
+			result[i] = random.nextLong();
+		return result;
 	}
 
 	public int getRows() {
@@ -57,6 +95,16 @@ public class ConnectFourState implements Cloneable {
 		return moveCount;
 	}
 
+	/**
+	 * Returns the Zobrist key of the board, the exclusive or of the random
+	 * numbers of all disks. It is updated incrementally by
+	 * {@link #dropDisk(int)}. The player to move is implied by the number of
+	 * disks.
+	 */
+	public long getHashKey() {
+		return hashKey;
+	}
+
 	public void dropDisk(int col) {
 		int playerNum = getPlayerToMove();
 		int row = getFreeRow(col);
@@ -75,6 +123,7 @@ public class ConnectFourState implements Cloneable {
 					utility = 0.0;
 			}
 			board[row * cols + col] = (byte) playerNum;
+			hashKey ^= zobristKeys[2 * (row * cols + col) + playerNum - 1];
 			if (utility == -1)
 				analyzeWinPositions(row, col);
 		}
@@ -0,0 +1,84 @@
+package aima.core.environment.tictactoe;
+
+import java.util.List;
+import java.util.Objects;
+
+import aima.core.search.adversarial.UndoableGame;
+import aima.core.util.datastructure.XYLocation;
+
+/**
+ * Implementation of the Tic-tac-toe game based on
+ * {@link BitboardTicTacToeState}. Players and actions are the same as in
+ * {@link TicTacToeGame}. Searches can apply and take back moves in place
+ * (see {@link UndoableGame}).
+ */
+public class BitboardTicTacToeGame implements UndoableGame<BitboardTicTacToeState, XYLocation, String> {
+
+	private static final String[] PLAYERS = new String[] { TicTacToeState.X, TicTacToeState.O };
+
+	private BitboardTicTacToeState initialState = new BitboardTicTacToeState();
+
+	@Override
+	public BitboardTicTacToeState getInitialState() {
+		return initialState;
+	}
+
+	@Override
+	public String[] getPlayers() {
+		return PLAYERS.clone();
+	}
+
+	@Override
+	public String getPlayer(BitboardTicTacToeState state) {
+		return state.getPlayerToMove();
+	}
+
+	@Override
+	public List<XYLocation> getActions(BitboardTicTacToeState state) {
+		return state.getUnMarkedPositions();
+	}
+
+	@Override
+	public BitboardTicTacToeState getResult(BitboardTicTacToeState state, XYLocation action) {
+		BitboardTicTacToeState result = state.clone();
+		result.mark(action);
+		return result;
+	}
+
+	@Override
+	public BitboardTicTacToeState copyState(BitboardTicTacToeState state) {
+		return state.clone();
+	}
+
+	@Override
+	public void makeMove(BitboardTicTacToeState state, XYLocation action) {
+		state.mark(action);
+	}
+
+	@Override
+	public void unmakeMove(BitboardTicTacToeState state, XYLocation action) {
+		state.unmark(action.getX(), action.getY());
+	}
+
+	@Override
+	public boolean isTerminal(BitboardTicTacToeState state) {
+		return state.getUtility() != -1;
+	}
+
+	@Override
+	public double getUtility(BitboardTicTacToeState state, String player) {
+		double result = state.getUtility();
+		if (result != -1) {
+			if (Objects.equals(player, TicTacToeState.O))
+				result = 1 - result;
+		} else {
+			throw new IllegalArgumentException("State is not terminal.");
+		}
+		return result;
+	}
+
+	@Override
+	public long getHashKey(BitboardTicTacToeState state) {
+		return state.getHashKey();
+	}
+}
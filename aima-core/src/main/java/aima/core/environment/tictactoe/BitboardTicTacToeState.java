@@ -0,0 +1,199 @@
+package aima.core.environment.tictactoe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import aima.core.util.datastructure.XYLocation;
+
+/**
+ * A state of the Tic-tac-toe game which represents the board by two bit
+ * masks, one for the marks of each player. Each row occupies four bits, the
+ * fourth of which is always zero and separates the rows. So three marks in a
+ * line can be detected by shifting a mask by the distance between neighboring
+ * positions (1 for rows, 4 for columns, 3 and 5 for the diagonals). Twelve
+ * bits are needed, so <code>int</code> masks are sufficient.
+ * <br>
+ * Marks can be removed by {@link #unmark(int, int)} to take back moves. The
+ * Zobrist key is updated incrementally and is equal to the key of a
+ * {@link TicTacToeState} with the same marks and player to move.
+ */
+public class BitboardTicTacToeState implements Cloneable {
+	/**
+	 * Random numbers for marks of X and O at each position and for O to move
+	 * (last entry), the same as in {@link TicTacToeState}.
+	 */
+	private static final long[] ZOBRIST_KEYS = new long[19];
+	static {
+		Random random = new Random(0x5DEECE66DL);
+		for (int i = 0; i < ZOBRIST_KEYS.length; i++)
+			ZOBRIST_KEYS[i] = random.nextLong();
+	}
+	/** Locations of all positions, ordered by column and row, shared by all states. */
+	private static final XYLocation[] LOCATIONS = new XYLocation[9];
+	static {
+		for (int col = 0; col < 3; col++)
+			for (int row = 0; row < 3; row++)
+				LOCATIONS[col * 3 + row] = new XYLocation(col, row);
+	}
+
+	private int marksX;
+	private int marksO;
+	private boolean oToMove;
+	private double utility = -1; // 1: win for X, 0: win for O, 0.5: draw
+	private long hashKey;
+
+	public BitboardTicTacToeState() {
+	}
+
+	/**
+	 * Creates a state for a board with values {@link TicTacToeState#X},
+	 * {@link TicTacToeState#O} and {@link TicTacToeState#EMPTY}, stored row by
+	 * row.
+	 */
+	public BitboardTicTacToeState(String[] board, String playerToMove) {
+		for (int i = 0; i < 9; i++) {
+			if (Objects.equals(board[i], TicTacToeState.X)) {
+				marksX |= 1 << getBitIndex(i % 3, i / 3);
+				hashKey ^= ZOBRIST_KEYS[2 * i];
+			} else if (Objects.equals(board[i], TicTacToeState.O)) {
+				marksO |= 1 << getBitIndex(i % 3, i / 3);
+				hashKey ^= ZOBRIST_KEYS[2 * i + 1];
+			}
+		}
+		oToMove = Objects.equals(playerToMove, TicTacToeState.O);
+		if (oToMove)
+			hashKey ^= ZOBRIST_KEYS[18];
+		analyzeUtility();
+	}
+
+	public String getPlayerToMove() {
+		return oToMove ? TicTacToeState.O : TicTacToeState.X;
+	}
+
+	public boolean isEmpty(int col, int row) {
+		return ((marksX | marksO) & (1 << getBitIndex(col, row))) == 0;
+	}
+
+	public String getValue(int col, int row) {
+		int bit = 1 << getBitIndex(col, row);
+		return (marksX & bit) != 0 ? TicTacToeState.X : (marksO & bit) != 0 ? TicTacToeState.O : TicTacToeState.EMPTY;
+	}
+
+	public double getUtility() {
+		return utility;
+	}
+
+	/**
+	 * Returns the Zobrist key of the state, which is updated incrementally by
+	 * each mark and unmark.
+	 */
+	public long getHashKey() {
+		return hashKey;
+	}
+
+	public void mark(XYLocation action) {
+		mark(action.getX(), action.getY());
+	}
+
+	/** Marks the position for the player to move, unless the game is over or the position is marked. */
+	public void mark(int col, int row) {
+		if (utility == -1 && isEmpty(col, row)) {
+			int bit = 1 << getBitIndex(col, row);
+			if (oToMove)
+				marksO |= bit;
+			else
+				marksX |= bit;
+			hashKey ^= ZOBRIST_KEYS[2 * (row * 3 + col) + (oToMove ? 1 : 0)] ^ ZOBRIST_KEYS[18];
+			oToMove = !oToMove;
+			analyzeUtility();
+		}
+	}
+
+	/** Removes the mark at the position and gives the move back to its player. */
+	public void unmark(int col, int row) {
+		int bit = 1 << getBitIndex(col, row);
+		if (((marksX | marksO) & bit) != 0) {
+			boolean markOfO = (marksO & bit) != 0;
+			marksX &= ~bit;
+			marksO &= ~bit;
+			hashKey ^= ZOBRIST_KEYS[2 * (row * 3 + col) + (markOfO ? 1 : 0)] ^ ZOBRIST_KEYS[18];
+			oToMove = markOfO;
+			utility = -1;
+		}
+	}
+
+	private void analyzeUtility() {
+		if (hasThreeInALine(marksX))
+			utility = 1;
+		else if (hasThreeInALine(marksO))
+			utility = 0;
+		else if (getNumberOfMarkedPositions() == 9)
+			utility = 0.5;
+	}
+
+	private static boolean hasThreeInALine(int marks) {
+		return hasThreeInALine(marks, 1) || hasThreeInALine(marks, 3) || hasThreeInALine(marks, 4)
+				|| hasThreeInALine(marks, 5);
+	}
+
+	private static boolean hasThreeInALine(int marks, int shift) {
+		return (marks & (marks >>> shift) & (marks >>> 2 * shift)) != 0;
+	}
+
+	public int getNumberOfMarkedPositions() {
+		return Integer.bitCount(marksX | marksO);
+	}
+
+	/** Returns the unmarked positions ordered by column and row, as {@link TicTacToeState} does. */
+	public List<XYLocation> getUnMarkedPositions() {
+		List<XYLocation> result = new ArrayList<>(9);
+		int marks = marksX | marksO;
+		for (XYLocation location : LOCATIONS)
+			if ((marks & (1 << getBitIndex(location.getX(), location.getY()))) == 0)
+				result.add(location);
+		return result;
+	}
+
+	@Override
+	public BitboardTicTacToeState clone() {
+		BitboardTicTacToeState copy = null;
+		try {
+			copy = (BitboardTicTacToeState) super.clone();
+		} catch (CloneNotSupportedException e) {
+			e.printStackTrace(); // should never happen...
+		}
+		return copy;
+	}
+
+	@Override
+	public boolean equals(Object anObj) {
+		if (anObj != null && anObj.getClass() == getClass()) {
+			BitboardTicTacToeState anotherState = (BitboardTicTacToeState) anObj;
+			return marksX == anotherState.marksX && marksO == anotherState.marksO;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * marksX + marksO;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int row = 0; row < 3; row++) {
+			for (int col = 0; col < 3; col++) {
+				builder.append(getValue(col, row)).append(" ");
+			}
+			builder.append("\n");
+		}
+		return builder.toString();
+	}
+
+	private static int getBitIndex(int col, int row) {
+		return row * 4 + col;
+	}
+}
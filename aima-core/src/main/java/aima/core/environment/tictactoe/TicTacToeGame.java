@@ -60,4 +60,9 @@ public class TicTacToeGame implements Game<TicTacToeState, XYLocation, String> {
 		}
 		return result;
 	}
+
+	@Override
+	public long getHashKey(TicTacToeState state) {
+		return state.getHashKey();
+	}
 }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 
 import aima.core.util.datastructure.XYLocation;
 
@@ -18,8 +19,19 @@ public class TicTacToeState implements Cloneable {
 	public static final String O = "O";
 	public static final String X = "X";
 	public static final String EMPTY = "-";
+	/**
+	 * Random numbers for marks of X and O at each position and for O to move
+	 * (last entry), used to compute Zobrist keys.
+	 */
+	private static final long[] ZOBRIST_KEYS = new long[19];
+	static {
+		Random random = new Random(0x5DEECE66DL);
+		for (int i = 0; i < ZOBRIST_KEYS.length; i++)
+			ZOBRIST_KEYS[i] = random.nextLong();
+	}
 	//
 	private String[] board;
+	private long hashKey;
 
 	private String playerToMove;
 	private double utility = -1; // 1: win for X, 0: win for O, 0.5: draw
@@ -34,6 +46,11 @@ public class TicTacToeState implements Cloneable {
 		this.playerToMove = (Objects.equals(playerToMove, X) ? O : X);
 		analyzeUtility();
 		this.playerToMove = playerToMove;
+		for (int i = 0; i < 9; i++)
+			if (!Objects.equals(board[i], EMPTY))
+				hashKey ^= getZobristKey(i, board[i]);
+		if (Objects.equals(playerToMove, O))
+			hashKey ^= ZOBRIST_KEYS[18];
 	}
 
 	public String getPlayerToMove() {
@@ -52,6 +69,14 @@ public class TicTacToeState implements Cloneable {
 		return utility;
 	}
 
+	/**
+	 * Returns the Zobrist key of the state, which is updated incrementally by
+	 * each mark.
+	 */
+	public long getHashKey() {
+		return hashKey;
+	}
+
 	public void mark(XYLocation action) {
 		mark(action.getX(), action.getY());
 	}
@@ -59,6 +84,7 @@ public class TicTacToeState implements Cloneable {
 	public void mark(int col, int row) {
 		if (utility == -1 && Objects.equals(getValue(col, row), EMPTY)) {
 			board[getAbsPosition(col, row)] = playerToMove;
+			hashKey ^= getZobristKey(getAbsPosition(col, row), playerToMove) ^ ZOBRIST_KEYS[18];
 			analyzeUtility();
 			playerToMove = (Objects.equals(playerToMove, X) ? O : X);
 		}
@@ -182,4 +208,8 @@ public class TicTacToeState implements Cloneable {
 	private int getAbsPosition(int col, int row) {
 		return row * 3 + col;
 	}
+
+	private static long getZobristKey(int absPosition, String player) {
+		return ZOBRIST_KEYS[2 * absPosition + (Objects.equals(player, X) ? 0 : 1)];
+	}
 }
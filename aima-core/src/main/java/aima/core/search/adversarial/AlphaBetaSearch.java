@@ -1,6 +1,8 @@
 package aima.core.search.adversarial;
 
 import aima.core.search.framework.Metrics;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.MetricsRegistry;
 
 /**
  * Artificial Intelligence A Modern Approach (3rd Ed.): Page 173.<br>
@@ -46,7 +48,9 @@ public class AlphaBetaSearch<S, A, P> implements AdversarialSearch<S, A> {
     public final static String METRICS_NODES_EXPANDED = "nodesExpanded";
 
     Game<S, A, P> game;
-    private Metrics metrics = new Metrics();
+    private final UndoableGame<S, A, P> undoableGame;
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Counter nodesExpanded = metrics.counter(METRICS_NODES_EXPANDED);
 
     /**
      * Creates a new search object for a given game.
@@ -56,19 +60,29 @@ public class AlphaBetaSearch<S, A, P> implements AdversarialSearch<S, A> {
         return new AlphaBetaSearch<STATE, ACTION, PLAYER>(game);
     }
 
+    /**
+     * Creates a new search object for a given game. If the game implements
+     * {@link UndoableGame}, the search modifies a copy of the root state with
+     * make and unmake moves instead of creating a new state for each move.
+     */
+    @SuppressWarnings("unchecked")
     public AlphaBetaSearch(Game<S, A, P> game) {
         this.game = game;
+        undoableGame = game instanceof UndoableGame ? (UndoableGame<S, A, P>) game : null;
     }
 
     @Override
     public A makeDecision(S state) {
-        metrics = new Metrics();
+        metrics.reset();
         A result = null;
         double resultValue = Double.NEGATIVE_INFINITY;
         P player = game.getPlayer(state);
+        if (undoableGame != null)
+            state = undoableGame.copyState(state);
         for (A action : game.getActions(state)) {
-            double value = minValue(game.getResult(state, action), player,
+            double value = minValue(play(state, action), player,
                     Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            takeBack(state, action);
             if (value > resultValue) {
                 result = action;
                 resultValue = value;
@@ -78,13 +92,14 @@ public class AlphaBetaSearch<S, A, P> implements AdversarialSearch<S, A> {
     }
 
     public double maxValue(S state, P player, double alpha, double beta) {
-        metrics.incrementInt(METRICS_NODES_EXPANDED);
+        nodesExpanded.increment();
         if (game.isTerminal(state))
             return game.getUtility(state, player);
         double value = Double.NEGATIVE_INFINITY;
         for (A action : game.getActions(state)) {
             value = Math.max(value, minValue( //
-                    game.getResult(state, action), player, alpha, beta));
+                    play(state, action), player, alpha, beta));
+            takeBack(state, action);
             if (value >= beta)
                 return value;
             alpha = Math.max(alpha, value);
@@ -93,13 +108,14 @@ public class AlphaBetaSearch<S, A, P> implements AdversarialSearch<S, A> {
     }
 
     public double minValue(S state, P player, double alpha, double beta) {
-        metrics.incrementInt(METRICS_NODES_EXPANDED);
+        nodesExpanded.increment();
         if (game.isTerminal(state))
             return game.getUtility(state, player);
         double value = Double.POSITIVE_INFINITY;
         for (A action : game.getActions(state)) {
             value = Math.min(value, maxValue( //
-                    game.getResult(state, action), player, alpha, beta));
+                    play(state, action), player, alpha, beta));
+            takeBack(state, action);
             if (value <= alpha)
                 return value;
             beta = Math.min(beta, value);
@@ -107,8 +123,25 @@ public class AlphaBetaSearch<S, A, P> implements AdversarialSearch<S, A> {
         return value;
     }
 
+    /**
+     * Returns the result of the action. For undoable games, the action is
+     * applied to the state itself, and {@link #takeBack(Object, Object)} must
+     * be called when the result is no longer needed.
+     */
+    private S play(S state, A action) {
+        if (undoableGame == null)
+            return game.getResult(state, action);
+        undoableGame.makeMove(state, action);
+        return state;
+    }
+
+    private void takeBack(S state, A action) {
+        if (undoableGame != null)
+            undoableGame.unmakeMove(state, action);
+    }
+
     @Override
     public Metrics getMetrics() {
-        return metrics;
+        return metrics.snapshot();
     }
 }
@@ -48,4 +48,17 @@ public interface Game<S, A, P> {
     boolean isTerminal(S state);
 
     double getUtility(S state, P player);
+
+    /**
+     * Returns a 64 bit key which identifies the given state, e.g. in a
+     * {@link TranspositionTable}. Equal states must have equal keys, and
+     * different states should have different keys with very high probability.
+     * Games can override this method to provide Zobrist keys, which are
+     * updated incrementally with each move. This default implementation
+     * returns the hash code of the state, which is often too weak for
+     * transposition tables.
+     */
+    default long getHashKey(S state) {
+        return state.hashCode();
+    }
 }
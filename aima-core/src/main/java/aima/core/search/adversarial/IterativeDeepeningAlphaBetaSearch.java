@@ -1,15 +1,36 @@
 package aima.core.search.adversarial;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import aima.core.search.adversarial.TranspositionTable.Bound;
+import aima.core.search.adversarial.TranspositionTable.Entry;
 import aima.core.search.framework.Metrics;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.MaxTracker;
+import aima.core.search.framework.metrics.MetricsRegistry;
 
 /**
  * Implements an iterative deepening Minimax search with alpha-beta pruning and
  * action ordering. Maximal computation time is specified in seconds. The
  * algorithm is implemented as template method and can be configured and tuned
  * by subclassing.
+ * <br>
+ * Optionally, results of previous searches are stored in a
+ * {@link TranspositionTable} (see {@link #setTranspositionTableSize(int)}).
+ * States are identified by the keys provided by
+ * {@link Game#getHashKey(Object)}. Stored values are used to cut off
+ * searches for states which were already searched with sufficient depth,
+ * and the best actions found are tried first by {@link #orderActions}. As
+ * the table is kept between subsequent depth limited searches and subsequent
+ * decisions, states which are reached by different move orders are searched
+ * only once.
+ * <br>
+ * If the game implements {@link UndoableGame}, the search modifies a copy of
+ * the root state with make and unmake moves instead of creating a new state
+ * for each move. Then, <code>eval</code> and <code>orderActions</code> must
+ * not keep references to the states they are called with.
  *
  * @param <S> Type which is used for states in the game.
  * @param <A> Type which is used for actions in the game.
@@ -20,16 +41,33 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
 
     public final static String METRICS_NODES_EXPANDED = "nodesExpanded";
     public final static String METRICS_MAX_DEPTH = "maxDepth";
+    /** Number of transposition table look-ups for non-leaf states. */
+    public final static String METRICS_TT_PROBES = "ttProbes";
+    /** Number of look-ups which found an entry for the state. */
+    public final static String METRICS_TT_HITS = "ttHits";
+    /** Number of look-ups which made a search of the state unnecessary. */
+    public final static String METRICS_TT_CUTOFFS = "ttCutoffs";
 
     protected Game<S, A, P> game;
+    private final UndoableGame<S, A, P> undoableGame;
     protected double utilMax;
     protected double utilMin;
     protected int currDepthLimit;
     private boolean heuristicEvaluationUsed; // indicates that non-terminal nodes have been evaluated.
     private Timer timer;
     private boolean logEnabled;
+    private TranspositionTable<A> transpositionTable;
+    private int transpositionTableSize; // size of the private table, which is created by the first decision
+    private boolean tableShared; // shared tables are maintained by their owner
+    private P tablePlayer; // player for whom the values in the table were computed
+    private int helperIndex; // 0 for stand-alone searches, see ParallelAlphaBetaSearch
 
-    private Metrics metrics = new Metrics();
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Counter nodesExpanded = metrics.counter(METRICS_NODES_EXPANDED);
+    private final MaxTracker maxDepth = metrics.maxTracker(METRICS_MAX_DEPTH);
+    private final Counter ttProbes = metrics.counter(METRICS_TT_PROBES);
+    private final Counter ttHits = metrics.counter(METRICS_TT_HITS);
+    private final Counter ttCutoffs = metrics.counter(METRICS_TT_CUTOFFS);
 
     /**
      * Creates a new search object for a given game.
@@ -60,9 +98,11 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
      *                situations with a safe winner.
      * @param time    Maximal computation time in seconds.
      */
+    @SuppressWarnings("unchecked")
     public IterativeDeepeningAlphaBetaSearch(Game<S, A, P> game, double utilMin, double utilMax,
                                              int time) {
         this.game = game;
+        undoableGame = game instanceof UndoableGame ? (UndoableGame<S, A, P>) game : null;
         this.utilMin = utilMin;
         this.utilMax = utilMax;
         this.timer = new Timer(time);
@@ -72,6 +112,52 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
         logEnabled = b;
     }
 
+    /**
+     * Enables a transposition table with the given number of entries (rounded
+     * up to a power of two) or disables it if the size is 0. Only enable it
+     * for games which provide strong hash keys, e.g. Zobrist keys. The table
+     * is allocated by the first decision, so that no memory is wasted if a
+     * shared table is set before.
+     */
+    public void setTranspositionTableSize(int size) {
+        transpositionTable = null;
+        transpositionTableSize = Math.max(size, 0);
+        tableShared = false;
+        tablePlayer = null;
+    }
+
+    /**
+     * Uses the given transposition table, which is shared with other searches.
+     * The owner of a shared table is responsible for clearing it when the
+     * player changes and for calling <code>nextGeneration</code> before each
+     * decision.
+     */
+    public void setTranspositionTable(TranspositionTable<A> table) {
+        transpositionTable = table;
+        transpositionTableSize = 0;
+        tableShared = true;
+        tablePlayer = null;
+    }
+
+    /**
+     * Configures this search as helper of a parallel search. Helpers with
+     * different indices start with different depth limits and action orders
+     * at the root, so that they fill the shared transposition table with
+     * different results.
+     */
+    void setHelperIndex(int helperIndex) {
+        this.helperIndex = helperIndex;
+    }
+
+    /**
+     * Cancels the current and all subsequent decisions until reset, e.g. to
+     * stop the helpers of a parallel search. Cancelled searches return as
+     * soon as possible as if the time limit was reached.
+     */
+    void setCancelled(boolean cancelled) {
+        timer.cancelled = cancelled;
+    }
+
     /**
      * Template method controlling the search. It is based on iterative
      * deepening and tries to make to a good decision in limited time. Credit
@@ -80,12 +166,26 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
      */
     @Override
     public A makeDecision(S state) {
-        metrics = new Metrics();
+        metrics.reset();
         StringBuffer logText = null;
         P player = game.getPlayer(state);
+        if (transpositionTable == null && transpositionTableSize > 0)
+            transpositionTable = new TranspositionTable<>(transpositionTableSize);
+        if (transpositionTable != null && !tableShared) {
+            if (!player.equals(tablePlayer))
+                transpositionTable.clear(); // values depend on the player
+            tablePlayer = player;
+            transpositionTable.nextGeneration();
+        }
+        if (undoableGame != null)
+            state = undoableGame.copyState(state);
         List<A> results = orderActions(state, game.getActions(state), player, 0);
+        if (helperIndex > 0 && !results.isEmpty()) {
+            results = new ArrayList<>(results);
+            Collections.rotate(results, helperIndex);
+        }
         timer.start();
-        currDepthLimit = 0;
+        currDepthLimit = helperIndex % 2;
         do {
             incrementDepthLimit();
             if (logEnabled)
@@ -93,8 +193,9 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
             heuristicEvaluationUsed = false;
             ActionStore<A> newResults = new ActionStore<>();
             for (A action : results) {
-                double value = minValue(game.getResult(state, action), player, Double.NEGATIVE_INFINITY,
+                double value = minValue(play(state, action), player, Double.NEGATIVE_INFINITY,
                         Double.POSITIVE_INFINITY, 1);
+                takeBack(state, action);
                 if (timer.timeOutOccurred())
                     break; // exit from action loop
                 newResults.add(action, value);
@@ -123,14 +224,34 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
         if (game.isTerminal(state) || depth >= currDepthLimit || timer.timeOutOccurred()) {
             return eval(state, player);
         } else {
+            Entry<A> entry = probe(state, depth);
+            if (entry != null) {
+                if (entry.getBound() != Bound.UPPER)
+                    alpha = Math.max(alpha, entry.getValue());
+                if (entry.getBound() != Bound.LOWER)
+                    beta = Math.min(beta, entry.getValue());
+                if (alpha >= beta)
+                    return useStoredValue(entry);
+            }
+            double alphaStart = alpha;
+            boolean evaluationUsed = heuristicEvaluationUsed;
+            heuristicEvaluationUsed = false;
             double value = Double.NEGATIVE_INFINITY;
+            A bestAction = null;
             for (A action : orderActions(state, game.getActions(state), player, depth)) {
-                value = Math.max(value, minValue(game.getResult(state, action), //
-                        player, alpha, beta, depth + 1));
+                double actionValue = minValue(play(state, action), //
+                        player, alpha, beta, depth + 1);
+                takeBack(state, action);
+                if (bestAction == null || actionValue > value) {
+                    value = actionValue;
+                    bestAction = action;
+                }
                 if (value >= beta)
-                    return value;
+                    break;
                 alpha = Math.max(alpha, value);
             }
+            store(state, depth, value, alphaStart, beta, bestAction);
+            heuristicEvaluationUsed |= evaluationUsed;
             return value;
         }
     }
@@ -141,21 +262,77 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
         if (game.isTerminal(state) || depth >= currDepthLimit || timer.timeOutOccurred()) {
             return eval(state, player);
         } else {
+            Entry<A> entry = probe(state, depth);
+            if (entry != null) {
+                if (entry.getBound() != Bound.UPPER)
+                    alpha = Math.max(alpha, entry.getValue());
+                if (entry.getBound() != Bound.LOWER)
+                    beta = Math.min(beta, entry.getValue());
+                if (alpha >= beta)
+                    return useStoredValue(entry);
+            }
+            double betaStart = beta;
+            boolean evaluationUsed = heuristicEvaluationUsed;
+            heuristicEvaluationUsed = false;
             double value = Double.POSITIVE_INFINITY;
+            A bestAction = null;
             for (A action : orderActions(state, game.getActions(state), player, depth)) {
-                value = Math.min(value, maxValue(game.getResult(state, action), //
-                        player, alpha, beta, depth + 1));
+                double actionValue = maxValue(play(state, action), //
+                        player, alpha, beta, depth + 1);
+                takeBack(state, action);
+                if (bestAction == null || actionValue < value) {
+                    value = actionValue;
+                    bestAction = action;
+                }
                 if (value <= alpha)
-                    return value;
+                    break;
                 beta = Math.min(beta, value);
             }
+            store(state, depth, value, alpha, betaStart, bestAction);
+            heuristicEvaluationUsed |= evaluationUsed;
             return value;
         }
     }
 
+    /**
+     * Looks up the state in the transposition table and returns an entry
+     * whose value was computed with sufficient search depth, or null.
+     */
+    private Entry<A> probe(S state, int depth) {
+        if (transpositionTable == null)
+            return null;
+        ttProbes.increment();
+        Entry<A> entry = transpositionTable.get(game.getHashKey(state));
+        if (entry != null) {
+            ttHits.increment();
+            if (entry.getDepth() < currDepthLimit - depth)
+                entry = null;
+        }
+        return entry;
+    }
+
+    private double useStoredValue(Entry<A> entry) {
+        ttCutoffs.increment();
+        if (entry.getDepth() != TranspositionTable.UNLIMITED_DEPTH)
+            heuristicEvaluationUsed = true;
+        return entry.getValue();
+    }
+
+    /**
+     * Stores the value of a completely searched state. Values which were
+     * obtained without heuristic evaluation are valid for all search depths.
+     */
+    private void store(S state, int depth, double value, double alpha, double beta, A bestAction) {
+        if (transpositionTable != null && !timer.timeOutOccurred()) {
+            Bound bound = value <= alpha ? Bound.UPPER : value >= beta ? Bound.LOWER : Bound.EXACT;
+            int searchDepth = heuristicEvaluationUsed ? currDepthLimit - depth : TranspositionTable.UNLIMITED_DEPTH;
+            transpositionTable.store(game.getHashKey(state), value, bound, searchDepth, bestAction);
+        }
+    }
+
     private void updateMetrics(int depth) {
-        metrics.incrementInt(METRICS_NODES_EXPANDED);
-        metrics.set(METRICS_MAX_DEPTH, Math.max(metrics.getInt(METRICS_MAX_DEPTH), depth));
+        nodesExpanded.increment();
+        maxDepth.update(depth);
     }
 
     /**
@@ -163,7 +340,7 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
      */
     @Override
     public Metrics getMetrics() {
-        return metrics;
+        return metrics.snapshot();
     }
 
     /**
@@ -210,19 +387,52 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
     }
 
     /**
-     * Primitive operation for action ordering. This implementation preserves
-     * the original order (provided by the game).
+     * Primitive operation for action ordering. This implementation moves the
+     * best action stored in the transposition table (if enabled) to the front
+     * and otherwise preserves the original order (provided by the game).
+     * Overriding implementations should call it for their result.
      */
     public List<A> orderActions(S state, List<A> actions, P player, int depth) {
+        if (transpositionTable != null) {
+            Entry<A> entry = transpositionTable.get(game.getHashKey(state));
+            A bestAction = entry != null ? entry.getAction() : null;
+            int idx = bestAction != null ? actions.indexOf(bestAction) : -1;
+            if (idx > 0) {
+                List<A> result = new ArrayList<>(actions.size());
+                result.add(bestAction);
+                for (int i = 0; i < actions.size(); i++)
+                    if (i != idx)
+                        result.add(actions.get(i));
+                return result;
+            }
+        }
         return actions;
     }
 
+    /**
+     * Returns the result of the action. For undoable games, the action is
+     * applied to the state itself, and {@link #takeBack(Object, Object)} must
+     * be called when the result is no longer needed.
+     */
+    private S play(S state, A action) {
+        if (undoableGame == null)
+            return game.getResult(state, action);
+        undoableGame.makeMove(state, action);
+        return state;
+    }
+
+    private void takeBack(S state, A action) {
+        if (undoableGame != null)
+            undoableGame.unmakeMove(state, action);
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // nested helper classes
 
     private static class Timer {
         private long duration;
         private long startTime;
+        private volatile boolean cancelled;
 
         Timer(int maxSeconds) {
             this.duration = 1000 * maxSeconds;
@@ -233,7 +443,7 @@ public class IterativeDeepeningAlphaBetaSearch<S, A, P> implements AdversarialSe
         }
 
         boolean timeOutOccurred() {
-            return System.currentTimeMillis() > startTime + duration;
+            return cancelled || System.currentTimeMillis() > startTime + duration;
         }
     }
 
@@ -1,6 +1,8 @@
 package aima.core.search.adversarial;
 
 import aima.core.search.framework.Metrics;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.MetricsRegistry;
 
 /**
  * Artificial Intelligence A Modern Approach (3rd Edition): page 169.<br>
@@ -44,7 +46,8 @@ public class MinimaxSearch<S, A, P> implements AdversarialSearch<S, A> {
 	public final static String METRICS_NODES_EXPANDED = "nodesExpanded";
 
 	private Game<S, A, P> game;
-	private Metrics metrics = new Metrics();
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final Counter nodesExpanded = metrics.counter(METRICS_NODES_EXPANDED);
 
 	/**
 	 * Creates a new search object for a given game.
@@ -59,7 +62,7 @@ public class MinimaxSearch<S, A, P> implements AdversarialSearch<S, A> {
 
 	@Override
 	public A makeDecision(S state) {
-		metrics = new Metrics();
+		metrics.reset();
 		A result = null;
 		double resultValue = Double.NEGATIVE_INFINITY;
 		P player = game.getPlayer(state);
@@ -76,7 +79,7 @@ public class MinimaxSearch<S, A, P> implements AdversarialSearch<S, A> {
 //	  Note: This version looks cleaner but expands almost twice as much nodes (Comparator...)
 //    @Override
 //    public A makeDecision(S state) {
-//        metrics = new Metrics();
+//        metrics.reset();
 //        P player = game.getPlayer(state);
 //        return game.getActions(state).stream()
 //                .max(Comparator.comparing(action -> minValue(game.getResult(state, action), player)))
@@ -84,7 +87,7 @@ public class MinimaxSearch<S, A, P> implements AdversarialSearch<S, A> {
 //    }
 
 	public double maxValue(S state, P player) { // returns an utility value
-		metrics.incrementInt(METRICS_NODES_EXPANDED);
+		nodesExpanded.increment();
 		if (game.isTerminal(state))
 			return game.getUtility(state, player);
 		return game.getActions(state).stream()
@@ -93,7 +96,7 @@ public class MinimaxSearch<S, A, P> implements AdversarialSearch<S, A> {
 	}
 
 	public double minValue(S state, P player) { // returns an utility value
-		metrics.incrementInt(METRICS_NODES_EXPANDED);
+		nodesExpanded.increment();
 		if (game.isTerminal(state))
 			return game.getUtility(state, player);
 		return game.getActions(state).stream()
@@ -103,6 +106,6 @@ public class MinimaxSearch<S, A, P> implements AdversarialSearch<S, A> {
 
 	@Override
 	public Metrics getMetrics() {
-		return metrics;
+		return metrics.snapshot();
 	}
 }
@@ -2,12 +2,16 @@ package aima.core.search.adversarial;
 
 import aima.core.search.framework.GameTree;
 import aima.core.search.framework.Metrics;
-import aima.core.search.framework.Node;
-import aima.core.search.framework.NodeFactory;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.Gauge;
+import aima.core.search.framework.metrics.MetricsRegistry;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Artificial Intelligence A Modern Approach (4th Edition): page ???.<br>
@@ -28,6 +32,18 @@ import java.util.Random;
  * Figure ?.? The Monte Carlo tree search algorithm. A game tree, tree, is initialized, and
  * then we repeat the cycle of SELECT / EXPAND / SIMULATE/ BACKPROPAGATE until we run  out
  * of time, and return the move that led to the node with the highest number of playouts.
+ * <br>
+ * This implementation stores the tree in a {@link GameTree}, which keeps links
+ * and statistics in arrays. Selection is based on the upper confidence bound
+ * (UCT). Each node counts the rewards of its playouts from the point of view
+ * of the player who made the move leading to the node, so both players select
+ * their best moves. Utilities are used as rewards, so they should range from
+ * 0 (loss) to 1 (win). The search runs until the maximal number of playouts or
+ * the time limit is reached. The subtree of the state passed to the next call
+ * of <code>makeDecision</code> is reused if it was part of the previous tree
+ * (e.g. the state after the chosen move and the reply of the opponent).
+ * Playouts of games which implement {@link UndoableGame} modify a copy of the
+ * start state instead of creating a new state for each move.
  *
  *
  * @author Suyash Jain
@@ -41,106 +57,200 @@ import java.util.Random;
  */
 
 public class MonteCarloTreeSearch<S, A, P> implements AdversarialSearch<S, A> {
-	private int iterations = 0;
-	private Game<S, A, P> game;
-	private GameTree<S, A> tree;
-	
+	public static final String METRICS_PLAYOUTS = "playouts";
+	public static final String METRICS_PLAYOUTS_PER_SECOND = "playoutsPerSecond";
+	/** Number of tree nodes (including unexpanded children) after the last decision. */
+	public static final String METRICS_TREE_SIZE = "treeSize";
+	/** Number of tree nodes reused from the previous decision. */
+	public static final String METRICS_REUSED_NODES = "reusedNodes";
+
+	private final int iterations;
+	private final Game<S, A, P> game;
+	private final UndoableGame<S, A, P> undoableGame; // non-null if playouts can modify states in place
+	private final P[] players;
+	private final double[] utilities; // utilities of the current playout for each player
+	private final GameTree<S, A> tree = new GameTree<>();
+	private long timeLimitNanos = Long.MAX_VALUE;
+	private double explorationConstant = Math.sqrt(2);
+	private boolean subtreeReuseEnabled = true;
+	private Random random = new Random();
+
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final Counter playouts = metrics.counter(METRICS_PLAYOUTS);
+	private final DoubleGauge playoutsPerSecond = metrics.doubleGauge(METRICS_PLAYOUTS_PER_SECOND);
+	private final Gauge treeSize = metrics.gauge(METRICS_TREE_SIZE);
+	private final Gauge reusedNodes = metrics.gauge(METRICS_REUSED_NODES);
+
+	/** Creates a search which performs the given number of playouts per decision. */
+	@SuppressWarnings("unchecked")
 	public MonteCarloTreeSearch(Game<S, A, P> game, int iterations) {
 		this.game = game;
+		undoableGame = game instanceof UndoableGame ? (UndoableGame<S, A, P>) game : null;
 		this.iterations = iterations;
-		tree = new GameTree<>();
+		players = game.getPlayers();
+		utilities = new double[players.length];
+	}
+
+	/** Creates a search which performs as many playouts as possible within the given time. */
+	public MonteCarloTreeSearch(Game<S, A, P> game, long time, TimeUnit unit) {
+		this(game, Integer.MAX_VALUE);
+		setTimeLimit(time, unit);
+	}
+
+	/**
+	 * Limits the time for each decision. At least one playout is performed.
+	 * Use <code>Long.MAX_VALUE</code> for no limit.
+	 */
+	public void setTimeLimit(long time, TimeUnit unit) {
+		timeLimitNanos = time == Long.MAX_VALUE ? Long.MAX_VALUE : unit.toNanos(time);
 	}
-	
+
+	/** Sets the constant c of UCT, which controls exploration (default: sqrt(2)). */
+	public void setExplorationConstant(double c) {
+		explorationConstant = c;
+	}
+
+	/** Enables or disables reuse of the subtree of the previous decision (default: enabled). */
+	public void setSubtreeReuseEnabled(boolean b) {
+		subtreeReuseEnabled = b;
+	}
+
+	/** Sets the random number generator for expansion and playouts, e.g. for reproducible results. */
+	public void setRandom(Random random) {
+		this.random = random;
+	}
+
 	@Override
 	public A makeDecision(S state) {
+		metrics.reset();
+		long startTime = System.nanoTime();
+		long deadline = timeLimitNanos == Long.MAX_VALUE || startTime + timeLimitNanos < startTime
+				? Long.MAX_VALUE : startTime + timeLimitNanos;
 		// tree <-- NODE(state)
-		tree.addRoot(state);
+		int root = initTree(state);
 		// while TIME-REMAINING() do
-		while (iterations != 0) {
-			// leaf <-- SELECT(tree)
-			Node<S, A> leaf = select(tree);
-			// child <-- EXPAND(leaf)
-			Node<S, A> child = expand(leaf);
+		int count = 0;
+		while (count < iterations && (count == 0 || System.nanoTime() < deadline)) {
+			// leaf <-- SELECT(tree), child <-- EXPAND(leaf)
+			int child = selectAndExpand(root);
 			// result <-- SIMULATE(child)
-			// result = true if player of root node wins
-			boolean result = simulate(child);
+			S result = simulate(tree.getState(child));
 			// BACKPROPAGATE(result, child)
 			backpropagate(result, child);
-			// repeat the four steps for set number of iterations
-			--iterations;
+			count++;
 		}
+		playouts.add(count);
+		playoutsPerSecond.set(count * 1e9 / Math.max(1, System.nanoTime() - startTime));
+		treeSize.set(tree.size());
 		// return the move in ACTIONS(state) whose node has highest number of playouts
-		return bestAction(tree.getRoot());
+		int bestChild = tree.getChildWithMaxPlayouts(root);
+		return bestChild != GameTree.NONE ? tree.getAction(bestChild) : null;
 	}
-	
-	private Node<S, A> select(GameTree gameTree) {
-		Node<S, A> node = gameTree.getRoot();
-		while (!game.isTerminal(node.getState()) && isNodeFullyExpanded(node)) {
-			node = gameTree.getChildWithMaxUCT(node);
+
+	/**
+	 * Returns the root of the tree for the given state. The subtree of a node
+	 * of the previous tree with the same state (searched up to two moves
+	 * below the previous root) is reused.
+	 */
+	private int initTree(S state) {
+		if (subtreeReuseEnabled && tree.getRoot() != GameTree.NONE) {
+			int node = findNode(tree.getRoot(), state, 2);
+			if (node != GameTree.NONE) {
+				int root = tree.reRoot(node);
+				reusedNodes.set(tree.size());
+				return root;
+			}
 		}
-		return node;
+		return tree.addRoot(state);
 	}
-	
-	private Node<S, A> expand(Node<S, A> leaf) {
-		if (game.isTerminal(leaf.getState())) return leaf;
-		else {
-			Node<S, A> child = randomlySelectUnvisitedChild(leaf);
-			return child;
+
+	private int findNode(int node, S state, int depth) {
+		if (state.equals(tree.getState(node)))
+			return node;
+		if (depth > 0) {
+			for (int i = 0; i < tree.getExpandedChildCount(node); i++) {
+				int result = findNode(tree.getChild(node, i), state, depth - 1);
+				if (result != GameTree.NONE)
+					return result;
+			}
 		}
+		return GameTree.NONE;
 	}
-	
-	private boolean simulate(Node<S, A> node) {
-		while (!game.isTerminal(node.getState())) {
-			Random rand = new Random();
-			A a = game.getActions(node.getState()).get(rand.nextInt(game.getActions(node.getState()).size()));
-			S result = game.getResult(node.getState(), a);
-			NodeFactory nodeFactory = new NodeFactory();
-			node = nodeFactory.createNode(result);
+
+	/**
+	 * Descends from the root to the first node which is not fully expanded
+	 * (choosing children by UCT) and expands one of its children at random.
+	 * Returns the new child, or a terminal node.
+	 */
+	private int selectAndExpand(int root) {
+		int node = root;
+		while (true) {
+			if (!tree.hasChildren(node)) {
+				S state = tree.getState(node);
+				tree.addChildren(node, game.isTerminal(state) ? Collections.emptyList() : game.getActions(state));
+			}
+			int childCount = tree.getChildCount(node);
+			if (childCount == 0)
+				return node; // terminal
+			int expandedCount = tree.getExpandedChildCount(node);
+			if (expandedCount < childCount) {
+				int i = expandedCount + random.nextInt(childCount - expandedCount);
+				S childState = game.getResult(tree.getState(node), tree.getAction(tree.getChild(node, i)));
+				return tree.expandChild(node, i, childState);
+			}
+			node = tree.getChildWithMaxUCT(node, explorationConstant);
 		}
-		if (game.getUtility(node.getState(), game.getPlayer(tree.getRoot().getState())) > 0) return true;
-		else return false;
 	}
-	
-	private void backpropagate(boolean result, Node<S, A> node) {
-		tree.updateStats(result, node);
-		if (tree.getParent(node) != null) backpropagate(result, tree.getParent(node));
+
+	/**
+	 * Plays random moves until the game ends and returns the terminal state.
+	 * For undoable games, the moves are applied to one copy of the state.
+	 */
+	private S simulate(S state) {
+		if (undoableGame != null && !game.isTerminal(state)) {
+			S copy = undoableGame.copyState(state);
+			do {
+				List<A> actions = game.getActions(copy);
+				undoableGame.makeMove(copy, actions.get(random.nextInt(actions.size())));
+			} while (!game.isTerminal(copy));
+			return copy;
+		}
+		while (!game.isTerminal(state)) {
+			List<A> actions = game.getActions(state);
+			state = game.getResult(state, actions.get(random.nextInt(actions.size())));
+		}
+		return state;
 	}
-	
-	private A bestAction(Node<S, A> root) {
-		Node<S, A> bestChild = tree.getChildWithMaxPlayouts(root);
-		for (A a : game.getActions(root.getState())) {
-			S result = game.getResult(root.getState(), a);
-			if (result.equals(bestChild.getState())) return a;
+
+	private void backpropagate(S result, int node) {
+		Arrays.fill(utilities, Double.NaN);
+		int parent;
+		while ((parent = tree.getParent(node)) != GameTree.NONE) {
+			tree.updateStats(node, getUtility(result, game.getPlayer(tree.getState(parent))));
+			node = parent;
 		}
-		return null;
+		tree.updateStats(node, 0);
 	}
-	
-	private boolean isNodeFullyExpanded(Node<S, A> node) {
-		List<S> visitedChildren = tree.getVisitedChildren(node);
-		for (A a : game.getActions(node.getState())) {
-			S result = game.getResult(node.getState(), a);
-			if (!visitedChildren.contains(result)) {
-				return false;
+
+	/** Returns the utility of the terminal state for the player, computed once per playout. */
+	private double getUtility(S terminalState, P player) {
+		for (int i = 0; i < players.length; i++) {
+			if (players[i].equals(player)) {
+				if (Double.isNaN(utilities[i]))
+					utilities[i] = game.getUtility(terminalState, player);
+				return utilities[i];
 			}
 		}
-		return true;
+		return game.getUtility(terminalState, player);
 	}
-	
-	
-	private Node<S, A> randomlySelectUnvisitedChild(Node<S, A> node) {
-		List<S> unvisitedChildren = new ArrayList<>();
-		List<S> visitedChildren = tree.getVisitedChildren(node);
-		for (A a : game.getActions(node.getState())) {
-			S result = game.getResult(node.getState(), a);
-			if (!visitedChildren.contains(result)) unvisitedChildren.add(result);
-		}
-		Random rand = new Random();
-		Node<S, A> newChild = tree.addChild(node, unvisitedChildren.get(rand.nextInt(unvisitedChildren.size())));
-		return newChild;
+
+	/** Returns the tree of the last decision (e.g. for merging the results of several searches). */
+	GameTree<S, A> getTree() {
+		return tree;
 	}
-	
+
 	@Override
 	public Metrics getMetrics() {
-		return null;
+		return metrics.snapshot();
 	}
 }
@@ -0,0 +1,147 @@
+package aima.core.search.adversarial;
+
+import aima.core.search.framework.Metrics;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.Gauge;
+import aima.core.search.framework.metrics.MaxTracker;
+import aima.core.search.framework.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Multi-threaded iterative deepening alpha-beta search based on Lazy SMP. Each
+ * thread runs its own {@link IterativeDeepeningAlphaBetaSearch} on the same
+ * root state, and all threads share one {@link TranspositionTable}. The
+ * threads do not communicate otherwise. Results which one thread stores in
+ * the table cut off or reorder the searches of the other threads, so that the
+ * main thread reaches greater depths within its time limit. Helper threads
+ * start with different depth limits and root action orders to increase the
+ * diversity of the stored results.
+ * <br>
+ * The decision of the main thread is returned. The helpers are stopped as
+ * soon as the main thread has made its decision, so the time limit of the
+ * searches is respected. The game and the methods of the searches (e.g.
+ * <code>eval</code> and <code>orderActions</code>) are called concurrently
+ * and must be thread-safe. The game must provide strong hash keys (see
+ * {@link Game#getHashKey(Object)}).
+ *
+ * @param <S> Type which is used for states in the game.
+ * @param <A> Type which is used for actions in the game.
+ * @param <P> Type which is used for players in the game.
+ */
+public class ParallelAlphaBetaSearch<S, A, P> implements AdversarialSearch<S, A> {
+
+    public final static String METRICS_NODES_EXPANDED = IterativeDeepeningAlphaBetaSearch.METRICS_NODES_EXPANDED;
+    public final static String METRICS_MAX_DEPTH = IterativeDeepeningAlphaBetaSearch.METRICS_MAX_DEPTH;
+    public final static String METRICS_TT_PROBES = IterativeDeepeningAlphaBetaSearch.METRICS_TT_PROBES;
+    public final static String METRICS_TT_HITS = IterativeDeepeningAlphaBetaSearch.METRICS_TT_HITS;
+    public final static String METRICS_TT_CUTOFFS = IterativeDeepeningAlphaBetaSearch.METRICS_TT_CUTOFFS;
+    /** Maximal depth reached by the main thread (helpers may search deeper). */
+    public final static String METRICS_MAIN_DEPTH = "mainDepth";
+    public final static String METRICS_THREADS = "threads";
+
+    private final List<IterativeDeepeningAlphaBetaSearch<S, A, P>> searches = new ArrayList<>();
+    private final TranspositionTable<A> transpositionTable;
+    private P tablePlayer; // player for whom the values in the table were computed
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Counter nodesExpanded = metrics.counter(METRICS_NODES_EXPANDED);
+    private final MaxTracker maxDepth = metrics.maxTracker(METRICS_MAX_DEPTH);
+    private final Counter ttProbes = metrics.counter(METRICS_TT_PROBES);
+    private final Counter ttHits = metrics.counter(METRICS_TT_HITS);
+    private final Counter ttCutoffs = metrics.counter(METRICS_TT_CUTOFFS);
+    private final Gauge mainDepth = metrics.gauge(METRICS_MAIN_DEPTH);
+    private final Gauge threads = metrics.gauge(METRICS_THREADS);
+
+    /**
+     * Creates a search which uses one thread per available processor and a
+     * transposition table with 2^20 entries.
+     */
+    public ParallelAlphaBetaSearch(Supplier<? extends IterativeDeepeningAlphaBetaSearch<S, A, P>> searchFactory) {
+        this(searchFactory, Runtime.getRuntime().availableProcessors(), 1 << 20);
+    }
+
+    /**
+     * Creates a parallel search.
+     *
+     * @param searchFactory Creates the search for each thread. All searches
+     *                      must have the same game and time limit.
+     * @param threadCount   Number of threads including the main thread.
+     * @param tableSize     Number of entries of the shared transposition
+     *                      table.
+     */
+    public ParallelAlphaBetaSearch(Supplier<? extends IterativeDeepeningAlphaBetaSearch<S, A, P>> searchFactory,
+                                   int threadCount, int tableSize) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("At least one thread is needed.");
+        transpositionTable = new TranspositionTable<>(tableSize);
+        for (int i = 0; i < threadCount; i++) {
+            IterativeDeepeningAlphaBetaSearch<S, A, P> search = searchFactory.get();
+            search.setTranspositionTable(transpositionTable);
+            search.setHelperIndex(i);
+            searches.add(search);
+        }
+    }
+
+    @Override
+    public A makeDecision(S state) {
+        metrics.reset();
+        IterativeDeepeningAlphaBetaSearch<S, A, P> main = searches.get(0);
+        P player = main.game.getPlayer(state);
+        if (!player.equals(tablePlayer))
+            transpositionTable.clear(); // values depend on the player
+        tablePlayer = player;
+        transpositionTable.nextGeneration();
+
+        List<Thread> helperThreads = new ArrayList<>();
+        for (int i = 1; i < searches.size(); i++) {
+            IterativeDeepeningAlphaBetaSearch<S, A, P> helper = searches.get(i);
+            helper.setCancelled(false);
+            Thread thread = new Thread(() -> helper.makeDecision(state), "alpha-beta-helper-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            helperThreads.add(thread);
+        }
+        A result;
+        try {
+            result = main.makeDecision(state);
+        } finally {
+            for (int i = 1; i < searches.size(); i++)
+                searches.get(i).setCancelled(true);
+            boolean interrupted = false;
+            for (Thread thread : helperThreads) {
+                while (thread.isAlive()) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        for (IterativeDeepeningAlphaBetaSearch<S, A, P> search : searches) {
+            Metrics m = search.getMetrics();
+            nodesExpanded.add(m.getLong(METRICS_NODES_EXPANDED));
+            maxDepth.update(m.getInt(METRICS_MAX_DEPTH));
+            ttProbes.add(m.getLong(METRICS_TT_PROBES));
+            ttHits.add(m.getLong(METRICS_TT_HITS));
+            ttCutoffs.add(m.getLong(METRICS_TT_CUTOFFS));
+        }
+        mainDepth.set(main.getMetrics().getInt(METRICS_MAX_DEPTH));
+        threads.set(searches.size());
+        return result;
+    }
+
+    /**
+     * Returns the metrics of the last decision. Counters contain the sums over
+     * all threads.
+     */
+    @Override
+    public Metrics getMetrics() {
+        return metrics.snapshot();
+    }
+}
@@ -0,0 +1,536 @@
+package aima.core.search.adversarial;
+
+import aima.core.search.framework.GameTree;
+import aima.core.search.framework.Metrics;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.Gauge;
+import aima.core.search.framework.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.IntConsumer;
+
+/**
+ * Multi-threaded Monte Carlo tree search. Two kinds of parallelization are
+ * supported:
+ * <ul>
+ * <li>{@link Parallelization#ROOT}: Each thread builds its own tree with a
+ * {@link MonteCarloTreeSearch}, and the threads do not communicate during the
+ * search. At decision time, the playouts of the root children of all trees are
+ * summed up per action, and the action with the most playouts is returned.</li>
+ * <li>{@link Parallelization#TREE}: All threads build one shared tree. Node
+ * statistics are updated by atomic compare-and-set operations, so no locks are
+ * needed. During selection, a thread adds a virtual loss to each node on its
+ * path, which lowers the UCT value of the node until the result of the playout
+ * is backpropagated. So other threads are guided to different paths.</li>
+ * </ul>
+ * As in {@link MonteCarloTreeSearch}, rewards are counted from the point of
+ * view of the player who made the move leading to a node, and the subtree of
+ * the state passed to the next call of <code>makeDecision</code> is reused if
+ * it was part of the previous tree. The number of playouts per decision is
+ * limited for all threads together. The game is called concurrently and must
+ * be thread-safe. Actions must implement <code>equals</code> and
+ * <code>hashCode</code>, so that the results of the trees can be merged.
+ *
+ * @param <S> Type which is used for states in the game.
+ * @param <A> Type which is used for actions in the game.
+ * @param <P> Type which is used for players in the game.
+ */
+public class ParallelMonteCarloTreeSearch<S, A, P> implements AdversarialSearch<S, A> {
+
+	public enum Parallelization {
+		/** Independent trees, one per thread, merged at decision time. */
+		ROOT,
+		/** One shared tree with virtual loss and atomic node statistics. */
+		TREE
+	}
+
+	public static final String METRICS_PLAYOUTS = MonteCarloTreeSearch.METRICS_PLAYOUTS;
+	public static final String METRICS_PLAYOUTS_PER_SECOND = MonteCarloTreeSearch.METRICS_PLAYOUTS_PER_SECOND;
+	/** Number of nodes of all trees after the last decision. */
+	public static final String METRICS_TREE_SIZE = MonteCarloTreeSearch.METRICS_TREE_SIZE;
+	public static final String METRICS_REUSED_NODES = MonteCarloTreeSearch.METRICS_REUSED_NODES;
+	public static final String METRICS_THREADS = "threads";
+	/**
+	 * Prefix of the names of the per-thread playout counts. The count of
+	 * thread i is reported as <code>METRICS_THREAD_PLAYOUTS + i</code>.
+	 */
+	public static final String METRICS_THREAD_PLAYOUTS = "threadPlayouts";
+
+	private final Game<S, A, P> game;
+	private final UndoableGame<S, A, P> undoableGame;
+	private final P[] players;
+	private final Parallelization parallelization;
+	private final int threadCount;
+	private final int iterations;
+	private long timeLimitNanos = Long.MAX_VALUE;
+	private double explorationConstant = Math.sqrt(2);
+	private int virtualLoss = 1;
+	private boolean subtreeReuseEnabled = true;
+	// root parallelization
+	private final List<MonteCarloTreeSearch<S, A, P>> searches = new ArrayList<>();
+	// tree parallelization
+	private final List<Worker> workers = new ArrayList<>();
+	private TreeNode<S, A> root;
+
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final Counter playouts = metrics.counter(METRICS_PLAYOUTS);
+	private final DoubleGauge playoutsPerSecond = metrics.doubleGauge(METRICS_PLAYOUTS_PER_SECOND);
+	private final Gauge treeSize = metrics.gauge(METRICS_TREE_SIZE);
+	private final Gauge reusedNodes = metrics.gauge(METRICS_REUSED_NODES);
+	private final Gauge threads = metrics.gauge(METRICS_THREADS);
+	private final List<Counter> threadPlayouts = new ArrayList<>();
+
+	/**
+	 * Creates a search which performs the given number of playouts per
+	 * decision with all threads together.
+	 */
+	@SuppressWarnings("unchecked")
+	public ParallelMonteCarloTreeSearch(Game<S, A, P> game, Parallelization parallelization, int threadCount,
+										int iterations) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("At least one thread is needed.");
+		this.game = game;
+		undoableGame = game instanceof UndoableGame ? (UndoableGame<S, A, P>) game : null;
+		players = game.getPlayers();
+		this.parallelization = parallelization;
+		this.threadCount = threadCount;
+		this.iterations = iterations;
+		Random random = new Random();
+		for (int i = 0; i < threadCount; i++) {
+			if (parallelization == Parallelization.ROOT) {
+				int share = iterations == Integer.MAX_VALUE ? iterations
+						: iterations / threadCount + (i < iterations % threadCount ? 1 : 0);
+				MonteCarloTreeSearch<S, A, P> search = new MonteCarloTreeSearch<>(game, share);
+				search.setRandom(new Random(random.nextLong()));
+				searches.add(search);
+			} else {
+				workers.add(new Worker(i == 0, new Random(random.nextLong())));
+			}
+			threadPlayouts.add(metrics.counter(METRICS_THREAD_PLAYOUTS + i));
+		}
+	}
+
+	/**
+	 * Creates a search which performs as many playouts as possible within the
+	 * given time.
+	 */
+	public ParallelMonteCarloTreeSearch(Game<S, A, P> game, Parallelization parallelization, int threadCount,
+										long time, TimeUnit unit) {
+		this(game, parallelization, threadCount, Integer.MAX_VALUE);
+		setTimeLimit(time, unit);
+	}
+
+	/**
+	 * Limits the time for each decision. At least one playout is performed.
+	 * Use <code>Long.MAX_VALUE</code> for no limit.
+	 */
+	public void setTimeLimit(long time, TimeUnit unit) {
+		timeLimitNanos = time == Long.MAX_VALUE ? Long.MAX_VALUE : unit.toNanos(time);
+		for (MonteCarloTreeSearch<S, A, P> search : searches)
+			search.setTimeLimit(time, unit);
+	}
+
+	/** Sets the constant c of UCT, which controls exploration (default: sqrt(2)). */
+	public void setExplorationConstant(double c) {
+		explorationConstant = c;
+		for (MonteCarloTreeSearch<S, A, P> search : searches)
+			search.setExplorationConstant(c);
+	}
+
+	/**
+	 * Sets the number of lost playouts which a thread adds to each node of its
+	 * path until its own playout is backpropagated (default: 1, 0 disables
+	 * virtual loss). Only used by tree parallelization.
+	 */
+	public void setVirtualLoss(int virtualLoss) {
+		this.virtualLoss = virtualLoss;
+	}
+
+	/** Enables or disables reuse of the subtree of the previous decision (default: enabled). */
+	public void setSubtreeReuseEnabled(boolean b) {
+		subtreeReuseEnabled = b;
+		for (MonteCarloTreeSearch<S, A, P> search : searches)
+			search.setSubtreeReuseEnabled(b);
+	}
+
+	/**
+	 * Derives the random number generators of the threads from the given one.
+	 * Note that results of tree parallelization depend on thread scheduling
+	 * and cannot be reproduced this way.
+	 */
+	public void setRandom(Random random) {
+		for (MonteCarloTreeSearch<S, A, P> search : searches)
+			search.setRandom(new Random(random.nextLong()));
+		for (Worker worker : workers)
+			worker.random = new Random(random.nextLong());
+	}
+
+	@Override
+	public A makeDecision(S state) {
+		metrics.reset();
+		long startTime = System.nanoTime();
+		A result = parallelization == Parallelization.ROOT ? rootParallelDecision(state)
+				: treeParallelDecision(state, startTime);
+		playoutsPerSecond.set(playouts.get() * 1e9 / Math.max(1, System.nanoTime() - startTime));
+		threads.set(threadCount);
+		return result;
+	}
+
+	private A rootParallelDecision(S state) {
+		runInParallel(i -> searches.get(i).makeDecision(state));
+		// sum up the playouts of the root children of all trees per action
+		Map<A, Integer> actionPlayouts = new LinkedHashMap<>();
+		long nodes = 0;
+		long reused = 0;
+		for (int i = 0; i < threadCount; i++) {
+			MonteCarloTreeSearch<S, A, P> search = searches.get(i);
+			GameTree<S, A> tree = search.getTree();
+			int treeRoot = tree.getRoot();
+			for (int j = 0; j < tree.getExpandedChildCount(treeRoot); j++) {
+				int child = tree.getChild(treeRoot, j);
+				actionPlayouts.merge(tree.getAction(child), tree.getNi(child), Integer::sum);
+			}
+			Metrics m = search.getMetrics();
+			long count = m.getLong(METRICS_PLAYOUTS);
+			playouts.add(count);
+			threadPlayouts.get(i).add(count);
+			nodes += m.getLong(METRICS_TREE_SIZE);
+			reused += m.getLong(METRICS_REUSED_NODES);
+		}
+		treeSize.set(nodes);
+		reusedNodes.set(reused);
+		A result = null;
+		int maxPlayouts = -1;
+		for (Map.Entry<A, Integer> entry : actionPlayouts.entrySet()) {
+			if (entry.getValue() > maxPlayouts) {
+				maxPlayouts = entry.getValue();
+				result = entry.getKey();
+			}
+		}
+		return result;
+	}
+
+	private A treeParallelDecision(S state, long startTime) {
+		TreeNode<S, A> newRoot = subtreeReuseEnabled && root != null ? findNode(root, state, 2) : null;
+		long nodes;
+		if (newRoot != null) {
+			newRoot.parent = null; // allows garbage collection of the rest of the previous tree
+			nodes = countNodes(newRoot);
+			reusedNodes.set(nodes);
+		} else {
+			newRoot = new TreeNode<>(null, null, state);
+			nodes = 1;
+		}
+		root = newRoot;
+		long deadline = timeLimitNanos == Long.MAX_VALUE || startTime + timeLimitNanos < startTime
+				? Long.MAX_VALUE : startTime + timeLimitNanos;
+		AtomicInteger startedPlayouts = new AtomicInteger();
+		TreeNode<S, A> searchRoot = root;
+		runInParallel(i -> workers.get(i).search(searchRoot, deadline, startedPlayouts));
+
+		for (int i = 0; i < threadCount; i++) {
+			Worker worker = workers.get(i);
+			playouts.add(worker.playoutCount);
+			threadPlayouts.get(i).add(worker.playoutCount);
+			nodes += worker.createdNodes;
+		}
+		treeSize.set(nodes);
+		// return the move in ACTIONS(state) whose node has highest number of playouts
+		TreeNode<S, A> best = null;
+		TreeNode.Children<S, A> children = root.children;
+		for (int i = 0; children != null && i < children.nodes.length(); i++) {
+			TreeNode<S, A> child = children.nodes.get(i);
+			if (child != null && (best == null || child.visits > best.visits))
+				best = child;
+		}
+		return best != null ? best.action : null;
+	}
+
+	/**
+	 * Runs the task for thread indices 1 to threadCount - 1 in new threads
+	 * and for index 0 in the calling thread, and waits for all threads.
+	 */
+	private void runInParallel(IntConsumer task) {
+		List<Thread> helperThreads = new ArrayList<>();
+		for (int i = 1; i < threadCount; i++) {
+			int index = i;
+			Thread thread = new Thread(() -> task.accept(index), "mcts-helper-" + i);
+			thread.setDaemon(true);
+			thread.start();
+			helperThreads.add(thread);
+		}
+		try {
+			task.accept(0);
+		} finally {
+			boolean interrupted = false;
+			for (Thread thread : helperThreads) {
+				while (thread.isAlive()) {
+					try {
+						thread.join();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	private TreeNode<S, A> findNode(TreeNode<S, A> node, S state, int depth) {
+		if (state.equals(node.state))
+			return node;
+		TreeNode.Children<S, A> children = node.children;
+		if (depth > 0 && children != null) {
+			for (int i = 0; i < children.nodes.length(); i++) {
+				TreeNode<S, A> child = children.nodes.get(i);
+				TreeNode<S, A> result = child != null ? findNode(child, state, depth - 1) : null;
+				if (result != null)
+					return result;
+			}
+		}
+		return null;
+	}
+
+	private long countNodes(TreeNode<S, A> node) {
+		long result = 1;
+		TreeNode.Children<S, A> children = node.children;
+		for (int i = 0; children != null && i < children.nodes.length(); i++) {
+			TreeNode<S, A> child = children.nodes.get(i);
+			if (child != null)
+				result += countNodes(child);
+		}
+		return result;
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics.snapshot();
+	}
+
+	/** Performs playouts on the shared tree. Each worker is used by one thread at a time. */
+	private class Worker {
+		private final boolean main;
+		private final double[] utilities = new double[players.length];
+		private Random random;
+		private long playoutCount;
+		private long createdNodes;
+
+		Worker(boolean main, Random random) {
+			this.main = main;
+			this.random = random;
+		}
+
+		void search(TreeNode<S, A> root, long deadline, AtomicInteger startedPlayouts) {
+			playoutCount = 0;
+			createdNodes = 0;
+			while ((main && playoutCount == 0) || System.nanoTime() < deadline) {
+				if (startedPlayouts.getAndIncrement() >= iterations)
+					break;
+				TreeNode<S, A> child = selectAndExpand(root);
+				S result = simulate(child.state);
+				backpropagate(result, child, root);
+				playoutCount++;
+			}
+		}
+
+		/**
+		 * Descends from the root to the first node which is not fully expanded
+		 * (choosing children by UCT) and expands one of its children. Virtual
+		 * losses are added to all nodes on the path. Returns the new child, a
+		 * terminal node, or a node whose children are just being expanded by
+		 * other threads.
+		 */
+		private TreeNode<S, A> selectAndExpand(TreeNode<S, A> root) {
+			TreeNode<S, A> node = root;
+			node.addVirtualLoss();
+			while (true) {
+				TreeNode.Children<S, A> children = node.children;
+				if (children == null)
+					children = node.initChildren(game.isTerminal(node.state)
+							? Collections.emptyList() : game.getActions(node.state), random);
+				int i = node.claimChild(children.actions.size());
+				if (i >= 0) {
+					A action = children.actions.get(i);
+					TreeNode<S, A> child = new TreeNode<>(node, action, game.getResult(node.state, action));
+					children.nodes.set(i, child);
+					child.addVirtualLoss();
+					createdNodes++;
+					return child;
+				}
+				TreeNode<S, A> best = getChildWithMaxUCT(node, children);
+				if (best == null)
+					return node;
+				node = best;
+				node.addVirtualLoss();
+			}
+		}
+
+		/**
+		 * Returns the child with maximal upper confidence bound, where virtual
+		 * losses count as playouts with reward 0.
+		 */
+		private TreeNode<S, A> getChildWithMaxUCT(TreeNode<S, A> node, TreeNode.Children<S, A> children) {
+			TreeNode<S, A> best = null;
+			double maxUct = Double.NEGATIVE_INFINITY;
+			double logN = Math.log(Math.max(1, node.visits + virtualLoss * node.virtualLosses));
+			for (int i = 0; i < children.nodes.length(); i++) {
+				TreeNode<S, A> child = children.nodes.get(i);
+				if (child == null)
+					continue;
+				int n = child.visits + virtualLoss * child.virtualLosses;
+				if (n == 0)
+					return child;
+				double uct = child.getRewards() / n + explorationConstant * Math.sqrt(logN / n);
+				if (uct > maxUct) {
+					maxUct = uct;
+					best = child;
+				}
+			}
+			return best;
+		}
+
+		/** Plays random moves until the game ends and returns the terminal state. */
+		private S simulate(S state) {
+			if (undoableGame != null && !game.isTerminal(state)) {
+				S copy = undoableGame.copyState(state);
+				do {
+					List<A> actions = game.getActions(copy);
+					undoableGame.makeMove(copy, actions.get(random.nextInt(actions.size())));
+				} while (!game.isTerminal(copy));
+				return copy;
+			}
+			while (!game.isTerminal(state)) {
+				List<A> actions = game.getActions(state);
+				state = game.getResult(state, actions.get(random.nextInt(actions.size())));
+			}
+			return state;
+		}
+
+		/** Adds the result to all nodes on the path and removes the virtual losses. */
+		private void backpropagate(S result, TreeNode<S, A> node, TreeNode<S, A> root) {
+			Arrays.fill(utilities, Double.NaN);
+			while (node != root) {
+				TreeNode<S, A> parent = node.parent;
+				node.update(getUtility(result, game.getPlayer(parent.state)));
+				node = parent;
+			}
+			root.update(0);
+		}
+
+		/** Returns the utility of the terminal state for the player, computed once per playout. */
+		private double getUtility(S terminalState, P player) {
+			for (int i = 0; i < players.length; i++) {
+				if (players[i].equals(player)) {
+					if (Double.isNaN(utilities[i]))
+						utilities[i] = game.getUtility(terminalState, player);
+					return utilities[i];
+				}
+			}
+			return game.getUtility(terminalState, player);
+		}
+	}
+
+	/**
+	 * Node of the shared tree. Statistics are modified by atomic field
+	 * updaters. The children are created together with their actions when the
+	 * node is reached for the first time. Each thread which expands the node
+	 * claims the index of one child and creates the child node.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static class TreeNode<S, A> {
+		private static final AtomicReferenceFieldUpdater<TreeNode, Children> CHILDREN =
+				AtomicReferenceFieldUpdater.newUpdater(TreeNode.class, Children.class, "children");
+		private static final AtomicIntegerFieldUpdater<TreeNode> EXPANDED_COUNT =
+				AtomicIntegerFieldUpdater.newUpdater(TreeNode.class, "expandedCount");
+		private static final AtomicIntegerFieldUpdater<TreeNode> VISITS =
+				AtomicIntegerFieldUpdater.newUpdater(TreeNode.class, "visits");
+		private static final AtomicIntegerFieldUpdater<TreeNode> VIRTUAL_LOSSES =
+				AtomicIntegerFieldUpdater.newUpdater(TreeNode.class, "virtualLosses");
+		private static final AtomicLongFieldUpdater<TreeNode> REWARD_BITS =
+				AtomicLongFieldUpdater.newUpdater(TreeNode.class, "rewardBits");
+
+		private TreeNode<S, A> parent; // only modified while no thread is searching
+		private final A action;
+		private final S state;
+		private volatile Children<S, A> children;
+		private volatile int expandedCount;
+		private volatile int visits;
+		private volatile int virtualLosses;
+		// sum of rewards (Wi) as bits of a double
+		private volatile long rewardBits;
+
+		TreeNode(TreeNode<S, A> parent, A action, S state) {
+			this.parent = parent;
+			this.action = action;
+			this.state = state;
+		}
+
+		/**
+		 * Sets the children (in random order) unless another thread was
+		 * faster, and returns the children of the node.
+		 */
+		@SuppressWarnings("unchecked")
+		Children<S, A> initChildren(List<A> actions, Random random) {
+			List<A> shuffled = new ArrayList<>(actions);
+			Collections.shuffle(shuffled, random);
+			CHILDREN.compareAndSet(this, null, new Children<>(shuffled));
+			return children;
+		}
+
+		/** Returns the index of a child which has not been claimed yet, or -1. */
+		@SuppressWarnings("unchecked")
+		int claimChild(int childCount) {
+			int i;
+			while ((i = expandedCount) < childCount) {
+				if (EXPANDED_COUNT.compareAndSet(this, i, i + 1))
+					return i;
+			}
+			return -1;
+		}
+
+		@SuppressWarnings("unchecked")
+		void addVirtualLoss() {
+			VIRTUAL_LOSSES.incrementAndGet(this);
+		}
+
+		double getRewards() {
+			return Double.longBitsToDouble(rewardBits);
+		}
+
+		/** Adds a playout with the given reward and removes one virtual loss. */
+		@SuppressWarnings("unchecked")
+		void update(double reward) {
+			long bits;
+			do {
+				bits = rewardBits;
+			} while (!REWARD_BITS.compareAndSet(this, bits,
+					Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + reward)));
+			VISITS.incrementAndGet(this);
+			VIRTUAL_LOSSES.decrementAndGet(this);
+		}
+
+		private static class Children<S, A> {
+			final List<A> actions;
+			final AtomicReferenceArray<TreeNode<S, A>> nodes;
+
+			Children(List<A> actions) {
+				this.actions = actions;
+				nodes = new AtomicReferenceArray<>(actions.size());
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package aima.core.search.adversarial;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded hash table which stores results of previous alpha-beta searches for
+ * game states. States are identified by 64 bit hash keys (see
+ * {@link Game#getHashKey(Object)}), so the table contains no references to
+ * states. Each entry contains the value found for the state, the kind of
+ * bound the value represents, the depth of the search below the state, and
+ * the best action found.
+ * <br>
+ * The table has a fixed number of slots. If two states compete for the same
+ * slot, the entry with the deeper search is kept (replace-by-depth). Entries
+ * which were stored before the last call of {@link #nextGeneration()} are
+ * always replaced, so that the table does not fill up with positions which
+ * cannot occur anymore.
+ * <br>
+ * Entries are immutable, and all methods can be called concurrently, so one
+ * table can be shared by several search threads (see
+ * {@link ParallelAlphaBetaSearch}). If two threads store entries for the same
+ * slot at the same time, one of the entries may get lost.
+ *
+ * @param <A> Type which is used for actions in the game.
+ */
+public class TranspositionTable<A> {
+
+    /**
+     * Depth value for entries whose value does not depend on the search
+     * depth, e.g. because the subtree was searched until terminal states.
+     */
+    public final static int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+    /** Relation between the stored value and the real value of a state. */
+    public enum Bound {
+        /** The stored value is the value of the state. */
+        EXACT,
+        /** The value of the state is at least the stored value. */
+        LOWER,
+        /** The value of the state is at most the stored value. */
+        UPPER
+    }
+
+    private final int mask;
+    private final AtomicReferenceArray<Entry<A>> entries;
+    private volatile int generation;
+
+    /**
+     * Creates a table with the given minimal number of slots. The number is
+     * rounded up to the next power of two.
+     */
+    public TranspositionTable(int size) {
+        if (size < 1 || size > 1 << 30)
+            throw new IllegalArgumentException("Size must be between 1 and 2^30.");
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size)
+            capacity <<= 1;
+        mask = capacity - 1;
+        entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    public int capacity() {
+        return entries.length();
+    }
+
+    /** Returns the entry for the given key, or null if no such entry exists. */
+    public Entry<A> get(long key) {
+        Entry<A> entry = entries.get(getSlot(key));
+        return entry != null && entry.key == key ? entry : null;
+    }
+
+    /**
+     * Stores a search result. An existing entry for another key is only
+     * replaced if it is older or was obtained by a search which was not
+     * deeper.
+     *
+     * @param key    Hash key of the state.
+     * @param value  Value found for the state.
+     * @param bound  Relation between value and real value of the state.
+     * @param depth  Depth of the search below the state, or
+     *               {@link #UNLIMITED_DEPTH}.
+     * @param action Best action found, or null.
+     * @return true if the entry was stored.
+     */
+    public boolean store(long key, double value, Bound bound, int depth, A action) {
+        int slot = getSlot(key);
+        int currGeneration = generation;
+        Entry<A> old = entries.get(slot);
+        if (old != null) {
+            if (old.key != key && old.generation == currGeneration && old.depth > depth)
+                return false;
+            if (action == null && old.key == key)
+                action = old.action; // keep best action of previous searches
+        }
+        entries.set(slot, new Entry<>(key, value, bound, depth, action, currGeneration));
+        return true;
+    }
+
+    /**
+     * Marks all entries as old. Old entries can still be found but are
+     * replaced by all new entries competing for the same slot.
+     */
+    public void nextGeneration() {
+        generation++;
+    }
+
+    /** Removes all entries. */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++)
+            entries.set(i, null);
+    }
+
+    private int getSlot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /** Immutable search result for one state. */
+    public static final class Entry<A> {
+        private final long key;
+        private final double value;
+        private final Bound bound;
+        private final int depth;
+        private final A action;
+        private final int generation;
+
+        private Entry(long key, double value, Bound bound, int depth, A action, int generation) {
+            this.key = key;
+            this.value = value;
+            this.bound = bound;
+            this.depth = depth;
+            this.action = action;
+            this.generation = generation;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public Bound getBound() {
+            return bound;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /** Returns the best action, or null if none is known. */
+        public A getAction() {
+            return action;
+        }
+    }
+}
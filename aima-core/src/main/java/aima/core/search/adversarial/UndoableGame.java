@@ -0,0 +1,31 @@
+package aima.core.search.adversarial;
+
+/**
+ * A game whose states can be modified in place. Instead of creating a new
+ * state for each move by {@link #getResult(Object, Object)}, a search can copy
+ * the root state once, apply moves to the copy with
+ * {@link #makeMove(Object, Object)}, and take them back with
+ * {@link #unmakeMove(Object, Object)} when it returns from a subtree. Searches
+ * opt into this by testing whether their game implements this interface.
+ * <br>
+ * Lists returned by {@link #getActions(Object)} must not be changed by later
+ * moves, as searches iterate over them while modifying the state.
+ *
+ * @param <S> Type which is used for states in the game.
+ * @param <A> Type which is used for actions in the game.
+ * @param <P> Type which is used for players in the game.
+ */
+public interface UndoableGame<S, A, P> extends Game<S, A, P> {
+
+    /** Returns a copy of the state, which can be modified independently. */
+    S copyState(S state);
+
+    /** Applies the action to the state. The state must not be terminal. */
+    void makeMove(S state, A action);
+
+    /**
+     * Takes back the action, which must be the last action applied to the
+     * state by {@link #makeMove(Object, Object)}.
+     */
+    void unmakeMove(S state, A action);
+}
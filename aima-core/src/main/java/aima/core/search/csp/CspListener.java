@@ -1,6 +1,8 @@
 package aima.core.search.csp;
 
 import aima.core.search.framework.Metrics;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.MetricsRegistry;
 
 /**
  * Interface which allows interested clients to register at a CSP solver
@@ -24,27 +26,27 @@ public interface CspListener<VAR extends Variable, VAL> {
      * @author Ruediger Lunde
      */
     class StepCounter<VAR extends Variable, VAL> implements CspListener<VAR, VAL> {
-        private int assignmentCount = 0;
-        private int inferenceCount = 0;
+        private final MetricsRegistry metrics = new MetricsRegistry();
+        private final Counter assignmentCount = metrics.counter("assignmentCount");
+        private final Counter inferenceCount = metrics.counter("inferenceCount");
 
         @Override
         public void stateChanged(CSP<VAR, VAL> csp, Assignment<VAR, VAL> assignment, VAR variable) {
             if (assignment != null)
-                ++assignmentCount;
+                assignmentCount.increment();
             else
-                ++inferenceCount;
+                inferenceCount.increment();
         }
 
         public void reset() {
-            assignmentCount = 0;
-            inferenceCount = 0;
+            metrics.reset();
         }
 
         public Metrics getResults() {
             Metrics result = new Metrics();
-            result.set("assignmentCount", assignmentCount);
-            if (inferenceCount != 0)
-                result.set("inferenceCount", inferenceCount);
+            assignmentCount.renderTo(result);
+            if (inferenceCount.get() != 0)
+                inferenceCount.renderTo(result);
             return result;
         }
     }
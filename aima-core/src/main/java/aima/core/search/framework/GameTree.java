@@ -1,122 +1,272 @@
 package aima.core.search.framework;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 
 /**
- *	Basic implementation of Game Tree for the Monte Carlo Tree Search
- *
- * 	Wi stands for the number of wins for the node considered after the i-th move.
- * 	Ni stands for the number of simulations for the node considered after the i-th move.
+ * Game tree for the Monte Carlo Tree Search. Nodes are identified by integer
+ * indices, and all node data is kept in arrays: explicit links to parent and
+ * children, the state and the action which leads to the node, and the
+ * statistics of the node. The children of a node occupy a contiguous range of
+ * indices. They are created together when the node is reached for the first
+ * time, but their states are computed one by one when they are expanded.
+ * <br>
+ * Wi stands for the sum of rewards (e.g. number of wins) of the playouts
+ * through the node considered, from the point of view of the player who made
+ * the move leading to the node. Ni stands for the number of playouts through
+ * the node considered.
  *
  * @author Suyash Jain
  */
-
 public class GameTree<S, A> {
-	HashMap<Node<S, A>, List<Node<S, A>>> gameTree;
-	HashMap<S, Double> Wi, Ni;
-	NodeFactory<S, A> nodeFactory;
-	Node<S, A> root;
-	
-	
+	/** Index for non-existing nodes. */
+	public static final int NONE = -1;
+
+	private int size;
+	private int root = NONE;
+	private int[] parents;
+	private int[] firstChildren;
+	private int[] childCounts;
+	private int[] expandedCounts;
+	private int[] Ni;
+	private double[] Wi;
+	private Object[] states;
+	private Object[] actions;
+
 	public GameTree() {
-		this.gameTree = new HashMap<>();
-		this.nodeFactory = new NodeFactory<>();
-		Wi = new HashMap<>();
-		Ni = new HashMap<>();
-	}
-	
-	public void addRoot(S root) {
-		Node<S, A> rootNode = nodeFactory.createNode(root);
-		this.root = rootNode;
-		gameTree.put(rootNode, new ArrayList<>());
-		Wi.put(root, 0.0);
-		Ni.put(root, 0.0);
-	}
-	
-	public Node<S, A> getRoot() {
+		this(1024);
+	}
+
+	public GameTree(int initialCapacity) {
+		allocate(Math.max(1, initialCapacity));
+	}
+
+	/** Removes all nodes and adds a root node for the given state. */
+	public int addRoot(S state) {
+		Arrays.fill(states, 0, size, null);
+		Arrays.fill(actions, 0, size, null);
+		size = 0;
+		root = addNode(NONE, null);
+		states[root] = state;
+		return root;
+	}
+
+	public int getRoot() {
 		return root;
 	}
-	
-	public List<S> getVisitedChildren(Node<S, A> parent) {
-		List<S> visitedChildren = new ArrayList<>();
-		if (gameTree.containsKey(parent)) {
-			for (Node<S, A> child : gameTree.get(parent)) {
-				visitedChildren.add(child.getState());
+
+	/** Returns the number of nodes including unexpanded children. */
+	public int size() {
+		return size;
+	}
+
+	@SuppressWarnings("unchecked")
+	public S getState(int node) {
+		return (S) states[node];
+	}
+
+	/** Returns the action which leads from the parent to the node (null for the root). */
+	@SuppressWarnings("unchecked")
+	public A getAction(int node) {
+		return (A) actions[node];
+	}
+
+	public int getParent(int node) {
+		return parents[node];
+	}
+
+	/**
+	 * Returns true if the children of the node have been created (possibly
+	 * none because the node represents a terminal state).
+	 */
+	public boolean hasChildren(int node) {
+		return firstChildren[node] != NONE;
+	}
+
+	/**
+	 * Creates one unexpanded child for each action. An empty list marks the
+	 * node as terminal.
+	 */
+	public void addChildren(int node, List<A> childActions) {
+		if (hasChildren(node))
+			throw new IllegalStateException("Children already added.");
+		ensureCapacity(size + childActions.size());
+		firstChildren[node] = size;
+		childCounts[node] = childActions.size();
+		for (A action : childActions)
+			addNode(node, action);
+	}
+
+	public int getChildCount(int node) {
+		return childCounts[node];
+	}
+
+	/** Returns the i-th child. Expanded children come first. */
+	public int getChild(int node, int i) {
+		return firstChildren[node] + i;
+	}
+
+	public int getExpandedChildCount(int node) {
+		return expandedCounts[node];
+	}
+
+	public boolean isFullyExpanded(int node) {
+		return hasChildren(node) && expandedCounts[node] == childCounts[node];
+	}
+
+	/**
+	 * Expands the i-th child (which must not be expanded yet) by assigning
+	 * the given state to it. The child is moved behind the already expanded
+	 * children, and its new index is returned.
+	 */
+	public int expandChild(int node, int i, S state) {
+		int expanded = firstChildren[node] + expandedCounts[node];
+		int child = firstChildren[node] + i;
+		if (i < expandedCounts[node] || i >= childCounts[node])
+			throw new IllegalArgumentException("Child is already expanded or does not exist.");
+		Object action = actions[child];
+		actions[child] = actions[expanded];
+		actions[expanded] = action;
+		states[expanded] = state;
+		expandedCounts[node]++;
+		return expanded;
+	}
+
+	public int getNi(int node) {
+		return Ni[node];
+	}
+
+	public double getWi(int node) {
+		return Wi[node];
+	}
+
+	/** Adds a playout with the given reward to the statistics of the node. */
+	public void updateStats(int node, double reward) {
+		Ni[node]++;
+		Wi[node] += reward;
+	}
+
+	/**
+	 * Returns the expanded child with maximal upper confidence bound
+	 * Wi / Ni + c * sqrt(ln(N) / Ni), where N is the number of playouts of the
+	 * parent. Children without playouts are preferred.
+	 */
+	public int getChildWithMaxUCT(int node, double c) {
+		int best = NONE;
+		double maxUct = Double.NEGATIVE_INFINITY;
+		double logN = Math.log(Math.max(1, Ni[node]));
+		int first = firstChildren[node];
+		for (int child = first; child < first + expandedCounts[node]; child++) {
+			if (Ni[child] == 0)
+				return child;
+			double uct = Wi[child] / Ni[child] + c * Math.sqrt(logN / Ni[child]);
+			if (uct > maxUct) {
+				maxUct = uct;
+				best = child;
 			}
 		}
-		return visitedChildren;
-	}
-	
-	public Node<S, A> addChild(Node<S, A> parent, S child) {
-		Node<S, A> newChild = nodeFactory.createNode(child);
-		List<Node<S, A>> children = successors(parent);
-		children.add(newChild);
-		gameTree.put(parent, children);
-		Wi.put(child, 0.0);
-		Ni.put(child, 0.0);
-		return newChild;
-	}
-	
-	public Node<S, A> getParent(Node<S, A> node) {
-		Node<S, A> parent = null;
-		for (Node<S, A> key : gameTree.keySet()) {
-			List<Node<S, A>> children = successors(key);
-			for (Node<S, A> child : children) {
-				if (child.getState() == node.getState()) {
-					parent = key;
-					break;
+		return best;
+	}
+
+	/** Returns the expanded child with the highest number of playouts, or NONE. */
+	public int getChildWithMaxPlayouts(int node) {
+		int best = NONE;
+		int first = firstChildren[node];
+		for (int child = first; child < first + expandedCounts[node]; child++)
+			if (best == NONE || Ni[child] > Ni[best])
+				best = child;
+		return best;
+	}
+
+	/**
+	 * Makes the given node the new root and discards all nodes which are not
+	 * contained in its subtree. The remaining nodes get new indices. Returns
+	 * the new root index.
+	 */
+	public int reRoot(int node) {
+		GameTree<S, A> result = new GameTree<>(Math.max(1024, states.length));
+		// old and new indices of expanded nodes in breadth-first order
+		int[] oldQueue = new int[size];
+		int[] newQueue = new int[size];
+		int head = 0;
+		int tail = 0;
+		result.root = result.copyNode(this, node, NONE);
+		result.actions[result.root] = null;
+		oldQueue[tail] = node;
+		newQueue[tail++] = result.root;
+		while (head < tail) {
+			int old = oldQueue[head];
+			int copy = newQueue[head++];
+			if (hasChildren(old)) {
+				result.firstChildren[copy] = result.size;
+				result.childCounts[copy] = childCounts[old];
+				result.expandedCounts[copy] = expandedCounts[old];
+				for (int i = 0; i < childCounts[old]; i++) {
+					int child = result.copyNode(this, firstChildren[old] + i, copy);
+					if (i < expandedCounts[old]) {
+						oldQueue[tail] = firstChildren[old] + i;
+						newQueue[tail++] = child;
+					}
 				}
 			}
-			if (parent != null) break;
-		}
-		return parent;
-	}
-	
-	public List<Node<S, A>> successors(Node<S, A> node) {
-		if (gameTree.containsKey(node)) return gameTree.get(node);
-		else return new ArrayList<>();
-	}
-	
-	public void updateStats(boolean result, Node<S, A> node) {
-		Ni.put(node.getState(), Ni.get(node.getState()) + 1);
-		if (result) Wi.put(node.getState(), Wi.get(node.getState()) + 1);
-	}
-	
-	public Node<S, A> getChildWithMaxUCT(Node<S, A> node) {
-		List<Node<S, A>> best_children = new ArrayList<>();
-		double max_uct = Double.NEGATIVE_INFINITY;
-		for (Node<S, A> child : successors(node)) {
-			double uct = ((Wi.get(child.getState())) / (Ni.get(child.getState()))) + Math.sqrt((2 / Ni.get(child.getState())) * (Math.log(Ni.get(node.getState()))));
-			if (uct > max_uct) {
-				max_uct = uct;
-				best_children = new ArrayList<>();
-				best_children.add(child);
-			} else if (uct == max_uct) {
-				best_children.add(child);
-			}
 		}
-		
-		Random rand = new Random();
-		return best_children.get(rand.nextInt(best_children.size()));
-	}
-	
-	public Node<S, A> getChildWithMaxPlayouts(Node<S, A> node) {
-		List<Node<S, A>> best_children = new ArrayList<>();
-		double max_playouts = Double.NEGATIVE_INFINITY;
-		for (Node<S, A> child : successors(node)) {
-			double playouts = (Ni.get(child.getState()));
-			if (playouts > max_playouts) {
-				max_playouts = playouts;
-				best_children = new ArrayList<>();
-				best_children.add(child);
-			} else if (playouts == max_playouts) {
-				best_children.add(child);
-			}
+		size = result.size;
+		root = result.root;
+		parents = result.parents;
+		firstChildren = result.firstChildren;
+		childCounts = result.childCounts;
+		expandedCounts = result.expandedCounts;
+		Ni = result.Ni;
+		Wi = result.Wi;
+		states = result.states;
+		actions = result.actions;
+		return root;
+	}
+
+	private int copyNode(GameTree<S, A> source, int node, int parent) {
+		int copy = addNode(parent, source.actions[node]);
+		states[copy] = source.states[node];
+		Ni[copy] = source.Ni[node];
+		Wi[copy] = source.Wi[node];
+		return copy;
+	}
+
+	private int addNode(int parent, Object action) {
+		ensureCapacity(size + 1);
+		int node = size++;
+		parents[node] = parent;
+		firstChildren[node] = NONE;
+		childCounts[node] = 0;
+		expandedCounts[node] = 0;
+		Ni[node] = 0;
+		Wi[node] = 0;
+		actions[node] = action;
+		states[node] = null;
+		return node;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > states.length) {
+			int newCapacity = Math.max(capacity, 2 * states.length);
+			parents = Arrays.copyOf(parents, newCapacity);
+			firstChildren = Arrays.copyOf(firstChildren, newCapacity);
+			childCounts = Arrays.copyOf(childCounts, newCapacity);
+			expandedCounts = Arrays.copyOf(expandedCounts, newCapacity);
+			Ni = Arrays.copyOf(Ni, newCapacity);
+			Wi = Arrays.copyOf(Wi, newCapacity);
+			states = Arrays.copyOf(states, newCapacity);
+			actions = Arrays.copyOf(actions, newCapacity);
 		}
-		Random rand = new Random();
-		return best_children.get(rand.nextInt(best_children.size()));
+	}
+
+	private void allocate(int capacity) {
+		parents = new int[capacity];
+		firstChildren = new int[capacity];
+		childCounts = new int[capacity];
+		expandedCounts = new int[capacity];
+		Ni = new int[capacity];
+		Wi = new double[capacity];
+		states = new Object[capacity];
+		actions = new Object[capacity];
 	}
 }
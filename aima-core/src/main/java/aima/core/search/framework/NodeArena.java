@@ -0,0 +1,174 @@
+package aima.core.search.framework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact storage for search tree nodes. Instead of allocating one object per
+ * node, the arena keeps node data in parallel primitive arrays (parent index,
+ * path cost, action id, state id). Nodes are identified by their index.
+ * States and actions are interned: Each distinct state (action) is stored only
+ * once and referenced by an int id. So the state id can also be used to mark
+ * states as explored, e.g. with a {@link java.util.BitSet}.
+ * <br>
+ * Path reconstruction is supported by
+ * {@link SearchUtils#getSequenceOfActions(NodeArena, int)} and
+ * {@link #toNode(int)}.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class NodeArena<S, A> {
+
+	/** Parent index of root nodes. */
+	public static final int NO_PARENT = -1;
+	/** Action id of root nodes. */
+	public static final int NO_ACTION = -1;
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+	private int[] parents;
+	private double[] pathCosts;
+	private int[] actionIds;
+	private int[] stateIds;
+	private int size;
+
+	private final List<S> states = new ArrayList<>();
+	private final Map<S, Integer> stateIdTable = new HashMap<>();
+	private final List<A> actions = new ArrayList<>();
+	private final Map<A, Integer> actionIdTable = new HashMap<>();
+
+	public NodeArena() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	public NodeArena(int initialCapacity) {
+		int capacity = Math.max(initialCapacity, 1);
+		parents = new int[capacity];
+		pathCosts = new double[capacity];
+		actionIds = new int[capacity];
+		stateIds = new int[capacity];
+	}
+
+	/** Adds a root node for the specified state and returns its index. */
+	public int addRoot(S state) {
+		return add(NO_PARENT, NO_ACTION, internState(state), 0.0);
+	}
+
+	/**
+	 * Adds a node which was generated by applying the action to the state of
+	 * the parent node and returns its index.
+	 */
+	public int addNode(int parent, A action, S state, double pathCost) {
+		return add(parent, internAction(action), internState(state), pathCost);
+	}
+
+	/**
+	 * Same as {@link #addNode(int, Object, Object, double)} but for states
+	 * which have already been interned by {@link #internState(Object)}.
+	 */
+	public int addNode(int parent, A action, int stateId, double pathCost) {
+		return add(parent, internAction(action), stateId, pathCost);
+	}
+
+	private int add(int parent, int actionId, int stateId, double pathCost) {
+		if (size == parents.length) {
+			int capacity = size + (size >> 1) + 1;
+			parents = Arrays.copyOf(parents, capacity);
+			pathCosts = Arrays.copyOf(pathCosts, capacity);
+			actionIds = Arrays.copyOf(actionIds, capacity);
+			stateIds = Arrays.copyOf(stateIds, capacity);
+		}
+		parents[size] = parent;
+		pathCosts[size] = pathCost;
+		actionIds[size] = actionId;
+		stateIds[size] = stateId;
+		return size++;
+	}
+
+	/** Returns the id of the state, registering the state if it is new. */
+	public int internState(S state) {
+		Integer id = stateIdTable.get(state);
+		if (id == null) {
+			id = states.size();
+			states.add(state);
+			stateIdTable.put(state, id);
+		}
+		return id;
+	}
+
+	private int internAction(A action) {
+		Integer id = actionIdTable.get(action);
+		if (id == null) {
+			id = actions.size();
+			actions.add(action);
+			actionIdTable.put(action, id);
+		}
+		return id;
+	}
+
+	/** Returns the number of nodes in the arena. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns the number of distinct states referenced by the nodes. */
+	public int getStateCount() {
+		return states.size();
+	}
+
+	public int getParent(int node) {
+		return parents[node];
+	}
+
+	public boolean isRootNode(int node) {
+		return parents[node] == NO_PARENT;
+	}
+
+	public double getPathCost(int node) {
+		return pathCosts[node];
+	}
+
+	public int getStateId(int node) {
+		return stateIds[node];
+	}
+
+	public S getState(int node) {
+		return states.get(stateIds[node]);
+	}
+
+	/** Returns the action which generated the node or null for root nodes. */
+	public A getAction(int node) {
+		int id = actionIds[node];
+		return id != NO_ACTION ? actions.get(id) : null;
+	}
+
+	/**
+	 * Creates a {@link Node} object for the specified node including all its
+	 * ancestors. Only the nodes on the path from the root are allocated.
+	 */
+	public Node<S, A> toNode(int node) {
+		int depth = 0;
+		for (int n = node; n != NO_PARENT; n = parents[n])
+			depth++;
+		int[] path = new int[depth];
+		for (int n = node; n != NO_PARENT; n = parents[n])
+			path[--depth] = n;
+		Node<S, A> result = null;
+		for (int n : path)
+			result = new Node<>(getState(n), result, getAction(n), pathCosts[n]);
+		return result;
+	}
+
+	/** Removes all nodes, states, and actions. The capacity is retained. */
+	public void clear() {
+		size = 0;
+		states.clear();
+		stateIdTable.clear();
+		actions.clear();
+		actionIdTable.clear();
+	}
+}
@@ -100,7 +100,13 @@ public class NodeFactory<S, A> {
 		return listeners.remove(listener);
 	}
 
-	protected void notifyListeners(Node<S, A> node) {
+	/**
+	 * Informs all node listeners that the node has been expanded. Search
+	 * implementations which generate successors without calling
+	 * {@link #getSuccessors(Node, Problem)} are responsible for calling this
+	 * method.
+	 */
+	public void notifyListeners(Node<S, A> node) {
 		listeners.forEach(listener -> listener.accept(node));
 	}
 }
@@ -1,5 +1,7 @@
 package aima.core.search.framework;
 
+import aima.core.util.datastructure.IndexedPriorityQueue;
+
 import java.util.*;
 
 /**
@@ -18,6 +20,18 @@ public class QueueFactory {
 		return new PriorityQueue<E>(11, comparator);
 	}
 
+	/**
+	 * Returns an {@link IndexedPriorityQueue} which holds at most one node per
+	 * state. Adding a node for a state which is already present replaces the
+	 * existing node in place if the new node is smaller (decrease-key);
+	 * otherwise the new node is dropped. Note that the smallest element comes
+	 * first!
+	 */
+	public static <S, A> IndexedPriorityQueue<Node<S, A>> createStateIndexedPriorityQueue(
+			Comparator<? super Node<S, A>> comparator) {
+		return new IndexedPriorityQueue<>(comparator, Node::getState);
+	}
+
 	/**
 	 * Returns a Last-in-first-out (Lifo) view on a {@link LinkedList}.
 	 */
@@ -41,6 +41,20 @@ public class SearchUtils {
 		return actions;
 	}
 
+	/**
+	 * Returns the list of actions which corresponds to the complete path to the
+	 * node with the given index in the arena. The list is empty, if the node is
+	 * a root node.
+	 */
+	public static <S, A> List<A> getSequenceOfActions(NodeArena<S, A> arena, int node) {
+		LinkedList<A> actions = new LinkedList<>();
+		while (!arena.isRootNode(node)) {
+			actions.addFirst(arena.getAction(node));
+			node = arena.getParent(node);
+		}
+		return actions;
+	}
+
 	@SuppressWarnings("OptionalUsedAsFieldOrParameterType")
 	public static <S, A> Optional<List<A>> toActions(Optional<Node<S, A>> node) {
 		return node.isPresent() ? Optional.of(getSequenceOfActions(node.get())) : Optional.empty();
@@ -0,0 +1,88 @@
+package aima.core.search.framework.metrics;
+
+import aima.core.search.framework.Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonic long counter, e.g. for the number of expanded nodes. The thread-safe
+ * variant is backed by a striped {@link LongAdder} so that concurrent
+ * increments do not contend on a single memory location.
+ */
+public abstract class Counter extends Metric {
+
+	protected Counter(String name) {
+		super(name);
+	}
+
+	public abstract void increment();
+
+	public abstract void add(long delta);
+
+	public abstract long get();
+
+	@Override
+	public void renderTo(Metrics metrics) {
+		metrics.set(getName(), get());
+	}
+
+	static Counter create(String name, boolean threadSafe) {
+		return threadSafe ? new Striped(name) : new Plain(name);
+	}
+
+	private static class Plain extends Counter {
+		private long value;
+
+		Plain(String name) {
+			super(name);
+		}
+
+		@Override
+		public void increment() {
+			value++;
+		}
+
+		@Override
+		public void add(long delta) {
+			value += delta;
+		}
+
+		@Override
+		public long get() {
+			return value;
+		}
+
+		@Override
+		public void reset() {
+			value = 0;
+		}
+	}
+
+	private static class Striped extends Counter {
+		private final LongAdder value = new LongAdder();
+
+		Striped(String name) {
+			super(name);
+		}
+
+		@Override
+		public void increment() {
+			value.increment();
+		}
+
+		@Override
+		public void add(long delta) {
+			value.add(delta);
+		}
+
+		@Override
+		public long get() {
+			return value.sum();
+		}
+
+		@Override
+		public void reset() {
+			value.reset();
+		}
+	}
+}
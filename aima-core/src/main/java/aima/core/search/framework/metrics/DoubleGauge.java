@@ -0,0 +1,96 @@
+package aima.core.search.framework.metrics;
+
+import aima.core.search.framework.Metrics;
+
+/**
+ * Holds the most recently reported double value, e.g. path costs or a
+ * temperature. As long as no value has been set since the last reset, the
+ * gauge is rendered as integer zero (like a metric which has only been
+ * cleared).
+ */
+public abstract class DoubleGauge extends Metric {
+
+	protected DoubleGauge(String name) {
+		super(name);
+	}
+
+	public abstract void set(double value);
+
+	/** Returns the current value or <code>0.0</code> if no value has been set. */
+	public abstract double get();
+
+	public abstract boolean isSet();
+
+	@Override
+	public void renderTo(Metrics metrics) {
+		if (isSet())
+			metrics.set(getName(), get());
+		else
+			metrics.set(getName(), 0);
+	}
+
+	static DoubleGauge create(String name, boolean threadSafe) {
+		return threadSafe ? new Volatile(name) : new Plain(name);
+	}
+
+	private static class Plain extends DoubleGauge {
+		private double value;
+		private boolean set;
+
+		Plain(String name) {
+			super(name);
+		}
+
+		@Override
+		public void set(double value) {
+			this.value = value;
+			set = true;
+		}
+
+		@Override
+		public double get() {
+			return value;
+		}
+
+		@Override
+		public boolean isSet() {
+			return set;
+		}
+
+		@Override
+		public void reset() {
+			value = 0.0;
+			set = false;
+		}
+	}
+
+	private static class Volatile extends DoubleGauge {
+		// NaN marks the unset state, so value and flag are published atomically.
+		private volatile double value = Double.NaN;
+
+		Volatile(String name) {
+			super(name);
+		}
+
+		@Override
+		public void set(double value) {
+			this.value = value;
+		}
+
+		@Override
+		public double get() {
+			double result = value;
+			return Double.isNaN(result) ? 0.0 : result;
+		}
+
+		@Override
+		public boolean isSet() {
+			return !Double.isNaN(value);
+		}
+
+		@Override
+		public void reset() {
+			value = Double.NaN;
+		}
+	}
+}
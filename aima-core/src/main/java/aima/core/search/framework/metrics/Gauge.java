@@ -0,0 +1,74 @@
+package aima.core.search.framework.metrics;
+
+import aima.core.search.framework.Metrics;
+
+/**
+ * Holds the most recently reported long value, e.g. the current frontier size.
+ * The thread-safe variant publishes values through a volatile field; the last
+ * writer wins.
+ */
+public abstract class Gauge extends Metric {
+
+	protected Gauge(String name) {
+		super(name);
+	}
+
+	public abstract void set(long value);
+
+	public abstract long get();
+
+	@Override
+	public void renderTo(Metrics metrics) {
+		metrics.set(getName(), get());
+	}
+
+	static Gauge create(String name, boolean threadSafe) {
+		return threadSafe ? new Volatile(name) : new Plain(name);
+	}
+
+	private static class Plain extends Gauge {
+		private long value;
+
+		Plain(String name) {
+			super(name);
+		}
+
+		@Override
+		public void set(long value) {
+			this.value = value;
+		}
+
+		@Override
+		public long get() {
+			return value;
+		}
+
+		@Override
+		public void reset() {
+			value = 0;
+		}
+	}
+
+	private static class Volatile extends Gauge {
+		private volatile long value;
+
+		Volatile(String name) {
+			super(name);
+		}
+
+		@Override
+		public void set(long value) {
+			this.value = value;
+		}
+
+		@Override
+		public long get() {
+			return value;
+		}
+
+		@Override
+		public void reset() {
+			value = 0;
+		}
+	}
+}
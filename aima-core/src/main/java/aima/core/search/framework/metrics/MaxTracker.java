@@ -0,0 +1,77 @@
+package aima.core.search.framework.metrics;
+
+import aima.core.search.framework.Metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Tracks the maximum of all long values reported since the last reset, e.g.
+ * the maximal frontier size or search depth. Initial value is zero.
+ */
+public abstract class MaxTracker extends Metric {
+
+	protected MaxTracker(String name) {
+		super(name);
+	}
+
+	/** Replaces the current maximum if the specified value is greater. */
+	public abstract void update(long value);
+
+	public abstract long get();
+
+	@Override
+	public void renderTo(Metrics metrics) {
+		metrics.set(getName(), get());
+	}
+
+	static MaxTracker create(String name, boolean threadSafe) {
+		return threadSafe ? new Accumulating(name) : new Plain(name);
+	}
+
+	private static class Plain extends MaxTracker {
+		private long max;
+
+		Plain(String name) {
+			super(name);
+		}
+
+		@Override
+		public void update(long value) {
+			if (value > max)
+				max = value;
+		}
+
+		@Override
+		public long get() {
+			return max;
+		}
+
+		@Override
+		public void reset() {
+			max = 0;
+		}
+	}
+
+	private static class Accumulating extends MaxTracker {
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		Accumulating(String name) {
+			super(name);
+		}
+
+		@Override
+		public void update(long value) {
+			max.accumulate(value);
+		}
+
+		@Override
+		public long get() {
+			return max.get();
+		}
+
+		@Override
+		public void reset() {
+			max.reset();
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package aima.core.search.framework.metrics;
+
+import aima.core.search.framework.Metrics;
+
+/**
+ * Base class for typed metrics. Values are kept in primitive form and are only
+ * converted into the string based {@link Metrics} view on demand.
+ */
+public abstract class Metric {
+
+	private final String name;
+
+	protected Metric(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/** Restores the initial value of this metric. */
+	public abstract void reset();
+
+	/** Writes the current value of this metric into the specified metrics view. */
+	public abstract void renderTo(Metrics metrics);
+
+	@Override
+	public String toString() {
+		Metrics m = new Metrics();
+		renderTo(m);
+		return name + "=" + m.get(name);
+	}
+}
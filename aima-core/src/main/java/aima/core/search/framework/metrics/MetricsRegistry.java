@@ -0,0 +1,109 @@
+package aima.core.search.framework.metrics;
+
+import aima.core.search.framework.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates and manages the typed metrics of a search algorithm. Algorithms
+ * obtain their counters, gauges, and max-trackers once (typically during
+ * construction) and update them on the hot path without any string conversion
+ * or synchronization. The string based {@link Metrics} view which is returned
+ * by <code>getMetrics()</code> is created on demand by {@link #snapshot()}.
+ * <br>
+ * Registries for single-threaded algorithms use plain primitive fields. If
+ * metrics are updated by several threads, create the registry with
+ * <code>threadSafe = true</code>. Then, counters are backed by striped
+ * adders and max-trackers by accumulators.
+ */
+public class MetricsRegistry {
+
+	private final boolean threadSafe;
+	private final List<Metric> metrics = new ArrayList<>();
+
+	/** Creates a registry for single-threaded use. */
+	public MetricsRegistry() {
+		this(false);
+	}
+
+	public MetricsRegistry(boolean threadSafe) {
+		this.threadSafe = threadSafe;
+	}
+
+	public boolean isThreadSafe() {
+		return threadSafe;
+	}
+
+	public Counter counter(String name) {
+		return register(name, Counter.class, Counter.create(name, threadSafe));
+	}
+
+	public Gauge gauge(String name) {
+		return register(name, Gauge.class, Gauge.create(name, threadSafe));
+	}
+
+	public DoubleGauge doubleGauge(String name) {
+		return register(name, DoubleGauge.class, DoubleGauge.create(name, threadSafe));
+	}
+
+	public MaxTracker maxTracker(String name) {
+		return register(name, MaxTracker.class, MaxTracker.create(name, threadSafe));
+	}
+
+	/** Returns the metric with the specified name or null. */
+	public synchronized Metric get(String name) {
+		for (Metric metric : metrics)
+			if (metric.getName().equals(name))
+				return metric;
+		return null;
+	}
+
+	public synchronized List<Metric> getAll() {
+		return Collections.unmodifiableList(new ArrayList<>(metrics));
+	}
+
+	/** Resets all registered metrics to their initial values. */
+	public synchronized void reset() {
+		for (Metric metric : metrics)
+			metric.reset();
+	}
+
+	/**
+	 * Writes the current values of all registered metrics into the specified
+	 * view. Entries of other metrics already contained in the view are preserved.
+	 */
+	public synchronized Metrics renderTo(Metrics result) {
+		for (Metric metric : metrics)
+			metric.renderTo(result);
+		return result;
+	}
+
+	/** Returns a new string based view of the current metric values. */
+	public Metrics snapshot() {
+		return renderTo(new Metrics());
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+
+	/**
+	 * Returns an already registered metric with the given name or registers the
+	 * new candidate. Registering the same name for different metric types is
+	 * an error.
+	 */
+	private synchronized <M extends Metric> M register(String name, Class<M> type, M candidate) {
+		Metric existing = get(name);
+		if (existing == null) {
+			metrics.add(candidate);
+			return candidate;
+		} else if (type.isInstance(existing)) {
+			return type.cast(existing);
+		}
+		throw new IllegalArgumentException("Metric " + name + " is already registered as "
+				+ existing.getClass().getSuperclass().getSimpleName() + ".");
+	}
+}
@@ -5,6 +5,7 @@ import java.util.*;
 import aima.core.search.framework.Node;
 import aima.core.search.framework.NodeFactory;
 import aima.core.search.framework.problem.Problem;
+import aima.core.util.datastructure.IndexedPriorityQueue;
 import aima.core.util.Tasks;
 
 /**
@@ -69,8 +70,12 @@ public class GraphSearch4e<S, A> extends QueueSearch<S, A> {
 	public Optional<Node<S, A>> findNode(Problem<S, A> problem, Queue<Node<S, A>> frontier) {
 		clearMetrics();
 		this.frontier = frontier;
-		nodeComparator = (frontier instanceof PriorityQueue<?>) ?
-				((PriorityQueue<Node<S, A>>) frontier).comparator() : null;
+		if (frontier instanceof PriorityQueue<?>)
+			nodeComparator = ((PriorityQueue<Node<S, A>>) frontier).comparator();
+		else if (frontier instanceof IndexedPriorityQueue<?>)
+			nodeComparator = ((IndexedPriorityQueue<Node<S, A>>) frontier).comparator();
+		else
+			nodeComparator = null;
 		Node<S, A> root = nodeFactory.createNode(problem.getInitialState());
 
 		/// frontier <- a queue initially containing one path, for the problem's initial state
@@ -0,0 +1,171 @@
+package aima.core.search.framework.qsearch;
+
+import java.util.BitSet;
+import java.util.Optional;
+import java.util.Queue;
+
+import aima.core.search.framework.Node;
+import aima.core.search.framework.NodeArena;
+import aima.core.search.framework.NodeFactory;
+import aima.core.search.framework.SearchUtils;
+import aima.core.search.framework.problem.Problem;
+import aima.core.util.Tasks;
+
+/**
+ * Graph search implementation which stores the search tree in a
+ * {@link NodeArena} instead of linking node objects by parent references.
+ * The control flow and the resulting metrics are the same as for
+ * {@link GraphSearch}, but node expansion allocates neither successor lists nor
+ * parent chains: Generated nodes are appended to the primitive arrays of the
+ * arena, states are interned, and the explored set is a bit set over state ids.
+ * Successors of already explored states are discarded before they enter the
+ * arena.
+ * <br>
+ * The frontier still holds node objects because search strategies prioritize
+ * nodes by comparators, so one small handle is allocated per node which enters
+ * the frontier. Handles are views of the arena: Parent and action are looked
+ * up on demand, so heuristic functions, comparators and node listeners can use
+ * them like ordinary nodes, e.g. to follow parent links. Handles become
+ * garbage as soon as they are expanded, and they are valid until the next
+ * search starts. A node object with stored parent links is created only for
+ * the goal, so the result can be processed as usual, e.g. by
+ * {@link SearchUtils#getSequenceOfActions(Node)}. After search, the arena and
+ * the goal node index can be accessed directly, see
+ * {@link SearchUtils#getSequenceOfActions(NodeArena, int)}.
+ * <br>
+ * The node factory is only used to inform node listeners about expansions.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class GraphSearchArena<S, A> extends QueueSearch<S, A> {
+
+	private final NodeArena<S, A> arena = new NodeArena<>();
+	private final BitSet explored = new BitSet();
+	private Queue<Node<S, A>> frontier;
+	private int goalNode = NodeArena.NO_PARENT;
+
+	public GraphSearchArena() {
+		this(new NodeFactory<>());
+	}
+
+	public GraphSearchArena(NodeFactory<S, A> nodeFactory) {
+		super(nodeFactory);
+	}
+
+	@Override
+	public Optional<Node<S, A>> findNode(Problem<S, A> problem, Queue<Node<S, A>> frontier) {
+		this.frontier = frontier;
+		clearMetrics();
+		arena.clear();
+		explored.clear();
+		goalNode = NodeArena.NO_PARENT;
+		// initialize the frontier using the initial state of the problem
+		ArenaNode<S, A> root = addToFrontier(arena.addRoot(problem.getInitialState()));
+		if (earlyGoalTest && problem.testSolution(root))
+			return asOptional(root.index);
+
+		while (!isFrontierEmpty() && !Tasks.currIsCancelled()) {
+			// choose a leaf node and remove it from the frontier
+			ArenaNode<S, A> node = removeFromFrontier();
+			// if the node contains a goal state then return the corresponding solution
+			if (!earlyGoalTest && problem.testSolution(node))
+				return asOptional(node.index);
+
+			// expand the chosen node and add the successor nodes to the frontier
+			S state = node.getState();
+			for (A action : problem.getActions(state)) {
+				S successorState = problem.getResult(state, action);
+				int stateId = arena.internState(successorState);
+				if (explored.get(stateId))
+					continue;
+				double stepCost = problem.getStepCosts(state, action, successorState);
+				int index = arena.addNode(node.index, action, stateId, node.getPathCost() + stepCost);
+				ArenaNode<S, A> successor = addToFrontier(index);
+				if (earlyGoalTest && problem.testSolution(successor))
+					return asOptional(successor.index);
+			}
+			nodeFactory.notifyListeners(node);
+		}
+		// if the frontier is empty then return failure
+		return Optional.empty();
+	}
+
+	/** Returns the node store of the last search. */
+	public NodeArena<S, A> getNodeArena() {
+		return arena;
+	}
+
+	/**
+	 * Returns the arena index of the goal node found by the last search or
+	 * {@link NodeArena#NO_PARENT} if no goal was found.
+	 */
+	public int getGoalNode() {
+		return goalNode;
+	}
+
+	private ArenaNode<S, A> addToFrontier(int index) {
+		ArenaNode<S, A> node = new ArenaNode<>(arena, index);
+		frontier.add(node);
+		updateMetrics(frontier.size());
+		return node;
+	}
+
+	private ArenaNode<S, A> removeFromFrontier() {
+		cleanUpFrontier();
+		ArenaNode<S, A> result = (ArenaNode<S, A>) frontier.remove();
+		explored.set(arena.getStateId(result.index));
+		updateMetrics(frontier.size());
+		return result;
+	}
+
+	private boolean isFrontierEmpty() {
+		cleanUpFrontier();
+		updateMetrics(frontier.size());
+		return frontier.isEmpty();
+	}
+
+	/** Removes nodes of already explored states from the head of the frontier. */
+	private void cleanUpFrontier() {
+		while (!frontier.isEmpty() && explored.get(arena.getStateId(((ArenaNode<S, A>) frontier.element()).index)))
+			frontier.remove();
+	}
+
+	private Optional<Node<S, A>> asOptional(int index) {
+		goalNode = index;
+		return asOptional(arena.toNode(index));
+	}
+
+	/** Frontier entry which refers to a node in the arena. */
+	private static class ArenaNode<S, A> extends Node<S, A> {
+		final NodeArena<S, A> arena;
+		final int index;
+
+		ArenaNode(NodeArena<S, A> arena, int index) {
+			super(arena.getState(index), null, null, arena.getPathCost(index));
+			this.arena = arena;
+			this.index = index;
+		}
+
+		@Override
+		public Node<S, A> getParent() {
+			return arena.isRootNode(index) ? null : new ArenaNode<>(arena, arena.getParent(index));
+		}
+
+		@Override
+		public A getAction() {
+			return arena.getAction(index);
+		}
+
+		@Override
+		public boolean isRootNode() {
+			return arena.isRootNode(index);
+		}
+
+		@Override
+		public String toString() {
+			return "[parent=" + getParent() + ", action=" + getAction() + ", state=" + getState() + ", pathCost="
+					+ getPathCost() + "]";
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package aima.core.search.framework.qsearch;
+
+import java.util.*;
+
+import aima.core.search.framework.Node;
+import aima.core.search.framework.NodeFactory;
+import aima.core.search.framework.QueueFactory;
+import aima.core.search.framework.problem.Problem;
+import aima.core.util.datastructure.IndexedPriorityQueue;
+
+/**
+ * Artificial Intelligence A Modern Approach (3rd Edition): Figure 3.7, page 77.
+ * <br>
+ *
+ * <pre>
+ * function GRAPH-SEARCH(problem) returns a solution, or failure
+ *   initialize the frontier using the initial state of problem
+ *   initialize the explored set to be empty
+ *   loop do
+ *     if the frontier is empty then return failure
+ *     choose a leaf node and remove it from the frontier
+ *     if the node contains a goal state then return the corresponding solution
+ *     add the node to the explored set
+ *     expand the chosen node, adding the resulting nodes to the frontier
+ *       only if not in the frontier or explored set
+ * </pre>
+ *
+ * Figure 3.7 An informal description of the general graph-search algorithm.
+ * <br>
+ * This implementation follows the idea of {@link GraphSearchReducedFrontier}
+ * (at most one node per state in the frontier, better nodes replace worse ones)
+ * but relies on a state-indexed heap frontier
+ * ({@link QueueFactory#createStateIndexedPriorityQueue(Comparator)}). So frontier
+ * lookup and replacement (decrease-key) cost logarithmic time instead of
+ * linear time, and in contrast to {@link GraphSearch}, the frontier never
+ * contains more nodes than distinct states. Search strategies which create
+ * their priority queue by {@link #createPriorityQueue(Comparator)} (e.g.
+ * uniform cost search and best-first search variants like A*) automatically
+ * get a suitable frontier.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class GraphSearchIndexedFrontier<S, A> extends TreeSearch<S, A> {
+
+	private Set<S> explored = new HashSet<>();
+
+	public GraphSearchIndexedFrontier() {
+		this(new NodeFactory<>());
+	}
+
+	public GraphSearchIndexedFrontier(NodeFactory<S, A> nodeFactory) {
+		super(nodeFactory);
+	}
+
+	/**
+	 * Returns a heap frontier which is indexed by state.
+	 */
+	@Override
+	public Queue<Node<S, A>> createPriorityQueue(Comparator<? super Node<S, A>> comparator) {
+		return QueueFactory.createStateIndexedPriorityQueue(comparator);
+	}
+
+	/**
+	 * Checks the frontier type, clears the set of explored states, and calls
+	 * the search implementation of {@link TreeSearch}.
+	 */
+	@Override
+	public Optional<Node<S, A>> findNode(Problem<S, A> problem, Queue<Node<S, A>> frontier) {
+		if (!(frontier instanceof IndexedPriorityQueue))
+			throw new IllegalArgumentException("GraphSearchIndexedFrontier requires a state-indexed " +
+					"priority queue frontier (see QueueFactory.createStateIndexedPriorityQueue).");
+		// initialize the explored set to be empty
+		explored.clear();
+		return super.findNode(problem, frontier);
+	}
+
+	/**
+	 * Inserts the node into the frontier if the node's state is not yet
+	 * explored. If the frontier already contains a node for the same state,
+	 * the frontier keeps the better one of both.
+	 */
+	@Override
+	protected void addToFrontier(Node<S, A> node) {
+		if (!explored.contains(node.getState())) {
+			// child.STATE is in frontier with higher cost? Then replace that frontier node with child.
+			if (frontier.add(node))
+				updateMetrics(frontier.size());
+		}
+	}
+
+	/**
+	 * Removes the node at the head of the frontier, adds the corresponding
+	 * state to the explored set, and returns the node.
+	 *
+	 * @return the node at the head of the frontier.
+	 */
+	@Override
+	protected Node<S, A> removeFromFrontier() {
+		Node<S, A> result = frontier.remove();
+		// add the node to the explored set
+		explored.add(result.getState());
+		updateMetrics(frontier.size());
+		return result;
+	}
+}
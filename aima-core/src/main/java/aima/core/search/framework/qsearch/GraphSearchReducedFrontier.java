@@ -5,6 +5,7 @@ import java.util.*;
 import aima.core.search.framework.Node;
 import aima.core.search.framework.NodeFactory;
 import aima.core.search.framework.problem.Problem;
+import aima.core.util.datastructure.IndexedPriorityQueue;
 
 /**
  * Artificial Intelligence A Modern Approach (3rd Edition): Figure 3.7, page 77.
@@ -66,6 +67,8 @@ public class GraphSearchReducedFrontier<S, A> extends TreeSearch<S, A> {
 		// initialize the explored set to be empty
 		if (frontier instanceof PriorityQueue<?>)
 			nodeComparator = ((PriorityQueue<Node<S, A>>) frontier).comparator();
+		else if (frontier instanceof IndexedPriorityQueue<?>)
+			nodeComparator = ((IndexedPriorityQueue<Node<S, A>>) frontier).comparator();
 		explored.clear();
 		frontierNodeLookup.clear();
 		return super.findNode(problem, frontier);
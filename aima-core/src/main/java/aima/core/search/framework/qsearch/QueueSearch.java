@@ -3,8 +3,15 @@ package aima.core.search.framework.qsearch;
 import aima.core.search.framework.Metrics;
 import aima.core.search.framework.Node;
 import aima.core.search.framework.NodeFactory;
+import aima.core.search.framework.QueueFactory;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.Gauge;
+import aima.core.search.framework.metrics.MaxTracker;
+import aima.core.search.framework.metrics.MetricsRegistry;
 import aima.core.search.framework.problem.Problem;
 
+import java.util.Comparator;
 import java.util.Optional;
 import java.util.Queue;
 
@@ -30,12 +37,18 @@ public abstract class QueueSearch<S, A> {
 
 	final protected NodeFactory<S, A> nodeFactory;
 	protected boolean earlyGoalTest = false;
-	protected Metrics metrics = new Metrics();
+
+	// typed metrics, updated without string conversion on every expansion
+	protected final MetricsRegistry metrics = new MetricsRegistry();
+	protected final Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	protected final Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	protected final MaxTracker maxQueueSize = metrics.maxTracker(METRIC_MAX_QUEUE_SIZE);
+	protected final DoubleGauge pathCost = metrics.doubleGauge(METRIC_PATH_COST);
 
 	/** Stores the provided node expander and adds a node listener to it. */
 	protected QueueSearch(NodeFactory<S, A> nodeFactory) {
 		this.nodeFactory = nodeFactory;
-		nodeFactory.addNodeListener((node) -> metrics.incrementInt(METRIC_NODES_EXPANDED));
+		nodeFactory.addNodeListener((node) -> nodesExpanded.increment());
 	}
 
 	/**
@@ -52,6 +65,16 @@ public abstract class QueueSearch<S, A> {
 	abstract public Optional<Node<S, A>> findNode(Problem<S, A> problem, Queue<Node<S, A>> frontier);
 
 
+	/**
+	 * Factory method which is used by search strategies to create priority
+	 * queue frontiers. This implementation returns a standard priority queue.
+	 * Search execution strategies which depend on special frontier capabilities
+	 * can override it.
+	 */
+	public Queue<Node<S, A>> createPriorityQueue(Comparator<? super Node<S, A>> comparator) {
+		return QueueFactory.createPriorityQueue(comparator);
+	}
+
 	//
 	// helper methods to be used in subclasses
 
@@ -67,9 +90,16 @@ public abstract class QueueSearch<S, A> {
 	}
 
 	/**
-	 * Returns all the search metrics.
+	 * Returns a snapshot of all the search metrics.
 	 */
 	public Metrics getMetrics() {
+		return metrics.snapshot();
+	}
+
+	/**
+	 * Returns the typed metrics, which can be read without string conversion.
+	 */
+	public MetricsRegistry getMetricsRegistry() {
 		return metrics;
 	}
 
@@ -77,22 +107,16 @@ public abstract class QueueSearch<S, A> {
 	 * Sets all metrics to zero.
 	 */
 	protected void clearMetrics() {
-		metrics.set(METRIC_NODES_EXPANDED, 0);
-		metrics.set(METRIC_QUEUE_SIZE, 0);
-		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
-		metrics.set(METRIC_PATH_COST, 0);
+		metrics.reset();
 	}
 
 	protected void updateMetrics(int queueSize) {
-		metrics.set(METRIC_QUEUE_SIZE, queueSize);
-		int maxQSize = metrics.getInt(METRIC_MAX_QUEUE_SIZE);
-		if (queueSize > maxQSize) {
-			metrics.set(METRIC_MAX_QUEUE_SIZE, queueSize);
-		}
+		this.queueSize.set(queueSize);
+		maxQueueSize.update(queueSize);
 	}
 
 	protected Optional<Node<S, A>> asOptional(Node<S, A> node) {
-		metrics.set(METRIC_PATH_COST, node.getPathCost());
+		pathCost.set(node.getPathCost());
 		return Optional.of(node);
 	}
 }
\ No newline at end of file
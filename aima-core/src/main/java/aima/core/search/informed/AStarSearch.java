@@ -43,6 +43,11 @@ public class AStarSearch<S, A> extends BestFirstSearch<S, A> {
             public double applyAsDouble(Node<S, A> node) {
                 return node.getPathCost() + this.h.applyAsDouble(node);
             }
+
+            @Override
+            public double applyAsDouble(Node<S, A> node, double hValue) {
+                return node.getPathCost() + hValue;
+            }
         };
     }
 }
\ No newline at end of file
@@ -0,0 +1,311 @@
+package aima.core.search.informed;
+
+import aima.core.search.framework.Metrics;
+import aima.core.search.framework.Node;
+import aima.core.search.framework.NodeFactory;
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.SearchForStates;
+import aima.core.search.framework.SearchUtils;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.Gauge;
+import aima.core.search.framework.metrics.MetricsRegistry;
+import aima.core.search.framework.problem.Problem;
+import aima.core.util.Tasks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Anytime repairing A* (ARA*, Likhachev, Gordon, and Thrun 2003). A weighted
+ * A* search with f(n) = g(n) + w * h(n) quickly finds a first solution. Then,
+ * the weight is decreased step by step and the search is continued, reusing
+ * the results of the previous iterations: Only states whose path costs have
+ * improved since their last expansion are expanded again. Each iteration
+ * improves the solution until the weight reaches one, and the solution is
+ * optimal (provided that the heuristic function is admissible).
+ * <br>
+ * The search can be bounded by a time limit and by a limit for the number of
+ * expanded nodes. When a limit is reached, the best solution found so far is
+ * returned. Its suboptimality bound, i.e. the factor by which its path cost
+ * may exceed the optimal path cost, is reported by metric
+ * {@link #METRIC_SUBOPTIMALITY_BOUND}. The bound is computed from the lowest
+ * f-value with weight one of all states which still await expansion, so it is
+ * often much tighter than the current weight.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class AnytimeAStarSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A>, Informed<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = "nodesExpanded";
+	public static final String METRIC_PATH_COST = "pathCost";
+	/** Factor by which the path cost of the result may exceed the optimum (infinity if unknown). */
+	public static final String METRIC_SUBOPTIMALITY_BOUND = "suboptimalityBound";
+	/** Weight of the last (possibly interrupted) iteration. */
+	public static final String METRIC_WEIGHT = "weight";
+	/** Number of started iterations. */
+	public static final String METRIC_ITERATIONS = "iterations";
+
+	private ToDoubleFunction<Node<S, A>> h;
+	private final double initialWeight;
+	private final double weightDecrement;
+	private long timeLimitNanos = Long.MAX_VALUE;
+	private long nodeLimit = Long.MAX_VALUE;
+	private final NodeFactory<S, A> nodeFactory = new NodeFactory<>();
+
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final DoubleGauge pathCost = metrics.doubleGauge(METRIC_PATH_COST);
+	private final DoubleGauge suboptimalityBound = metrics.doubleGauge(METRIC_SUBOPTIMALITY_BOUND);
+	private final DoubleGauge weight = metrics.doubleGauge(METRIC_WEIGHT);
+	private final Gauge iterations = metrics.gauge(METRIC_ITERATIONS);
+
+	/** Creates a search with initial weight 3, which is decreased by 0.5 per iteration. */
+	public AnytimeAStarSearch(ToDoubleFunction<Node<S, A>> h) {
+		this(h, 3.0, 0.5);
+	}
+
+	/**
+	 * Creates a search with the given initial weight (at least one) and weight
+	 * decrement (positive).
+	 */
+	public AnytimeAStarSearch(ToDoubleFunction<Node<S, A>> h, double initialWeight, double weightDecrement) {
+		if (initialWeight < 1 || weightDecrement <= 0)
+			throw new IllegalArgumentException("Weight must be at least one and decrement must be positive.");
+		this.h = h;
+		this.initialWeight = initialWeight;
+		this.weightDecrement = weightDecrement;
+		nodeFactory.addNodeListener(node -> nodesExpanded.increment());
+	}
+
+	/**
+	 * Limits the time for each call of <code>findActions</code> or
+	 * <code>findState</code>. Use <code>Long.MAX_VALUE</code> for no limit.
+	 */
+	public void setTimeLimit(long time, TimeUnit unit) {
+		timeLimitNanos = time == Long.MAX_VALUE ? Long.MAX_VALUE : unit.toNanos(time);
+	}
+
+	/**
+	 * Limits the number of expanded nodes for each call of
+	 * <code>findActions</code> or <code>findState</code>.
+	 */
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	@Override
+	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
+		this.h = h;
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		nodeFactory.useParentLinks(true);
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		nodeFactory.useParentLinks(false);
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns the best goal node found before a limit was reached or the
+	 * search was cancelled, or empty if no goal node was found.
+	 */
+	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		metrics.reset();
+		suboptimalityBound.set(Double.POSITIVE_INFINITY);
+		SearchRun run = new SearchRun(p);
+		run.execute();
+		if (run.incumbent == null)
+			return Optional.empty();
+		pathCost.set(run.incumbent.getPathCost());
+		return Optional.of(run.incumbent);
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics.snapshot();
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener) {
+		nodeFactory.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeFactory.removeNodeListener(listener);
+	}
+
+	/** Search data of one state. */
+	private static class StateInfo<S, A> {
+		Node<S, A> node; // cheapest node found so far
+		final double h;
+		boolean open;
+		boolean closed; // expanded in the current iteration
+		boolean inconsistent; // improved after expansion in the current iteration
+
+		StateInfo(Node<S, A> node, double h) {
+			this.node = node;
+			this.h = h;
+		}
+	}
+
+	/** Frontier entry with the f-value of the node at insertion time. */
+	private static class Entry<S, A> implements Comparable<Entry<S, A>> {
+		final StateInfo<S, A> info;
+		final Node<S, A> node;
+		final double f;
+
+		Entry(StateInfo<S, A> info, double f) {
+			this.info = info;
+			this.node = info.node;
+			this.f = f;
+		}
+
+		@Override
+		public int compareTo(Entry<S, A> other) {
+			return Double.compare(f, other.f);
+		}
+	}
+
+	/** State of one search. */
+	private class SearchRun {
+		final Problem<S, A> problem;
+		final long deadline;
+		final Map<S, StateInfo<S, A>> states = new HashMap<>();
+		PriorityQueue<Entry<S, A>> open = new PriorityQueue<>();
+		final List<StateInfo<S, A>> inconsistent = new ArrayList<>();
+		Node<S, A> incumbent;
+		double w;
+
+		SearchRun(Problem<S, A> problem) {
+			this.problem = problem;
+			long now = System.nanoTime();
+			deadline = timeLimitNanos == Long.MAX_VALUE || now + timeLimitNanos < now
+					? Long.MAX_VALUE : now + timeLimitNanos;
+		}
+
+		void execute() {
+			Node<S, A> root = nodeFactory.createNode(problem.getInitialState());
+			if (problem.testSolution(root)) {
+				incumbent = root;
+				suboptimalityBound.set(1);
+				return;
+			}
+			w = initialWeight;
+			StateInfo<S, A> rootInfo = new StateInfo<>(root, h.applyAsDouble(root));
+			states.put(root.getState(), rootInfo);
+			insert(rootInfo);
+			while (true) {
+				iterations.set(iterations.get() + 1);
+				weight.set(w);
+				boolean completed = improvePath();
+				updateBound(completed);
+				if (!completed || suboptimalityBound.get() <= 1 || w <= 1)
+					break;
+				// next iteration: lower weight, re-open improved states, recompute keys
+				w = Math.max(1, w - weightDecrement);
+				PriorityQueue<Entry<S, A>> newOpen = new PriorityQueue<>();
+				for (Entry<S, A> entry : open)
+					if (isValid(entry))
+						newOpen.add(new Entry<>(entry.info, getF(entry.info)));
+				open = newOpen;
+				for (StateInfo<S, A> info : inconsistent) {
+					info.inconsistent = false;
+					insert(info);
+				}
+				inconsistent.clear();
+				for (StateInfo<S, A> info : states.values())
+					info.closed = false;
+			}
+		}
+
+		/**
+		 * Expands nodes until no node can improve the incumbent with respect
+		 * to the current weight. Returns false if a limit was reached or the
+		 * search was cancelled.
+		 */
+		boolean improvePath() {
+			while (true) {
+				while (!open.isEmpty() && !isValid(open.peek()))
+					open.remove();
+				if (open.isEmpty() || incumbent != null && incumbent.getPathCost() <= open.peek().f)
+					return true;
+				if (nodesExpanded.get() >= nodeLimit || System.nanoTime() >= deadline || Tasks.currIsCancelled())
+					return false;
+				StateInfo<S, A> info = open.remove().info;
+				info.open = false;
+				info.closed = true;
+				for (Node<S, A> successor : nodeFactory.getSuccessors(info.node, problem)) {
+					StateInfo<S, A> sInfo = states.get(successor.getState());
+					if (sInfo == null) {
+						sInfo = new StateInfo<>(successor, h.applyAsDouble(successor));
+						states.put(successor.getState(), sInfo);
+					} else if (successor.getPathCost() < sInfo.node.getPathCost()) {
+						sInfo.node = successor;
+					} else {
+						continue;
+					}
+					if (problem.testSolution(successor)) {
+						// goal nodes are not expanded, paths through them cannot be cheaper
+						if (incumbent == null || successor.getPathCost() < incumbent.getPathCost())
+							incumbent = successor;
+					} else if (!sInfo.closed) {
+						insert(sInfo);
+					} else if (!sInfo.inconsistent) {
+						sInfo.inconsistent = true;
+						inconsistent.add(sInfo);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Computes the suboptimality bound of the incumbent. All states which
+		 * may lie on a cheaper path are in the open list or marked as
+		 * inconsistent, so their minimal g + h is a lower bound for the
+		 * optimal path cost.
+		 */
+		void updateBound(boolean completed) {
+			if (incumbent == null)
+				return;
+			double lowerBound = incumbent.getPathCost();
+			for (Entry<S, A> entry : open)
+				if (isValid(entry))
+					lowerBound = Math.min(lowerBound, entry.node.getPathCost() + entry.info.h);
+			for (StateInfo<S, A> info : inconsistent)
+				lowerBound = Math.min(lowerBound, info.node.getPathCost() + info.h);
+			double bound = lowerBound > 0 ? incumbent.getPathCost() / lowerBound
+					: (incumbent.getPathCost() > 0 ? Double.POSITIVE_INFINITY : 1);
+			if (completed)
+				bound = Math.min(bound, w);
+			suboptimalityBound.set(Math.min(suboptimalityBound.get(), bound));
+		}
+
+		void insert(StateInfo<S, A> info) {
+			info.open = true;
+			open.add(new Entry<>(info, getF(info)));
+		}
+
+		boolean isValid(Entry<S, A> entry) {
+			return entry.info.open && entry.node == entry.info.node;
+		}
+
+		double getF(StateInfo<S, A> info) {
+			return info.node.getPathCost() + w * info.h;
+		}
+	}
+}
@@ -2,7 +2,7 @@ package aima.core.search.informed;
 
 import aima.core.search.framework.Node;
 import aima.core.search.framework.QueueBasedSearch;
-import aima.core.search.framework.QueueFactory;
+import aima.core.search.framework.metrics.Counter;
 import aima.core.search.framework.qsearch.QueueSearch;
 
 import java.util.Comparator;
@@ -17,6 +17,12 @@ import java.util.function.ToDoubleFunction;
  * the node with the lowest evaluation is expanded first. The implementation of
  * best-first graph search is identical to that for uniform-cost search (Figure
  * 3.14), except for the use of f instead of g to order the priority queue.
+ * <br>
+ * If the node factory of the search execution strategy is an
+ * {@link EvaluatingNodeFactory}, f and h are computed once per node (by the
+ * evaluation function of this search) and the priority queue compares the
+ * cached values. The number of heuristic function
+ * calls is reported by metric {@link #METRIC_HEURISTIC_CALLS}.
  *
  * @author Ruediger Lunde
  * @author Ciaran O'Reilly
@@ -24,7 +30,10 @@ import java.util.function.ToDoubleFunction;
  */
 public class BestFirstSearch<S, A> extends QueueBasedSearch<S, A> implements Informed<S, A> {
 
+	public static final String METRIC_HEURISTIC_CALLS = "heuristicCalls";
+
 	private final EvaluationFunction<S, A> evalFn;
+	private final Counter heuristicCalls;
 	
 	/**
 	 * Constructs a best first search from a specified search execution strategy and an
@@ -38,13 +47,46 @@ public class BestFirstSearch<S, A> extends QueueBasedSearch<S, A> implements Inf
 	 *            node.
 	 */
 	public BestFirstSearch(QueueSearch<S, A> impl, final EvaluationFunction<S, A> evalFn) {
-		super(impl, QueueFactory.createPriorityQueue(Comparator.comparing(evalFn::applyAsDouble)));
+		super(impl, impl.createPriorityQueue(createComparator(impl, evalFn)));
 		this.evalFn = evalFn;
+		heuristicCalls = impl.getMetricsRegistry().counter(METRIC_HEURISTIC_CALLS);
+		if (evalFn.getHeuristicFunction() != null)
+			setHeuristicFunction(evalFn.getHeuristicFunction());
 	}
 
 	/** Modifies the evaluation function. */
 	@Override
 	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
-		 evalFn.setHeuristicFunction(h);
+		if (h instanceof CountingHeuristic)
+			h = ((CountingHeuristic<S, A>) h).h;
+		evalFn.setHeuristicFunction(new CountingHeuristic<>(h, heuristicCalls));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <S, A> Comparator<Node<S, A>> createComparator(QueueSearch<S, A> impl,
+																   EvaluationFunction<S, A> evalFn) {
+		if (impl.getNodeFactory() instanceof EvaluatingNodeFactory) {
+			// nodes may be wrapped by the execution strategy (e.g. bidirectional search)
+			return Comparator.comparingDouble(node -> node instanceof EvaluatedNode
+					? ((EvaluatedNode<S, A>) node).getEvaluation(evalFn) : evalFn.applyAsDouble(node));
+		}
+		return Comparator.comparingDouble(evalFn::applyAsDouble);
+	}
+
+	/** Heuristic function decorator which counts the calls. */
+	private static class CountingHeuristic<S, A> implements ToDoubleFunction<Node<S, A>> {
+		private final ToDoubleFunction<Node<S, A>> h;
+		private final Counter counter;
+
+		CountingHeuristic(ToDoubleFunction<Node<S, A>> h, Counter counter) {
+			this.h = h;
+			this.counter = counter;
+		}
+
+		@Override
+		public double applyAsDouble(Node<S, A> node) {
+			counter.increment();
+			return h.applyAsDouble(node);
+		}
 	}
 }
@@ -0,0 +1,243 @@
+package aima.core.search.informed;
+
+import aima.core.search.framework.Metrics;
+import aima.core.search.framework.Node;
+import aima.core.search.framework.NodeFactory;
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.SearchForStates;
+import aima.core.search.framework.SearchUtils;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.MetricsRegistry;
+import aima.core.search.framework.problem.BidirectionalProblem;
+import aima.core.search.framework.problem.Problem;
+import aima.core.util.Tasks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bidirectional A* search for problems with weighted actions. A forward search
+ * from the initial state of the original problem and a backward search from
+ * the initial state of the reverse problem (the goal) are interleaved. Both
+ * use the average of the two heuristics as potential (Ikeda et al. 1994,
+ * Goldberg and Harrelson 2005): Forward nodes are ordered by
+ * g(n) + (h<sub>goal</sub>(n) - h<sub>start</sub>(n)) / 2 and backward nodes
+ * by g(n) + (h<sub>start</sub>(n) - h<sub>goal</sub>(n)) / 2. With consistent
+ * heuristics, both searches then work on the same non-negative reduced step
+ * costs, and the search can stop as soon as the sum of the two smallest
+ * keys is not smaller than the costs of the best path found so far through a
+ * state reached from both sides. The direction with the smaller frontier is
+ * expanded next, so that both searches stay balanced.
+ * <br>
+ * Without heuristics (bidirectional uniform cost search), the explored region
+ * consists of two small balls instead of one large ball, so that far fewer
+ * nodes are expanded than by uniform cost search. With good heuristics, the
+ * savings compared to {@link AStarSearch} are smaller because the average
+ * potential is weaker than the heuristics themselves. The search returns
+ * optimal solutions if the heuristics are consistent. Problems must implement
+ * {@link BidirectionalProblem}, and the reverse problem must provide a reverse
+ * action for each action of the original problem.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class BidirectionalAStarSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = "nodesExpanded";
+	public static final String METRIC_PATH_COST = "pathCost";
+
+	private static final int FORWARD = 0;
+	private static final int BACKWARD = 1;
+
+	private final Function<S, ToDoubleFunction<Node<S, A>>> heuristicFactory;
+	private final NodeFactory<S, A> nodeFactory = new NodeFactory<>();
+
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final DoubleGauge pathCost = metrics.doubleGauge(METRIC_PATH_COST);
+
+	/**
+	 * Creates a search which obtains its heuristics from a factory.
+	 *
+	 * @param heuristicFactory
+	 *            Maps a state to a heuristic function which estimates the
+	 *            costs of the cheapest path from the state of a node to that
+	 *            state. It is applied to the initial state and to the goal
+	 *            state of the problem. Use <code>state -&gt; node -&gt;
+	 *            0.0</code> for bidirectional uniform cost search.
+	 */
+	public BidirectionalAStarSearch(Function<S, ToDoubleFunction<Node<S, A>>> heuristicFactory) {
+		this.heuristicFactory = heuristicFactory;
+		nodeFactory.addNodeListener(node -> nodesExpanded.increment());
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns a node of the goal state whose path from the root corresponds to
+	 * an optimal solution, or empty if the goal is unreachable or the search
+	 * was cancelled.
+	 */
+	@SuppressWarnings("unchecked")
+	public Optional<Node<S, A>> findNode(Problem<S, A> problem) {
+		if (!(problem instanceof BidirectionalProblem))
+			throw new IllegalArgumentException("Bidirectional A* search needs a bidirectional problem.");
+		metrics.reset();
+		Problem<S, A> orgP = ((BidirectionalProblem<S, A>) problem).getOriginalProblem();
+		Problem<S, A> revP = ((BidirectionalProblem<S, A>) problem).getReverseProblem();
+		SearchRun run = new SearchRun(orgP, revP);
+		Optional<Node<S, A>> result = run.execute();
+		result.ifPresent(node -> pathCost.set(node.getPathCost()));
+		return result;
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics.snapshot();
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener) {
+		nodeFactory.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeFactory.removeNodeListener(listener);
+	}
+
+	/** State of one search, index 0 for the forward and 1 for the backward direction. */
+	private class SearchRun {
+		final Problem<S, A> orgP;
+		final List<Problem<S, A>> problems = new ArrayList<>(2);
+		// heuristics which estimate the costs to the goal and to the initial state
+		final ToDoubleFunction<Node<S, A>> hGoal;
+		final ToDoubleFunction<Node<S, A>> hStart;
+		final List<PriorityQueue<Entry<S, A>>> frontiers = new ArrayList<>(2);
+		// cheapest node found so far for each state
+		final List<Map<S, Node<S, A>>> bestNodes = new ArrayList<>(2);
+
+		double bestCost = Double.POSITIVE_INFINITY;
+		Node<S, A> bestForwardNode;
+		Node<S, A> bestBackwardNode;
+
+		SearchRun(Problem<S, A> orgP, Problem<S, A> revP) {
+			this.orgP = orgP;
+			problems.add(orgP);
+			problems.add(revP);
+			hGoal = heuristicFactory.apply(revP.getInitialState());
+			hStart = heuristicFactory.apply(orgP.getInitialState());
+			for (int i = 0; i < 2; i++) {
+				frontiers.add(new PriorityQueue<>());
+				bestNodes.add(new HashMap<>());
+			}
+		}
+
+		Optional<Node<S, A>> execute() {
+			Node<S, A> root = nodeFactory.createNode(orgP.getInitialState());
+			if (root.getState().equals(problems.get(BACKWARD).getInitialState()))
+				return Optional.of(root);
+			add(FORWARD, root);
+			add(BACKWARD, nodeFactory.createNode(problems.get(BACKWARD).getInitialState()));
+			while (!Tasks.currIsCancelled()) {
+				Entry<S, A> top0 = peek(FORWARD);
+				Entry<S, A> top1 = peek(BACKWARD);
+				if (top0 == null || top1 == null || top0.key + top1.key >= bestCost)
+					break;
+				int dir = frontiers.get(FORWARD).size() <= frontiers.get(BACKWARD).size() ? FORWARD : BACKWARD;
+				expand(dir, frontiers.get(dir).remove().node);
+			}
+			if (Tasks.currIsCancelled() || bestForwardNode == null)
+				return Optional.empty();
+			return createSolution(bestForwardNode, bestBackwardNode);
+		}
+
+		/** Removes outdated entries from the head of the frontier and returns the head. */
+		Entry<S, A> peek(int dir) {
+			PriorityQueue<Entry<S, A>> frontier = frontiers.get(dir);
+			while (!frontier.isEmpty()
+					&& frontier.peek().node != bestNodes.get(dir).get(frontier.peek().node.getState()))
+				frontier.remove();
+			return frontier.peek();
+		}
+
+		void expand(int dir, Node<S, A> node) {
+			for (Node<S, A> successor : nodeFactory.getSuccessors(node, problems.get(dir))) {
+				Node<S, A> best = bestNodes.get(dir).get(successor.getState());
+				if (best == null || successor.getPathCost() < best.getPathCost())
+					add(dir, successor);
+			}
+		}
+
+		void add(int dir, Node<S, A> node) {
+			bestNodes.get(dir).put(node.getState(), node);
+			double potential = (hGoal.applyAsDouble(node) - hStart.applyAsDouble(node)) / 2;
+			frontiers.get(dir).add(new Entry<>(node, node.getPathCost() + (dir == FORWARD ? potential : -potential)));
+			Node<S, A> other = bestNodes.get(1 - dir).get(node.getState());
+			if (other != null && node.getPathCost() + other.getPathCost() < bestCost) {
+				bestCost = node.getPathCost() + other.getPathCost();
+				bestForwardNode = dir == FORWARD ? node : other;
+				bestBackwardNode = dir == FORWARD ? other : node;
+			}
+		}
+
+		/**
+		 * Extends the forward node by the actions of the original problem
+		 * which correspond to the path of the backward node.
+		 */
+		Optional<Node<S, A>> createSolution(Node<S, A> orgNode, Node<S, A> revNode) {
+			while (revNode.getParent() != null) {
+				S currState = revNode.getState();
+				S nextState = revNode.getParent().getState();
+				A bestAction = null;
+				double bestStepCosts = Double.POSITIVE_INFINITY;
+				for (A action : orgP.getActions(currState)) {
+					if (nextState.equals(orgP.getResult(currState, action))) {
+						double stepCosts = orgP.getStepCosts(currState, action, nextState);
+						if (stepCosts < bestStepCosts) {
+							bestAction = action;
+							bestStepCosts = stepCosts;
+						}
+					}
+				}
+				if (bestAction == null)
+					return Optional.empty(); // reverse action missing
+				orgNode = nodeFactory.createNode(nextState, orgNode, bestAction, bestStepCosts);
+				revNode = revNode.getParent();
+			}
+			return Optional.of(orgNode);
+		}
+	}
+
+	/** Frontier entry with the key of the node in its search direction. */
+	private static class Entry<S, A> implements Comparable<Entry<S, A>> {
+		final Node<S, A> node;
+		final double key;
+
+		Entry(Node<S, A> node, double key) {
+			this.node = node;
+			this.key = key;
+		}
+
+		@Override
+		public int compareTo(Entry<S, A> other) {
+			return Double.compare(key, other.key);
+		}
+	}
+}
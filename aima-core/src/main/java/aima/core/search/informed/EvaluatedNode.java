@@ -0,0 +1,60 @@
+package aima.core.search.informed;
+
+import aima.core.search.framework.Node;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Node which additionally stores the heuristic value h(n) and the value of the
+ * evaluation function f(n). Both values are computed once, when the search
+ * which owns the node evaluates it for the first time. So priority queues can
+ * compare nodes without recomputing possibly expensive heuristics.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class EvaluatedNode<S, A> extends Node<S, A> {
+
+	private double hValue = Double.NaN;
+	private double fValue = Double.NaN;
+
+	public EvaluatedNode(S state) {
+		super(state);
+	}
+
+	public EvaluatedNode(S state, Node<S, A> parent, A action, double pathCost) {
+		super(state, parent, action, pathCost);
+	}
+
+	/** Returns the cached heuristic value h(n) or NaN if the node has not been evaluated. */
+	public double getHeuristicValue() {
+		return hValue;
+	}
+
+	/** Returns the cached evaluation f(n) or NaN if the node has not been evaluated. */
+	public double getEvaluation() {
+		return fValue;
+	}
+
+	/**
+	 * Returns f(n) as computed by the given evaluation function. The values of
+	 * h(n) and f(n) are computed on the first call and cached. If the
+	 * evaluation function has no heuristic function yet, nothing is cached.
+	 */
+	double getEvaluation(EvaluationFunction<S, A> evalFn) {
+		if (Double.isNaN(fValue)) {
+			ToDoubleFunction<Node<S, A>> h = evalFn.getHeuristicFunction();
+			if (h == null)
+				return evalFn.applyAsDouble(this);
+			hValue = h.applyAsDouble(this);
+			fValue = evalFn.applyAsDouble(this, hValue);
+		}
+		return fValue;
+	}
+
+	@Override
+	public String toString() {
+		return "[parent=" + getParent() + ", action=" + getAction() + ", state=" + getState() + ", pathCost="
+				+ getPathCost() + ", h=" + hValue + ", f=" + fValue + "]";
+	}
+}
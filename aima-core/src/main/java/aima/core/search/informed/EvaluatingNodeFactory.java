@@ -0,0 +1,33 @@
+package aima.core.search.informed;
+
+import aima.core.search.framework.Node;
+import aima.core.search.framework.NodeFactory;
+
+/**
+ * Node factory which creates {@link EvaluatedNode} instances. Equip a search
+ * execution strategy with this factory to enable evaluation caching in
+ * best-first search, e.g.
+ * <code>new AStarSearch&lt;&gt;(new GraphSearch&lt;&gt;(new EvaluatingNodeFactory&lt;&gt;()), h)</code>.
+ * Then, the heuristic function is called exactly once per created node, and
+ * the frontier compares cached primitive values instead of calling the
+ * evaluation function O(log n) times per insertion or removal. Nodes are
+ * evaluated by the best-first search which adds them to its frontier, so the
+ * factory does not depend on a certain evaluation function and can be shared
+ * by several searches.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class EvaluatingNodeFactory<S, A> extends NodeFactory<S, A> {
+
+	@Override
+	public Node<S, A> createNode(S state) {
+		return new EvaluatedNode<>(state);
+	}
+
+	@Override
+	public Node<S, A> createNode(S state, Node<S, A> parent, A action, double stepCost) {
+		Node<S, A> p = useParentLinks ? parent : null;
+		return new EvaluatedNode<>(state, p, action, parent.getPathCost() + stepCost);
+	}
+}
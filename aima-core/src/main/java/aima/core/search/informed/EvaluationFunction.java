@@ -29,6 +29,17 @@ public abstract class EvaluationFunction<S, A> implements ToDoubleFunction<Node<
 		return h;
 	}
 
+	/**
+	 * Computes f(n) for a node whose heuristic value h(n) is already known.
+	 * Evaluation functions which support evaluation caching (see
+	 * {@link EvaluatingNodeFactory}) should override this method. This
+	 * implementation ignores the given value and calls
+	 * {@link #applyAsDouble(Object)}.
+	 */
+	public double applyAsDouble(Node<S, A> node, double hValue) {
+		return applyAsDouble(node);
+	}
+
 	// Problem solving agents need to be able to change the heuristic function after formulating a new goal.
 	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
 		this.h = h;
@@ -40,6 +40,11 @@ public class GreedyBestFirstSearch<S, A> extends BestFirstSearch<S, A> {
 			public double applyAsDouble(Node<S, A> node) {
 				return this.h.applyAsDouble(node);
 			}
+
+			@Override
+			public double applyAsDouble(Node<S, A> node, double hValue) {
+				return hValue;
+			}
 		};
 	}
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+package aima.core.search.informed;
+
+import aima.core.search.framework.Metrics;
+import aima.core.search.framework.Node;
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.SearchForStates;
+import aima.core.search.framework.SearchUtils;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.Gauge;
+import aima.core.search.framework.metrics.MetricsRegistry;
+import aima.core.search.framework.problem.Problem;
+import aima.core.util.Tasks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Multi-threaded A* search based on hash distribution (HDA*, Kishimoto,
+ * Fukunaga, and Botea 2009). Each state is owned by exactly one worker thread,
+ * which is determined by the hash code of the state. Every worker maintains its
+ * own open list (priority queue ordered by f = g + h) and closed list (best
+ * known path costs of its states). Generated nodes are sent to the owner of
+ * their state through lock-free message queues. So no locks are needed for
+ * open and closed list access, and duplicate detection works as in sequential
+ * graph search.
+ * <br>
+ * Goal nodes are detected when they are generated. The first goal node found
+ * is not necessarily optimal. It becomes the incumbent solution and all nodes
+ * with f not lower than its path cost are pruned. Goal nodes are never
+ * expanded because with non-negative step costs, paths through a goal state
+ * cannot lead to a cheaper solution. The search terminates when no work is left, i.e. when all message
+ * queues and open lists are empty. Then, the incumbent is optimal provided that
+ * the heuristic function is admissible. Path costs may improve after a node
+ * was expanded, so the closed lists allow re-expansion.
+ * <br>
+ * The problem functions, the heuristic function, and the node listeners are
+ * called concurrently by the worker threads and must be thread-safe.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class ParallelAStarSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A>, Informed<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = "nodesExpanded";
+	public static final String METRIC_PATH_COST = "pathCost";
+	public static final String METRIC_THREADS = "threads";
+	// number of nodes transferred to other workers
+	public static final String METRIC_NODES_SENT = "nodesSent";
+
+	private final EvaluationFunction<S, A> evalFn;
+	private final EvaluatingNodeFactory<S, A> nodeFactory = new EvaluatingNodeFactory<>();
+	private final int threadCount;
+
+	private final MetricsRegistry metrics = new MetricsRegistry(true);
+	private final Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final DoubleGauge pathCost = metrics.doubleGauge(METRIC_PATH_COST);
+	private final Gauge threads = metrics.gauge(METRIC_THREADS);
+	private final Counter nodesSent = metrics.counter(METRIC_NODES_SENT);
+
+	/** Creates a search which uses one worker thread per available processor. */
+	public ParallelAStarSearch(ToDoubleFunction<Node<S, A>> h) {
+		this(h, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ParallelAStarSearch(ToDoubleFunction<Node<S, A>> h, int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("At least one thread is needed.");
+		this.threadCount = threadCount;
+		evalFn = AStarSearch.createEvalFn(h);
+		nodeFactory.addNodeListener(node -> nodesExpanded.increment());
+	}
+
+	@Override
+	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
+		evalFn.setHeuristicFunction(h);
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		nodeFactory.useParentLinks(true);
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		nodeFactory.useParentLinks(false);
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Starts the worker threads and waits until they have finished. Returns the
+	 * optimal goal node if the goal is reachable and the search was not cancelled.
+	 * If a worker fails (e.g. because the heuristic function throws), all
+	 * workers are stopped and the first failure is rethrown.
+	 */
+	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		metrics.reset();
+		threads.set(threadCount);
+		SearchRun run = new SearchRun(p);
+		run.execute();
+		Node<S, A> result = run.incumbent.get();
+		if (result == null || run.cancelled)
+			return Optional.empty();
+		pathCost.set(result.getPathCost());
+		return Optional.of(result);
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics.snapshot();
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener) {
+		nodeFactory.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeFactory.removeNodeListener(listener);
+	}
+
+	/** Shared state of one search. */
+	private class SearchRun {
+		final Problem<S, A> problem;
+		final List<Worker> workers = new ArrayList<>();
+		/** Number of nodes in message queues, open lists, or under expansion. */
+		final AtomicLong pending = new AtomicLong();
+		final AtomicReference<Node<S, A>> incumbent = new AtomicReference<>();
+		/** First exception or error thrown by a worker. */
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		volatile boolean cancelled;
+
+		SearchRun(Problem<S, A> problem) {
+			this.problem = problem;
+			for (int i = 0; i < threadCount; i++)
+				workers.add(new Worker(this));
+		}
+
+		void execute() {
+			EvaluatedNode<S, A> root = (EvaluatedNode<S, A>) nodeFactory.createNode(problem.getInitialState());
+			if (problem.testSolution(root)) {
+				incumbent.set(root);
+				return;
+			}
+			send(root);
+			Thread[] workerThreads = new Thread[threadCount];
+			for (int i = 0; i < threadCount; i++) {
+				workerThreads[i] = new Thread(workers.get(i), "HDA*-worker-" + i);
+				workerThreads[i].setDaemon(true);
+				workerThreads[i].start();
+			}
+			try {
+				for (Thread thread : workerThreads) {
+					while (thread.isAlive()) {
+						thread.join(10);
+						if (Tasks.currIsCancelled())
+							cancelled = true;
+					}
+				}
+			} catch (InterruptedException e) {
+				cancelled = true;
+				Thread.currentThread().interrupt();
+			}
+			Throwable t = failure.get();
+			if (t instanceof RuntimeException)
+				throw (RuntimeException) t;
+			else if (t instanceof Error)
+				throw (Error) t;
+			else if (t != null)
+				throw new IllegalStateException("Search worker failed.", t);
+		}
+
+		/** Records the first failure and stops all workers. */
+		void fail(Throwable t) {
+			failure.compareAndSet(null, t);
+			cancelled = true;
+		}
+
+		/** Transfers the node to the worker which owns its state and returns the worker. */
+		Worker send(EvaluatedNode<S, A> node) {
+			pending.incrementAndGet();
+			int hash = node.getState().hashCode();
+			Worker owner = workers.get(Math.floorMod(hash ^ (hash >>> 16), workers.size()));
+			owner.inbox.add(node);
+			return owner;
+		}
+
+		double getIncumbentCost() {
+			Node<S, A> node = incumbent.get();
+			return node != null ? node.getPathCost() : Double.POSITIVE_INFINITY;
+		}
+
+		void offerSolution(Node<S, A> node) {
+			Node<S, A> current;
+			do {
+				current = incumbent.get();
+				if (current != null && current.getPathCost() <= node.getPathCost())
+					return;
+			} while (!incumbent.compareAndSet(current, node));
+		}
+	}
+
+	/** Owns the open and closed list for a partition of the state space. */
+	private class Worker implements Runnable {
+		final SearchRun run;
+		final Queue<EvaluatedNode<S, A>> inbox = new ConcurrentLinkedQueue<>();
+		// ties are broken in favor of deeper nodes
+		final PriorityQueue<EvaluatedNode<S, A>> open = new PriorityQueue<>(
+				Comparator.<EvaluatedNode<S, A>>comparingDouble(node -> node.getEvaluation(evalFn))
+						.thenComparing(Comparator.comparingDouble(EvaluatedNode<S, A>::getPathCost).reversed()));
+		final Map<S, Double> bestPathCosts = new HashMap<>();
+
+		Worker(SearchRun run) {
+			this.run = run;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!run.cancelled) {
+					EvaluatedNode<S, A> message;
+					while ((message = inbox.poll()) != null)
+						receive(message);
+					EvaluatedNode<S, A> node = open.poll();
+					if (node != null)
+						expand(node);
+					else if (run.pending.get() == 0)
+						break;
+					else
+						Thread.yield();
+				}
+			} catch (Throwable t) {
+				// pending nodes of this worker are lost, so the others could wait forever
+				run.fail(t);
+			}
+		}
+
+		private void receive(EvaluatedNode<S, A> node) {
+			Double best = bestPathCosts.get(node.getState());
+			if (best == null || node.getPathCost() < best) {
+				bestPathCosts.put(node.getState(), node.getPathCost());
+				open.add(node);
+			} else {
+				run.pending.decrementAndGet();
+			}
+		}
+
+		private void expand(EvaluatedNode<S, A> node) {
+			// skip nodes which have been superseded by a cheaper path or cannot improve the incumbent
+			if (node.getPathCost() <= bestPathCosts.get(node.getState())
+					&& node.getEvaluation(evalFn) < run.getIncumbentCost()) {
+				for (Node<S, A> successor : nodeFactory.getSuccessors(node, run.problem)) {
+					EvaluatedNode<S, A> s = (EvaluatedNode<S, A>) successor;
+					if (run.problem.testSolution(s))
+						run.offerSolution(s);
+					else if (s.getEvaluation(evalFn) < run.getIncumbentCost() && run.send(s) != this)
+						nodesSent.increment();
+				}
+			}
+			run.pending.decrementAndGet();
+		}
+	}
+}
@@ -1,6 +1,10 @@
 package aima.core.search.informed;
 
 import aima.core.search.framework.*;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.MaxTracker;
+import aima.core.search.framework.metrics.MetricsRegistry;
 import aima.core.search.framework.problem.Problem;
 
 import java.util.HashSet;
@@ -60,7 +64,10 @@ public class RecursiveBestFirstSearch<S, A> implements SearchForActions<S, A>, I
 
     // stores the states on the current path if avoidLoops is true.
     private Set<S> explored = new HashSet<>();
-    private Metrics metrics;
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+    private final MaxTracker maxRecursiveDepth = metrics.maxTracker(METRIC_MAX_RECURSIVE_DEPTH);
+    private final DoubleGauge pathCost = metrics.doubleGauge(METRIC_PATH_COST);
 
     public RecursiveBestFirstSearch(EvaluationFunction<S, A> evalFn) {
         this(evalFn, false);
@@ -78,8 +85,7 @@ public class RecursiveBestFirstSearch<S, A> implements SearchForActions<S, A>, I
         this.evalFn = evalFn;
         this.avoidLoops = avoidLoops;
         this.nodeFactory = nodeFactory;
-        nodeFactory.addNodeListener((node) -> metrics.incrementInt(METRIC_NODES_EXPANDED));
-        metrics = new Metrics();
+        nodeFactory.addNodeListener((node) -> nodesExpanded.increment());
     }
 
     /**
@@ -102,7 +108,7 @@ public class RecursiveBestFirstSearch<S, A> implements SearchForActions<S, A>, I
         SearchResult<S, A> sr = rbfs(p, n, evalFn.applyAsDouble(n), INFINITY, 0);
         if (sr.hasSolution()) {
             Node<S, A> s = sr.getSolutionNode();
-            metrics.set(METRIC_PATH_COST, s.getPathCost());
+            pathCost.set(s.getPathCost());
             return Optional.of(SearchUtils.getSequenceOfActions(s));
         }
         return Optional.empty();
@@ -113,16 +119,15 @@ public class RecursiveBestFirstSearch<S, A> implements SearchForActions<S, A>, I
      */
     @Override
     public Metrics getMetrics() {
-        return metrics;
+        return metrics.snapshot();
     }
 
     /**
      * Sets all metrics to zero.
      */
     private void clearMetrics() {
-        metrics.set(METRIC_NODES_EXPANDED, 0);
-        metrics.set(METRIC_MAX_RECURSIVE_DEPTH, 0);
-        metrics.set(METRIC_PATH_COST, 0.0);
+        metrics.reset();
+        pathCost.set(0.0);
     }
 
     @Override
@@ -240,10 +245,7 @@ public class RecursiveBestFirstSearch<S, A> implements SearchForActions<S, A>, I
      * @param recursiveDepth the depth of the current path
      */
     private void updateMetrics(int recursiveDepth) {
-        int maxRdepth = metrics.getInt(METRIC_MAX_RECURSIVE_DEPTH);
-        if (recursiveDepth > maxRdepth) {
-            metrics.set(METRIC_MAX_RECURSIVE_DEPTH, recursiveDepth);
-        }
+        maxRecursiveDepth.update(recursiveDepth);
     }
 
     private static class SearchResult<S, A> {
@@ -1,6 +1,8 @@
 package aima.core.search.local;
 
 import aima.core.search.framework.Metrics;
+import aima.core.search.framework.metrics.Gauge;
+import aima.core.search.framework.metrics.MetricsRegistry;
 import aima.core.util.Tasks;
 import aima.core.util.Util;
 
@@ -57,7 +59,12 @@ public class GeneticAlgorithm<A> {
 	protected static final String ITERATIONS = "iterations";
 	protected static final String TIME_IN_MILLISECONDS = "timeInMSec";
 	//
+	// Additional (e.g. subclass-specific) entries, combined with the typed metrics on request.
 	protected Metrics metrics = new Metrics();
+	private final MetricsRegistry typedMetrics = new MetricsRegistry();
+	private final Gauge populationSize = typedMetrics.gauge(POPULATION_SIZE);
+	private final Gauge iterations = typedMetrics.gauge(ITERATIONS);
+	private final Gauge timeInMilliseconds = typedMetrics.gauge(TIME_IN_MILLISECONDS);
 	//
 	protected int individualLength;
 	protected List<A> finiteAlphabet;
@@ -177,7 +184,7 @@ public class GeneticAlgorithm<A> {
 	 * @return all the metrics of the genetic algorithm.
 	 */
 	public Metrics getMetrics() {
-		return metrics;
+		return typedMetrics.renderTo(metrics);
 	}
 
 	/**
@@ -186,7 +193,7 @@ public class GeneticAlgorithm<A> {
 	 * @return the population size.
 	 */
 	public int getPopulationSize() {
-		return metrics.getInt(POPULATION_SIZE);
+		return (int) populationSize.get();
 	}
 
 	/**
@@ -195,7 +202,7 @@ public class GeneticAlgorithm<A> {
 	 * @return the number of iterations of the genetic algorithm.
 	 */
 	public int getIterations() {
-		return metrics.getInt(ITERATIONS);
+		return (int) iterations.get();
 	}
 
 	/**
@@ -203,7 +210,7 @@ public class GeneticAlgorithm<A> {
 	 * @return the time in milliseconds that the genetic algorithm took.
 	 */
 	public long getTimeInMilliseconds() {
-		return metrics.getLong(TIME_IN_MILLISECONDS);
+		return timeInMilliseconds.get();
 	}
 
 	/**
@@ -215,9 +222,9 @@ public class GeneticAlgorithm<A> {
 	 *            the time in milliseconds that the genetic algorithm took.
 	 */
 	protected void updateMetrics(Collection<Individual<A>> population, int itCount, long time) {
-		metrics.set(POPULATION_SIZE, population.size());
-		metrics.set(ITERATIONS, itCount);
-		metrics.set(TIME_IN_MILLISECONDS, time);
+		populationSize.set(population.size());
+		iterations.set(itCount);
+		timeInMilliseconds.set(time);
 	}
 
 	//
@@ -1,6 +1,9 @@
 package aima.core.search.uninformed;
 
 import aima.core.search.framework.*;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.MetricsRegistry;
 import aima.core.search.framework.problem.Problem;
 import aima.core.util.Tasks;
 
@@ -45,7 +48,9 @@ public class DepthLimitedSearch<S, A> implements SearchForActions<S, A>, SearchF
 	public final Node<S, A> cutoffNode = new Node<>(null);
 	private final int limit;
 	private final NodeFactory<S, A> nodeFactory;
-	private Metrics metrics = new Metrics();
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	final Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	final DoubleGauge pathCost = metrics.doubleGauge(METRIC_PATH_COST);
 
 	public DepthLimitedSearch(int limit) {
 		this(limit, new NodeFactory<>());
@@ -95,7 +100,7 @@ public class DepthLimitedSearch<S, A> implements SearchForActions<S, A>, SearchF
 	private Node<S, A> recursiveDLS(Node<S, A> node, Problem<S, A> problem, int limit) {
 		// if problem.GOAL-TEST(node.STATE) then return SOLUTION(node)
 		if (problem.testSolution(node)) {
-			metrics.set(METRIC_PATH_COST, node.getPathCost());
+			pathCost.set(node.getPathCost());
 			return node;
 		} else if (0 == limit || Tasks.currIsCancelled()) {
 			// else if limit = 0 then return cutoff
@@ -105,7 +110,7 @@ public class DepthLimitedSearch<S, A> implements SearchForActions<S, A>, SearchF
 			// cutoff_occurred? <- false
 			boolean cutoffOccurred = false;
 			// for each action in problem.ACTIONS(node.STATE) do
-			metrics.incrementInt(METRIC_NODES_EXPANDED);
+			nodesExpanded.increment();
 			for (Node<S, A> child : nodeFactory.getSuccessors(node, problem)) {
 				// child <- CHILD-NODE(problem, node, action)
 				// result <- RECURSIVE-DLS(child, problem, limit - 1)
@@ -133,7 +138,7 @@ public class DepthLimitedSearch<S, A> implements SearchForActions<S, A>, SearchF
 	 */
 	@Override
 	public Metrics getMetrics() {
-		return metrics;
+		return metrics.snapshot();
 	}
 
 	@Override
@@ -150,7 +155,6 @@ public class DepthLimitedSearch<S, A> implements SearchForActions<S, A>, SearchF
 	 * Sets the nodes expanded and path cost metrics to zero.
 	 */
 	private void clearMetrics() {
-		metrics.set(METRIC_NODES_EXPANDED, 0);
-		metrics.set(METRIC_PATH_COST, 0);
+		metrics.reset();
 	}
 }
@@ -1,6 +1,9 @@
 package aima.core.search.uninformed;
 
 import aima.core.search.framework.*;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.MetricsRegistry;
 import aima.core.search.framework.problem.Problem;
 import aima.core.util.Tasks;
 
@@ -34,7 +37,9 @@ public class IterativeDeepeningSearch<S, A> implements SearchForActions<S, A>, S
 	public static final String METRIC_PATH_COST = "pathCost";
 
 	private final NodeFactory<S, A> nodeFactory;
-	private final Metrics metrics;
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final DoubleGauge pathCost = metrics.doubleGauge(METRIC_PATH_COST);
 
 	public IterativeDeepeningSearch() {
 		this(new NodeFactory<>());
@@ -42,7 +47,6 @@ public class IterativeDeepeningSearch<S, A> implements SearchForActions<S, A>, S
 	
 	public IterativeDeepeningSearch(NodeFactory<S, A> nodeFactory) {
 		this.nodeFactory = nodeFactory;
-		this.metrics = new Metrics();
 	}
 	
 	
@@ -73,7 +77,7 @@ public class IterativeDeepeningSearch<S, A> implements SearchForActions<S, A>, S
 			// result <- DEPTH-LIMITED-SEARCH(problem, depth)
 			DepthLimitedSearch<S, A> dls = new DepthLimitedSearch<>(i, nodeFactory);
 			Optional<Node<S, A>> result = dls.findNode(p);
-			updateMetrics(dls.getMetrics());
+			updateMetrics(dls);
 			// if result != cutoff then return result
 			if (!dls.isCutoffResult(result))
 				return result;
@@ -83,7 +87,7 @@ public class IterativeDeepeningSearch<S, A> implements SearchForActions<S, A>, S
 	
 	@Override
 	public Metrics getMetrics() {
-		return metrics;
+		return metrics.snapshot();
 	}
 
 	@Override
@@ -105,13 +109,11 @@ public class IterativeDeepeningSearch<S, A> implements SearchForActions<S, A>, S
 	 * Sets the nodes expanded and path cost metrics to zero.
 	 */
 	private void clearMetrics() {
-		metrics.set(METRIC_NODES_EXPANDED, 0);
-		metrics.set(METRIC_PATH_COST, 0);
+		metrics.reset();
 	}
 
-	private void updateMetrics(Metrics dlsMetrics) {
-		metrics.set(METRIC_NODES_EXPANDED,
-				metrics.getInt(METRIC_NODES_EXPANDED) + dlsMetrics.getInt(METRIC_NODES_EXPANDED));
-		metrics.set(METRIC_PATH_COST, dlsMetrics.getDouble(METRIC_PATH_COST));
+	private void updateMetrics(DepthLimitedSearch<S, A> dls) {
+		nodesExpanded.add(dls.nodesExpanded.get());
+		pathCost.set(dls.pathCost.get());
 	}
 }
\ No newline at end of file
@@ -0,0 +1,292 @@
+package aima.core.util.datastructure;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Priority queue which is implemented as d-ary heap and maintains at most one
+ * element per key. An additional key-to-entry map supports containment checks,
+ * lookup, and removal of arbitrary elements in (amortized) constant or
+ * logarithmic time and makes it possible to change the priority of an element
+ * in place (decrease-key).
+ * <br>
+ * Note that {@link #add(Object)} and {@link #offer(Object)} differ from the
+ * usual queue semantics: If the queue already contains an element with the
+ * same key, the new element replaces the old one only if it is smaller with
+ * respect to the comparator. Otherwise, the queue is not changed and false is
+ * returned. This makes the data structure well suited as frontier for graph
+ * search with priority queues: A frontier node is replaced in place when a
+ * cheaper path to the node's state is found, and duplicates never enter the
+ * heap.
+ * <br>
+ * Like {@link PriorityQueue}, the smallest element comes first. The iterator
+ * returns the elements in heap order (not sorted).
+ *
+ * @param <E> The type of the elements held in this queue
+ */
+public class IndexedPriorityQueue<E> extends AbstractQueue<E> {
+
+	private static final int DEFAULT_ARITY = 4;
+	private static final int DEFAULT_INITIAL_CAPACITY = 11;
+
+	private final Comparator<? super E> comparator;
+	private final Function<? super E, ?> keyFn;
+	private final int arity;
+	// entries know their heap position, so sifting needs no hash map access
+	private final Map<Object, Entry<E>> entries = new HashMap<>();
+	private Entry<E>[] heap;
+	private int size;
+	private int modCount;
+
+	/**
+	 * Creates a 4-ary heap.
+	 *
+	 * @param comparator defines the priority of the elements.
+	 * @param keyFn      maps elements to keys. Keys must provide suitable
+	 *                   implementations of <code>equals</code> and
+	 *                   <code>hashCode</code>.
+	 */
+	public IndexedPriorityQueue(Comparator<? super E> comparator, Function<? super E, ?> keyFn) {
+		this(comparator, keyFn, DEFAULT_ARITY);
+	}
+
+	/**
+	 * Creates a d-ary heap with the specified number of children per heap
+	 * node. Higher arity values decrease heap height and improve cache
+	 * locality for insertions and decrease-key, but increase the number of
+	 * comparisons for removals.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public IndexedPriorityQueue(Comparator<? super E> comparator, Function<? super E, ?> keyFn, int arity) {
+		if (arity < 2)
+			throw new IllegalArgumentException("Arity must be at least 2.");
+		this.comparator = comparator;
+		this.keyFn = keyFn;
+		this.arity = arity;
+		heap = (Entry<E>[]) new Entry[DEFAULT_INITIAL_CAPACITY];
+	}
+
+	public Comparator<? super E> comparator() {
+		return comparator;
+	}
+
+	/**
+	 * Inserts the element if the queue contains no element with the same key.
+	 * Otherwise, the existing element is replaced if the new one is smaller
+	 * (decrease-key).
+	 *
+	 * @return true if the queue was changed.
+	 */
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e);
+		Object key = keyFn.apply(e);
+		Entry<E> entry = entries.get(key);
+		if (entry == null) {
+			entry = new Entry<>(e, key);
+			entries.put(key, entry);
+			if (size == heap.length)
+				heap = Arrays.copyOf(heap, size + (size >> 1) + 1);
+			siftUp(size++, entry);
+			modCount++;
+			return true;
+		} else if (comparator.compare(e, entry.element) < 0) {
+			entry.element = e;
+			siftUp(entry.slot, entry);
+			modCount++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Same as {@link #offer(Object)}. In contrast to other queues, false is
+	 * returned (instead of throwing an exception) if the element is rejected
+	 * because a better element with the same key is already present.
+	 */
+	@Override
+	public boolean add(E e) {
+		return offer(e);
+	}
+
+	/**
+	 * Replaces the element with the same key as <code>e</code> (or inserts
+	 * <code>e</code> if no such element exists) regardless of priorities and
+	 * restores the heap order.
+	 */
+	public void update(E e) {
+		Objects.requireNonNull(e);
+		Entry<E> entry = entries.get(keyFn.apply(e));
+		if (entry == null) {
+			offer(e);
+		} else {
+			boolean decreased = comparator.compare(e, entry.element) <= 0;
+			entry.element = e;
+			if (decreased)
+				siftUp(entry.slot, entry);
+			else
+				siftDown(entry.slot, entry);
+			modCount++;
+		}
+	}
+
+	@Override
+	public E poll() {
+		if (size == 0)
+			return null;
+		E result = heap[0].element;
+		removeAt(0);
+		return result;
+	}
+
+	@Override
+	public E peek() {
+		return size > 0 ? heap[0].element : null;
+	}
+
+	/** Returns the element with the specified key or null. */
+	public E getByKey(Object key) {
+		Entry<E> entry = entries.get(key);
+		return entry != null ? entry.element : null;
+	}
+
+	public boolean containsKey(Object key) {
+		return entries.containsKey(key);
+	}
+
+	/** Removes and returns the element with the specified key (or null). */
+	public E removeByKey(Object key) {
+		Entry<E> entry = entries.get(key);
+		if (entry == null)
+			return null;
+		removeAt(entry.slot);
+		return entry.element;
+	}
+
+	/** Checks containment in constant time (element equality is tested). */
+	@Override
+	public boolean contains(Object o) {
+		return find(o) != null;
+	}
+
+	/** Removes the specified element in logarithmic time. */
+	@Override
+	public boolean remove(Object o) {
+		Entry<E> entry = find(o);
+		if (entry != null) {
+			removeAt(entry.slot);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+		entries.clear();
+		modCount++;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int cursor = 0;
+			private final int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < size;
+			}
+
+			@Override
+			public E next() {
+				if (expectedModCount != modCount)
+					throw new ConcurrentModificationException();
+				if (cursor >= size)
+					throw new NoSuchElementException();
+				return heap[cursor++].element;
+			}
+		};
+	}
+
+	// heap maintenance
+
+	@SuppressWarnings("unchecked")
+	private Entry<E> find(Object o) {
+		if (o == null)
+			return null;
+		Entry<E> entry;
+		try {
+			entry = entries.get(keyFn.apply((E) o));
+		} catch (ClassCastException e) {
+			return null;
+		}
+		return entry != null && entry.element.equals(o) ? entry : null;
+	}
+
+	private void removeAt(int slot) {
+		modCount++;
+		entries.remove(heap[slot].key);
+		int last = --size;
+		Entry<E> moved = heap[last];
+		heap[last] = null;
+		if (slot != last) {
+			siftDown(slot, moved);
+			if (heap[slot] == moved)
+				siftUp(slot, moved);
+		}
+	}
+
+	private void siftUp(int slot, Entry<E> entry) {
+		while (slot > 0) {
+			int parent = (slot - 1) / arity;
+			Entry<E> p = heap[parent];
+			if (comparator.compare(entry.element, p.element) >= 0)
+				break;
+			place(slot, p);
+			slot = parent;
+		}
+		place(slot, entry);
+	}
+
+	private void siftDown(int slot, Entry<E> entry) {
+		while (true) {
+			int first = slot * arity + 1;
+			if (first >= size)
+				break;
+			int best = first;
+			int end = Math.min(first + arity, size);
+			for (int c = first + 1; c < end; c++)
+				if (comparator.compare(heap[c].element, heap[best].element) < 0)
+					best = c;
+			Entry<E> child = heap[best];
+			if (comparator.compare(child.element, entry.element) >= 0)
+				break;
+			place(slot, child);
+			slot = best;
+		}
+		place(slot, entry);
+	}
+
+	private void place(int slot, Entry<E> entry) {
+		heap[slot] = entry;
+		entry.slot = slot;
+	}
+
+	private static class Entry<E> {
+		E element;
+		final Object key;
+		int slot;
+
+		Entry(E element, Object key) {
+			this.element = element;
+			this.key = key;
+		}
+	}
+}
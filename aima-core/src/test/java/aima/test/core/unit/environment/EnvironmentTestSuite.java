@@ -4,6 +4,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 import aima.test.core.unit.environment.cellworld.CellWorldTest;
+import aima.test.core.unit.environment.connectfour.BitboardConnectFourTest;
 import aima.test.core.unit.environment.eightpuzzle.EightPuzzleBoardMoveTest;
 import aima.test.core.unit.environment.eightpuzzle.EightPuzzleBoardTest;
 import aima.test.core.unit.environment.eightpuzzle.EightPuzzleFunctionsTest;
@@ -15,6 +16,7 @@ import aima.test.core.unit.environment.map.MapTest;
 import aima.test.core.unit.environment.nqueens.NQueensBoardTest;
 import aima.test.core.unit.environment.nqueens.NQueensGenAlgoUtilTest;
 import aima.test.core.unit.environment.nqueens.NQueensFunctionsTest;
+import aima.test.core.unit.environment.tictactoe.BitboardTicTacToeTest;
 import aima.test.core.unit.environment.tictactoe.TicTacToeTest;
 import aima.test.core.unit.environment.vacuum.ModelBasedReflexVacuumAgentTest;
 import aima.test.core.unit.environment.vacuum.ReflexVacuumAgentTest;
@@ -27,9 +29,9 @@ import aima.test.core.unit.environment.wumpusworld.WumpusKnowledgeBaseTest;
 import aima.test.core.unit.environment.xyenv.XYEnvironmentTest;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ CellWorldTest.class, EightPuzzleBoardMoveTest.class,
+@Suite.SuiteClasses({ CellWorldTest.class, BitboardConnectFourTest.class, EightPuzzleBoardMoveTest.class,
 		EightPuzzleBoardTest.class, EightPuzzleFunctionsTest.class,
-		MisplacedTileHeuristicFunctionTest.class, TicTacToeTest.class,
+		MisplacedTileHeuristicFunctionTest.class, BitboardTicTacToeTest.class, TicTacToeTest.class,
 		MapAgentTest.class, MapEnvironmentTest.class,
 		MapFunctionsTest.class, MapTest.class,
 		NQueensBoardTest.class, NQueensGenAlgoUtilTest.class,
@@ -0,0 +1,134 @@
+package aima.test.core.unit.environment.connectfour;
+
+import aima.core.environment.connectfour.BitboardConnectFourGame;
+import aima.core.environment.connectfour.BitboardConnectFourState;
+import aima.core.environment.connectfour.ConnectFourGame;
+import aima.core.environment.connectfour.ConnectFourState;
+import aima.core.search.adversarial.AlphaBetaSearch;
+import aima.core.search.adversarial.IterativeDeepeningAlphaBetaSearch;
+import aima.core.search.adversarial.MonteCarloTreeSearch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BitboardConnectFourTest {
+
+	private final BitboardConnectFourGame game = new BitboardConnectFourGame();
+
+	@Test
+	public void testWinDetection() {
+		// vertical, horizontal and both diagonals
+		assertWin(new int[] { 0, 1, 0, 1, 0, 1, 0 }, 1.0);
+		assertWin(new int[] { 0, 1, 0, 2, 6, 3, 6, 4 }, 0.0);
+		assertWin(new int[] { 0, 1, 1, 2, 2, 3, 2, 3, 3, 6, 3 }, 1.0);
+		assertWin(new int[] { 6, 5, 5, 4, 4, 3, 4, 3, 3, 0, 3 }, 1.0);
+		// no four in a line across the border of two columns (top of column 0, bottom of column 1)
+		BitboardConnectFourState state = play(new int[] { 1, 0, 6, 0, 6, 0, 0, 5, 0, 5, 0 });
+		Assert.assertFalse(game.isTerminal(state));
+		Assert.assertTrue(state.isColumnFull(0));
+	}
+
+	private void assertWin(int[] cols, double utility) {
+		BitboardConnectFourState state = play(cols);
+		Assert.assertTrue(game.isTerminal(state));
+		Assert.assertEquals(utility, state.getUtility(), 0);
+		state.undoDisk(cols[cols.length - 1]);
+		Assert.assertFalse(game.isTerminal(state));
+		Assert.assertTrue(state.isWinMoveFor(cols[cols.length - 1], utility == 1.0 ? 1 : 2));
+	}
+
+	private BitboardConnectFourState play(int[] cols) {
+		BitboardConnectFourState state = game.getInitialState();
+		for (int col : cols) {
+			Assert.assertFalse(game.isTerminal(state));
+			state = game.getResult(state, col);
+		}
+		return state;
+	}
+
+	@Test
+	public void testEquivalenceAndUndo() {
+		ConnectFourGame oldGame = new ConnectFourGame();
+		Random random = new Random(42);
+		for (int i = 0; i < 100; i++) {
+			ConnectFourState oldState = oldGame.getInitialState();
+			BitboardConnectFourState state = game.copyState(game.getInitialState());
+			List<Integer> moves = new ArrayList<>();
+			while (!oldGame.isTerminal(oldState)) {
+				List<Integer> actions = oldGame.getActions(oldState);
+				Assert.assertEquals(actions, game.getActions(state));
+				Integer action = actions.get(random.nextInt(actions.size()));
+				oldState = oldGame.getResult(oldState, action);
+				game.makeMove(state, action);
+				moves.add(action);
+				assertSameState(oldState, state);
+			}
+			Assert.assertTrue(game.isTerminal(state));
+			while (!moves.isEmpty())
+				game.unmakeMove(state, moves.remove(moves.size() - 1));
+			Assert.assertEquals(game.getInitialState(), state);
+			Assert.assertEquals(0, state.getHashKey());
+			Assert.assertEquals(0, state.getMoves());
+		}
+	}
+
+	@Test
+	public void testHashKeysForOtherBoardSizes() {
+		Random random = new Random(7);
+		int[][] sizes = { { 8, 7 }, { 4, 5 }, { 6, 7 }, { 7, 8 } };
+		for (int[] size : sizes) {
+			for (int i = 0; i < 20; i++) {
+				ConnectFourState oldState = new ConnectFourState(size[0], size[1]);
+				BitboardConnectFourState state = new BitboardConnectFourState(size[0], size[1]);
+				while (oldState.getUtility() == -1) {
+					int col = random.nextInt(size[1]);
+					if (!state.isColumnFull(col)) {
+						oldState.dropDisk(col);
+						state.dropDisk(col);
+						Assert.assertEquals(oldState.getHashKey(), state.getHashKey());
+					}
+				}
+			}
+		}
+	}
+
+	private void assertSameState(ConnectFourState oldState, BitboardConnectFourState state) {
+		for (int row = 0; row < 6; row++)
+			for (int col = 0; col < 7; col++)
+				Assert.assertEquals(oldState.getPlayerNum(row, col), state.getPlayerNum(row, col));
+		Assert.assertEquals(oldState.getUtility(), state.getUtility(), 0);
+		Assert.assertEquals(oldState.getPlayerToMove(), state.getPlayerToMove());
+		Assert.assertEquals(oldState.getHashKey(), state.getHashKey());
+	}
+
+	@Test
+	public void testSearchesWithMakeAndUnmake() {
+		// red has three disks in column 3 and wins by a fourth one
+		BitboardConnectFourState state = play(new int[] { 3, 0, 3, 6, 3, 0 });
+		BitboardConnectFourState copy = state.clone();
+		IterativeDeepeningAlphaBetaSearch<BitboardConnectFourState, Integer, String> search =
+				IterativeDeepeningAlphaBetaSearch.createFor(game, 0.0, 1.0, 1);
+		search.setTranspositionTableSize(1 << 16);
+		Assert.assertEquals(Integer.valueOf(3), search.makeDecision(state));
+		Assert.assertEquals(copy, state);
+		Assert.assertEquals(copy.getHashKey(), state.getHashKey());
+
+		// yellow must block column 3
+		state = play(new int[] { 3, 0, 3, 6, 3 });
+		Assert.assertEquals(Integer.valueOf(3), search.makeDecision(state));
+		MonteCarloTreeSearch<BitboardConnectFourState, Integer, String> mcts = new MonteCarloTreeSearch<>(game, 2000);
+		mcts.setRandom(new Random(42));
+		Assert.assertEquals(Integer.valueOf(3), mcts.makeDecision(state));
+
+		// alpha-beta search of a nearly full board
+		state = play(new int[] { 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, 2, 4, 3, 3, 3, 3, 3, 3, 4, 4, 4,
+				4, 4, 5, 5, 5, 5, 5, 5 });
+		Assert.assertFalse(game.isTerminal(state));
+		copy = state.clone();
+		Assert.assertNotNull(new AlphaBetaSearch<>(game).makeDecision(state));
+		Assert.assertEquals(copy, state);
+	}
+}
@@ -0,0 +1,103 @@
+package aima.test.core.unit.environment.tictactoe;
+
+import aima.core.environment.tictactoe.BitboardTicTacToeGame;
+import aima.core.environment.tictactoe.BitboardTicTacToeState;
+import aima.core.environment.tictactoe.TicTacToeGame;
+import aima.core.environment.tictactoe.TicTacToeState;
+import aima.core.search.adversarial.AlphaBetaSearch;
+import aima.core.search.adversarial.IterativeDeepeningAlphaBetaSearch;
+import aima.core.search.adversarial.MinimaxSearch;
+import aima.core.util.datastructure.XYLocation;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BitboardTicTacToeTest {
+
+	private final BitboardTicTacToeGame game = new BitboardTicTacToeGame();
+
+	@Test
+	public void testLines() {
+		String x = TicTacToeState.X;
+		String o = TicTacToeState.O;
+		String e = TicTacToeState.EMPTY;
+		Assert.assertEquals(1, new BitboardTicTacToeState(new String[] { x, x, x, o, o, e, e, e, e }, o).getUtility(), 0);
+		Assert.assertEquals(0, new BitboardTicTacToeState(new String[] { x, o, x, x, o, e, e, o, e }, x).getUtility(), 0);
+		Assert.assertEquals(1, new BitboardTicTacToeState(new String[] { x, o, o, e, x, e, e, e, x }, o).getUtility(), 0);
+		Assert.assertEquals(0, new BitboardTicTacToeState(new String[] { x, x, o, e, o, e, o, x, e }, x).getUtility(), 0);
+		Assert.assertEquals(0.5, new BitboardTicTacToeState(new String[] { x, o, x, x, o, o, o, x, x }, o).getUtility(), 0);
+		// no lines across the border of two rows
+		Assert.assertEquals(-1, new BitboardTicTacToeState(new String[] { e, x, x, x, o, o, e, e, o }, x).getUtility(), 0);
+		Assert.assertEquals(-1, new BitboardTicTacToeState(new String[] { e, e, x, e, x, o, o, x, o }, x).getUtility(), 0);
+	}
+
+	@Test
+	public void testPerft() {
+		// number of possible games
+		Assert.assertEquals(255168, perft(game.copyState(game.getInitialState())));
+		Assert.assertEquals(255168, perft(new TicTacToeGame(), new TicTacToeGame().getInitialState()));
+		Assert.assertEquals(0, game.getInitialState().getNumberOfMarkedPositions());
+	}
+
+	/** Counts the terminal states of the game tree with make and unmake moves, checking states and keys. */
+	private long perft(BitboardTicTacToeState state) {
+		if (game.isTerminal(state))
+			return 1;
+		long result = 0;
+		TicTacToeState oldState = new TicTacToeState(toBoard(state), state.getPlayerToMove());
+		Assert.assertEquals(oldState.getHashKey(), state.getHashKey());
+		for (XYLocation action : game.getActions(state)) {
+			BitboardTicTacToeState copy = state.clone();
+			game.makeMove(state, action);
+			Assert.assertEquals(game.getResult(copy, action), state);
+			result += perft(state);
+			game.unmakeMove(state, action);
+			Assert.assertEquals(copy, state);
+			Assert.assertEquals(copy.getHashKey(), state.getHashKey());
+			Assert.assertEquals(copy.getPlayerToMove(), state.getPlayerToMove());
+		}
+		return result;
+	}
+
+	private long perft(TicTacToeGame oldGame, TicTacToeState state) {
+		if (oldGame.isTerminal(state))
+			return 1;
+		long result = 0;
+		for (XYLocation action : oldGame.getActions(state))
+			result += perft(oldGame, oldGame.getResult(state, action));
+		return result;
+	}
+
+	private String[] toBoard(BitboardTicTacToeState state) {
+		String[] result = new String[9];
+		for (int i = 0; i < 9; i++)
+			result[i] = state.getValue(i % 3, i / 3);
+		return result;
+	}
+
+	@Test
+	public void testSearches() {
+		// x o x
+		// o o x
+		// - - -
+		// next move: x, which wins with (2, 2)
+		BitboardTicTacToeState state = new BitboardTicTacToeState(new String[] { TicTacToeState.X, TicTacToeState.O,
+				TicTacToeState.X, TicTacToeState.O, TicTacToeState.O, TicTacToeState.X, TicTacToeState.EMPTY,
+				TicTacToeState.EMPTY, TicTacToeState.EMPTY }, TicTacToeState.X);
+		BitboardTicTacToeState copy = state.clone();
+		Assert.assertEquals(new XYLocation(2, 2), new AlphaBetaSearch<>(game).makeDecision(state));
+		Assert.assertEquals(new XYLocation(2, 2), new MinimaxSearch<>(game).makeDecision(state));
+		IterativeDeepeningAlphaBetaSearch<BitboardTicTacToeState, XYLocation, String> search =
+				IterativeDeepeningAlphaBetaSearch.createFor(game, 0.0, 1.0, 1);
+		search.setTranspositionTableSize(1 << 12);
+		Assert.assertEquals(new XYLocation(2, 2), search.makeDecision(state));
+		Assert.assertEquals(copy, state);
+
+		// optimal play of both players ends in a draw
+		AlphaBetaSearch<BitboardTicTacToeState, XYLocation, String> alphaBetaSearch = new AlphaBetaSearch<>(game);
+		state = game.getInitialState();
+		while (!game.isTerminal(state))
+			state = game.getResult(state, alphaBetaSearch.makeDecision(state));
+		Assert.assertEquals(0.5, game.getUtility(state, TicTacToeState.X), 0);
+		Assert.assertEquals(0, game.getInitialState().getNumberOfMarkedPositions());
+	}
+}
@@ -55,6 +55,26 @@ public class TicTacToeTest {
 		
 	}
 
+	@Test
+	public void testHashKey() {
+		Assert.assertEquals(0L, game.getHashKey(state));
+		TicTacToeState state1 = game.getResult(state, new XYLocation(0, 0));
+		state1 = game.getResult(state1, new XYLocation(1, 1));
+		state1 = game.getResult(state1, new XYLocation(2, 2));
+		TicTacToeState state2 = game.getResult(state, new XYLocation(2, 2));
+		state2 = game.getResult(state2, new XYLocation(1, 1));
+		state2 = game.getResult(state2, new XYLocation(0, 0));
+		Assert.assertEquals(game.getHashKey(state1), game.getHashKey(state2));
+		TicTacToeState state3 = new TicTacToeState(new String[] { TicTacToeState.X, TicTacToeState.EMPTY,
+				TicTacToeState.EMPTY, TicTacToeState.EMPTY, TicTacToeState.O, TicTacToeState.EMPTY,
+				TicTacToeState.EMPTY, TicTacToeState.EMPTY, TicTacToeState.X }, TicTacToeState.O);
+		Assert.assertEquals(game.getHashKey(state1), game.getHashKey(state3));
+		TicTacToeState state4 = game.getResult(state, new XYLocation(1, 1));
+		state4 = game.getResult(state4, new XYLocation(0, 0));
+		state4 = game.getResult(state4, new XYLocation(2, 2));
+		Assert.assertNotEquals(game.getHashKey(state1), game.getHashKey(state4));
+	}
+
 	@Test
 	public void testOnCreationBoardIsEmpty() {
 		Assert.assertEquals(TicTacToeState.EMPTY, state.getValue(0, 0));
@@ -173,4 +193,29 @@ public class TicTacToeTest {
 		int expandedNodes = search.getMetrics().getInt(MinimaxSearch.METRICS_NODES_EXPANDED);
 		Assert.assertEquals(76035, expandedNodes);
 	}
+
+	@Test
+	public void testIterativeDeepeningAlphaBetaDecisionWithTranspositionTable() {
+		IterativeDeepeningAlphaBetaSearch<TicTacToeState, XYLocation, String> search = IterativeDeepeningAlphaBetaSearch
+				.createFor(game, 0.0, 1.0, 100);
+		search.setTranspositionTableSize(1 << 16);
+		search.makeDecision(state);
+		int expandedNodes = search.getMetrics().getInt(MinimaxSearch.METRICS_NODES_EXPANDED);
+		Assert.assertTrue(expandedNodes < 76035 / 4);
+		Assert.assertTrue(search.getMetrics().getInt(IterativeDeepeningAlphaBetaSearch.METRICS_TT_CUTOFFS) > 0);
+
+		// optimal play of both players ends in a draw, the table is reused by subsequent decisions
+		while (!game.isTerminal(state))
+			state = game.getResult(state, search.makeDecision(state));
+		Assert.assertEquals(0.5, game.getUtility(state, TicTacToeState.X), epsilon);
+
+		// x o x
+		// o o x
+		// - - -
+		// next move: x
+		state = new TicTacToeState(new String[] { TicTacToeState.X, TicTacToeState.O, TicTacToeState.X,
+				TicTacToeState.O, TicTacToeState.O, TicTacToeState.X, TicTacToeState.EMPTY,
+				TicTacToeState.EMPTY, TicTacToeState.EMPTY }, TicTacToeState.X);
+		Assert.assertEquals(new XYLocation(2, 2), search.makeDecision(state));
+	}
 }
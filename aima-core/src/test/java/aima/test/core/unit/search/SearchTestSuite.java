@@ -3,15 +3,23 @@ package aima.test.core.unit.search;
 import aima.test.core.unit.search.adversarial.AlphaBetaSearchTest;
 import aima.test.core.unit.search.adversarial.MinimaxSearchTest;
 import aima.test.core.unit.search.adversarial.MonteCarloTreeSearchTest;
+import aima.test.core.unit.search.adversarial.ParallelAlphaBetaSearchTest;
+import aima.test.core.unit.search.adversarial.ParallelMonteCarloTreeSearchTest;
+import aima.test.core.unit.search.adversarial.TranspositionTableTest;
 import aima.test.core.unit.search.csp.AssignmentTest;
 import aima.test.core.unit.search.csp.CSPTest;
 import aima.test.core.unit.search.csp.MapCSPTest;
 import aima.test.core.unit.search.csp.TreeCspSolverTest;
+import aima.test.core.unit.search.framework.GameTreeTest;
+import aima.test.core.unit.search.framework.MetricsRegistryTest;
 import aima.test.core.unit.search.framework.MetricsTest;
 import aima.test.core.unit.search.framework.NodeTest;
 import aima.test.core.unit.search.framework.SolutionTesterTest;
 import aima.test.core.unit.search.informed.AStarSearchTest;
+import aima.test.core.unit.search.informed.AnytimeAStarSearchTest;
+import aima.test.core.unit.search.informed.BidirectionalAStarSearchTest;
 import aima.test.core.unit.search.informed.GreedyBestFirstSearchTest;
+import aima.test.core.unit.search.informed.ParallelAStarSearchTest;
 import aima.test.core.unit.search.informed.RecursiveBestFirstSearchTest;
 import aima.test.core.unit.search.nondeterministic.AndOrSearchTest;
 import aima.test.core.unit.search.online.LRTAStarAgentTest;
@@ -21,8 +29,8 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({AlphaBetaSearchTest.class, MinimaxSearchTest.class, MonteCarloTreeSearchTest.class, AssignmentTest.class, CSPTest.class, MapCSPTest.class,
-		MetricsTest.class, TreeCspSolverTest.class, AStarSearchTest.class, GreedyBestFirstSearchTest.class, RecursiveBestFirstSearchTest.class,
+@Suite.SuiteClasses({AlphaBetaSearchTest.class, MinimaxSearchTest.class, MonteCarloTreeSearchTest.class, ParallelAlphaBetaSearchTest.class, ParallelMonteCarloTreeSearchTest.class, TranspositionTableTest.class, AssignmentTest.class, CSPTest.class, MapCSPTest.class,
+		GameTreeTest.class, MetricsTest.class, MetricsRegistryTest.class, TreeCspSolverTest.class, AStarSearchTest.class, AnytimeAStarSearchTest.class, BidirectionalAStarSearchTest.class, ParallelAStarSearchTest.class, GreedyBestFirstSearchTest.class, RecursiveBestFirstSearchTest.class,
 		AndOrSearchTest.class, LRTAStarAgentTest.class, OnlineDFSAgentTest.class,
 		BidirectionalSearchTest.class, BreadthFirstSearchTest.class, DepthFirstSearchTest.class,
 		DepthLimitedSearchTest.class, IterativeDeepeningSearchTest.class, UniformCostSearchTest.class, NodeTest.class,
@@ -4,10 +4,14 @@ import aima.core.environment.tictactoe.TicTacToeGame;
 import aima.core.environment.tictactoe.TicTacToeState;
 import aima.core.search.adversarial.Game;
 import aima.core.search.adversarial.MonteCarloTreeSearch;
+import aima.core.util.datastructure.XYLocation;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
 public class MonteCarloTreeSearchTest {
 	Game game;
 	MonteCarloTreeSearch monteCarloTreeSearch;
@@ -16,6 +20,7 @@ public class MonteCarloTreeSearchTest {
 	public void setup() {
 		this.game = new TicTacToeGame();
 		this.monteCarloTreeSearch = new MonteCarloTreeSearch(game, 100);
+		this.monteCarloTreeSearch.setRandom(new Random(42));
 	}
 	
 	@Test
@@ -43,5 +48,40 @@ public class MonteCarloTreeSearchTest {
 		String[] expectedBoard = new String[]{TicTacToeState.O, TicTacToeState.X, TicTacToeState.O, TicTacToeState.O, TicTacToeState.X, TicTacToeState.X, TicTacToeState.EMPTY, TicTacToeState.EMPTY, TicTacToeState.EMPTY};
 		TicTacToeState expectedState = new TicTacToeState(expectedBoard, TicTacToeState.X);
 		Assert.assertEquals(expectedState, game.getResult(state, monteCarloTreeSearch.makeDecision(state)));
+		Assert.assertEquals(100, monteCarloTreeSearch.getMetrics().getInt(MonteCarloTreeSearch.METRICS_PLAYOUTS));
+	}
+
+	@Test
+	public void testWinningMoveAndSubtreeReuse() {
+		// x x -
+		// o o -
+		// - - -
+		// next move: x, which wins with (2, 0)
+		String[] board = new String[]{TicTacToeState.X, TicTacToeState.X, TicTacToeState.EMPTY, TicTacToeState.O, TicTacToeState.O, TicTacToeState.EMPTY, TicTacToeState.EMPTY, TicTacToeState.EMPTY, TicTacToeState.EMPTY};
+		TicTacToeState state = new TicTacToeState(board, TicTacToeState.X);
+		TicTacToeGame ticTacToeGame = new TicTacToeGame();
+		MonteCarloTreeSearch<TicTacToeState, XYLocation, String> search = new MonteCarloTreeSearch<>(ticTacToeGame, 2000);
+		search.setRandom(new Random(42));
+		Assert.assertEquals(new XYLocation(2, 0), search.makeDecision(state));
+		Assert.assertEquals(0, search.getMetrics().getInt(MonteCarloTreeSearch.METRICS_REUSED_NODES));
+
+		// o wins with (2, 1) after x missed its win, the subtree of the state is reused
+		state = ticTacToeGame.getResult(state, new XYLocation(0, 2));
+		Assert.assertEquals(new XYLocation(2, 1), search.makeDecision(state));
+		Assert.assertTrue(search.getMetrics().getInt(MonteCarloTreeSearch.METRICS_REUSED_NODES) > 1);
+	}
+
+	@Test
+	public void testTimeLimit() {
+		MonteCarloTreeSearch<TicTacToeState, XYLocation, String> search = new MonteCarloTreeSearch<>(
+				new TicTacToeGame(), 0, TimeUnit.MILLISECONDS);
+		Assert.assertNotNull(search.makeDecision(new TicTacToeGame().getInitialState()));
+		Assert.assertEquals(1, search.getMetrics().getInt(MonteCarloTreeSearch.METRICS_PLAYOUTS));
+
+		search.setTimeLimit(50, TimeUnit.MILLISECONDS);
+		long start = System.currentTimeMillis();
+		search.makeDecision(new TicTacToeGame().getInitialState());
+		Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+		Assert.assertTrue(search.getMetrics().getInt(MonteCarloTreeSearch.METRICS_PLAYOUTS) > 1);
 	}
 }
@@ -0,0 +1,72 @@
+package aima.test.core.unit.search.adversarial;
+
+import aima.core.environment.connectfour.ConnectFourAIPlayer;
+import aima.core.environment.connectfour.ConnectFourGame;
+import aima.core.environment.connectfour.ConnectFourState;
+import aima.core.environment.tictactoe.TicTacToeGame;
+import aima.core.environment.tictactoe.TicTacToeState;
+import aima.core.search.adversarial.IterativeDeepeningAlphaBetaSearch;
+import aima.core.search.adversarial.ParallelAlphaBetaSearch;
+import aima.core.search.adversarial.TranspositionTable;
+import aima.core.util.datastructure.XYLocation;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelAlphaBetaSearchTest {
+
+	@Test
+	public void testTicTacToe() {
+		TicTacToeGame game = new TicTacToeGame();
+		ParallelAlphaBetaSearch<TicTacToeState, XYLocation, String> search = new ParallelAlphaBetaSearch<>(
+				() -> IterativeDeepeningAlphaBetaSearch.createFor(game, 0.0, 1.0, 100), 3, 1 << 16);
+		// optimal play of both players ends in a draw
+		TicTacToeState state = game.getInitialState();
+		while (!game.isTerminal(state)) {
+			state = game.getResult(state, search.makeDecision(state));
+			Assert.assertEquals(3, search.getMetrics().getInt(ParallelAlphaBetaSearch.METRICS_THREADS));
+			Assert.assertTrue(search.getMetrics().getLong(ParallelAlphaBetaSearch.METRICS_NODES_EXPANDED) > 0);
+		}
+		Assert.assertEquals(0.5, game.getUtility(state, TicTacToeState.X), 0.0001);
+
+		// x o x
+		// o o x
+		// - - -
+		// next move: x
+		state = new TicTacToeState(new String[] { TicTacToeState.X, TicTacToeState.O, TicTacToeState.X,
+				TicTacToeState.O, TicTacToeState.O, TicTacToeState.X, TicTacToeState.EMPTY,
+				TicTacToeState.EMPTY, TicTacToeState.EMPTY }, TicTacToeState.X);
+		Assert.assertEquals(new XYLocation(2, 2), search.makeDecision(state));
+	}
+
+	@Test
+	public void testConnectFourWinningMove() {
+		ConnectFourGame game = new ConnectFourGame();
+		ParallelAlphaBetaSearch<ConnectFourState, Integer, String> search = new ParallelAlphaBetaSearch<>(
+				() -> new ConnectFourAIPlayer(game, 1), 2, 1 << 16);
+		// red has three disks in column 3 and wins by a fourth one
+		ConnectFourState state = game.getInitialState();
+		for (int col : new int[] { 3, 0, 3, 6, 3, 0 })
+			state = game.getResult(state, col);
+		Assert.assertEquals(Integer.valueOf(3), search.makeDecision(state));
+		Assert.assertTrue(search.getMetrics().getInt(ParallelAlphaBetaSearch.METRICS_MAIN_DEPTH) >= 1);
+	}
+
+	@Test
+	public void testSharedTableReplacesPrivateTable() {
+		ConnectFourGame game = new ConnectFourGame();
+		// the player configures a private table, which must not be used
+		ConnectFourAIPlayer search = new ConnectFourAIPlayer(game, 1);
+		TranspositionTable<Integer> table = new TranspositionTable<>(1 << 12);
+		search.setTranspositionTable(table);
+		ConnectFourState state = game.getInitialState();
+		for (int col : new int[] { 3, 0, 3, 6, 3 })
+			state = game.getResult(state, col);
+		table.nextGeneration();
+		Assert.assertEquals(Integer.valueOf(3), search.makeDecision(state));
+		Assert.assertTrue(search.getMetrics().getLong(IterativeDeepeningAlphaBetaSearch.METRICS_TT_PROBES) > 0);
+		boolean stored = false;
+		for (int col : game.getActions(state))
+			stored |= table.get(game.getHashKey(game.getResult(state, col))) != null;
+		Assert.assertTrue(stored);
+	}
+}
@@ -0,0 +1,75 @@
+package aima.test.core.unit.search.adversarial;
+
+import aima.core.environment.connectfour.ConnectFourGame;
+import aima.core.environment.connectfour.ConnectFourState;
+import aima.core.environment.tictactoe.TicTacToeGame;
+import aima.core.environment.tictactoe.TicTacToeState;
+import aima.core.search.adversarial.ParallelMonteCarloTreeSearch;
+import aima.core.search.adversarial.ParallelMonteCarloTreeSearch.Parallelization;
+import aima.core.search.framework.Metrics;
+import aima.core.util.datastructure.XYLocation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class ParallelMonteCarloTreeSearchTest {
+
+	@Test
+	public void testRootParallelization() {
+		testTicTacToe(Parallelization.ROOT);
+	}
+
+	@Test
+	public void testTreeParallelization() {
+		testTicTacToe(Parallelization.TREE);
+	}
+
+	private void testTicTacToe(Parallelization parallelization) {
+		// x x -
+		// o o -
+		// - - -
+		// next move: x, which wins with (2, 0)
+		TicTacToeGame game = new TicTacToeGame();
+		TicTacToeState state = new TicTacToeState(new String[] { TicTacToeState.X, TicTacToeState.X,
+				TicTacToeState.EMPTY, TicTacToeState.O, TicTacToeState.O, TicTacToeState.EMPTY,
+				TicTacToeState.EMPTY, TicTacToeState.EMPTY, TicTacToeState.EMPTY }, TicTacToeState.X);
+		ParallelMonteCarloTreeSearch<TicTacToeState, XYLocation, String> search =
+				new ParallelMonteCarloTreeSearch<>(game, parallelization, 3, 3001);
+		search.setRandom(new Random(42));
+		Assert.assertEquals(new XYLocation(2, 0), search.makeDecision(state));
+		Metrics metrics = search.getMetrics();
+		Assert.assertEquals(3, metrics.getInt(ParallelMonteCarloTreeSearch.METRICS_THREADS));
+		Assert.assertEquals(3001, metrics.getInt(ParallelMonteCarloTreeSearch.METRICS_PLAYOUTS));
+		int sum = 0;
+		for (int i = 0; i < 3; i++)
+			sum += metrics.getInt(ParallelMonteCarloTreeSearch.METRICS_THREAD_PLAYOUTS + i);
+		Assert.assertEquals(3001, sum);
+		Assert.assertTrue(metrics.getDouble(ParallelMonteCarloTreeSearch.METRICS_PLAYOUTS_PER_SECOND) > 0);
+		Assert.assertEquals(0, metrics.getInt(ParallelMonteCarloTreeSearch.METRICS_REUSED_NODES));
+
+		// o wins with (2, 1) after x missed its win, the subtrees of the state are reused
+		state = game.getResult(state, new XYLocation(0, 2));
+		Assert.assertEquals(new XYLocation(2, 1), search.makeDecision(state));
+		metrics = search.getMetrics();
+		Assert.assertTrue(metrics.getInt(ParallelMonteCarloTreeSearch.METRICS_REUSED_NODES) > 1);
+		Assert.assertTrue(metrics.getInt(ParallelMonteCarloTreeSearch.METRICS_TREE_SIZE)
+				> metrics.getInt(ParallelMonteCarloTreeSearch.METRICS_REUSED_NODES));
+	}
+
+	@Test
+	public void testConnectFourWinningMove() {
+		ConnectFourGame game = new ConnectFourGame();
+		// red has three disks in column 3 and wins by a fourth one
+		ConnectFourState state = game.getInitialState();
+		for (int col : new int[] { 3, 0, 3, 6, 3, 0 })
+			state = game.getResult(state, col);
+		for (Parallelization parallelization : Parallelization.values()) {
+			ParallelMonteCarloTreeSearch<ConnectFourState, Integer, String> search =
+					new ParallelMonteCarloTreeSearch<>(game, parallelization, 2, 200, TimeUnit.MILLISECONDS);
+			Assert.assertEquals(Integer.valueOf(3), search.makeDecision(state));
+			Assert.assertTrue(search.getMetrics().getInt(ParallelMonteCarloTreeSearch.METRICS_PLAYOUTS) > 1);
+		}
+	}
+}
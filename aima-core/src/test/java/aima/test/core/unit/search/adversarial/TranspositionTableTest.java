@@ -0,0 +1,54 @@
+package aima.test.core.unit.search.adversarial;
+
+import aima.core.search.adversarial.TranspositionTable;
+import aima.core.search.adversarial.TranspositionTable.Bound;
+import aima.core.search.adversarial.TranspositionTable.Entry;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TranspositionTableTest {
+
+	@Test
+	public void testStoreAndGet() {
+		TranspositionTable<String> table = new TranspositionTable<>(100);
+		Assert.assertEquals(128, table.capacity());
+		Assert.assertNull(table.get(42));
+		Assert.assertTrue(table.store(42, 0.5, Bound.LOWER, 3, "a"));
+		Entry<String> entry = table.get(42);
+		Assert.assertNotNull(entry);
+		Assert.assertEquals(0.5, entry.getValue(), 0);
+		Assert.assertEquals(Bound.LOWER, entry.getBound());
+		Assert.assertEquals(3, entry.getDepth());
+		Assert.assertEquals("a", entry.getAction());
+		Assert.assertNull(table.get(42 + 128)); // same slot, other key
+
+		// best action of previous searches is kept if no new one is known
+		Assert.assertTrue(table.store(42, 0.7, Bound.EXACT, 4, null));
+		entry = table.get(42);
+		Assert.assertEquals(0.7, entry.getValue(), 0);
+		Assert.assertEquals("a", entry.getAction());
+
+		table.clear();
+		Assert.assertNull(table.get(42));
+	}
+
+	@Test
+	public void testReplaceByDepth() {
+		TranspositionTable<String> table = new TranspositionTable<>(16);
+		table.store(1, 0.5, Bound.EXACT, 5, "a");
+		// shallower search of another state competing for the same slot
+		Assert.assertFalse(table.store(17, 0.1, Bound.EXACT, 2, "b"));
+		Assert.assertNotNull(table.get(1));
+		Assert.assertNull(table.get(17));
+		Assert.assertTrue(table.store(17, 0.1, Bound.EXACT, 5, "b"));
+		Assert.assertNull(table.get(1));
+		Assert.assertNotNull(table.get(17));
+
+		// entries of previous searches are always replaced
+		table.store(2, 0.5, Bound.EXACT, TranspositionTable.UNLIMITED_DEPTH, "c");
+		table.nextGeneration();
+		Assert.assertNotNull(table.get(2));
+		Assert.assertTrue(table.store(18, 0.1, Bound.UPPER, 1, "d"));
+		Assert.assertNull(table.get(2));
+	}
+}
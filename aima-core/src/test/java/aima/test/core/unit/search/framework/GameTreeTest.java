@@ -0,0 +1,85 @@
+package aima.test.core.unit.search.framework;
+
+import aima.core.search.framework.GameTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class GameTreeTest {
+
+	@Test
+	public void testExpansion() {
+		GameTree<String, Integer> tree = new GameTree<>(2);
+		int root = tree.addRoot("s");
+		Assert.assertFalse(tree.hasChildren(root));
+		tree.addChildren(root, Arrays.asList(1, 2, 3));
+		Assert.assertTrue(tree.hasChildren(root));
+		Assert.assertEquals(3, tree.getChildCount(root));
+		Assert.assertEquals(4, tree.size());
+
+		// expanded children are moved to the front
+		int child = tree.expandChild(root, 2, "s3");
+		Assert.assertEquals(tree.getChild(root, 0), child);
+		Assert.assertEquals(Integer.valueOf(3), tree.getAction(child));
+		Assert.assertEquals("s3", tree.getState(child));
+		Assert.assertEquals(root, tree.getParent(child));
+		Assert.assertEquals(1, tree.getExpandedChildCount(root));
+		Assert.assertFalse(tree.isFullyExpanded(root));
+
+		tree.addChildren(child, Collections.emptyList()); // terminal
+		Assert.assertTrue(tree.isFullyExpanded(child));
+		Assert.assertEquals(0, tree.getChildCount(child));
+	}
+
+	@Test
+	public void testStatistics() {
+		GameTree<String, Integer> tree = new GameTree<>();
+		int root = tree.addRoot("s");
+		tree.addChildren(root, Arrays.asList(1, 2));
+		int child1 = tree.expandChild(root, 0, "s1");
+		int child2 = tree.expandChild(root, 1, "s2");
+		tree.updateStats(child1, 1);
+		tree.updateStats(child1, 0);
+		tree.updateStats(child2, 0);
+		for (int i = 0; i < 3; i++)
+			tree.updateStats(root, 0);
+		Assert.assertEquals(2, tree.getNi(child1));
+		Assert.assertEquals(1, tree.getWi(child1), 0);
+		Assert.assertEquals(child1, tree.getChildWithMaxPlayouts(root));
+		// 0.5 + 2 * sqrt(ln(3) / 2) < 0 + 2 * sqrt(ln(3) / 1)
+		Assert.assertEquals(child2, tree.getChildWithMaxUCT(root, 2));
+		Assert.assertEquals(child1, tree.getChildWithMaxUCT(root, 0));
+	}
+
+	@Test
+	public void testReRoot() {
+		GameTree<String, Integer> tree = new GameTree<>();
+		int root = tree.addRoot("s");
+		tree.addChildren(root, Arrays.asList(1, 2));
+		int child1 = tree.expandChild(root, 0, "s1");
+		int child2 = tree.expandChild(root, 1, "s2");
+		tree.addChildren(child1, Arrays.asList(11));
+		tree.expandChild(child1, 0, "s11");
+		tree.addChildren(child2, Arrays.asList(21, 22));
+		int grandChild = tree.expandChild(child2, 1, "s22");
+		tree.updateStats(grandChild, 1);
+		tree.updateStats(child2, 1);
+
+		root = tree.reRoot(child2);
+		Assert.assertEquals(3, tree.size());
+		Assert.assertEquals("s2", tree.getState(root));
+		Assert.assertNull(tree.getAction(root));
+		Assert.assertEquals(GameTree.NONE, tree.getParent(root));
+		Assert.assertEquals(1, tree.getNi(root));
+		Assert.assertEquals(2, tree.getChildCount(root));
+		Assert.assertEquals(1, tree.getExpandedChildCount(root));
+		int child = tree.getChild(root, 0);
+		Assert.assertEquals("s22", tree.getState(child));
+		Assert.assertEquals(Integer.valueOf(22), tree.getAction(child));
+		Assert.assertEquals(root, tree.getParent(child));
+		Assert.assertEquals(1, tree.getWi(child), 0);
+		Assert.assertEquals(Integer.valueOf(21), tree.getAction(tree.getChild(root, 1)));
+	}
+}
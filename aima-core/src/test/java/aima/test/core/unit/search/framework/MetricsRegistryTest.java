@@ -0,0 +1,91 @@
+package aima.test.core.unit.search.framework;
+
+import aima.core.search.framework.Metrics;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.Gauge;
+import aima.core.search.framework.metrics.MaxTracker;
+import aima.core.search.framework.metrics.MetricsRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MetricsRegistryTest {
+
+	@Test
+	public void testSnapshotRendering() {
+		MetricsRegistry registry = new MetricsRegistry();
+		Counter counter = registry.counter("nodesExpanded");
+		Gauge gauge = registry.gauge("queueSize");
+		MaxTracker max = registry.maxTracker("maxQueueSize");
+		DoubleGauge cost = registry.doubleGauge("pathCost");
+
+		Assert.assertEquals("{maxQueueSize=0, nodesExpanded=0, pathCost=0, queueSize=0}",
+				registry.snapshot().toString());
+
+		counter.increment();
+		counter.add(2);
+		gauge.set(7);
+		max.update(5);
+		max.update(3);
+		cost.set(278);
+		Metrics m = registry.snapshot();
+		Assert.assertEquals(3, m.getInt("nodesExpanded"));
+		Assert.assertEquals("7", m.get("queueSize"));
+		Assert.assertEquals(5, m.getInt("maxQueueSize"));
+		Assert.assertEquals("278.0", m.get("pathCost"));
+
+		registry.reset();
+		Assert.assertEquals(0, counter.get());
+		Assert.assertFalse(cost.isSet());
+		Assert.assertEquals("0", registry.snapshot().get("pathCost"));
+	}
+
+	@Test
+	public void testRegistrationByName() {
+		MetricsRegistry registry = new MetricsRegistry();
+		Counter counter = registry.counter("a");
+		Assert.assertSame(counter, registry.counter("a"));
+		Assert.assertSame(counter, registry.get("a"));
+		try {
+			registry.gauge("a");
+			Assert.fail("IllegalArgumentException expected.");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRenderToPreservesOtherEntries() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.gauge("iterations").set(4);
+		Metrics m = new Metrics();
+		m.set("fitMax", 1.5);
+		registry.renderTo(m);
+		Assert.assertEquals("{fitMax=1.5, iterations=4}", m.toString());
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws InterruptedException {
+		MetricsRegistry registry = new MetricsRegistry(true);
+		Counter counter = registry.counter("count");
+		MaxTracker max = registry.maxTracker("max");
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			final int offset = t;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					counter.increment();
+					max.update(offset * 10000 + i);
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads)
+			thread.join();
+		Assert.assertEquals(40000, counter.get());
+		Assert.assertEquals(39999, max.get());
+	}
+}
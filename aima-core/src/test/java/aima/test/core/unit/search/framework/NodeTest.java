@@ -7,6 +7,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import aima.core.search.framework.Node;
+import aima.core.search.framework.NodeArena;
 
 /**
  * @author Ravi Mohan
@@ -34,4 +35,26 @@ public class NodeTest {
 		Assert.assertEquals(node2, path.get(1));
 		Assert.assertEquals(node3, path.get(2));
 	}
+
+	@Test
+	public void testNodeArena() {
+		NodeArena<String, String> arena = new NodeArena<>(1);
+		int node1 = arena.addRoot("state1");
+		int node2 = arena.addNode(node1, "a", "state2", 1.0);
+		int node3 = arena.addNode(node2, "b", "state3", 2.0);
+		int node4 = arena.addNode(node1, "a", "state3", 5.0);
+		Assert.assertEquals(4, arena.size());
+		Assert.assertEquals(3, arena.getStateCount());
+		Assert.assertTrue(arena.isRootNode(node1));
+		Assert.assertEquals(node2, arena.getParent(node3));
+		Assert.assertEquals(arena.getStateId(node3), arena.getStateId(node4));
+		Assert.assertEquals("state3", arena.getState(node4));
+		Assert.assertNull(arena.getAction(node1));
+
+		Assert.assertEquals("[a, b]", SearchUtils.getSequenceOfActions(arena, node3).toString());
+		Node<String, String> node = arena.toNode(node3);
+		Assert.assertEquals(2.0, node.getPathCost(), 0.0);
+		Assert.assertEquals(SearchUtils.getSequenceOfActions(arena, node3), SearchUtils.getSequenceOfActions(node));
+		Assert.assertEquals("state1", node.getParent().getParent().getState());
+	}
 }
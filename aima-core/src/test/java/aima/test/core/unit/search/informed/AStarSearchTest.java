@@ -8,12 +8,19 @@ import aima.core.environment.map.*;
 import aima.core.search.framework.Node;
 import aima.core.search.agent.SearchAgent;
 import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.SearchUtils;
 import aima.core.search.framework.problem.GeneralProblem;
 import aima.core.search.framework.problem.Problem;
 import aima.core.search.framework.qsearch.GraphSearch;
+import aima.core.search.framework.qsearch.GraphSearchArena;
+import aima.core.search.framework.qsearch.GraphSearchIndexedFrontier;
 import aima.core.search.framework.qsearch.QueueSearch;
 import aima.core.search.framework.qsearch.TreeSearch;
 import aima.core.search.informed.AStarSearch;
+import aima.core.search.informed.BestFirstSearch;
+import aima.core.search.informed.EvaluatingNodeFactory;
+import aima.core.search.informed.EvaluationFunction;
+import aima.core.search.informed.GreedyBestFirstSearch;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -52,6 +59,142 @@ public class AStarSearchTest {
 		}
 	}
 
+	@Test
+	public void testAStarSearchWithIndexedFrontier() throws Exception {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0, 4, 6, 2, 3, 5 });
+
+		Problem<EightPuzzleBoard, Action> problem = new BidirectionalEightPuzzleProblem(board);
+		SearchForActions<EightPuzzleBoard, Action> search = new AStarSearch<>(new GraphSearchIndexedFrontier<>(),
+				EightPuzzleFunctions::getManhattanDistance);
+		SearchAgent<Object, EightPuzzleBoard, Action> agent = new SearchAgent<>(problem, search);
+		Assert.assertEquals(23, agent.getActions().size());
+		Assert.assertEquals("23.0", agent.getInstrumentation().getProperty("pathCost"));
+		// frontier holds at most one node per state (compare with testAStarSearch)
+		Assert.assertEquals("720", agent.getInstrumentation().getProperty("nodesExpanded"));
+		Assert.assertEquals("441", agent.getInstrumentation().getProperty("maxQueueSize"));
+	}
+
+	@Test
+	public void testAStarSearchWithEvaluationCaching() throws Exception {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0, 4, 6, 2, 3, 5 });
+		Problem<EightPuzzleBoard, Action> problem = new BidirectionalEightPuzzleProblem(board);
+
+		SearchForActions<EightPuzzleBoard, Action> search = new AStarSearch<>(new GraphSearch<>(),
+				EightPuzzleFunctions::getManhattanDistance);
+		SearchAgent<Object, EightPuzzleBoard, Action> agent = new SearchAgent<>(problem, search);
+		int calls = search.getMetrics().getInt(BestFirstSearch.METRIC_HEURISTIC_CALLS);
+
+		SearchForActions<EightPuzzleBoard, Action> cachingSearch = new AStarSearch<>(
+				new GraphSearch<>(new EvaluatingNodeFactory<>()), EightPuzzleFunctions::getManhattanDistance);
+		SearchAgent<Object, EightPuzzleBoard, Action> cachingAgent = new SearchAgent<>(problem, cachingSearch);
+		int cachingCalls = cachingSearch.getMetrics().getInt(BestFirstSearch.METRIC_HEURISTIC_CALLS);
+
+		Assert.assertEquals(agent.getActions(), cachingAgent.getActions());
+		Assert.assertEquals("1133", cachingAgent.getInstrumentation().getProperty("nodesExpanded"));
+		Assert.assertEquals("677", cachingAgent.getInstrumentation().getProperty("maxQueueSize"));
+		// h is computed exactly once per generated node
+		Assert.assertTrue(cachingCalls > 0 && cachingCalls * 5 < calls);
+	}
+
+	@Test
+	public void testEvaluationCachingWithSharedNodeFactory() throws Exception {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0, 4, 6, 2, 3, 5 });
+		Problem<EightPuzzleBoard, Action> problem = new BidirectionalEightPuzzleProblem(board);
+		EvaluatingNodeFactory<EightPuzzleBoard, Action> nodeFactory = new EvaluatingNodeFactory<>();
+		SearchForActions<EightPuzzleBoard, Action> aStarSearch = new AStarSearch<>(new GraphSearch<>(nodeFactory),
+				EightPuzzleFunctions::getManhattanDistance);
+		// the second search must not change the evaluation function of the first one
+		SearchForActions<EightPuzzleBoard, Action> greedySearch = new GreedyBestFirstSearch<>(
+				new GraphSearch<>(nodeFactory), EightPuzzleFunctions::getManhattanDistance);
+		SearchAgent<Object, EightPuzzleBoard, Action> agent = new SearchAgent<>(problem, aStarSearch);
+		Assert.assertEquals(23, agent.getActions().size());
+		Assert.assertEquals("1133", agent.getInstrumentation().getProperty("nodesExpanded"));
+		agent = new SearchAgent<>(problem, greedySearch);
+		Assert.assertEquals(49, agent.getActions().size());
+		Assert.assertEquals("332", agent.getInstrumentation().getProperty("nodesExpanded"));
+	}
+
+	@Test
+	public void testEvaluationCachingWithoutHeuristicFunction() throws Exception {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		Problem<String, MoveToAction> problem = new GeneralProblem<>(
+				SimplifiedRoadMapOfRomania.ARAD,
+				MapFunctions.createActionsFunction(romaniaMap),
+				MapFunctions.createResultFunction(),
+				Predicate.isEqual(SimplifiedRoadMapOfRomania.BUCHAREST),
+				MapFunctions.createDistanceStepCostFunction(romaniaMap));
+		// f(n) = g(n), no heuristic function set
+		EvaluationFunction<String, MoveToAction> evalFn = new EvaluationFunction<String, MoveToAction>(null) {
+			@Override
+			public double applyAsDouble(Node<String, MoveToAction> node) {
+				return node.getPathCost();
+			}
+		};
+		SearchForActions<String, MoveToAction> search = new BestFirstSearch<>(
+				new GraphSearch<>(new EvaluatingNodeFactory<>()), evalFn);
+		SearchAgent<Object, String, MoveToAction> agent = new SearchAgent<>(problem, search);
+		Assert.assertEquals(4, agent.getActions().size());
+		Assert.assertEquals("418.0", search.getMetrics().get(QueueSearch.METRIC_PATH_COST));
+	}
+
+	@Test
+	public void testAStarSearchWithNodeArena() throws Exception {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0, 4, 6, 2, 3, 5 });
+		Problem<EightPuzzleBoard, Action> problem = new BidirectionalEightPuzzleProblem(board);
+		GraphSearchArena<EightPuzzleBoard, Action> impl = new GraphSearchArena<>();
+		SearchForActions<EightPuzzleBoard, Action> search = new AStarSearch<>(impl,
+				EightPuzzleFunctions::getManhattanDistance);
+		SearchAgent<Object, EightPuzzleBoard, Action> agent = new SearchAgent<>(problem, search);
+		Assert.assertEquals(23, agent.getActions().size());
+		Assert.assertEquals(agent.getActions(), SearchUtils.getSequenceOfActions(impl.getNodeArena(), impl.getGoalNode()));
+		// same metrics as graph search with node objects (see testAStarSearch)
+		Assert.assertEquals("1133", agent.getInstrumentation().getProperty("nodesExpanded"));
+		Assert.assertEquals("676", agent.getInstrumentation().getProperty("queueSize"));
+		Assert.assertEquals("677", agent.getInstrumentation().getProperty("maxQueueSize"));
+	}
+
+	@Test
+	public void testNodeArenaCallbacksReceivePopulatedNodes() throws Exception {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		Problem<String, MoveToAction> problem = new GeneralProblem<>(
+				SimplifiedRoadMapOfRomania.ARAD,
+				MapFunctions.createActionsFunction(romaniaMap),
+				MapFunctions.createResultFunction(),
+				Predicate.isEqual(SimplifiedRoadMapOfRomania.BUCHAREST),
+				MapFunctions.createDistanceStepCostFunction(romaniaMap));
+		ToDoubleFunction<Node<String, MoveToAction>> sld =
+				MapFunctions.createSLDHeuristicFunction(SimplifiedRoadMapOfRomania.BUCHAREST, romaniaMap);
+		ToDoubleFunction<Node<String, MoveToAction>> h = node -> {
+			assertPopulated(node);
+			return sld.applyAsDouble(node);
+		};
+		AStarSearch<String, MoveToAction> search = new AStarSearch<>(new GraphSearchArena<>(), h);
+		int[] expansions = new int[1];
+		search.addNodeListener(node -> {
+			assertPopulated(node);
+			expansions[0]++;
+		});
+		Assert.assertEquals(
+				"[Action[name=moveTo, location=Sibiu], Action[name=moveTo, location=RimnicuVilcea], Action[name=moveTo, location=Pitesti], Action[name=moveTo, location=Bucharest]]",
+				search.findActions(problem).get().toString());
+		Assert.assertEquals(5, expansions[0]);
+	}
+
+	/** Checks that parent links and actions lead back to the initial state and reproduce the path cost. */
+	private void assertPopulated(Node<String, MoveToAction> node) {
+		double pathCost = node.getPathCost();
+		while (!node.isRootNode()) {
+			Assert.assertNotNull(node.getParent());
+			Assert.assertEquals(node.getState(), node.getAction().getToLocation());
+			Assert.assertTrue(node.getParent().getPathCost() < pathCost);
+			pathCost = node.getParent().getPathCost();
+			node = node.getParent();
+		}
+		Assert.assertNull(node.getAction());
+		Assert.assertEquals(SimplifiedRoadMapOfRomania.ARAD, node.getState());
+		Assert.assertEquals(0, pathCost, 0);
+	}
+
 	@Test
 	public void testAIMA3eFigure3_15() throws Exception {
 		Map romaniaMap = new SimplifiedRoadMapOfRomania();
@@ -0,0 +1,91 @@
+package aima.test.core.unit.search.informed;
+
+import aima.core.agent.Action;
+import aima.core.environment.eightpuzzle.BidirectionalEightPuzzleProblem;
+import aima.core.environment.eightpuzzle.EightPuzzleBoard;
+import aima.core.environment.eightpuzzle.EightPuzzleFunctions;
+import aima.core.environment.map.*;
+import aima.core.search.framework.problem.GeneralProblem;
+import aima.core.search.framework.problem.Problem;
+import aima.core.search.informed.AnytimeAStarSearch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+public class AnytimeAStarSearchTest {
+
+	@Test
+	public void testEightPuzzle() {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0, 4, 6, 2, 3, 5 });
+		Problem<EightPuzzleBoard, Action> problem = new BidirectionalEightPuzzleProblem(board);
+		AnytimeAStarSearch<EightPuzzleBoard, Action> search = new AnytimeAStarSearch<>(
+				EightPuzzleFunctions::getManhattanDistance, 3.0, 0.5);
+		Optional<List<Action>> actions = search.findActions(problem);
+		Assert.assertTrue(actions.isPresent());
+		Assert.assertEquals(23, actions.get().size());
+		Assert.assertEquals(1.0, search.getMetrics().getDouble(AnytimeAStarSearch.METRIC_SUBOPTIMALITY_BOUND), 0);
+		Assert.assertTrue(search.getMetrics().getInt(AnytimeAStarSearch.METRIC_ITERATIONS) >= 1);
+	}
+
+	@Test
+	public void testRomania() {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		AnytimeAStarSearch<String, MoveToAction> search = new AnytimeAStarSearch<>(
+				MapFunctions.createSLDHeuristicFunction(SimplifiedRoadMapOfRomania.BUCHAREST, romaniaMap), 5.0, 1.0);
+		Optional<List<MoveToAction>> actions = search.findActions(createRomaniaProblem(romaniaMap, "Bucharest"));
+		Assert.assertEquals(
+				"[Action[name=moveTo, location=Sibiu], Action[name=moveTo, location=RimnicuVilcea], Action[name=moveTo, location=Pitesti], Action[name=moveTo, location=Bucharest]]",
+				actions.map(Object::toString).orElse(""));
+		Assert.assertEquals("418.0", search.getMetrics().get(AnytimeAStarSearch.METRIC_PATH_COST));
+		Assert.assertEquals(1.0, search.getMetrics().getDouble(AnytimeAStarSearch.METRIC_SUBOPTIMALITY_BOUND), 0);
+	}
+
+	@Test
+	public void testNodeLimit() {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		Problem<String, MoveToAction> problem = createRomaniaProblem(romaniaMap, "Bucharest");
+		AnytimeAStarSearch<String, MoveToAction> search = new AnytimeAStarSearch<>(
+				MapFunctions.createSLDHeuristicFunction(SimplifiedRoadMapOfRomania.BUCHAREST, romaniaMap), 5.0, 1.0);
+		search.setNodeLimit(1);
+		Assert.assertFalse(search.findActions(problem).isPresent());
+		Assert.assertEquals(1, search.getMetrics().getInt(AnytimeAStarSearch.METRIC_NODES_EXPANDED));
+
+		// greedy search finds the path via Sibiu and Fagaras (450 km) after three expansions
+		search.setNodeLimit(3);
+		Assert.assertTrue(search.findActions(problem).isPresent());
+		double cost = search.getMetrics().getDouble(AnytimeAStarSearch.METRIC_PATH_COST);
+		double bound = search.getMetrics().getDouble(AnytimeAStarSearch.METRIC_SUBOPTIMALITY_BOUND);
+		Assert.assertEquals(450.0, cost, 1e-9);
+		Assert.assertTrue(bound >= cost / 418.0 && bound < Double.POSITIVE_INFINITY);
+	}
+
+	@Test
+	public void testTimeLimit() {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 8, 6, 7, 2, 5, 4, 3, 0, 1 });
+		AnytimeAStarSearch<EightPuzzleBoard, Action> search = new AnytimeAStarSearch<>(
+				EightPuzzleFunctions::getManhattanDistance);
+		search.setTimeLimit(0, TimeUnit.MILLISECONDS);
+		Assert.assertFalse(search.findActions(new BidirectionalEightPuzzleProblem(board)).isPresent());
+		Assert.assertEquals(0, search.getMetrics().getInt(AnytimeAStarSearch.METRIC_NODES_EXPANDED));
+		Assert.assertEquals(Double.POSITIVE_INFINITY,
+				search.getMetrics().getDouble(AnytimeAStarSearch.METRIC_SUBOPTIMALITY_BOUND), 0);
+	}
+
+	@Test
+	public void testUnreachableGoal() {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		AnytimeAStarSearch<String, MoveToAction> search = new AnytimeAStarSearch<>(node -> 0.0);
+		Assert.assertFalse(search.findActions(createRomaniaProblem(romaniaMap, "Atlantis")).isPresent());
+		Assert.assertEquals(20, search.getMetrics().getInt(AnytimeAStarSearch.METRIC_NODES_EXPANDED));
+	}
+
+	private static Problem<String, MoveToAction> createRomaniaProblem(Map romaniaMap, String goal) {
+		return new GeneralProblem<>(SimplifiedRoadMapOfRomania.ARAD,
+				MapFunctions.createActionsFunction(romaniaMap), MapFunctions.createResultFunction(),
+				Predicate.isEqual(goal), MapFunctions.createDistanceStepCostFunction(romaniaMap));
+	}
+}
@@ -0,0 +1,93 @@
+package aima.test.core.unit.search.informed;
+
+import aima.core.environment.map.*;
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.problem.GeneralProblem;
+import aima.core.search.framework.problem.Problem;
+import aima.core.search.framework.qsearch.GraphSearch;
+import aima.core.search.framework.qsearch.QueueSearch;
+import aima.core.search.informed.AStarSearch;
+import aima.core.search.informed.BidirectionalAStarSearch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+public class BidirectionalAStarSearchTest {
+
+	@Test
+	public void testRomania() {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		Problem<String, MoveToAction> problem = new BidirectionalMapProblem(romaniaMap,
+				SimplifiedRoadMapOfRomania.ARAD, SimplifiedRoadMapOfRomania.BUCHAREST);
+		SearchForActions<String, MoveToAction> search = new BidirectionalAStarSearch<>(
+				goal -> MapFunctions.createSLDHeuristicFunction(goal, romaniaMap));
+		Optional<List<MoveToAction>> actions = search.findActions(problem);
+		Assert.assertEquals(
+				"[Action[name=moveTo, location=Sibiu], Action[name=moveTo, location=RimnicuVilcea], Action[name=moveTo, location=Pitesti], Action[name=moveTo, location=Bucharest]]",
+				actions.map(Object::toString).orElse(""));
+		Assert.assertEquals("418.0", search.getMetrics().get(BidirectionalAStarSearch.METRIC_PATH_COST));
+	}
+
+	@Test
+	public void testOptimalityForAllCityPairs() {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		for (String from : romaniaMap.getLocations()) {
+			for (String to : romaniaMap.getLocations()) {
+				Problem<String, MoveToAction> problem = new GeneralProblem<>(from,
+						MapFunctions.createActionsFunction(romaniaMap), MapFunctions.createResultFunction(),
+						Predicate.isEqual(to), MapFunctions.createDistanceStepCostFunction(romaniaMap));
+				SearchForActions<String, MoveToAction> aStar = new AStarSearch<>(new GraphSearch<>(),
+						MapFunctions.createSLDHeuristicFunction(to, romaniaMap));
+				Assert.assertTrue(aStar.findActions(problem).isPresent());
+
+				SearchForActions<String, MoveToAction> biAStar = new BidirectionalAStarSearch<>(
+						goal -> MapFunctions.createSLDHeuristicFunction(goal, romaniaMap));
+				SearchForActions<String, MoveToAction> biUniformCost = new BidirectionalAStarSearch<>(
+						goal -> node -> 0.0);
+				for (SearchForActions<String, MoveToAction> search : Arrays.asList(biAStar, biUniformCost)) {
+					Optional<List<MoveToAction>> actions = search.findActions(
+							new BidirectionalMapProblem(romaniaMap, from, to));
+					Assert.assertTrue(actions.isPresent());
+					Assert.assertEquals(aStar.getMetrics().getDouble(QueueSearch.METRIC_PATH_COST),
+							search.getMetrics().getDouble(BidirectionalAStarSearch.METRIC_PATH_COST), 1e-9);
+					Assert.assertEquals(getPathCost(romaniaMap, from, actions.get()),
+							search.getMetrics().getDouble(BidirectionalAStarSearch.METRIC_PATH_COST), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testUnreachableGoal() {
+		ExtendableMap map = new ExtendableMap();
+		map.addBidirectionalLink("A", "B", 5.0);
+		map.addBidirectionalLink("C", "D", 5.0);
+		SearchForActions<String, MoveToAction> search = new BidirectionalAStarSearch<>(goal -> node -> 0.0);
+		Assert.assertFalse(search.findActions(new BidirectionalMapProblem(map, "A", "D")).isPresent());
+		Assert.assertEquals(2, search.getMetrics().getInt(BidirectionalAStarSearch.METRIC_NODES_EXPANDED));
+	}
+
+	@Test
+	public void testStartEqualsGoal() {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		SearchForActions<String, MoveToAction> search = new BidirectionalAStarSearch<>(goal -> node -> 0.0);
+		Optional<List<MoveToAction>> actions = search.findActions(new BidirectionalMapProblem(romaniaMap,
+				SimplifiedRoadMapOfRomania.ARAD, SimplifiedRoadMapOfRomania.ARAD));
+		Assert.assertTrue(actions.isPresent());
+		Assert.assertTrue(actions.get().isEmpty());
+	}
+
+	private static double getPathCost(Map map, String from, List<MoveToAction> actions) {
+		double result = 0;
+		String location = from;
+		for (MoveToAction action : actions) {
+			result += map.getDistance(location, action.getToLocation());
+			location = action.getToLocation();
+		}
+		return result;
+	}
+}
@@ -0,0 +1,91 @@
+package aima.test.core.unit.search.informed;
+
+import aima.core.agent.Action;
+import aima.core.environment.eightpuzzle.BidirectionalEightPuzzleProblem;
+import aima.core.environment.eightpuzzle.EightPuzzleBoard;
+import aima.core.environment.eightpuzzle.EightPuzzleFunctions;
+import aima.core.environment.map.*;
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.problem.GeneralProblem;
+import aima.core.search.framework.problem.Problem;
+import aima.core.search.informed.ParallelAStarSearch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+public class ParallelAStarSearchTest {
+
+	@Test
+	public void testEightPuzzle() {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0, 4, 6, 2, 3, 5 });
+		Problem<EightPuzzleBoard, Action> problem = new BidirectionalEightPuzzleProblem(board);
+		for (int threads = 1; threads <= 4; threads++) {
+			SearchForActions<EightPuzzleBoard, Action> search = new ParallelAStarSearch<>
+					(EightPuzzleFunctions::getManhattanDistance, threads);
+			Optional<List<Action>> actions = search.findActions(problem);
+			Assert.assertTrue(actions.isPresent());
+			Assert.assertEquals(23, actions.get().size());
+			Assert.assertEquals("23.0", search.getMetrics().get(ParallelAStarSearch.METRIC_PATH_COST));
+			Assert.assertEquals(threads, search.getMetrics().getInt(ParallelAStarSearch.METRIC_THREADS));
+		}
+	}
+
+	@Test
+	public void testRomania() {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		Problem<String, MoveToAction> problem = new GeneralProblem<>(
+				SimplifiedRoadMapOfRomania.ARAD,
+				MapFunctions.createActionsFunction(romaniaMap),
+				MapFunctions.createResultFunction(),
+				Predicate.isEqual(SimplifiedRoadMapOfRomania.BUCHAREST),
+				MapFunctions.createDistanceStepCostFunction(romaniaMap));
+		SearchForActions<String, MoveToAction> search = new ParallelAStarSearch<>(
+				MapFunctions.createSLDHeuristicFunction(SimplifiedRoadMapOfRomania.BUCHAREST, romaniaMap), 3);
+		Optional<List<MoveToAction>> actions = search.findActions(problem);
+		Assert.assertEquals(
+				"[Action[name=moveTo, location=Sibiu], Action[name=moveTo, location=RimnicuVilcea], Action[name=moveTo, location=Pitesti], Action[name=moveTo, location=Bucharest]]",
+				actions.map(Object::toString).orElse(""));
+		Assert.assertEquals("418.0", search.getMetrics().get(ParallelAStarSearch.METRIC_PATH_COST));
+	}
+
+	@Test
+	public void testUnreachableGoal() {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		Problem<String, MoveToAction> problem = new GeneralProblem<>(
+				SimplifiedRoadMapOfRomania.ARAD,
+				MapFunctions.createActionsFunction(romaniaMap),
+				MapFunctions.createResultFunction(),
+				Predicate.isEqual("Atlantis"),
+				MapFunctions.createDistanceStepCostFunction(romaniaMap));
+		SearchForActions<String, MoveToAction> search = new ParallelAStarSearch<>(node -> 0.0, 4);
+		Assert.assertFalse(search.findActions(problem).isPresent());
+		// all cities are expanded, some of them possibly more than once
+		Assert.assertTrue(search.getMetrics().getInt(ParallelAStarSearch.METRIC_NODES_EXPANDED) >= 20);
+		Assert.assertEquals("0", search.getMetrics().get(ParallelAStarSearch.METRIC_PATH_COST));
+	}
+
+	@Test(timeout = 10000)
+	public void testFailingHeuristicFunction() {
+		Map romaniaMap = new SimplifiedRoadMapOfRomania();
+		Problem<String, MoveToAction> problem = new GeneralProblem<>(
+				SimplifiedRoadMapOfRomania.ARAD,
+				MapFunctions.createActionsFunction(romaniaMap),
+				MapFunctions.createResultFunction(),
+				Predicate.isEqual(SimplifiedRoadMapOfRomania.BUCHAREST),
+				MapFunctions.createDistanceStepCostFunction(romaniaMap));
+		SearchForActions<String, MoveToAction> search = new ParallelAStarSearch<>(node -> {
+			if (node.getState().equals(SimplifiedRoadMapOfRomania.PITESTI))
+				throw new IllegalStateException("No estimate for Pitesti.");
+			return 0.0;
+		}, 4);
+		try {
+			search.findActions(problem);
+			Assert.fail("Exception expected.");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("No estimate for Pitesti.", e.getMessage());
+		}
+	}
+}
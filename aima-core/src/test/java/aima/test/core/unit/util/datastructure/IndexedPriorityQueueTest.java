@@ -0,0 +1,84 @@
+package aima.test.core.unit.util.datastructure;
+
+import aima.core.util.datastructure.IndexedPriorityQueue;
+import aima.core.util.datastructure.Pair;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+public class IndexedPriorityQueueTest {
+
+	// elements are (key, priority) pairs
+	private IndexedPriorityQueue<Pair<String, Integer>> queue;
+
+	@Before
+	public void setUp() {
+		queue = new IndexedPriorityQueue<>(Comparator.comparing(Pair::getSecond), Pair::getFirst);
+	}
+
+	@Test
+	public void testPollOrder() {
+		queue.add(new Pair<>("a", 5));
+		queue.add(new Pair<>("b", 1));
+		queue.add(new Pair<>("c", 3));
+		Assert.assertEquals(3, queue.size());
+		Assert.assertEquals("b", queue.poll().getFirst());
+		Assert.assertEquals("c", queue.poll().getFirst());
+		Assert.assertEquals("a", queue.poll().getFirst());
+		Assert.assertNull(queue.poll());
+	}
+
+	@Test
+	public void testDecreaseKey() {
+		queue.add(new Pair<>("a", 5));
+		queue.add(new Pair<>("b", 4));
+		Assert.assertTrue(queue.add(new Pair<>("a", 2)));
+		Assert.assertFalse(queue.add(new Pair<>("b", 7)));
+		Assert.assertEquals(2, queue.size());
+		Assert.assertEquals(Integer.valueOf(2), queue.getByKey("a").getSecond());
+		Assert.assertEquals("a", queue.poll().getFirst());
+		Assert.assertEquals(Integer.valueOf(4), queue.poll().getSecond());
+	}
+
+	@Test
+	public void testUpdateAndRemove() {
+		for (int i = 0; i < 10; i++)
+			queue.add(new Pair<>("k" + i, i));
+		queue.update(new Pair<>("k0", 20));
+		Assert.assertEquals("k1", queue.peek().getFirst());
+		Assert.assertTrue(queue.remove(new Pair<>("k5", 5)));
+		Assert.assertFalse(queue.remove(new Pair<>("k6", 7)));
+		Assert.assertEquals(Integer.valueOf(3), queue.removeByKey("k3").getSecond());
+		Assert.assertFalse(queue.containsKey("k3"));
+		List<String> keys = new ArrayList<>();
+		while (!queue.isEmpty())
+			keys.add(queue.remove().getFirst());
+		Assert.assertEquals(Arrays.asList("k1", "k2", "k4", "k6", "k7", "k8", "k9", "k0"), keys);
+	}
+
+	@Test
+	public void testRandomOperationsAgainstPriorityQueue() {
+		Random random = new Random(42);
+		Map<String, Integer> best = new HashMap<>();
+		for (int i = 0; i < 2000; i++) {
+			String key = "k" + random.nextInt(300);
+			int priority = random.nextInt(1000);
+			queue.add(new Pair<>(key, priority));
+			best.merge(key, priority, Math::min);
+			if (i % 7 == 0) {
+				Pair<String, Integer> head = queue.poll();
+				Assert.assertEquals(best.values().stream().min(Integer::compare).get(), head.getSecond());
+				Assert.assertEquals(best.remove(head.getFirst()), head.getSecond());
+			}
+		}
+		Assert.assertEquals(best.size(), queue.size());
+		int last = Integer.MIN_VALUE;
+		while (!queue.isEmpty()) {
+			int priority = queue.poll().getSecond();
+			Assert.assertTrue(priority >= last);
+			last = priority;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package aima.gui.demo.search;
+
+import aima.core.environment.connectfour.ConnectFourAIPlayer;
+import aima.core.environment.connectfour.ConnectFourGame;
+import aima.core.environment.connectfour.ConnectFourState;
+import aima.core.search.adversarial.IterativeDeepeningAlphaBetaSearch;
+import aima.core.search.framework.Metrics;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark which compares the Connect Four AI player with and without
+ * transposition table for fixed time budgets. The player makes several
+ * consecutive decisions for one side in games which start with a random
+ * opening. The opponent plays random moves. For each configuration, nodes
+ * expanded and depth reached per decision and the hit rate of the
+ * transposition table are printed.
+ * Usage: <code>ConnectFourSearchDemo [game-count]</code>.
+ */
+public class ConnectFourSearchDemo {
+	private static final int OPENING_MOVES = 6;
+	private static final int DECISIONS_PER_GAME = 4;
+
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		System.out.println("ConnectFourSearchDemo (" + games + " games, " + DECISIONS_PER_GAME
+				+ " decisions per game)");
+		for (int time = 1; time <= 2; time++) {
+			benchmark("Alpha-beta, " + time + "s", games, time, 0);
+			benchmark("Alpha-beta with transposition table, " + time + "s", games, time, 1 << 18);
+		}
+	}
+
+	private static void benchmark(String name, int games, int time, int tableSize) {
+		ConnectFourGame game = new ConnectFourGame();
+		Random random = new Random(42);
+		long nodes = 0;
+		long depths = 0;
+		long probes = 0;
+		long hits = 0;
+		long cutoffs = 0;
+		int decisions = 0;
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < games; i++) {
+			ConnectFourAIPlayer search = new ConnectFourAIPlayer(game, time);
+			search.setTranspositionTableSize(tableSize);
+			ConnectFourState state = game.getInitialState();
+			for (int j = 0; j < OPENING_MOVES; j++)
+				state = playRandomMove(game, state, random);
+			for (int j = 0; j < DECISIONS_PER_GAME && !game.isTerminal(state); j++) {
+				state = game.getResult(state, search.makeDecision(state));
+				Metrics metrics = search.getMetrics();
+				nodes += metrics.getLong(IterativeDeepeningAlphaBetaSearch.METRICS_NODES_EXPANDED);
+				depths += metrics.getInt(IterativeDeepeningAlphaBetaSearch.METRICS_MAX_DEPTH);
+				probes += metrics.getLong(IterativeDeepeningAlphaBetaSearch.METRICS_TT_PROBES);
+				hits += metrics.getLong(IterativeDeepeningAlphaBetaSearch.METRICS_TT_HITS);
+				cutoffs += metrics.getLong(IterativeDeepeningAlphaBetaSearch.METRICS_TT_CUTOFFS);
+				decisions++;
+				if (!game.isTerminal(state))
+					state = playRandomMove(game, state, random);
+			}
+		}
+		long duration = System.currentTimeMillis() - start;
+		int n = Math.max(1, decisions);
+		System.out.println(name + ": time/decision=" + duration / n + "ms, nodes/decision=" + nodes / n
+				+ ", avg. depth="
+				+ String.format("%.1f", (double) depths / n)
+				+ (probes > 0 ? String.format(", hit rate=%.1f%%, cutoff rate=%.1f%%",
+				100.0 * hits / probes, 100.0 * cutoffs / probes) : ""));
+	}
+
+	private static ConnectFourState playRandomMove(ConnectFourGame game, ConnectFourState state, Random random) {
+		List<Integer> actions = game.getActions(state);
+		return game.getResult(state, actions.get(random.nextInt(actions.size())));
+	}
+}
@@ -0,0 +1,104 @@
+package aima.gui.demo.search;
+
+import aima.core.environment.connectfour.BitboardConnectFourGame;
+import aima.core.environment.connectfour.ConnectFourGame;
+import aima.core.environment.tictactoe.BitboardTicTacToeGame;
+import aima.core.environment.tictactoe.TicTacToeGame;
+import aima.core.search.adversarial.Game;
+import aima.core.search.adversarial.MonteCarloTreeSearch;
+import aima.core.search.adversarial.UndoableGame;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Perft-style benchmark for the state representations of Connect Four and
+ * Tic-tac-toe. All states of the game tree up to a given depth are generated,
+ * and the number of leaves (states at that depth or terminal states) and the
+ * rate of generated states per second are printed. The original states are
+ * compared with bitboard states, which are generated either by
+ * <code>getResult</code> (one copy per move) or by make and unmake moves on a
+ * single state. The playout rates of Monte Carlo tree search for both
+ * representations are printed too.
+ * Usage: <code>GameStatePerftDemo [connect-four-depth]</code>.
+ */
+public class GameStatePerftDemo {
+	private static final int RUNS = 3;
+	private static long nodes;
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		System.out.println("GameStatePerftDemo");
+		TicTacToeGame ticTacToe = new TicTacToeGame();
+		BitboardTicTacToeGame bitboardTicTacToe = new BitboardTicTacToeGame();
+		ConnectFourGame connectFour = new ConnectFourGame();
+		BitboardConnectFourGame bitboardConnectFour = new BitboardConnectFourGame();
+		for (int run = 1; run <= RUNS; run++) {
+			System.out.println("Run " + run + (run == 1 ? " (includes JIT compilation)" : ""));
+			measure("Tic-tac-toe (complete game tree)", ticTacToe, bitboardTicTacToe, 9);
+			measure("Connect Four (depth " + depth + ")", connectFour, bitboardConnectFour, depth);
+		}
+		measurePlayouts("Tic-tac-toe", ticTacToe, bitboardTicTacToe);
+		measurePlayouts("Connect Four", connectFour, bitboardConnectFour);
+	}
+
+	private static <S1, S2, A, P> void measure(String name, Game<S1, A, P> game,
+											   UndoableGame<S2, A, P> bitboardGame, int depth) {
+		long start = System.nanoTime();
+		nodes = 0;
+		long leaves = perft(game, game.getInitialState(), depth);
+		print(name + ", original states", leaves, start, 0);
+		double baseRate = nodes * 1e9 / (System.nanoTime() - start);
+
+		start = System.nanoTime();
+		nodes = 0;
+		leaves = perft(bitboardGame, bitboardGame.getInitialState(), depth);
+		print(name + ", bitboard states", leaves, start, baseRate);
+
+		start = System.nanoTime();
+		nodes = 0;
+		leaves = perftWithUndo(bitboardGame, bitboardGame.copyState(bitboardGame.getInitialState()), depth);
+		print(name + ", bitboard states with make/unmake", leaves, start, baseRate);
+	}
+
+	private static void print(String name, long leaves, long start, double baseRate) {
+		double rate = nodes * 1e9 / (System.nanoTime() - start);
+		System.out.println("  " + name + ": leaves=" + leaves + ", states/s=" + (long) rate
+				+ (baseRate > 0 ? " (x" + String.format("%.1f", rate / baseRate) + ")" : ""));
+	}
+
+	private static <S, A, P> long perft(Game<S, A, P> game, S state, int depth) {
+		nodes++;
+		if (depth == 0 || game.isTerminal(state))
+			return 1;
+		long result = 0;
+		for (A action : game.getActions(state))
+			result += perft(game, game.getResult(state, action), depth - 1);
+		return result;
+	}
+
+	private static <S, A, P> long perftWithUndo(UndoableGame<S, A, P> game, S state, int depth) {
+		nodes++;
+		if (depth == 0 || game.isTerminal(state))
+			return 1;
+		long result = 0;
+		for (A action : game.getActions(state)) {
+			game.makeMove(state, action);
+			result += perftWithUndo(game, state, depth - 1);
+			game.unmakeMove(state, action);
+		}
+		return result;
+	}
+
+	private static <S1, S2, A, P> void measurePlayouts(String name, Game<S1, A, P> game,
+													   UndoableGame<S2, A, P> bitboardGame) {
+		MonteCarloTreeSearch<S1, A, P> search = new MonteCarloTreeSearch<>(game, 1, TimeUnit.SECONDS);
+		search.makeDecision(game.getInitialState());
+		double baseRate = search.getMetrics().getDouble(MonteCarloTreeSearch.METRICS_PLAYOUTS_PER_SECOND);
+		MonteCarloTreeSearch<S2, A, P> bitboardSearch = new MonteCarloTreeSearch<>(bitboardGame, 1, TimeUnit.SECONDS);
+		bitboardSearch.makeDecision(bitboardGame.getInitialState());
+		double rate = bitboardSearch.getMetrics().getDouble(MonteCarloTreeSearch.METRICS_PLAYOUTS_PER_SECOND);
+		System.out.println(name + ", Monte Carlo tree search: playouts/s=" + (long) baseRate
+				+ " (original states), " + (long) rate + " (bitboard states, x" + String.format("%.1f", rate / baseRate)
+				+ ")");
+	}
+}
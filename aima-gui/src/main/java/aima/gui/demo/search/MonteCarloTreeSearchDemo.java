@@ -0,0 +1,55 @@
+package aima.gui.demo.search;
+
+import aima.core.environment.connectfour.ConnectFourGame;
+import aima.core.environment.tictactoe.TicTacToeGame;
+import aima.core.search.adversarial.Game;
+import aima.core.search.adversarial.MonteCarloTreeSearch;
+import aima.core.search.framework.Metrics;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput benchmark for Monte Carlo tree search. For Connect Four and
+ * Tic-tac-toe, the search plays complete games against itself with a fixed
+ * time budget per decision, with and without reuse of the subtree of the
+ * previous decision. Playouts per second, playouts per decision and the
+ * number of reused tree nodes per decision are printed.
+ * Usage: <code>MonteCarloTreeSearchDemo [milliseconds-per-decision]</code>.
+ */
+public class MonteCarloTreeSearchDemo {
+
+	public static void main(String[] args) {
+		int time = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		System.out.println("MonteCarloTreeSearchDemo (" + time + "ms per decision)");
+		// warm-up run for the JIT compiler
+		selfPlay("warm-up", new ConnectFourGame(), time, true, false);
+		for (boolean reuse : new boolean[] { false, true }) {
+			selfPlay("Tic-tac-toe", new TicTacToeGame(), time, reuse, true);
+			selfPlay("Connect Four", new ConnectFourGame(), time, reuse, true);
+		}
+	}
+
+	private static <S, A, P> void selfPlay(String name, Game<S, A, P> game, int time, boolean reuse, boolean print) {
+		MonteCarloTreeSearch<S, A, P> search = new MonteCarloTreeSearch<>(game, time, TimeUnit.MILLISECONDS);
+		search.setSubtreeReuseEnabled(reuse);
+		search.setRandom(new Random(42));
+		long playouts = 0;
+		long reusedNodes = 0;
+		double playoutsPerSecond = 0;
+		int decisions = 0;
+		S state = game.getInitialState();
+		while (!game.isTerminal(state)) {
+			state = game.getResult(state, search.makeDecision(state));
+			Metrics metrics = search.getMetrics();
+			playouts += metrics.getLong(MonteCarloTreeSearch.METRICS_PLAYOUTS);
+			reusedNodes += metrics.getLong(MonteCarloTreeSearch.METRICS_REUSED_NODES);
+			playoutsPerSecond += metrics.getDouble(MonteCarloTreeSearch.METRICS_PLAYOUTS_PER_SECOND);
+			decisions++;
+		}
+		if (print)
+			System.out.println(name + (reuse ? " (subtree reuse)" : "") + ": " + decisions + " decisions, playouts/s="
+					+ (long) (playoutsPerSecond / decisions) + ", playouts/decision=" + playouts / decisions
+					+ ", reused nodes/decision=" + reusedNodes / decisions);
+	}
+}
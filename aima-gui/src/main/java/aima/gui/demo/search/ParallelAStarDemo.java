@@ -0,0 +1,68 @@
+package aima.gui.demo.search;
+
+import aima.core.agent.Action;
+import aima.core.environment.eightpuzzle.BidirectionalEightPuzzleProblem;
+import aima.core.environment.eightpuzzle.EightPuzzleBoard;
+import aima.core.environment.eightpuzzle.EightPuzzleFunctions;
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.problem.Problem;
+import aima.core.search.framework.qsearch.GraphSearch;
+import aima.core.search.informed.AStarSearch;
+import aima.core.search.informed.ParallelAStarSearch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Scaling benchmark which compares sequential A* graph search with parallel
+ * A* (HDA*) for different numbers of threads on random eight puzzle instances.
+ */
+public class ParallelAStarDemo {
+
+	public static void main(String[] args) {
+		List<EightPuzzleBoard> boards = createRandomBoards(20, new Random(42));
+		System.out.println("ParallelAStarDemo (" + boards.size() + " random eight puzzles, Manhattan heuristic)");
+		benchmark("A* (GraphSearch)", boards,
+				() -> new AStarSearch<>(new GraphSearch<>(), EightPuzzleFunctions::getManhattanDistance));
+		for (int threads = 1; threads <= Math.max(4, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+			int t = threads;
+			benchmark("HDA* (" + t + " threads)", boards,
+					() -> new ParallelAStarSearch<>(EightPuzzleFunctions::getManhattanDistance, t));
+		}
+	}
+
+	private static void benchmark(String name, List<EightPuzzleBoard> boards,
+								  Supplier<SearchForActions<EightPuzzleBoard, Action>> factory) {
+		long nodes = 0;
+		double costs = 0;
+		long start = System.currentTimeMillis();
+		for (EightPuzzleBoard board : boards) {
+			Problem<EightPuzzleBoard, Action> problem = new BidirectionalEightPuzzleProblem(board);
+			SearchForActions<EightPuzzleBoard, Action> search = factory.get();
+			search.findActions(problem);
+			nodes += search.getMetrics().getInt("nodesExpanded");
+			costs += search.getMetrics().getDouble("pathCost");
+		}
+		long time = System.currentTimeMillis() - start;
+		System.out.println(name + ": time=" + time + "ms, nodesExpanded=" + nodes + ", sum of path costs=" + costs);
+	}
+
+	private static List<EightPuzzleBoard> createRandomBoards(int count, Random random) {
+		List<EightPuzzleBoard> result = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			EightPuzzleBoard board = new EightPuzzleBoard(EightPuzzleFunctions.GOAL_STATE.getState());
+			for (int j = 0; j < 100; j++) {
+				switch (random.nextInt(4)) {
+					case 0: board.moveGapUp(); break;
+					case 1: board.moveGapDown(); break;
+					case 2: board.moveGapLeft(); break;
+					default: board.moveGapRight();
+				}
+			}
+			result.add(board);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,74 @@
+package aima.gui.demo.search;
+
+import aima.core.environment.connectfour.ConnectFourAIPlayer;
+import aima.core.environment.connectfour.ConnectFourGame;
+import aima.core.environment.connectfour.ConnectFourState;
+import aima.core.search.adversarial.ParallelAlphaBetaSearch;
+import aima.core.search.framework.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scaling benchmark for parallel alpha-beta search (Lazy SMP) with different
+ * numbers of threads. The Connect Four AI player makes decisions for
+ * positions which result from random openings. For each thread count, time
+ * and depth reached by the main thread per decision and the number of nodes
+ * expanded per second by all threads are printed. As the decision time is
+ * fixed, the benefit of more threads shows up as greater depth. Note that
+ * nodes which are cut off by the transposition table are cheap, so the node
+ * rate relative to one thread overestimates the speedup.
+ * Usage: <code>ParallelAlphaBetaDemo [position-count] [seconds]</code>.
+ */
+public class ParallelAlphaBetaDemo {
+	private static final int OPENING_MOVES = 8;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+		int time = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		ConnectFourGame game = new ConnectFourGame();
+		List<ConnectFourState> positions = createRandomPositions(game, count, new Random(42));
+		System.out.println("ParallelAlphaBetaDemo (" + positions.size() + " Connect Four positions, " + time
+				+ "s per decision, " + Runtime.getRuntime().availableProcessors() + " processors)");
+		// warm-up run, so that the first configuration is not penalized by the JIT compiler
+		new ParallelAlphaBetaSearch<>(() -> new ConnectFourAIPlayer(game, time), 1, 1 << 20)
+				.makeDecision(positions.get(0));
+		double baseRate = 0;
+		for (int threads = 1; threads <= Math.max(4, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+			int t = threads;
+			ParallelAlphaBetaSearch<ConnectFourState, Integer, String> search = new ParallelAlphaBetaSearch<>(
+					() -> new ConnectFourAIPlayer(game, time), t, 1 << 20);
+			long nodes = 0;
+			long depths = 0;
+			long start = System.currentTimeMillis();
+			for (ConnectFourState state : positions) {
+				search.makeDecision(state);
+				Metrics metrics = search.getMetrics();
+				nodes += metrics.getLong(ParallelAlphaBetaSearch.METRICS_NODES_EXPANDED);
+				depths += metrics.getInt(ParallelAlphaBetaSearch.METRICS_MAIN_DEPTH);
+			}
+			long duration = Math.max(1, System.currentTimeMillis() - start);
+			double rate = 1000.0 * nodes / duration;
+			if (t == 1)
+				baseRate = rate;
+			System.out.println("Lazy SMP (" + t + " threads): time/decision=" + duration / positions.size()
+					+ "ms, avg. depth=" + String.format("%.1f", (double) depths / positions.size())
+					+ ", nodes/s=" + (long) rate + " (x" + String.format("%.2f", rate / baseRate) + ")");
+		}
+	}
+
+	private static List<ConnectFourState> createRandomPositions(ConnectFourGame game, int count, Random random) {
+		List<ConnectFourState> result = new ArrayList<>();
+		while (result.size() < count) {
+			ConnectFourState state = game.getInitialState();
+			for (int i = 0; i < OPENING_MOVES && !game.isTerminal(state); i++) {
+				List<Integer> actions = game.getActions(state);
+				state = game.getResult(state, actions.get(random.nextInt(actions.size())));
+			}
+			if (!game.isTerminal(state))
+				result.add(state);
+		}
+		return result;
+	}
+}
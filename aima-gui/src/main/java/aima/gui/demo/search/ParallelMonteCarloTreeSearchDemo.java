@@ -0,0 +1,67 @@
+package aima.gui.demo.search;
+
+import aima.core.environment.connectfour.ConnectFourGame;
+import aima.core.environment.connectfour.ConnectFourState;
+import aima.core.search.adversarial.MonteCarloTreeSearch;
+import aima.core.search.adversarial.ParallelMonteCarloTreeSearch;
+import aima.core.search.adversarial.ParallelMonteCarloTreeSearch.Parallelization;
+import aima.core.search.framework.Metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling benchmark for parallel Monte Carlo tree search. For root and tree
+ * parallelization with different numbers of threads, decisions for the
+ * initial Connect Four position are made with a fixed time budget. The
+ * number of playouts per second of all threads, the speedup relative to the
+ * sequential {@link MonteCarloTreeSearch}, and the playouts of each thread
+ * are printed.
+ * Usage: <code>ParallelMonteCarloTreeSearchDemo [milliseconds-per-decision]</code>.
+ */
+public class ParallelMonteCarloTreeSearchDemo {
+	private static final int DECISIONS = 5;
+
+	public static void main(String[] args) {
+		int time = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int processors = Runtime.getRuntime().availableProcessors();
+		System.out.println("ParallelMonteCarloTreeSearchDemo (" + time + "ms per decision, " + processors
+				+ " processors)");
+		ConnectFourGame game = new ConnectFourGame();
+		ConnectFourState state = game.getInitialState();
+
+		MonteCarloTreeSearch<ConnectFourState, Integer, String> sequential =
+				new MonteCarloTreeSearch<>(game, time, TimeUnit.MILLISECONDS);
+		sequential.setSubtreeReuseEnabled(false);
+		sequential.makeDecision(state); // warm-up run for the JIT compiler
+		double baseRate = 0;
+		for (int i = 0; i < DECISIONS; i++) {
+			sequential.makeDecision(state);
+			baseRate += sequential.getMetrics().getDouble(MonteCarloTreeSearch.METRICS_PLAYOUTS_PER_SECOND);
+		}
+		baseRate /= DECISIONS;
+		System.out.println("Sequential: playouts/s=" + (long) baseRate);
+
+		for (Parallelization parallelization : Parallelization.values()) {
+			for (int threads = 1; threads <= Math.max(4, processors); threads *= 2) {
+				ParallelMonteCarloTreeSearch<ConnectFourState, Integer, String> search =
+						new ParallelMonteCarloTreeSearch<>(game, parallelization, threads, time, TimeUnit.MILLISECONDS);
+				search.setSubtreeReuseEnabled(false);
+				double rate = 0;
+				long[] threadPlayouts = new long[threads];
+				for (int i = 0; i < DECISIONS; i++) {
+					search.makeDecision(state);
+					Metrics metrics = search.getMetrics();
+					rate += metrics.getDouble(ParallelMonteCarloTreeSearch.METRICS_PLAYOUTS_PER_SECOND);
+					for (int j = 0; j < threads; j++)
+						threadPlayouts[j] += metrics.getLong(ParallelMonteCarloTreeSearch.METRICS_THREAD_PLAYOUTS + j);
+				}
+				rate /= DECISIONS;
+				StringBuilder perThread = new StringBuilder();
+				for (long count : threadPlayouts)
+					perThread.append(perThread.length() > 0 ? ", " : "").append(count / DECISIONS);
+				System.out.println(parallelization + " (" + threads + " threads): playouts/s=" + (long) rate + " (x"
+						+ String.format("%.2f", rate / baseRate) + "), playouts/thread=[" + perThread + "]");
+			}
+		}
+	}
+}
@@ -0,0 +1,765 @@
+package aimax.osm.data.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.logging.Logger;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.EntityClassifier;
+import aimax.osm.data.EntityVisitor;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapEvent;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.EntityAttribute;
+import aimax.osm.data.entities.EntityViewInfo;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.data.entities.WayRef;
+
+/**
+ * Memory efficient map representation for large maps. In contrast to the
+ * superclass, no objects are kept for map nodes and ways. All data is stored
+ * in primitive arrays, which are indexed by node, way, and point of interest
+ * (POI) index:
+ * <ul>
+ * <li>Nodes and ways are sorted by ID, so IDs are mapped to indices by binary
+ * search.</li>
+ * <li>Coordinates are stored as int fixed-point values with a resolution of
+ * 1e-7 degree (about 1 cm).</li>
+ * <li>The way nodes of all ways are stored in one array, each way refers to
+ * an index range. The way references of the nodes are stored the same
+ * way.</li>
+ * <li>Names, attributes, and view information are indices into dictionaries,
+ * so each distinct value is stored only once. Attribute keys and values are
+ * interned by the readers with the help of the
+ * {@link aimax.osm.data.EntityAttributeManager}.</li>
+ * <li>Only POIs maintain names, attributes, and view information.</li>
+ * </ul>
+ * Map entities are provided as flyweight views, which are created on demand
+ * and only consist of an index. Views of the same entity are equal but not
+ * identical. They are read-only, except for the view information. Markers
+ * and tracks are handled by the superclass.
+ * <br>
+ * Bounding box queries and entity visits are answered by packed R-trees over
+ * way and POI indices. Nearest way node and place searches use linear scans
+ * over the coordinate arrays. Use {@link #getBuilder()} to fill the map.
+ */
+public class CompactMap extends DefaultMap {
+	private static Logger LOG = Logger.getLogger("aimax.osm");
+	private static final double COORD_RESOLUTION = 1e-7;
+	private static final EntityAttribute[] EMPTY_ATT_LIST = new EntityAttribute[0];
+
+	private long[] nodeIds = new long[0];
+	private int[] nodeLats = new int[0];
+	private int[] nodeLons = new int[0];
+	/** Way references of node i are at positions nodeRefFirst[i] to nodeRefFirst[i+1]-1. */
+	private int[] nodeRefFirst = new int[1];
+	private int[] refWays = new int[0];
+	private short[] refNodeIdxs = new short[0];
+
+	private long[] wayIds = new long[0];
+	private int[] wayNames = new int[0];
+	private int[] wayAttFirst = new int[1];
+	private int[] wayNodeFirst = new int[1];
+	private int[] wayNodes = new int[0];
+	/** Level of detail of each way node, see {@link WaySimplifier#computeLevels(List)}. */
+	private byte[] wayNodeLevels = new byte[0];
+	private short[] wayViewInfos = new short[0];
+
+	/** Node indices of the POIs in ascending order. */
+	private int[] poiNodes = new int[0];
+	private int[] poiNames = new int[0];
+	private int[] poiAttFirst = new int[1];
+	private short[] poiViewInfos = new short[0];
+
+	/** Attribute dictionary indices of all ways and POIs. */
+	private int[] atts = new int[0];
+	private String[] names = new String[0];
+	private EntityAttribute[] attributes = new EntityAttribute[0];
+	private List<EntityViewInfo> viewInfos = new ArrayList<EntityViewInfo>();
+	private Map<EntityViewInfo, Short> viewInfoIndices = new IdentityHashMap<EntityViewInfo, Short>();
+
+	private EntityClassifier<EntityViewInfo> entityClassifier;
+	/** Created during compilation, null before. */
+	private PackedRTree wayTree;
+	/** Created during compilation, null before. */
+	private PackedRTree poiTree;
+
+	/** No data available after this reset. */
+	@Override
+	protected void clear() {
+		nodeIds = new long[0];
+		nodeLats = new int[0];
+		nodeLons = new int[0];
+		nodeRefFirst = new int[1];
+		refWays = new int[0];
+		refNodeIdxs = new short[0];
+		wayIds = new long[0];
+		wayNames = new int[0];
+		wayAttFirst = new int[1];
+		wayNodeFirst = new int[1];
+		wayNodes = new int[0];
+		wayNodeLevels = new byte[0];
+		wayViewInfos = new short[0];
+		poiNodes = new int[0];
+		poiNames = new int[0];
+		poiAttFirst = new int[1];
+		poiViewInfos = new short[0];
+		atts = new int[0];
+		names = new String[0];
+		attributes = new EntityAttribute[0];
+		wayTree = null;
+		poiTree = null;
+		super.clear();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isEmpty() {
+		return nodeIds.length == 0 && wayIds.length == 0 && super.isEmpty();
+	}
+
+	/** Returns a builder which clears the map and fills it with new data. */
+	@Override
+	public MapBuilder getBuilder() {
+		return new CompactMapBuilder(this);
+	}
+
+	/** Does nothing; the data is compiled when the builder builds the map. */
+	@Override
+	public void compile() {
+	}
+
+	/**
+	 * Converts the data collected by the builder into the array
+	 * representation of this map. Nodes without position are dropped (also
+	 * from the ways which refer to them) as well as nodes which are neither
+	 * part of a way nor have a name or attributes. Ways with less than two
+	 * remaining nodes are dropped.
+	 */
+	void compile(CompactMapBuilder bdr) {
+		// find the nodes and ways to keep and sort them by ID
+		int[] wayOrder = sortById(bdr.wayIds, bdr.wayCount, i -> bdr.isWayValid(i));
+		boolean[] isWayNode = new boolean[bdr.nodeCount];
+		for (int w : wayOrder)
+			for (int i = bdr.wayNodeFirst[w]; i < bdr.wayNodeFirst[w] + bdr.wayNodeCounts[w]; i++)
+				isWayNode[bdr.wayNodes[i]] = true;
+		int[] nodeOrder = sortById(bdr.nodeIds, bdr.nodeCount, i -> !Float.isNaN(bdr.nodeLats[i])
+				&& (isWayNode[i] || bdr.nodeNames[i] != -1 || bdr.nodeAttCounts[i] > 0));
+		int[] newNodeIdx = new int[bdr.nodeCount];
+		Arrays.fill(newNodeIdx, -1);
+		for (int n = 0; n < nodeOrder.length; n++)
+			newNodeIdx[nodeOrder[n]] = n;
+		if (nodeOrder.length < bdr.nodeCount)
+			LOG.fine("Nodes removed: " + (bdr.nodeCount - nodeOrder.length));
+
+		nodeIds = new long[nodeOrder.length];
+		nodeLats = new int[nodeOrder.length];
+		nodeLons = new int[nodeOrder.length];
+		int poiCount = 0;
+		for (int n = 0; n < nodeOrder.length; n++) {
+			int old = nodeOrder[n];
+			nodeIds[n] = bdr.nodeIds[old];
+			nodeLats[n] = (int) Math.round(bdr.nodeLats[old] / COORD_RESOLUTION);
+			nodeLons[n] = (int) Math.round(bdr.nodeLons[old] / COORD_RESOLUTION);
+			if (bdr.nodeNames[old] != -1 || bdr.nodeAttCounts[old] > 0)
+				poiCount++;
+		}
+
+		// ways with their node index ranges, attributes of ways and POIs
+		int[] wayNodeBuffer = new int[bdr.wayNodeCount];
+		int[] attBuffer = new int[bdr.attCount];
+		int wayNodeCount = 0;
+		int attCount = 0;
+		int wayCount = 0;
+		wayIds = new long[wayOrder.length];
+		wayNames = new int[wayOrder.length];
+		wayAttFirst = new int[wayOrder.length + 1];
+		wayNodeFirst = new int[wayOrder.length + 1];
+		for (int w : wayOrder) {
+			int first = wayNodeCount;
+			for (int i = bdr.wayNodeFirst[w]; i < bdr.wayNodeFirst[w] + bdr.wayNodeCounts[w]; i++)
+				if (newNodeIdx[bdr.wayNodes[i]] != -1)
+					wayNodeBuffer[wayNodeCount++] = newNodeIdx[bdr.wayNodes[i]];
+			if (wayNodeCount - first < 2) {
+				wayNodeCount = first;
+				continue;
+			}
+			wayIds[wayCount] = bdr.wayIds[w];
+			wayNames[wayCount] = bdr.wayNames[w];
+			wayAttFirst[wayCount] = attCount;
+			System.arraycopy(bdr.atts, bdr.wayAttFirst[w], attBuffer, attCount, bdr.wayAttCounts[w]);
+			attCount += bdr.wayAttCounts[w];
+			wayNodeFirst[wayCount++] = first;
+		}
+		if (wayCount < wayOrder.length)
+			LOG.fine("Ways removed: " + (wayOrder.length - wayCount));
+		wayIds = Arrays.copyOf(wayIds, wayCount);
+		wayNames = Arrays.copyOf(wayNames, wayCount);
+		wayAttFirst = Arrays.copyOf(wayAttFirst, wayCount + 1);
+		wayAttFirst[wayCount] = attCount;
+		wayNodeFirst = Arrays.copyOf(wayNodeFirst, wayCount + 1);
+		wayNodeFirst[wayCount] = wayNodeCount;
+		wayNodes = Arrays.copyOf(wayNodeBuffer, wayNodeCount);
+
+		poiNodes = new int[poiCount];
+		poiNames = new int[poiCount];
+		poiAttFirst = new int[poiCount + 1];
+		int p = 0;
+		for (int n = 0; n < nodeOrder.length; n++) {
+			int old = nodeOrder[n];
+			if (bdr.nodeNames[old] != -1 || bdr.nodeAttCounts[old] > 0) {
+				poiNodes[p] = n;
+				poiNames[p] = bdr.nodeNames[old];
+				poiAttFirst[p++] = attCount;
+				System.arraycopy(bdr.atts, bdr.nodeAttFirst[old], attBuffer, attCount, bdr.nodeAttCounts[old]);
+				attCount += bdr.nodeAttCounts[old];
+			}
+		}
+		poiAttFirst[poiCount] = attCount;
+		atts = Arrays.copyOf(attBuffer, attCount);
+		names = bdr.names.toArray(new String[bdr.names.size()]);
+		attributes = bdr.attributes.toArray(new EntityAttribute[bdr.attributes.size()]);
+
+		// way references in node order
+		nodeRefFirst = new int[nodeIds.length + 1];
+		for (int node : wayNodes)
+			nodeRefFirst[node + 1]++;
+		for (int n = 0; n < nodeIds.length; n++)
+			nodeRefFirst[n + 1] += nodeRefFirst[n];
+		refWays = new int[wayNodes.length];
+		refNodeIdxs = new short[wayNodes.length];
+		int[] refCounts = new int[nodeIds.length];
+		for (int w = 0; w < wayIds.length; w++) {
+			for (int i = wayNodeFirst[w]; i < wayNodeFirst[w + 1]; i++) {
+				int pos = nodeRefFirst[wayNodes[i]] + refCounts[wayNodes[i]]++;
+				refWays[pos] = w;
+				refNodeIdxs[pos] = (short) (i - wayNodeFirst[w]);
+			}
+		}
+
+		BoundingBox bbAllNodes = new BoundingBox();
+		if (nodeIds.length > 0) {
+			float[] box = { Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+			for (int n = 0; n < nodeIds.length; n++)
+				extendBox(box, n);
+			bbAllNodes = new BoundingBox(box[0], box[1], box[2], box[3]);
+		}
+		if (getBoundingBox() == null)
+			setBoundingBox(bbAllNodes);
+		else
+			getBoundingBox().intersectWith(bbAllNodes);
+
+		wayNodeLevels = new byte[wayNodes.length];
+		float[] wayBoxes = new float[4 * wayIds.length];
+		for (int w = 0; w < wayIds.length; w++) {
+			byte[] levels = WaySimplifier.computeLevels(new WayView(w).getNodes());
+			System.arraycopy(levels, 0, wayNodeLevels, wayNodeFirst[w], levels.length);
+			float[] box = { Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+			for (int i = wayNodeFirst[w]; i < wayNodeFirst[w + 1]; i++)
+				extendBox(box, wayNodes[i]);
+			System.arraycopy(box, 0, wayBoxes, 4 * w, 4);
+		}
+		wayTree = new PackedRTree(wayBoxes);
+		float[] poiBoxes = new float[4 * poiNodes.length];
+		for (p = 0; p < poiNodes.length; p++) {
+			poiBoxes[4 * p] = poiBoxes[4 * p + 2] = getLat(poiNodes[p]);
+			poiBoxes[4 * p + 1] = poiBoxes[4 * p + 3] = getLon(poiNodes[p]);
+		}
+		poiTree = new PackedRTree(poiBoxes);
+		applyClassifier();
+		fireMapDataEvent(new MapEvent(this, MapEvent.Type.MAP_NEW));
+	}
+
+	/**
+	 * Provides the map with an entity classifier, which defines the view
+	 * information of ways and POIs.
+	 */
+	@Override
+	public void setEntityClassifier(EntityClassifier<EntityViewInfo> classifier) {
+		super.setEntityClassifier(classifier);
+		entityClassifier = classifier;
+		if (wayTree != null) {
+			applyClassifier();
+			fireMapDataEvent(new MapEvent(this, MapEvent.Type.MAP_MODIFIED));
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getNodeCount() {
+		return nodeIds.length;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public MapNode getNode(long id) {
+		int idx = Arrays.binarySearch(nodeIds, id);
+		return idx >= 0 ? new NodeView(idx) : null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getWayCount() {
+		return wayIds.length;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public MapWay getWay(long id) {
+		int idx = Arrays.binarySearch(wayIds, id);
+		return idx >= 0 ? new WayView(idx) : null;
+	}
+
+	/** Returns all map ways which intersect the specified bounding box. */
+	@Override
+	public Collection<MapWay> getWays(BoundingBox bb) {
+		List<MapWay> result = new ArrayList<MapWay>();
+		if (wayTree != null)
+			wayTree.query(bb, w -> result.add(new WayView(w)));
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getPoiCount() {
+		return poiNodes.length;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<MapNode> getPois(BoundingBox bb) {
+		List<MapNode> result = new ArrayList<MapNode>();
+		if (poiTree != null)
+			poiTree.query(bb, p -> result.add(new NodeView(poiNodes[p])));
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<MapNode> getPlaces(String name) {
+		String pattern = name.toLowerCase();
+		List<MapNode> results = new ArrayList<MapNode>();
+		for (int p = 0; p < poiNodes.length; p++) {
+			if (poiNames[p] != -1 && names[poiNames[p]].toLowerCase().startsWith(pattern)
+					&& getAttributeValue(poiAttFirst[p], poiAttFirst[p + 1], "place") != null)
+				results.add(new NodeView(poiNodes[p]));
+		}
+		return results;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public MapNode getNearestWayNode(Position pos, MapWayFilter filter) {
+		int result = -1;
+		double dist = Double.MAX_VALUE;
+		for (int n = 0; n < nodeIds.length; n++) {
+			if (nodeRefFirst[n] == nodeRefFirst[n + 1])
+				continue;
+			double newDist = Position.getDistKM(pos.getLat(), pos.getLon(), getLat(n), getLon(n));
+			boolean found = (newDist < dist);
+			if (found && filter != null) {
+				found = false;
+				for (int r = nodeRefFirst[n]; r < nodeRefFirst[n + 1] && !found; r++)
+					found = filter.isAccepted(new WayView(refWays[r]));
+			}
+			if (found) {
+				result = n;
+				dist = newDist;
+			}
+		}
+		return result != -1 ? new NodeView(result) : null;
+	}
+
+	/**
+	 * Reduces the level of detail by selecting the nodes of the precomputed
+	 * simplified geometry.
+	 */
+	@Override
+	public List<MapNode> getWayNodes(MapWay way, float scale) {
+		if (!(way instanceof WayView) || ((WayView) way).getMap() != this)
+			return super.getWayNodes(way, scale);
+		int level = WaySimplifier.getLevel(scale);
+		List<MapNode> nodes = way.getNodes();
+		if (level == 0)
+			return nodes;
+		int first = wayNodeFirst[((WayView) way).idx];
+		int count = WaySimplifier.getNodeCount(nodes, wayNodeLevels, first, level);
+		List<MapNode> result = new ArrayList<MapNode>(count);
+		if (count > 0) {
+			for (int i = first; i < first + nodes.size(); i++)
+				if (wayNodeLevels[i] >= level)
+					result.add(new NodeView(wayNodes[i]));
+		}
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visitEntities(EntityVisitor visitor, BoundingBox vbox, float scale) {
+		if (wayTree == null)
+			return;
+		wayTree.query(vbox, w -> {
+			EntityViewInfo info = getViewInfo(wayViewInfos[w]);
+			if (info != null && info.getMinVisibleScale() <= scale)
+				visitor.visitMapWay(new WayView(w));
+		});
+		poiTree.query(vbox, p -> {
+			EntityViewInfo info = getViewInfo(poiViewInfos[p]);
+			if (info != null && info.getMinVisibleScale() <= scale)
+				visitor.visitMapNode(new NodeView(poiNodes[p]));
+		});
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Object[][] getStatistics() {
+		Object[][] result = new Object[4][2];
+		result[0][0] = "Nodes";
+		result[0][1] = nodeIds.length;
+		result[1][0] = "Ways";
+		result[1][1] = wayIds.length;
+		result[2][0] = "POIs";
+		result[2][1] = poiNodes.length;
+		result[3][0] = "Bytes per Node";
+		result[3][1] = nodeIds.length > 0 ? getByteCount() / nodeIds.length : 0;
+		return result;
+	}
+
+	/**
+	 * Returns the number of bytes used by the arrays of the map and its
+	 * R-trees. Dictionary entries (names, attributes) are not counted.
+	 */
+	public long getByteCount() {
+		long result = 8L * (nodeIds.length + wayIds.length);
+		result += 4L * (nodeLats.length + nodeLons.length + nodeRefFirst.length + refWays.length + wayNames.length
+				+ wayAttFirst.length + wayNodeFirst.length + wayNodes.length + poiNodes.length + poiNames.length
+				+ poiAttFirst.length + atts.length + names.length + attributes.length);
+		result += 2L * (refNodeIdxs.length + wayViewInfos.length + poiViewInfos.length);
+		result += wayNodeLevels.length;
+		if (wayTree != null)
+			result += wayTree.getByteCount() + poiTree.getByteCount();
+		return result;
+	}
+
+	/** Classifies all ways and POIs and stores the results in the view information dictionary. */
+	private void applyClassifier() {
+		viewInfos.clear();
+		viewInfoIndices.clear();
+		wayViewInfos = new short[wayIds.length];
+		for (int w = 0; w < wayIds.length; w++)
+			wayViewInfos[w] = getViewInfoIndex(entityClassifier != null ? entityClassifier.classify(new WayView(w))
+					: null);
+		poiViewInfos = new short[poiNodes.length];
+		for (int p = 0; p < poiNodes.length; p++)
+			poiViewInfos[p] = getViewInfoIndex(entityClassifier != null
+					? entityClassifier.classify(new NodeView(poiNodes[p])) : null);
+	}
+
+	private short getViewInfoIndex(EntityViewInfo info) {
+		if (info == null)
+			return -1;
+		Short result = viewInfoIndices.get(info);
+		if (result == null) {
+			if (viewInfos.size() == Short.MAX_VALUE)
+				throw new IllegalStateException("Too many different view infos.");
+			result = (short) viewInfos.size();
+			viewInfos.add(info);
+			viewInfoIndices.put(info, result);
+		}
+		return result;
+	}
+
+	private EntityViewInfo getViewInfo(short idx) {
+		return idx != -1 ? viewInfos.get(idx) : null;
+	}
+
+	private float getLat(int node) {
+		return (float) (nodeLats[node] * COORD_RESOLUTION);
+	}
+
+	private float getLon(int node) {
+		return (float) (nodeLons[node] * COORD_RESOLUTION);
+	}
+
+	private void extendBox(float[] box, int node) {
+		box[0] = Math.min(box[0], getLat(node));
+		box[1] = Math.min(box[1], getLon(node));
+		box[2] = Math.max(box[2], getLat(node));
+		box[3] = Math.max(box[3], getLon(node));
+	}
+
+	private EntityAttribute[] getAttributes(int first, int end) {
+		if (first == end)
+			return EMPTY_ATT_LIST;
+		EntityAttribute[] result = new EntityAttribute[end - first];
+		for (int i = first; i < end; i++)
+			result[i - first] = attributes[atts[i]];
+		return result;
+	}
+
+	/** Applies binary search on the sorted attributes in the given range. */
+	private String getAttributeValue(int first, int end, String attName) {
+		int min = first;
+		int max = end - 1;
+		while (min <= max) {
+			int curr = (min + max) >>> 1;
+			int cr = attName.compareTo(attributes[atts[curr]].getKey());
+			if (cr == 0)
+				return attributes[atts[curr]].getValue();
+			else if (cr < 0)
+				max = curr - 1;
+			else
+				min = curr + 1;
+		}
+		return null;
+	}
+
+	/** Sorts the indices of the accepted entries by ID. */
+	private static int[] sortById(long[] ids, int count, IntPredicate accept) {
+		long[] sortedIds = new long[count];
+		int size = 0;
+		for (int i = 0; i < count; i++)
+			if (accept.test(i))
+				sortedIds[size++] = ids[i];
+		sortedIds = Arrays.copyOf(sortedIds, size);
+		Arrays.sort(sortedIds);
+		// ids of accepted entries are unique, so each one can be found by binary search
+		int[] result = new int[size];
+		for (int i = 0; i < count; i++)
+			if (accept.test(i))
+				result[Arrays.binarySearch(sortedIds, ids[i])] = i;
+		return result;
+	}
+
+	/////////////////////////////////////////////////////////////////
+	// flyweight entities
+
+	/** Base class for the entity views. */
+	private abstract class EntityView {
+		final int idx;
+
+		EntityView(int idx) {
+			this.idx = idx;
+		}
+
+		CompactMap getMap() {
+			return CompactMap.this;
+		}
+
+		public void setId(int id) {
+			throw new UnsupportedOperationException("Entities of compact maps are read-only.");
+		}
+
+		public void setName(String name) {
+			throw new UnsupportedOperationException("Entities of compact maps are read-only.");
+		}
+
+		public void setAttributes(List<EntityAttribute> atts) {
+			throw new UnsupportedOperationException("Entities of compact maps are read-only.");
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj != null && obj.getClass() == getClass() && ((EntityView) obj).getMap() == getMap()
+					&& ((EntityView) obj).idx == idx;
+		}
+	}
+
+	/** Flyweight view of a map node. */
+	private class NodeView extends EntityView implements MapNode {
+
+		NodeView(int idx) {
+			super(idx);
+		}
+
+		private int getPoiIdx() {
+			return Arrays.binarySearch(poiNodes, idx);
+		}
+
+		@Override
+		public long getId() {
+			return nodeIds[idx];
+		}
+
+		@Override
+		public String getName() {
+			int p = getPoiIdx();
+			return p >= 0 && poiNames[p] != -1 ? names[poiNames[p]] : null;
+		}
+
+		@Override
+		public EntityAttribute[] getAttributes() {
+			int p = getPoiIdx();
+			return p >= 0 ? CompactMap.this.getAttributes(poiAttFirst[p], poiAttFirst[p + 1]) : EMPTY_ATT_LIST;
+		}
+
+		@Override
+		public String getAttributeValue(String attName) {
+			int p = getPoiIdx();
+			return p >= 0 ? CompactMap.this.getAttributeValue(poiAttFirst[p], poiAttFirst[p + 1], attName) : null;
+		}
+
+		@Override
+		public EntityViewInfo getViewInfo() {
+			int p = getPoiIdx();
+			return p >= 0 ? CompactMap.this.getViewInfo(poiViewInfos[p]) : null;
+		}
+
+		/** Only POIs can maintain view information. */
+		@Override
+		public void setViewInfo(EntityViewInfo info) {
+			int p = getPoiIdx();
+			if (p < 0)
+				throw new UnsupportedOperationException("Only POIs of compact maps have view information.");
+			poiViewInfos[p] = getViewInfoIndex(info);
+		}
+
+		@Override
+		public boolean hasPosition() {
+			return true;
+		}
+
+		@Override
+		public void setPosition(float lat, float lon) {
+			throw new UnsupportedOperationException("Entities of compact maps are read-only.");
+		}
+
+		@Override
+		public float getLat() {
+			return CompactMap.this.getLat(idx);
+		}
+
+		@Override
+		public float getLon() {
+			return CompactMap.this.getLon(idx);
+		}
+
+		@Override
+		public List<WayRef> getWayRefs() {
+			List<WayRef> result = new ArrayList<WayRef>(nodeRefFirst[idx + 1] - nodeRefFirst[idx]);
+			for (int r = nodeRefFirst[idx]; r < nodeRefFirst[idx + 1]; r++)
+				result.add(new DefaultWayRef(new WayView(refWays[r]), refNodeIdxs[r]));
+			return Collections.unmodifiableList(result);
+		}
+
+		@Override
+		public void accept(EntityVisitor visitor) {
+			visitor.visitMapNode(this);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(nodeIds[idx]);
+		}
+
+		@Override
+		public String toString() {
+			return "Node(" + getId() + ")";
+		}
+	}
+
+	/** Flyweight view of a map way. */
+	private class WayView extends EntityView implements MapWay {
+
+		WayView(int idx) {
+			super(idx);
+		}
+
+		@Override
+		public long getId() {
+			return wayIds[idx];
+		}
+
+		@Override
+		public String getName() {
+			return wayNames[idx] != -1 ? names[wayNames[idx]] : null;
+		}
+
+		@Override
+		public EntityAttribute[] getAttributes() {
+			return CompactMap.this.getAttributes(wayAttFirst[idx], wayAttFirst[idx + 1]);
+		}
+
+		@Override
+		public String getAttributeValue(String attName) {
+			return CompactMap.this.getAttributeValue(wayAttFirst[idx], wayAttFirst[idx + 1], attName);
+		}
+
+		@Override
+		public EntityViewInfo getViewInfo() {
+			return CompactMap.this.getViewInfo(wayViewInfos[idx]);
+		}
+
+		@Override
+		public void setViewInfo(EntityViewInfo info) {
+			wayViewInfos[idx] = getViewInfoIndex(info);
+		}
+
+		@Override
+		public boolean isOneway() {
+			return "yes".equals(getAttributeValue("oneway"));
+		}
+
+		@Override
+		public boolean isArea() {
+			return "yes".equals(getAttributeValue("area"));
+		}
+
+		@Override
+		public List<MapNode> getNodes() {
+			final int first = wayNodeFirst[idx];
+			final int size = wayNodeFirst[idx + 1] - first;
+			return new AbstractList<MapNode>() {
+				@Override
+				public MapNode get(int i) {
+					if (i < 0 || i >= size)
+						throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+					return new NodeView(wayNodes[first + i]);
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+
+		@Override
+		public BoundingBox computeBoundingBox() {
+			float[] box = { Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+			for (int i = wayNodeFirst[idx]; i < wayNodeFirst[idx + 1]; i++)
+				extendBox(box, wayNodes[i]);
+			return new BoundingBox(box[0], box[1], box[2], box[3]);
+		}
+
+		@Override
+		public float getBoundingBoxSize() {
+			BoundingBox bb = computeBoundingBox();
+			return bb.getLatMax() - bb.getLatMin() + bb.getLonMax() - bb.getLonMin();
+		}
+
+		@Override
+		public void accept(EntityVisitor visitor) {
+			visitor.visitMapWay(this);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(wayIds[idx]);
+		}
+
+		@Override
+		public String toString() {
+			return "Way(" + getId() + ")";
+		}
+	}
+}
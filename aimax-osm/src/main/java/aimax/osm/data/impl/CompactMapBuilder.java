@@ -0,0 +1,292 @@
+package aimax.osm.data.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.EntityClassifier;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.EntityAttribute;
+import aimax.osm.data.entities.EntityViewInfo;
+
+/**
+ * Map builder for {@link CompactMap}. Entities are collected in growable
+ * primitive arrays. IDs are mapped to array indices by open addressing hash
+ * tables with primitive keys, names and attributes are replaced by indices
+ * into dictionaries. When the map is built, the collected data is converted
+ * into the final representation of the map and released.
+ */
+public class CompactMapBuilder implements MapBuilder {
+	private static Logger LOG = Logger.getLogger("aimax.osm");
+	private CompactMap result;
+	private boolean nodeRefsWithoutDefsAdded;
+
+	// nodes in insertion order, positions NaN until defined
+	long[] nodeIds = new long[1024];
+	float[] nodeLats = new float[1024];
+	float[] nodeLons = new float[1024];
+	int[] nodeNames = new int[1024];
+	/** Attributes of node i are <code>atts[nodeAttFirst[i]...]</code>. */
+	int[] nodeAttFirst = new int[1024];
+	int[] nodeAttCounts = new int[1024];
+	/** Marks the nodes which are part of a way. */
+	BitSet wayNodeFlags = new BitSet();
+	int nodeCount;
+	private LongIntMap nodeIndex = new LongIntMap();
+
+	// ways in insertion order, way nodes as node indices
+	long[] wayIds = new long[256];
+	int[] wayNames = new int[256];
+	int[] wayAttFirst = new int[256];
+	int[] wayAttCounts = new int[256];
+	int[] wayNodeFirst = new int[256];
+	int[] wayNodeCounts = new int[256];
+	int wayCount;
+	private LongIntMap wayIndex = new LongIntMap();
+
+	int[] wayNodes = new int[4096];
+	int wayNodeCount;
+	int[] atts = new int[1024];
+	int attCount;
+
+	List<String> names = new ArrayList<String>();
+	private Map<String, Integer> nameIndices = new HashMap<String, Integer>();
+	List<EntityAttribute> attributes = new ArrayList<EntityAttribute>();
+	private Map<EntityAttribute, Integer> attIndices = new HashMap<EntityAttribute, Integer>();
+
+	public CompactMapBuilder() {
+		this(new CompactMap());
+	}
+
+	public CompactMapBuilder(CompactMap map) {
+		result = map;
+		result.clear();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setEntityClassifier(EntityClassifier<EntityViewInfo> classifier) {
+		result.setEntityClassifier(classifier);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setBoundingBox(BoundingBox bb) {
+		result.setBoundingBox(bb);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isNodeDefined(long id, BoundingBox bb) {
+		int idx = nodeIndex.get(id);
+		boolean result = idx != -1 && !Float.isNaN(nodeLats[idx]);
+		if (result && bb != null)
+			result = bb.isInside(nodeLats[idx], nodeLons[idx]);
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isNodeReferenced(long id) {
+		int idx = nodeIndex.get(id);
+		return idx != -1 && wayNodeFlags.get(idx);
+	}
+
+	/**
+	 * {@inheritDoc} If a node with the same ID has been defined before, the
+	 * new data is ignored.
+	 */
+	@Override
+	public void addNode(long id, String name, List<EntityAttribute> atts, float lat, float lon) {
+		int idx = nodeIndex.get(id);
+		if (idx == -1)
+			idx = createNode(id);
+		else if (!Float.isNaN(nodeLats[idx]))
+			return;
+		nodeLats[idx] = lat;
+		nodeLons[idx] = lon;
+		nodeNames[idx] = getNameIndex(name);
+		nodeAttFirst[idx] = attCount;
+		nodeAttCounts[idx] = addAttributes(atts);
+		if (nodeCount % 500000 == 0)
+			LOG.fine("Nodes: " + nodeCount);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isWayDefined(long id) {
+		return wayIndex.get(id) != -1;
+	}
+
+	/**
+	 * {@inheritDoc} Ways with less than two way nodes are ignored. If a way
+	 * with the same ID has been added before, it is replaced.
+	 */
+	@Override
+	public void addWay(long id, String name, List<EntityAttribute> atts, List<Long> wayNodeIds) {
+		if (wayNodeIds.size() > 1) {
+			if (wayCount == wayIds.length) {
+				int capacity = 2 * wayCount;
+				wayIds = Arrays.copyOf(wayIds, capacity);
+				wayNames = Arrays.copyOf(wayNames, capacity);
+				wayAttFirst = Arrays.copyOf(wayAttFirst, capacity);
+				wayAttCounts = Arrays.copyOf(wayAttCounts, capacity);
+				wayNodeFirst = Arrays.copyOf(wayNodeFirst, capacity);
+				wayNodeCounts = Arrays.copyOf(wayNodeCounts, capacity);
+			}
+			int idx = wayCount++;
+			wayIndex.put(id, idx);
+			wayIds[idx] = id;
+			wayNames[idx] = getNameIndex(name);
+			wayAttFirst[idx] = attCount;
+			wayAttCounts[idx] = addAttributes(atts);
+			wayNodeFirst[idx] = wayNodeCount;
+			wayNodeCounts[idx] = wayNodeIds.size();
+			if (wayNodeCount + wayNodeIds.size() > wayNodes.length)
+				wayNodes = Arrays.copyOf(wayNodes, Math.max(2 * wayNodes.length, wayNodeCount + wayNodeIds.size()));
+			for (long nodeId : wayNodeIds) {
+				int nodeIdx = nodeIndex.get(nodeId);
+				if (nodeIdx == -1) {
+					nodeIdx = createNode(nodeId);
+					nodeRefsWithoutDefsAdded = true;
+				}
+				wayNodeFlags.set(nodeIdx);
+				wayNodes[wayNodeCount++] = nodeIdx;
+			}
+			if (wayCount % 50000 == 0)
+				LOG.fine("Ways: " + wayCount);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean nodeRefsWithoutDefsAdded() {
+		boolean result = nodeRefsWithoutDefsAdded;
+		nodeRefsWithoutDefsAdded = false;
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public OsmMap buildMap() {
+		result.compile(this);
+		if (!result.isEmpty())
+			LOG.fine("Loading completed. Ways: " + result.getWayCount() + ", Nodes: " + result.getNodeCount()
+					+ ", POIs: " + result.getPoiCount() + ", Bytes: " + result.getByteCount());
+		return result;
+	}
+
+	/** Checks whether the way at index i has not been replaced by a later one. */
+	boolean isWayValid(int i) {
+		return wayIndex.get(wayIds[i]) == i;
+	}
+
+	private int createNode(long id) {
+		if (nodeCount == nodeIds.length) {
+			int capacity = 2 * nodeCount;
+			nodeIds = Arrays.copyOf(nodeIds, capacity);
+			nodeLats = Arrays.copyOf(nodeLats, capacity);
+			nodeLons = Arrays.copyOf(nodeLons, capacity);
+			nodeNames = Arrays.copyOf(nodeNames, capacity);
+			nodeAttFirst = Arrays.copyOf(nodeAttFirst, capacity);
+			nodeAttCounts = Arrays.copyOf(nodeAttCounts, capacity);
+		}
+		int idx = nodeCount++;
+		nodeIndex.put(id, idx);
+		nodeIds[idx] = id;
+		nodeLats[idx] = Float.NaN;
+		nodeLons[idx] = Float.NaN;
+		nodeNames[idx] = -1;
+		nodeAttCounts[idx] = 0;
+		return idx;
+	}
+
+	private int getNameIndex(String name) {
+		if (name == null)
+			return -1;
+		Integer result = nameIndices.get(name);
+		if (result == null) {
+			result = names.size();
+			names.add(name);
+			nameIndices.put(name, result);
+		}
+		return result;
+	}
+
+	/** Adds the sorted attribute indices and returns their number. */
+	private int addAttributes(List<EntityAttribute> entityAtts) {
+		List<EntityAttribute> sorted = new ArrayList<EntityAttribute>(entityAtts);
+		Collections.sort(sorted);
+		if (attCount + sorted.size() > atts.length)
+			atts = Arrays.copyOf(atts, Math.max(2 * atts.length, attCount + sorted.size()));
+		for (EntityAttribute att : sorted) {
+			Integer idx = attIndices.get(att);
+			if (idx == null) {
+				idx = attributes.size();
+				attributes.add(att);
+				attIndices.put(att, idx);
+			}
+			atts[attCount++] = idx;
+		}
+		return sorted.size();
+	}
+
+	/**
+	 * Hash table with primitive long keys and int values, based on open
+	 * addressing with linear probing. Value -1 stands for missing entries.
+	 */
+	private static class LongIntMap {
+		private long[] keys = new long[1024];
+		private int[] values = new int[1024];
+		private int size;
+
+		LongIntMap() {
+			Arrays.fill(values, -1);
+		}
+
+		int get(long key) {
+			int mask = keys.length - 1;
+			for (int i = hash(key) & mask; values[i] != -1; i = (i + 1) & mask)
+				if (keys[i] == key)
+					return values[i];
+			return -1;
+		}
+
+		void put(long key, int value) {
+			if (2 * (size + 1) > keys.length)
+				rehash(2 * keys.length);
+			int mask = keys.length - 1;
+			int i = hash(key) & mask;
+			while (values[i] != -1 && keys[i] != key)
+				i = (i + 1) & mask;
+			if (values[i] == -1)
+				size++;
+			keys[i] = key;
+			values[i] = value;
+		}
+
+		private void rehash(int capacity) {
+			long[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new long[capacity];
+			values = new int[capacity];
+			Arrays.fill(values, -1);
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++)
+				if (oldValues[i] != -1)
+					put(oldKeys[i], oldValues[i]);
+		}
+
+		private static int hash(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package aimax.osm.data.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.StringTokenizer;
 
@@ -28,8 +30,20 @@ public class DefaultEntityFinder extends AbstractEntityFinder {
 		BoundingBox bb = new BoundingBox(position, nextRadius);
 		if (!results.isEmpty())
 			bmf.checkMatchQuality(results.get(0));
-		if (mode.equals(Mode.ENTITY) || mode.equals(Mode.NODE)) {
-			for (MapNode node : getStorage().getPois(bb)) {
+		boolean findNodes = mode.equals(Mode.ENTITY) || mode.equals(Mode.NODE);
+		boolean findWays = mode.equals(Mode.ENTITY) || mode.equals(Mode.WAY);
+		Collection<MapNode> nodes = new ArrayList<MapNode>();
+		Collection<MapWay> ways = new ArrayList<MapWay>();
+		addEntitiesNamed(pattern, bb, findNodes ? nodes : null, findWays ? ways : null);
+		if (nodes.isEmpty() && ways.isEmpty()) {
+			// no name equals the pattern, so attributes and name parts decide
+			if (findNodes)
+				nodes = getStorage().getPois(bb);
+			if (findWays)
+				ways = getStorage().getWays(bb);
+		}
+		if (findNodes) {
+			for (MapNode node : nodes) {
 				int match = bmf.checkMatchQuality(node);
 				if (match >= 0) {
 					if (match > 0) {
@@ -42,8 +56,8 @@ public class DefaultEntityFinder extends AbstractEntityFinder {
 				}
 			}
 		}
-		if (mode.equals(Mode.ENTITY) || mode.equals(Mode.WAY)) {
-			for (MapWay way : getStorage().getWays(bb)) {
+		if (findWays) {
+			for (MapWay way : ways) {
 				int match = bmf.checkMatchQuality(way);
 				if (match >= 0) {
 					if (match > 0) {
@@ -68,9 +82,13 @@ public class DefaultEntityFinder extends AbstractEntityFinder {
 				wayName = tokenizer.nextToken().trim();
 
 			if (placeName != null && !findMore) {
-				for (MapNode place : getStorage().getPlaces(placeName)) {
+				NameIndex index = getNameIndex();
+				List<? extends MapEntity> places = index != null
+						? index.findNearest(placeName, true, "*", position, 100)
+						: getStorage().getPlaces(placeName);
+				for (MapEntity place : places) {
 					position.insertInAscendingDistanceOrder(
-							iResults, place);
+							iResults, (MapNode) place);
 					if (iResults.size() > 100)
 						iResults.remove(99);
 				}
@@ -89,6 +107,36 @@ public class DefaultEntityFinder extends AbstractEntityFinder {
 		}
 	}
 
+	/**
+	 * Adds the points of interest and ways within the bounding box whose name
+	 * equals the pattern. They match better than all other entities, so
+	 * nothing else needs to be checked if some are found. Without name index,
+	 * nothing is added.
+	 */
+	private void addEntitiesNamed(String name, BoundingBox bb,
+			Collection<MapNode> nodes, Collection<MapWay> ways) {
+		NameIndex index = getNameIndex();
+		if (index == null)
+			return;
+		for (MapEntity entity : index.getEntities(name)) {
+			if (entity instanceof MapNode) {
+				MapNode node = (MapNode) entity;
+				if (nodes != null && bb.isInside(node.getLat(), node.getLon()))
+					nodes.add(node);
+			} else if (ways != null
+					&& ((MapWay) entity).computeBoundingBox().intersectsWith(bb)) {
+				ways.add((MapWay) entity);
+			}
+		}
+	}
+
+	/** Returns the name index of the storage if available, otherwise null. */
+	private NameIndex getNameIndex() {
+		if (getStorage() instanceof DefaultMap)
+			return ((DefaultMap) getStorage()).getNameIndex();
+		return null;
+	}
+
 	/**
 	 * Helper class which is used to find the best match when searching for
 	 * special entities.
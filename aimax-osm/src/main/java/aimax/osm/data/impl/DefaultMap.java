@@ -2,7 +2,6 @@ package aimax.osm.data.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.logging.Logger;
@@ -44,6 +43,18 @@ import aimax.osm.data.entities.Track;
  * </p>
  * 
  * <p>
+ * Additionally, a spatial index over all way nodes (see
+ * {@link aimax.osm.data.impl.WayNodeIndex}) speeds up nearest way node
+ * queries.
+ * </p>
+ * 
+ * <p>
+ * Bounding box queries for ways and points of interest are answered by
+ * packed R-trees (see {@link aimax.osm.data.impl.EntityRTree}). Name
+ * searches use a sorted name index (see {@link aimax.osm.data.impl.NameIndex}).
+ * </p>
+ * 
+ * <p>
  * The map is used as model for the viewer.
  * </p>
  * 
@@ -72,6 +83,14 @@ public class DefaultMap implements OsmMap {
 
 	private EntityClassifier<EntityViewInfo> entityClassifier;
 	private KDTree entityTree;
+	/** Created during compilation, null before. */
+	private WayNodeIndex wayNodeIndex;
+	/** Created during compilation, null before. */
+	private EntityRTree<MapWay> wayTree;
+	/** Created during compilation, null before. */
+	private EntityRTree<MapNode> poiTree;
+	/** Created during compilation, null before. */
+	private NameIndex nameIndex;
 
 	private ArrayList<MapEventListener> listeners;
 
@@ -100,6 +119,10 @@ public class DefaultMap implements OsmMap {
 		markers.clear();
 		tracks.clear();
 		entityTree = null;
+		wayNodeIndex = null;
+		wayTree = null;
+		poiTree = null;
+		nameIndex = null;
 		boundingBox = null;
 		fireMapDataEvent(new MapEvent(this, MapEvent.Type.MAP_CLEARED));
 	}
@@ -185,7 +208,8 @@ public class DefaultMap implements OsmMap {
 	 */
 	@Override
 	public Collection<MapWay> getWays(BoundingBox bb) {
-		// not really efficient but OK for small maps...
+		if (wayTree != null)
+			return wayTree.query(bb);
 		List<MapWay> result = new ArrayList<MapWay>();
 		for (MapWay way : ways.values())
 			if (way.computeBoundingBox().intersectsWith(bb))
@@ -195,8 +219,11 @@ public class DefaultMap implements OsmMap {
 
 	/**
 	 * Separates way nodes from points of interests, cleans up useless garbage
-	 * and creates a kd-tree for the remaining entities. Always call this method
-	 * before using using the container for viewing.
+	 * and creates a kd-tree for the remaining entities, a way node index,
+	 * R-trees for ways and points of interest, a name index, and simplified
+	 * way geometries for reduced levels of detail.
+	 * Always call this method before using using the container for viewing.
+	 * After compilation, the map data is read-only (except markers and tracks).
 	 */
 	public void compile() {
 		ArrayList<Long> toDelete = new ArrayList<Long>();
@@ -222,6 +249,14 @@ public class DefaultMap implements OsmMap {
 		else
 			boundingBox.intersectWith(bbAllNodes);
 		applyClassifierAndUpdateTree(bbAllNodes);
+		wayNodeIndex = new WayNodeIndex(nodes.values());
+		for (MapWay way : ways.values())
+			((DefaultMapWay) way).computeLevelsOfDetail();
+		wayTree = new EntityRTree<MapWay>(ways.values());
+		poiTree = new EntityRTree<MapNode>(pois);
+		List<MapEntity> namedEntities = new ArrayList<MapEntity>(ways.values());
+		namedEntities.addAll(pois);
+		nameIndex = new NameIndex(namedEntities);
 		fireMapDataEvent(new MapEvent(this, MapEvent.Type.MAP_NEW));
 	}
 
@@ -261,39 +296,25 @@ public class DefaultMap implements OsmMap {
 	 */
 	@Override
 	public MapNode getNearestWayNode(Position pos, MapWayFilter filter) {
-		MapNode node = pos.selectNearest(nodes.values(), filter);
-		return node;
+		if (wayNodeIndex != null)
+			return wayNodeIndex.getNearest(pos, filter);
+		return pos.selectNearest(nodes.values(), filter);
 	}
 
-	/** Reduces the level of detail by selecting some of the given nodes. */
+	/**
+	 * Reduces the level of detail by returning a simplified geometry. The
+	 * simplifications are precomputed by {@link #compile()}, so no lists are
+	 * created here.
+	 */
 	@Override
 	public List<MapNode> getWayNodes(MapWay way, float scale) {
-		List<MapNode> wayNodes = way.getNodes();
-		int zoomLevel;
-		if (scale <= 1f / 10000000)
-			zoomLevel = 3;
-		else if (scale <= 1f / 750000)
-			zoomLevel = 2;
-		else if (scale <= 1f / 350000)
-			zoomLevel = 1;
+		int level = WaySimplifier.getLevel(scale);
+		if (way instanceof DefaultMapWay)
+			return ((DefaultMapWay) way).getNodes(level);
+		else if (level > 0)
+			return WaySimplifier.simplify(way.getNodes())[level];
 		else
-			zoomLevel = 0;
-		if (zoomLevel > 0) {
-			int size = wayNodes.size();
-			List<MapNode> result = new ArrayList<MapNode>(size / zoomLevel + 2);
-			int i = 0;
-			for (MapNode node : wayNodes) {
-				if (i == 0 || i == size - 1
-						|| node.getId() % (4 * zoomLevel) == 0)
-					result.add(node);
-				i++;
-			}
-			if (wayNodes.get(0) == wayNodes.get(size - 1) && result.size() < 4)
-				result.clear();
-			return result;
-		} else {
-			return Collections.unmodifiableList(wayNodes);
-		}
+			return way.getNodes();
 	}
 
 	/** {@inheritDoc} */
@@ -305,7 +326,8 @@ public class DefaultMap implements OsmMap {
 	/** {@inheritDoc} */
 	@Override
 	public List<MapNode> getPois(BoundingBox bb) {
-		// not really efficient but ok for small maps...
+		if (poiTree != null)
+			return poiTree.query(bb);
 		List<MapNode> result = new ArrayList<MapNode>();
 		for (MapNode poi : pois)
 			if (bb.isInside(poi.getLat(), poi.getLon()))
@@ -316,6 +338,8 @@ public class DefaultMap implements OsmMap {
 	/** {@inheritDoc} */
 	@Override
 	public List<MapNode> getPlaces(String name) {
+		if (nameIndex != null)
+			return nameIndex.getPlaces(name);
 		String pattern = name.toLowerCase();
 		List<MapNode> results = new ArrayList<MapNode>();
 		for (MapNode node : pois) {
@@ -473,6 +497,14 @@ public class DefaultMap implements OsmMap {
 			entityTree.visitEntities(visitor, vbox, scale);
 	}
 
+	/**
+	 * Returns an index for name based searches on ways and points of
+	 * interest. Created during compilation, null before.
+	 */
+	public NameIndex getNameIndex() {
+		return nameIndex;
+	}
+
 	/** Returns a kd-tree with all entities. */
 	public KDTree getEntityTree() {
 		return entityTree;
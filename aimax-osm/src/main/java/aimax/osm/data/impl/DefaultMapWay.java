@@ -14,6 +14,11 @@ import aimax.osm.data.entities.MapWay;
  */
 public class DefaultMapWay extends DefaultMapEntity implements MapWay {
 	private List<MapNode> nodes;
+	/**
+	 * Nodes for the levels of detail defined by {@link WaySimplifier}.
+	 * Volatile, because renderers may compute them concurrently.
+	 */
+	private volatile List<MapNode>[] levelNodes;
 	// Implicit (storage efficient) representation of a bounding box 
 	private short latMinIdx;
 	private short lonMinIdx;
@@ -29,9 +34,31 @@ public class DefaultMapWay extends DefaultMapEntity implements MapWay {
 	
 	/** Assigns a way description (as list of nodes) to the way. */
 	public void setNodes(List<MapNode> nodes) {
-		this.nodes = nodes;
+		this.nodes = Collections.unmodifiableList(nodes);
+		levelNodes = null;
 		latMinIdx = -1;
 	}
+
+	/** Precomputes the simplified geometries for all levels of detail. */
+	public void computeLevelsOfDetail() {
+		levelNodes = WaySimplifier.simplify(nodes);
+	}
+
+	/**
+	 * Returns the nodes of the way for a level of detail. The simplified
+	 * geometries are computed on demand if not done before. Threads racing
+	 * on the first call compute equal results, so no locking is needed.
+	 */
+	public List<MapNode> getNodes(int level) {
+		if (level == 0)
+			return nodes;
+		List<MapNode>[] result = levelNodes;
+		if (result == null) {
+			result = WaySimplifier.simplify(nodes);
+			levelNodes = result;
+		}
+		return result[level];
+	}
 	
 	/** {@inheritDoc} */
 	@Override
@@ -48,7 +75,7 @@ public class DefaultMapWay extends DefaultMapEntity implements MapWay {
 	/** {@inheritDoc} */
 	@Override
 	public List<MapNode> getNodes() {
-		return Collections.unmodifiableList(nodes);
+		return nodes;
 	}
 
 	/** {@inheritDoc} */
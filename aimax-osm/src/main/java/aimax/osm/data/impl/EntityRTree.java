@@ -0,0 +1,88 @@
+package aimax.osm.data.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.entities.MapEntity;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+
+/**
+ * Static R-tree for bounding box queries on map nodes and ways, based on a
+ * {@link PackedRTree}. Nodes are indexed by position, ways by the bounding box
+ * of their nodes.
+ * <br>
+ * Queries return the same entities as a linear scan with
+ * {@link BoundingBox#isInside(double, double)} (for nodes) and
+ * {@link BoundingBox#intersectsWith(BoundingBox)} (for ways), but in tree
+ * order. Entities with undefined coordinates are kept in a separate list and
+ * always checked. The tree is immutable and can be queried by several threads
+ * concurrently.
+ */
+public class EntityRTree<E extends MapEntity> {
+	/** Maximal number of children per tree node. */
+	public static final int NODE_CAPACITY = PackedRTree.NODE_CAPACITY;
+
+	private final List<E> bounded;
+	private final PackedRTree tree;
+	private final List<E> unbounded = new ArrayList<E>();
+
+	/**
+	 * Creates a tree for the given entities, which must be map nodes or map
+	 * ways.
+	 */
+	public EntityRTree(Collection<? extends E> entities) {
+		bounded = new ArrayList<E>(entities.size());
+		float[] boxes = new float[4 * entities.size()];
+		for (E entity : entities) {
+			float[] box = getBox(entity);
+			if (Float.isNaN(box[0] + box[1] + box[2] + box[3])) {
+				unbounded.add(entity);
+			} else {
+				System.arraycopy(box, 0, boxes, 4 * bounded.size(), 4);
+				bounded.add(entity);
+			}
+		}
+		tree = new PackedRTree(Arrays.copyOf(boxes, 4 * bounded.size()));
+	}
+
+	/** Returns the number of indexed entities. */
+	public int size() {
+		return bounded.size() + unbounded.size();
+	}
+
+	/** Returns all entities which intersect with the given box. */
+	public List<E> query(BoundingBox bb) {
+		List<E> result = new ArrayList<E>();
+		query(bb, result);
+		return result;
+	}
+
+	/** Adds all entities which intersect with the given box to the result. */
+	public void query(BoundingBox bb, Collection<? super E> result) {
+		tree.query(bb, i -> result.add(bounded.get(i)));
+		for (E entity : unbounded) {
+			if (entity instanceof MapNode) {
+				if (bb.isInside(((MapNode) entity).getLat(), ((MapNode) entity).getLon()))
+					result.add(entity);
+			} else if (((MapWay) entity).computeBoundingBox().intersectsWith(bb)) {
+				result.add(entity);
+			}
+		}
+	}
+
+	private static float[] getBox(MapEntity entity) {
+		if (entity instanceof MapNode) {
+			float lat = ((MapNode) entity).getLat();
+			float lon = ((MapNode) entity).getLon();
+			return new float[] { lat, lon, lat, lon };
+		} else if (entity instanceof MapWay) {
+			BoundingBox bb = ((MapWay) entity).computeBoundingBox();
+			return new float[] { bb.getLatMin(), bb.getLonMin(), bb.getLatMax(), bb.getLonMax() };
+		}
+		throw new IllegalArgumentException("Only map nodes and map ways can be indexed.");
+	}
+}
@@ -27,7 +27,7 @@ public class KDTree {
 	private ArrayList<DefaultMapEntity> entities;
 	private boolean splitAtLat;
 	private float splitValue;
-	private boolean isSorted;
+	private volatile boolean isSorted;
 	
 	/**
 	 * Constructs the root of the tree.
@@ -159,14 +159,13 @@ public class KDTree {
 	/**
 	 * Enables to iterate across all contained entities within a given region
 	 * in an intelligent manner. Only tree nodes, which have a chance to
-	 * meet the location requirement are visited.
+	 * meet the location requirement are visited. Several threads can visit
+	 * the tree concurrently as long as no entities are inserted.
 	 */
 	public void visitEntities(EntityVisitor visitor, BoundingBox vbox, float scale) {
 		if (!entities.isEmpty()) {
-			if (!isSorted) {
-				Collections.sort(entities, new EntityComparator());
-				isSorted = true;
-			}
+			if (!isSorted)
+				sortEntities();
 			VisibilityTest vtest = new VisibilityTest(bb, vbox);
 			for (DefaultMapEntity entity : entities) {
 				if (entity.getViewInfo().getMinVisibleScale() > scale)
@@ -185,7 +184,14 @@ public class KDTree {
 		}
 	}
 
-	
+	/** Sorts the entities of this tree node if no other thread did it before. */
+	private synchronized void sortEntities() {
+		if (!isSorted) {
+			Collections.sort(entities, new EntityComparator());
+			isSorted = true;
+		}
+	}
+
 	/////////////////////////////////////////////////////////////////
 	// some inner classes
 	
@@ -0,0 +1,185 @@
+package aimax.osm.data.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapEntity;
+import aimax.osm.data.entities.MapNode;
+
+/**
+ * Static index for name based entity search. Names are normalized (converted
+ * to lower case) and stored in a sorted array together with all their word
+ * suffixes, i.e. the name parts which start at a word beginning. So a binary
+ * search finds all entities with a name or a name word starting with a given
+ * prefix, without looking at the other entities. For "Bahnhofstraße Nord",
+ * the keys "bahnhofstraße nord" and "nord" are stored.
+ * <br>
+ * Each key of a point of interest carries the value of its <code>place</code>
+ * attribute as facet, so places of a certain type can be found without
+ * inspecting attributes. The index is immutable and can be queried by several threads
+ * concurrently.
+ */
+public class NameIndex {
+	private final String[] keys;
+	private final MapEntity[] entities;
+	/** Value of the place attribute of points of interest or null. */
+	private final String[] placeTypes;
+	/** True if the key is the complete name and not only a word suffix. */
+	private final boolean[] fullNames;
+
+	/** Creates an index for all given entities which have a name. */
+	public NameIndex(Collection<? extends MapEntity> candidates) {
+		final List<String> keyList = new ArrayList<String>();
+		List<MapEntity> entityList = new ArrayList<MapEntity>();
+		List<Boolean> fullNameList = new ArrayList<Boolean>();
+		for (MapEntity entity : candidates) {
+			if (entity.getName() == null)
+				continue;
+			String name = normalize(entity.getName());
+			for (int i = 0; i < name.length(); i++) {
+				if (i == 0 || isWordStart(name, i)) {
+					keyList.add(name.substring(i));
+					entityList.add(entity);
+					fullNameList.add(i == 0);
+				}
+			}
+		}
+		Integer[] order = new Integer[keyList.size()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, Comparator.comparing(keyList::get));
+		keys = new String[order.length];
+		entities = new MapEntity[order.length];
+		placeTypes = new String[order.length];
+		fullNames = new boolean[order.length];
+		for (int i = 0; i < order.length; i++) {
+			keys[i] = keyList.get(order[i]);
+			entities[i] = entityList.get(order[i]);
+			if (entities[i] instanceof MapNode)
+				placeTypes[i] = entities[i].getAttributeValue("place");
+			fullNames[i] = fullNameList.get(order[i]);
+		}
+	}
+
+	/** Converts a name or a search pattern into the format used for keys. */
+	public static String normalize(String name) {
+		return name.toLowerCase();
+	}
+
+	/** Returns the number of keys (names and word suffixes) in the index. */
+	public int size() {
+		return keys.length;
+	}
+
+	/**
+	 * Returns all points of interest with a place attribute whose complete
+	 * name starts with the given prefix (in index order).
+	 */
+	public List<MapNode> getPlaces(String prefix) {
+		List<MapNode> result = new ArrayList<MapNode>();
+		int[] range = getRange(normalize(prefix));
+		for (int i = range[0]; i < range[1]; i++)
+			if (fullNames[i] && placeTypes[i] != null)
+				result.add((MapNode) entities[i]);
+		return result;
+	}
+
+	/**
+	 * Returns all entities whose complete name equals the given name, ignoring
+	 * case (in index order).
+	 */
+	public List<MapEntity> getEntities(String name) {
+		List<MapEntity> result = new ArrayList<MapEntity>();
+		String key = normalize(name);
+		int[] range = getRange(key);
+		for (int i = range[0]; i < range[1]; i++)
+			if (fullNames[i] && keys[i].equals(key))
+				result.add(entities[i]);
+		return result;
+	}
+
+	/**
+	 * Returns the k entities nearest to the reference position whose name or
+	 * a name word starts with the given prefix, in ascending distance order.
+	 *
+	 * @param fullNamesOnly
+	 *            If true, only the complete names are compared with the
+	 *            prefix.
+	 * @param placeType
+	 *            If not null, only points of interest with this
+	 *            <code>place</code> attribute value are returned; "*"
+	 *            accepts all places.
+	 */
+	public List<MapEntity> findNearest(String prefix, boolean fullNamesOnly, String placeType, final Position ref,
+			int k) {
+		if (k <= 0)
+			return Collections.emptyList();
+		final Map<MapEntity, Double> distances = new IdentityHashMap<MapEntity, Double>();
+		// max-heap, so that the farthest of the current k candidates can be removed
+		PriorityQueue<MapEntity> best = new PriorityQueue<MapEntity>(k + 1,
+				Comparator.comparingDouble((MapEntity e) -> distances.get(e)).reversed());
+		int[] range = getRange(normalize(prefix));
+		for (int i = range[0]; i < range[1]; i++) {
+			if (fullNamesOnly && !fullNames[i] || !hasPlaceType(i, placeType) || distances.containsKey(entities[i]))
+				continue;
+			double dist = ref.getDistKM(entities[i]);
+			distances.put(entities[i], dist);
+			if (best.size() < k || dist < distances.get(best.peek())) {
+				best.add(entities[i]);
+				if (best.size() > k)
+					best.poll();
+			}
+		}
+		List<MapEntity> result = new ArrayList<MapEntity>(best);
+		result.sort(Comparator.comparingDouble(distances::get));
+		return result;
+	}
+
+	private boolean hasPlaceType(int i, String placeType) {
+		if (placeType == null)
+			return true;
+		else if (placeType.equals("*"))
+			return placeTypes[i] != null;
+		else
+			return placeType.equals(placeTypes[i]);
+	}
+
+	/**
+	 * Returns the first index and the end index of the key block starting
+	 * with the prefix. Keys with a common prefix are adjacent in the sorted
+	 * array.
+	 */
+	private int[] getRange(String prefix) {
+		int lo = 0;
+		int hi = keys.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (keys[mid].compareTo(prefix) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		int from = lo;
+		hi = keys.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (keys[mid].startsWith(prefix))
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return new int[] { from, lo };
+	}
+
+	private static boolean isWordStart(String name, int i) {
+		return Character.isLetterOrDigit(name.charAt(i)) && !Character.isLetterOrDigit(name.charAt(i - 1));
+	}
+}
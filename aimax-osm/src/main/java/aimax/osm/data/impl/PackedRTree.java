@@ -0,0 +1,180 @@
+package aimax.osm.data.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntConsumer;
+
+import aimax.osm.data.BoundingBox;
+
+/**
+ * Static R-tree for bounding box queries on entries which are identified by
+ * their index. The tree is bulk-loaded with the Sort-Tile-Recursive (STR)
+ * algorithm: Entries of each level are sorted by longitude, cut into vertical
+ * slices, sorted by latitude within the slices, and packed into tree nodes of
+ * {@link #NODE_CAPACITY} entries. So the tree is nearly 100% full and sibling
+ * boxes hardly overlap. All tree nodes are stored in arrays, leaves first and
+ * the root last.
+ * <br>
+ * An entry matches a query box if the boxes intersect in the sense of
+ * {@link BoundingBox#intersectsWith(BoundingBox)}. For point entries (with
+ * equal minimum and maximum), this is the same as
+ * {@link BoundingBox#isInside(double, double)}. The tree is immutable and can
+ * be queried by several threads concurrently.
+ */
+public class PackedRTree {
+	/** Maximal number of children per tree node. */
+	public static final int NODE_CAPACITY = 16;
+
+	/** Original index of the entries in tree order. */
+	private final int[] entries;
+	// latMin, lonMin, latMax, lonMax of entry i at positions 4i to 4i+3
+	private final float[] entryBoxes;
+	private final float[] nodeBoxes;
+	/** First child of each tree node (entry index for leaves). */
+	private final int[] nodeFirst;
+	private final int[] nodeSize;
+	private final int leafCount;
+
+	/**
+	 * Creates a tree for boxes which are stored as latMin, lonMin, latMax,
+	 * lonMax at positions 4i to 4i+3 of the array. Boxes must not contain NaN
+	 * values.
+	 */
+	public PackedRTree(float[] boxes) {
+		int count = boxes.length / 4;
+		Integer[] order = strOrder(boxes, count);
+		entries = new int[count];
+		entryBoxes = new float[4 * count];
+		for (int i = 0; i < count; i++) {
+			entries[i] = order[i];
+			System.arraycopy(boxes, 4 * order[i], entryBoxes, 4 * i, 4);
+		}
+
+		// build the levels bottom-up, each one packed from its STR-ordered children
+		float[][] levelBoxes = new float[32][];
+		int[][] levelFirst = new int[32][];
+		int[][] levelSize = new int[32][];
+		int levels = 0;
+		float[] childBoxes = entryBoxes;
+		int childCount = count;
+		int firstChildNode = 0;
+		int nodeCount = 0;
+		do {
+			int size = Math.max(1, (childCount + NODE_CAPACITY - 1) / NODE_CAPACITY);
+			float[] bxs = new float[4 * size];
+			int[] first = new int[size];
+			int[] sz = new int[size];
+			for (int n = 0; n < size; n++) {
+				first[n] = firstChildNode + n * NODE_CAPACITY;
+				sz[n] = Math.min(NODE_CAPACITY, childCount - n * NODE_CAPACITY);
+				Arrays.fill(bxs, 4 * n, 4 * n + 2, Float.POSITIVE_INFINITY);
+				Arrays.fill(bxs, 4 * n + 2, 4 * n + 4, Float.NEGATIVE_INFINITY);
+				for (int c = n * NODE_CAPACITY; c < n * NODE_CAPACITY + sz[n]; c++) {
+					bxs[4 * n] = Math.min(bxs[4 * n], childBoxes[4 * c]);
+					bxs[4 * n + 1] = Math.min(bxs[4 * n + 1], childBoxes[4 * c + 1]);
+					bxs[4 * n + 2] = Math.max(bxs[4 * n + 2], childBoxes[4 * c + 2]);
+					bxs[4 * n + 3] = Math.max(bxs[4 * n + 3], childBoxes[4 * c + 3]);
+				}
+			}
+			if (size > 1) {
+				// reorder the new level so that its parents are packed in STR order
+				Integer[] levelOrder = strOrder(bxs, size);
+				float[] sortedBoxes = new float[4 * size];
+				int[] sortedFirst = new int[size];
+				int[] sortedSize = new int[size];
+				for (int n = 0; n < size; n++) {
+					System.arraycopy(bxs, 4 * levelOrder[n], sortedBoxes, 4 * n, 4);
+					sortedFirst[n] = first[levelOrder[n]];
+					sortedSize[n] = sz[levelOrder[n]];
+				}
+				bxs = sortedBoxes;
+				first = sortedFirst;
+				sz = sortedSize;
+			}
+			levelBoxes[levels] = bxs;
+			levelFirst[levels] = first;
+			levelSize[levels++] = sz;
+			firstChildNode = nodeCount;
+			nodeCount += size;
+			childBoxes = bxs;
+			childCount = size;
+		} while (childCount > 1);
+
+		leafCount = levelFirst[0].length;
+		nodeBoxes = new float[4 * nodeCount];
+		nodeFirst = new int[nodeCount];
+		nodeSize = new int[nodeCount];
+		int pos = 0;
+		for (int l = 0; l < levels; l++) {
+			int size = levelFirst[l].length;
+			System.arraycopy(levelBoxes[l], 0, nodeBoxes, 4 * pos, 4 * size);
+			System.arraycopy(levelFirst[l], 0, nodeFirst, pos, size);
+			System.arraycopy(levelSize[l], 0, nodeSize, pos, size);
+			pos += size;
+		}
+	}
+
+	/** Returns the number of entries. */
+	public int size() {
+		return entries.length;
+	}
+
+	/** Returns the number of bytes used by the arrays of the tree. */
+	public long getByteCount() {
+		return 4L * (entries.length + entryBoxes.length + nodeBoxes.length + nodeFirst.length + nodeSize.length);
+	}
+
+	/**
+	 * Passes the original indices of all entries which intersect with the
+	 * given box to the action, in tree order.
+	 */
+	public void query(BoundingBox bb, IntConsumer action) {
+		if (entries.length == 0)
+			return;
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = nodeFirst.length - 1;
+		while (top > 0) {
+			int node = stack[--top];
+			if (!intersects(nodeBoxes, node, bb))
+				continue;
+			int first = nodeFirst[node];
+			int last = first + nodeSize[node];
+			if (node < leafCount) {
+				for (int i = first; i < last; i++)
+					if (intersects(entryBoxes, i, bb))
+						action.accept(entries[i]);
+			} else {
+				if (top + NODE_CAPACITY > stack.length)
+					stack = Arrays.copyOf(stack, 2 * stack.length);
+				for (int child = last - 1; child >= first; child--)
+					stack[top++] = child;
+			}
+		}
+	}
+
+	/** Same semantics as {@link BoundingBox#intersectsWith(BoundingBox)}. */
+	private static boolean intersects(float[] boxes, int i, BoundingBox bb) {
+		return !(boxes[4 * i] > bb.getLatMax() || boxes[4 * i + 2] < bb.getLatMin()
+				|| boxes[4 * i + 1] > bb.getLonMax() || boxes[4 * i + 3] < bb.getLonMin());
+	}
+
+	/**
+	 * Returns the indices of the boxes in STR order: sorted by longitude
+	 * center, cut into slices of <code>s * NODE_CAPACITY</code> boxes, with
+	 * <code>s = ceil(sqrt(boxCount / NODE_CAPACITY))</code>, and sorted by
+	 * latitude center within each slice.
+	 */
+	private static Integer[] strOrder(final float[] boxes, int count) {
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++)
+			order[i] = i;
+		Arrays.sort(order, Comparator.comparingDouble(i -> boxes[4 * i + 1] + boxes[4 * i + 3]));
+		int leaves = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int sliceSize = (int) Math.ceil(Math.sqrt(leaves)) * NODE_CAPACITY;
+		for (int from = 0; from < count; from += sliceSize)
+			Arrays.sort(order, from, Math.min(from + sliceSize, count),
+					Comparator.comparingDouble(i -> boxes[4 * i] + boxes[4 * i + 2]));
+		return order;
+	}
+}
@@ -0,0 +1,197 @@
+package aimax.osm.data.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.WayRef;
+
+/**
+ * Static spatial index for nearest way node queries. The index is a packed
+ * kd-tree: Way nodes are stored in arrays which are recursively partitioned
+ * at the median, so the tree needs no node objects and no pointers. Node
+ * positions are converted to points on the unit sphere. The Euclidean (chord)
+ * distance between such points grows monotonically with the great-circle
+ * distance used by {@link Position#getDistKM(float, float, float, float)}.
+ * So subtree pruning is exact and queries return the same nodes as a linear
+ * scan with {@link Position#selectNearest(Collection, MapWayFilter)} (up to
+ * ties).
+ * <br>
+ * Way filters are checked for candidate nodes during the query. The index is
+ * immutable and can be queried by several threads concurrently.
+ */
+public class WayNodeIndex {
+	private final MapNode[] nodes;
+	// x, y, z coordinates of node i at positions 3i, 3i+1, 3i+2
+	private final double[] coords;
+	private final byte[] splitDims;
+
+	/**
+	 * Creates an index for all given nodes which have a position and are
+	 * part of at least one way.
+	 */
+	public WayNodeIndex(Collection<MapNode> candidates) {
+		List<MapNode> wayNodes = new ArrayList<MapNode>();
+		for (MapNode node : candidates)
+			if (node.hasPosition() && !node.getWayRefs().isEmpty())
+				wayNodes.add(node);
+		nodes = wayNodes.toArray(new MapNode[wayNodes.size()]);
+		coords = new double[3 * nodes.length];
+		splitDims = new byte[nodes.length];
+		for (int i = 0; i < nodes.length; i++)
+			toUnitVector(nodes[i].getLat(), nodes[i].getLon(), coords, 3 * i);
+		build(0, nodes.length);
+	}
+
+	/** Returns the number of indexed way nodes. */
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * Returns the way node which is nearest to the specified position. If a
+	 * filter is given, only those nodes are inspected, which are part of a way
+	 * accepted by the filter.
+	 *
+	 * @param filter
+	 *            possibly null
+	 * @return A node or null
+	 */
+	public MapNode getNearest(Position pos, MapWayFilter filter) {
+		Query query = new Query(pos, filter);
+		query.search(0, nodes.length);
+		return query.best >= 0 ? nodes[query.best] : null;
+	}
+
+	private void build(int from, int to) {
+		while (to - from > 1) {
+			int dim = getWidestDimension(from, to);
+			int mid = (from + to) >>> 1;
+			select(from, to - 1, mid, dim);
+			splitDims[mid] = (byte) dim;
+			build(from, mid);
+			from = mid + 1;
+		}
+	}
+
+	private int getWidestDimension(int from, int to) {
+		int result = 0;
+		double maxExtent = -1;
+		for (int dim = 0; dim < 3; dim++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				double c = coords[3 * i + dim];
+				if (c < min)
+					min = c;
+				if (c > max)
+					max = c;
+			}
+			if (max - min > maxExtent) {
+				maxExtent = max - min;
+				result = dim;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Rearranges the nodes between <code>left</code> and <code>right</code>
+	 * (inclusive) so that the node at position <code>k</code> is the one which
+	 * would be there if the range was sorted by the given dimension (quickselect).
+	 */
+	private void select(int left, int right, int k, int dim) {
+		while (right > left) {
+			double pivot = coords[3 * ((left + right) >>> 1) + dim];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (coords[3 * i + dim] < pivot)
+					i++;
+				while (coords[3 * j + dim] > pivot)
+					j--;
+				if (i <= j)
+					swap(i++, j--);
+			}
+			if (k <= j)
+				right = j;
+			else if (k >= i)
+				left = i;
+			else
+				return;
+		}
+	}
+
+	private void swap(int i, int j) {
+		MapNode node = nodes[i];
+		nodes[i] = nodes[j];
+		nodes[j] = node;
+		for (int d = 0; d < 3; d++) {
+			double c = coords[3 * i + d];
+			coords[3 * i + d] = coords[3 * j + d];
+			coords[3 * j + d] = c;
+		}
+	}
+
+	private static void toUnitVector(float lat, float lon, double[] result, int offset) {
+		double latRad = Math.toRadians(lat);
+		double lonRad = Math.toRadians(lon);
+		double cosLat = Math.cos(latRad);
+		result[offset] = cosLat * Math.cos(lonRad);
+		result[offset + 1] = cosLat * Math.sin(lonRad);
+		result[offset + 2] = Math.sin(latRad);
+	}
+
+	/** State of one nearest neighbor query. */
+	private class Query {
+		private final double[] target = new double[3];
+		private final MapWayFilter filter;
+		private int best = -1;
+		private double bestDist = Double.POSITIVE_INFINITY;
+
+		Query(Position pos, MapWayFilter filter) {
+			toUnitVector(pos.getLat(), pos.getLon(), target, 0);
+			this.filter = filter;
+		}
+
+		void search(int from, int to) {
+			while (from < to) {
+				int mid = (from + to) >>> 1;
+				double dist = 0;
+				for (int d = 0; d < 3; d++) {
+					double diff = target[d] - coords[3 * mid + d];
+					dist += diff * diff;
+				}
+				if (dist < bestDist && isAccepted(nodes[mid])) {
+					best = mid;
+					bestDist = dist;
+				}
+				double diff = target[splitDims[mid]] - coords[3 * mid + splitDims[mid]];
+				// search the near side first, then the far side if it can contain better nodes
+				if (diff < 0) {
+					search(from, mid);
+					if (diff * diff >= bestDist)
+						return;
+					from = mid + 1;
+				} else {
+					search(mid + 1, to);
+					if (diff * diff >= bestDist)
+						return;
+					to = mid;
+				}
+			}
+		}
+
+		private boolean isAccepted(MapNode node) {
+			if (filter == null)
+				return true;
+			for (WayRef ref : node.getWayRefs())
+				if (filter.isAccepted(ref.getWay()))
+					return true;
+			return false;
+		}
+	}
+}
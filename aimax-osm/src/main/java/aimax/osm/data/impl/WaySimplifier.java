@@ -0,0 +1,166 @@
+package aimax.osm.data.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import aimax.osm.data.entities.MapNode;
+
+/**
+ * Computes multi-resolution geometry for map ways. The Douglas-Peucker
+ * algorithm is applied once per way: Each inner node gets the distance at
+ * which it was selected as significance (limited by the significance of the
+ * enclosing split node, so that coarser levels are subsets of finer ones).
+ * The simplification for a certain tolerance then consists of the end nodes
+ * and all nodes with a significance not smaller than the tolerance.
+ * <br>
+ * Three reduced levels of detail are supported. Tolerances are chosen so that
+ * the deviation from the original geometry is at most one pixel (of 1/92
+ * inch) at the largest scale for which a level is used.
+ */
+public class WaySimplifier {
+	/** Number of reduced levels of detail (level 0 is the full geometry). */
+	public static final int LEVEL_COUNT = 3;
+	/** Largest scales for which the reduced levels 1 to 3 are used. */
+	private static final float[] LEVEL_SCALES = { 1f / 350000, 1f / 750000, 1f / 10000000 };
+	private static final double PIXEL_SIZE_KM = 0.0254 / 92 / 1000;
+	private static final double KM_PER_DEG = 111.195;
+
+	/** Returns the level of detail to be used for the given scale. */
+	public static int getLevel(float scale) {
+		for (int level = LEVEL_COUNT; level > 0; level--)
+			if (scale <= LEVEL_SCALES[level - 1])
+				return level;
+		return 0;
+	}
+
+	/** Returns the simplification tolerance of a level in kilometers. */
+	public static double getTolerance(int level) {
+		return level == 0 ? 0 : PIXEL_SIZE_KM / LEVEL_SCALES[level - 1];
+	}
+
+	/**
+	 * Returns unmodifiable node lists for all levels of detail, the original
+	 * nodes at index 0. Levels with the same geometry share their lists.
+	 * Closed ways with less than four nodes are reduced to empty lists.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static List<MapNode>[] simplify(List<MapNode> nodes) {
+		List<MapNode>[] result = new List[LEVEL_COUNT + 1];
+		result[0] = Collections.unmodifiableList(nodes);
+		byte[] levels = computeLevels(nodes);
+		for (int level = 1; level <= LEVEL_COUNT; level++) {
+			int count = getNodeCount(nodes, levels, 0, level);
+			if (count == 0) {
+				result[level] = Collections.emptyList();
+			} else if (count == result[level - 1].size()) {
+				result[level] = result[level - 1];
+			} else {
+				MapNode[] selected = new MapNode[count];
+				int i = 0;
+				for (int n = 0; n < levels.length; n++)
+					if (levels[n] >= level)
+						selected[i++] = nodes.get(n);
+				result[level] = Collections.unmodifiableList(Arrays.asList(selected));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns for each node the coarsest level of detail which still contains
+	 * the node. So a node is part of the simplified geometry of level l if its
+	 * value is at least l. End nodes get value {@link #LEVEL_COUNT}.
+	 */
+	public static byte[] computeLevels(List<MapNode> nodes) {
+		double[] significance = computeSignificance(nodes);
+		byte[] result = new byte[significance.length];
+		for (int n = 0; n < significance.length; n++) {
+			int level = 0;
+			while (level < LEVEL_COUNT && significance[n] >= getTolerance(level + 1))
+				level++;
+			result[n] = (byte) level;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of nodes of a simplified geometry, given the node
+	 * levels computed by {@link #computeLevels(List)} at the specified offset.
+	 * Closed ways with less than four nodes count as empty.
+	 */
+	public static int getNodeCount(List<MapNode> nodes, byte[] levels, int offset, int level) {
+		int size = nodes.size();
+		int count = 0;
+		for (int n = offset; n < offset + size; n++)
+			if (levels[n] >= level)
+				count++;
+		if (level > 0 && count < 4 && size > 1 && nodes.get(0).equals(nodes.get(size - 1)))
+			count = 0;
+		return count;
+	}
+
+	/**
+	 * Returns the Douglas-Peucker significance of each node in kilometers.
+	 * End nodes are always kept.
+	 */
+	private static double[] computeSignificance(List<MapNode> nodes) {
+		int size = nodes.size();
+		double[] result = new double[size];
+		if (size == 0)
+			return result;
+		// equirectangular projection around the first node, in kilometers
+		double[] x = new double[size];
+		double[] y = new double[size];
+		double lonCorr = Math.cos(Math.toRadians(nodes.get(0).getLat()));
+		for (int i = 0; i < size; i++) {
+			x[i] = nodes.get(i).getLon() * lonCorr * KM_PER_DEG;
+			y[i] = nodes.get(i).getLat() * KM_PER_DEG;
+		}
+		result[0] = Double.POSITIVE_INFINITY;
+		result[size - 1] = Double.POSITIVE_INFINITY;
+
+		// segments to be split, each one with the significance of its split node
+		int[] from = new int[size];
+		int[] to = new int[size];
+		double[] limit = new double[size];
+		int top = 0;
+		from[top] = 0;
+		to[top] = size - 1;
+		limit[top++] = Double.POSITIVE_INFINITY;
+		while (top > 0) {
+			top--;
+			int first = from[top];
+			int last = to[top];
+			double maxDist = -1;
+			int split = -1;
+			for (int i = first + 1; i < last; i++) {
+				double dist = getSegmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+				if (dist > maxDist) {
+					maxDist = dist;
+					split = i;
+				}
+			}
+			if (split != -1) {
+				result[split] = Math.min(maxDist, limit[top]);
+				from[top] = first;
+				to[top] = split;
+				limit[top++] = result[split];
+				from[top] = split;
+				to[top] = last;
+				limit[top++] = result[split];
+			}
+		}
+		return result;
+	}
+
+	/** Returns the distance of point p from the segment between a and b. */
+	private static double getSegmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+		double dx = bx - ax;
+		double dy = by - ay;
+		double lengthSq = dx * dx + dy * dy;
+		double t = lengthSq > 0 ? ((px - ax) * dx + (py - ay) * dy) / lengthSq : 0;
+		t = Math.max(0, Math.min(1, t));
+		return Math.hypot(px - ax - t * dx, py - ay - t * dy);
+	}
+}
@@ -107,6 +107,12 @@ public class ExtendedRouteFindingAgentOsmApp extends RouteFindingAgentOsmApp {
 		DefaultEntityViewInfo highlightProp = new MapStyleFactory().createPoiInfo(0, 0, 5, UColor.GREEN,
 				MapStyleFactory.createRectangle(4, UColor.GREEN), false);
 
+		/** Highlighting changes while searching, so tiles must not be reused. */
+		@Override
+		public boolean isRenderingCacheable() {
+			return false;
+		}
+
 		@Override
 		public void printWay(MapWay way, DefaultEntityViewInfo eprop, boolean asArea) {
 			super.printWay(way, eprop, asArea);
@@ -8,12 +8,15 @@ import aimax.osm.data.entities.WayRef;
 import aimax.osm.data.impl.DefaultMap;
 import aimax.osm.viewer.AbstractEntityRenderer;
 import aimax.osm.viewer.CoordTransformer;
-import aimax.osm.viewer.UnifiedMapDrawer;
+import aimax.osm.viewer.TiledMapDrawer;
+import aimax.osm.viewer.UnifiedImageBuilder;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.input.*;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
+import javafx.scene.shape.Rectangle;
 
 import java.io.File;
 import java.io.InputStream;
@@ -22,21 +25,42 @@ import java.util.List;
 import java.util.Optional;
 
 /**
+ * Controller for a pane which shows a map. The map is rendered in tiles by a
+ * {@link TiledMapDrawer}. Tiles are shown as canvas nodes in a tile layer,
+ * markers and tracks are drawn on an overlay canvas on top.
+ *
  * Created by rlunde on 28.10.2016.
  */
 public class MapPaneCtrl {
 
     private StackPane pane;
+    private Pane tileLayer;
     private Canvas currCanvas;
-    private Canvas osCanvas;
 
-    private UnifiedMapDrawer<Canvas> mapDrawer;
+    private TiledMapDrawer<Canvas> mapDrawer;
     private boolean scaleToFit = true;
 
     public MapPaneCtrl(StackPane pane) {
         this.pane = pane;
-        mapDrawer = new UnifiedMapDrawer<Canvas>(new FXImageBuilder(), createMap());
-        mapDrawer.getMap().addMapDataEventListener(ev -> update());
+        mapDrawer = new TiledMapDrawer<Canvas>(new FXImageBuilder(), createMap(),
+                new TiledMapDrawer.TileFactory<Canvas>() {
+                    @Override
+                    public Canvas createImage(int width, int height) {
+                        return new Canvas(width, height);
+                    }
+
+                    @Override
+                    public UnifiedImageBuilder<Canvas> createImageBuilder() {
+                        return new FXImageBuilder();
+                    }
+                });
+        mapDrawer.getMap().addMapDataEventListener(ev -> { mapDrawer.mapChanged(ev); update(); });
+        tileLayer = new Pane();
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(pane.widthProperty());
+        clip.heightProperty().bind(pane.heightProperty());
+        tileLayer.setClip(clip);
+        pane.getChildren().add(tileLayer);
         pane.widthProperty().addListener((obs, o, n) -> { scaleToFit = true; update(); });
         pane.heightProperty().addListener((obs, o, n) -> { scaleToFit = true; update(); });
         pane.setOnMouseEntered(ev -> {if (currCanvas != null) currCanvas.requestFocus();});
@@ -73,18 +97,19 @@ public class MapPaneCtrl {
     public CoordTransformer getTransformer() { return mapDrawer.getTransformer(); }
 
     public void update() {
-        Canvas canvas = osCanvas;
-        if (canvas == null
-                || Math.abs(canvas.getWidth() - pane.getWidth()) > 0.01
-                || Math.abs(canvas.getHeight() - pane.getHeight()) > 0.1) {
-            canvas = new Canvas(pane.getWidth(), pane.getHeight());
-            canvas.setFocusTraversable(true);
+        List<Canvas> tileCanvases = new ArrayList<>();
+        for (TiledMapDrawer.Tile<Canvas> tile : mapDrawer.updateTiles((int) pane.getWidth(),
+                (int) pane.getHeight(), scaleToFit)) {
+            tile.getImage().relocate(tile.getViewX(), tile.getViewY());
+            tileCanvases.add(tile.getImage());
         }
-        mapDrawer.drawMap(canvas, scaleToFit);
+        tileLayer.getChildren().setAll(tileCanvases);
+        Canvas canvas = new Canvas(pane.getWidth(), pane.getHeight());
+        canvas.setFocusTraversable(true);
+        mapDrawer.drawOverlay(canvas);
+        if (currCanvas != null)
+            pane.getChildren().remove(currCanvas);
         pane.getChildren().add(canvas);
-        if (pane.getChildren().size() > 1)
-            pane.getChildren().remove(0);
-        osCanvas = currCanvas;
         currCanvas = canvas;
         scaleToFit = false;
     }
@@ -141,7 +166,7 @@ public class MapPaneCtrl {
             } else if (event.getButton() == MouseButton.SECONDARY) {
                 getMap().clearMarkersAndTracks();
             } else if (event.getButton() == MouseButton.MIDDLE) {
-                MapNode mNode = getRenderer().getNextNode((int) event.getX(), (int) event.getY());
+                MapNode mNode = mapDrawer.getNextNode((int) event.getX(), (int) event.getY());
                 if (mNode != null)
                     showMapEntityInfoDialog(mNode, true);
             }
@@ -33,8 +33,8 @@ import aimax.osm.data.OsmMap;
 import aimax.osm.data.entities.EntityViewInfo;
 import aimax.osm.data.entities.MapNode;
 import aimax.osm.data.impl.DefaultMap;
-import aimax.osm.reader.Bz2OsmReader;
 import aimax.osm.reader.MapReader;
+import aimax.osm.reader.PipelinedOsmReader;
 import aimax.osm.viewer.MapStyleFactory;
 import aimax.osm.writer.Bz2OsmWriter;
 import aimax.osm.writer.MapWriter;
@@ -101,7 +101,7 @@ public class MapViewFrame extends JFrame implements ActionListener {
 			}
 		});
 		fileChooser = new JFileChooser();
-		setMapReader(new Bz2OsmReader());
+		setMapReader(new PipelinedOsmReader());
 		setMapWriter(new Bz2OsmWriter());
 
 		JPanel contentPanel = new JPanel();
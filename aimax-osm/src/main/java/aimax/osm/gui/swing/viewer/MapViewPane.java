@@ -6,6 +6,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
@@ -25,6 +26,7 @@ import aimax.osm.data.MapEvent;
 import aimax.osm.data.MapEventListener;
 import aimax.osm.data.OsmMap;
 import aimax.osm.data.Position;
+import aimax.osm.data.impl.DefaultMap;
 import aimax.osm.data.entities.EntityAttribute;
 import aimax.osm.data.entities.MapEntity;
 import aimax.osm.data.entities.MapNode;
@@ -35,7 +37,9 @@ import aimax.osm.viewer.*;
  * Provides a panel which visualizes map data. As model, an
  * {@link OsmMap} is used. The panel reacts on user events
  * and visualizes currently visible map entities as image. For details about
- * image creation see method {@link #updateOffScreenImage()}.
+ * image creation see method {@link #updateOffScreenImage()}. The map is
+ * rendered in tiles by a {@link TiledMapDrawer}, so panning and zooming back
+ * reuse previously rendered parts.
  * <p>
  * Hint for using the viewer: Try Mouse-Left, Mouse-Right, Mouse-Drag,
  * Ctrl-Mouse-Left, Plus, Minus, Ctrl-Plus, Ctrl-Minus, arrow buttons, and also
@@ -58,7 +62,7 @@ public class MapViewPane extends JComponent implements MapEventListener {
 			+ "|Add a node to a path: Ctrl-Mouse-Left"
 			+ "|Open a context menu: Mouse-Right";
 
-	private UnifiedMapDrawer<Image> imageUpdater;
+	private TiledMapDrawer<Image> imageUpdater;
 	private ArrayList<MapViewEventListener> eventListeners;
 	protected boolean isAdjusted;
 	protected JPopupMenu popup;
@@ -67,7 +71,18 @@ public class MapViewPane extends JComponent implements MapEventListener {
 	private boolean isImageUpToDate;
 
 	public MapViewPane() {
-		imageUpdater = new UnifiedMapDrawer<Image>(new AWTImageBuilder());
+		imageUpdater = new TiledMapDrawer<Image>(new AWTImageBuilder(), new DefaultMap(),
+				new TiledMapDrawer.TileFactory<Image>() {
+					@Override
+					public Image createImage(int width, int height) {
+						return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+					}
+
+					@Override
+					public UnifiedImageBuilder<Image> createImageBuilder() {
+						return new AWTImageBuilder();
+					}
+				});
 		imageUpdater.getTransformer().setScreenResolution(Toolkit.getDefaultToolkit()
 				.getScreenResolution()); // doesn't work...
 		eventListeners = new ArrayList<MapViewEventListener>();
@@ -249,6 +264,14 @@ public class MapViewPane extends JComponent implements MapEventListener {
 		getMap().fireMapDataEvent(new MapEvent(getMap(), MapEvent.Type.MAP_MODIFIED));
 	}
 
+	/**
+	 * Returns the visible map node which is the nearest with respect to the
+	 * specified view coordinates.
+	 */
+	public MapNode getNextNode(int x, int y) {
+		return imageUpdater.getNextNode(x, y);
+	}
+
 	/**
 	 * Finds the visible entity next to the specified view coordinates and shows
 	 * informations about it.
@@ -326,11 +349,19 @@ public class MapViewPane extends JComponent implements MapEventListener {
 
 	/**
 	 * Creates a new image for the currently visible part of the map and updates
-	 * attribute {@link #image}.
+	 * attribute {@link #image}. The image is composed of map tiles, markers
+	 * and tracks are drawn on top.
 	 */
 	protected void updateOffScreenImage() {
 		Image image = createImage(getWidth(), getHeight());
-		imageUpdater.drawMap(image, !isAdjusted);
+		Graphics g = image.getGraphics();
+		UColor bg = getRenderer().getBackgroundColor();
+		g.setColor(new Color(bg.getRed(), bg.getGreen(), bg.getBlue(), bg.getAlpha()));
+		g.fillRect(0, 0, getWidth(), getHeight());
+		for (TiledMapDrawer.Tile<Image> tile : imageUpdater.updateTiles(getWidth(), getHeight(), !isAdjusted))
+			g.drawImage(tile.getImage(), tile.getViewX(), tile.getViewY(), null);
+		g.dispose();
+		imageUpdater.drawOverlay(image);
 		this.image = image;
 		if (getWidth() > 0 && getMap() != null)
 			isAdjusted = true;
@@ -380,9 +411,11 @@ public class MapViewPane extends JComponent implements MapEventListener {
 	@Override
 	public void eventHappened(MapEvent event) {
 		if (event.getType() == MapEvent.Type.MAP_NEW) {
+			imageUpdater.mapChanged(event);
 			adjustToFit();
 			fireMapViewEvent(new MapViewEvent(this, MapViewEvent.Type.NEW_MAP));
 		} else {
+			imageUpdater.mapChanged(event);
 			isImageUpToDate = false;
 			repaint();
 		}
@@ -421,7 +454,7 @@ public class MapViewPane extends JComponent implements MapEventListener {
 							MapViewEvent.Type.MARKER_ADDED));
 				} else { // double click
 					getMap().removeMarker(marker);
-					MapNode mNode = getRenderer().getNextNode(e.getX(), e.getY());
+					MapNode mNode = getNextNode(e.getX(), e.getY());
 					if (mNode != null)
 						showMapEntityInfoDialog(mNode,
 								getRenderer().isDebugModeEnabled());
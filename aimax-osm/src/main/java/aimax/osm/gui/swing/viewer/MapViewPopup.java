@@ -97,7 +97,7 @@ public class MapViewPopup extends JPopupMenu implements ActionListener {
 	@Override
 	public void actionPerformed(ActionEvent ae) {
 		if (ae.getSource() == entityInfoMenuItem) {
-			MapNode mNode = pane.getRenderer().getNextNode(x, y);
+			MapNode mNode = pane.getNextNode(x, y);
 			if (mNode != null)
 				pane.showMapEntityInfoDialog(mNode, pane.isDebugModeEnabled());
 		} else if (ae.getSource() == clearMenuItem) {
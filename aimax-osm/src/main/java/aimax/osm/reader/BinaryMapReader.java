@@ -0,0 +1,207 @@
+package aimax.osm.reader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.EntityClassifier;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.impl.DefaultMapNode;
+import aimax.osm.data.impl.DefaultMapWay;
+
+/**
+ * Reads maps from binary snapshots (see {@link MapSnapshot}), which are
+ * written by {@link aimax.osm.writer.BinaryMapWriter}. Files are mapped into
+ * memory, so no parsing is needed and only the accessed parts of the file are
+ * loaded. Filters are applied before entities are passed to the builder:
+ * Bounding box filters only inspect nodes of intersecting tiles and ways with
+ * intersecting bounding boxes, and the nodes of accepted ways are found by
+ * index. So in contrast to the XML readers, one pass suffices in all filter
+ * modes.
+ * <br>
+ * Applications which do not need map entity objects can use
+ * {@link #openSnapshot(File)} to access the data without deserialization.
+ * Snapshots are limited to 2 GB.
+ */
+public class BinaryMapReader implements MapReader {
+	public static final String FILE_EXTENSION = "aimap";
+
+	protected static Logger LOG = Logger.getLogger("aimax.osm");
+	private BoundingBox boundingBox;
+	private EntityClassifier<Boolean> attFilter;
+
+	/**
+	 * Maps the file into memory and returns a view of it. The mapping remains
+	 * valid after the file channel has been closed.
+	 */
+	public static MapSnapshot openSnapshot(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new MapSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Sets a bounding box for the next read action from file. Map nodes which
+	 * are not inside will be ignored unless they belong to a way with nodes
+	 * inside.
+	 */
+	@Override
+	public void setFilter(BoundingBox bb) {
+		boundingBox = bb;
+		attFilter = null;
+	}
+
+	/**
+	 * Sets an attribute filter for the next read action from file. Map
+	 * entities for which the classifier returns null will be ignored.
+	 */
+	@Override
+	public void setFilter(EntityClassifier<Boolean> attFilter) {
+		this.attFilter = attFilter;
+		boundingBox = null;
+	}
+
+	/**
+	 * Reads all data from the file and sends it to the builder.
+	 *
+	 * @throws OsmRuntimeException
+	 *             if the file cannot be read or is not a valid snapshot
+	 */
+	@Override
+	public void readMap(File file, MapBuilder builder) {
+		try {
+			readMap(openSnapshot(file), builder);
+		} catch (NoSuchFileException e) {
+			throw new OsmRuntimeException("File " + file + " does not exist.", e);
+		} catch (IOException e) {
+			throw new OsmRuntimeException("Unable to read map snapshot " + file + ".", e);
+		} finally {
+			boundingBox = null;
+			attFilter = null;
+		}
+	}
+
+	/** Reads the complete stream into memory and sends the data to the builder. */
+	@Override
+	public void readMap(InputStream is, MapBuilder builder) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] chunk = new byte[65536];
+			int count;
+			while ((count = is.read(chunk)) != -1)
+				bytes.write(chunk, 0, count);
+			readMap(new MapSnapshot(ByteBuffer.wrap(bytes.toByteArray())), builder);
+		} catch (IOException e) {
+			throw new OsmRuntimeException("Unable to read map snapshot from input stream.", e);
+		} finally {
+			boundingBox = null;
+			attFilter = null;
+			try {
+				is.close();
+			} catch (IOException e) {
+				LOG.log(Level.SEVERE, "Unable to close input stream.", e);
+			}
+		}
+	}
+
+	/**
+	 * Sends all nodes and ways of the snapshot which pass the current filter
+	 * to the builder. Nodes are added before ways, so that ways only refer to
+	 * defined nodes.
+	 */
+	protected void readMap(MapSnapshot snapshot, MapBuilder builder) {
+		BitSet selectedNodes = new BitSet(snapshot.getNodeCount());
+		BitSet selectedWays = new BitSet(snapshot.getWayCount());
+		if (boundingBox != null) {
+			builder.setBoundingBox(boundingBox);
+			selectByBoundingBox(snapshot, selectedNodes, selectedWays);
+		} else {
+			builder.setBoundingBox(snapshot.getBoundingBox());
+			if (attFilter != null) {
+				selectByAttributes(snapshot, selectedNodes, selectedWays);
+			} else {
+				selectedNodes.set(0, snapshot.getNodeCount());
+				selectedWays.set(0, snapshot.getWayCount());
+			}
+		}
+		for (int node = selectedNodes.nextSetBit(0); node >= 0; node = selectedNodes.nextSetBit(node + 1))
+			builder.addNode(snapshot.getNodeId(node), snapshot.getNodeName(node), snapshot.getNodeAttributes(node),
+					snapshot.getNodeLat(node), snapshot.getNodeLon(node));
+		List<Long> wayNodeIds = new ArrayList<Long>();
+		for (int way = selectedWays.nextSetBit(0); way >= 0; way = selectedWays.nextSetBit(way + 1)) {
+			wayNodeIds.clear();
+			for (int i = 0; i < snapshot.getWayNodeCount(way); i++)
+				wayNodeIds.add(snapshot.getNodeId(snapshot.getWayNode(way, i)));
+			builder.addWay(snapshot.getWayId(way), snapshot.getWayName(way), snapshot.getWayAttributes(way),
+					wayNodeIds);
+		}
+	}
+
+	/** Selects the nodes inside the box, all ways with such nodes, and their nodes. */
+	private void selectByBoundingBox(MapSnapshot snapshot, BitSet selectedNodes, BitSet selectedWays) {
+		BitSet insideNodes = new BitSet(snapshot.getNodeCount());
+		for (int tile = 0; tile < snapshot.getTileCount(); tile++) {
+			if (snapshot.tileIntersects(tile, boundingBox)) {
+				int first = snapshot.getTileFirstNode(tile);
+				for (int node = first; node < first + snapshot.getTileNodeCount(tile); node++)
+					if (boundingBox.isInside(snapshot.getNodeLat(node), snapshot.getNodeLon(node)))
+						insideNodes.set(node);
+			}
+		}
+		selectedNodes.or(insideNodes);
+		for (int way = 0; way < snapshot.getWayCount(); way++) {
+			if (snapshot.wayIntersects(way, boundingBox)) {
+				int count = snapshot.getWayNodeCount(way);
+				for (int i = 0; i < count; i++) {
+					if (insideNodes.get(snapshot.getWayNode(way, i))) {
+						selectWay(snapshot, way, selectedNodes, selectedWays);
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/** Selects all entities accepted by the attribute filter and the nodes of the selected ways. */
+	private void selectByAttributes(MapSnapshot snapshot, BitSet selectedNodes, BitSet selectedWays) {
+		for (int node = 0; node < snapshot.getNodeCount(); node++) {
+			DefaultMapNode entity = new DefaultMapNode(snapshot.getNodeId(node));
+			entity.setAttributes(snapshot.getNodeAttributes(node));
+			if (attFilter.classify(entity) != null)
+				selectedNodes.set(node);
+		}
+		for (int way = 0; way < snapshot.getWayCount(); way++) {
+			DefaultMapWay entity = new DefaultMapWay(snapshot.getWayId(way));
+			entity.setAttributes(snapshot.getWayAttributes(way));
+			if (attFilter.classify(entity) != null)
+				selectWay(snapshot, way, selectedNodes, selectedWays);
+		}
+	}
+
+	private void selectWay(MapSnapshot snapshot, int way, BitSet selectedNodes, BitSet selectedWays) {
+		selectedWays.set(way);
+		for (int i = 0; i < snapshot.getWayNodeCount(way); i++)
+			selectedNodes.set(snapshot.getWayNode(way, i));
+	}
+
+	@Override
+	public String[] fileFormatDescriptions() {
+		return new String[] { "Map Snapshot (" + FILE_EXTENSION + ")" };
+	}
+
+	@Override
+	public String[] fileFormatExtensions() {
+		return new String[] { FILE_EXTENSION };
+	}
+}
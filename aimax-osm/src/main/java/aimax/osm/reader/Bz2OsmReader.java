@@ -7,17 +7,21 @@ import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 
+import aimax.osm.data.MapBuilder;
+
 /** 
  * Adds bz2 extraction functionality to the <code>FilteringOsmReader</code>.
  * The implementation uses the Apache Commons Compress library
  * (see http://commons.apache.org/compress/). Please add the
  * corresponding jar file to your class path, otherwise the
- * unpack functionality will not be available.
+ * unpack functionality will not be available. Binary map snapshots
+ * are read by a {@link BinaryMapReader}.
  * @author Ruediger Lunde
  */
 public class Bz2OsmReader extends FilteringOsmReader {
 
 	private Class<?> compressorClass;
+	private BinaryMapReader snapshotReader = new BinaryMapReader();
 	
 	/**
 	 * Tries to find the <code>BZip2CompressorInputStream</code> class using
@@ -32,6 +36,25 @@ public class Bz2OsmReader extends FilteringOsmReader {
 		}
 	}
 	
+	/**
+	 * Reads map snapshots with the binary reader and all other files as
+	 * (possibly compressed) XML.
+	 */
+	@Override
+	public void readMap(File file, MapBuilder builder) {
+		if (file.getName().endsWith("." + BinaryMapReader.FILE_EXTENSION)) {
+			if (boundingBox != null)
+				snapshotReader.setFilter(boundingBox);
+			else if (attFilter != null)
+				snapshotReader.setFilter(attFilter);
+			boundingBox = null;
+			attFilter = null;
+			snapshotReader.readMap(file, builder);
+		} else {
+			super.readMap(file, builder);
+		}
+	}
+	
 	@SuppressWarnings("resource")
 	protected InputStream createFileStream(File file) throws Exception {
 		InputStream result = new BufferedInputStream(new FileInputStream(file));
@@ -50,15 +73,16 @@ public class Bz2OsmReader extends FilteringOsmReader {
 	
 	public String[] fileFormatDescriptions() {
 		if (compressorClass != null)
-			return new String[] {"OSM File (osm)", "OSM BZip2 (osm.bz2)"};
+			return new String[] {"OSM File (osm)", "OSM BZip2 (osm.bz2)",
+					snapshotReader.fileFormatDescriptions()[0]};
 		else
-			return new String[] {"OSM File (osm)"};
+			return new String[] {"OSM File (osm)", snapshotReader.fileFormatDescriptions()[0]};
 	}
 	
 	public String[] fileFormatExtensions() {
 		if (compressorClass != null)
-			return new String[] {"osm", "bz2"};
+			return new String[] {"osm", "bz2", BinaryMapReader.FILE_EXTENSION};
 		else
-			return new String[] {"osm"};
+			return new String[] {"osm", BinaryMapReader.FILE_EXTENSION};
 	}
 }
@@ -0,0 +1,226 @@
+package aimax.osm.reader;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.entities.EntityAttribute;
+
+/**
+ * Read-only view of a binary map snapshot (see {@link BinaryMapReader} and
+ * {@link aimax.osm.writer.BinaryMapWriter}). All data is accessed directly
+ * in the underlying buffer, which is normally a memory-mapped file. So
+ * opening a snapshot costs nearly nothing, and only those parts of the file
+ * are loaded by the operating system which are actually read. Strings are
+ * decoded on first access and cached.
+ * <br>
+ * Nodes and ways are identified by their index in the snapshot. Nodes are
+ * ordered by tiles: The writer recursively splits the node set at the median
+ * of the wider dimension (kd-tree layout) until at most
+ * {@link #MAX_TILE_SIZE} nodes remain. So nodes which are close to each other
+ * on the map are also close to each other in the file, and nodes within a
+ * bounding box can be found by checking the tile bounding boxes.
+ * <br>
+ * File format (big-endian, all offsets in bytes from the beginning of the
+ * file):
+ * <pre>
+ * header:  int magic, int version, float latMin, lonMin, latMax, lonMax,
+ *          int nodeCount, wayCount, tileCount, attCount, wayNodeCount,
+ *          stringCount, long tilesPos, nodesPos, waysPos, attsPos,
+ *          wayNodesPos, stringOffsetsPos, stringDataPos
+ * tile:    float latMin, lonMin, latMax, lonMax, int firstNode, nodeCount
+ * node:    long id, float lat, lon, int name, firstAtt, attCount
+ * way:     long id, int name, firstAtt, attCount, firstWayNode,
+ *          wayNodeCount, float latMin, lonMin, latMax, lonMax
+ * att:     int key, value
+ * wayNode: int node index
+ * strings: int offsets[stringCount + 1], UTF-8 data
+ * </pre>
+ * Names, keys, and values are indices into the string dictionary (-1 if a
+ * name is missing). Instances are not thread-safe.
+ */
+public class MapSnapshot {
+	public static final int MAGIC = 0x41494D53; // "AIMS"
+	public static final int VERSION = 1;
+	/** Maximal number of nodes per tile. */
+	public static final int MAX_TILE_SIZE = 1024;
+
+	public static final int HEADER_SIZE = 2 * 4 + 4 * 4 + 6 * 4 + 7 * 8;
+	public static final int TILE_SIZE = 4 * 4 + 2 * 4;
+	public static final int NODE_SIZE = 8 + 2 * 4 + 3 * 4;
+	public static final int WAY_SIZE = 8 + 5 * 4 + 4 * 4;
+	public static final int ATT_SIZE = 2 * 4;
+
+	private final ByteBuffer buffer;
+	private final BoundingBox boundingBox;
+	private final int nodeCount;
+	private final int wayCount;
+	private final int tileCount;
+	private final int tilesPos;
+	private final int nodesPos;
+	private final int waysPos;
+	private final int attsPos;
+	private final int wayNodesPos;
+	private final int stringOffsetsPos;
+	private final int stringDataPos;
+	private final String[] strings;
+
+	/**
+	 * Creates a view of the snapshot in the buffer. Only the header is read.
+	 *
+	 * @throws OsmRuntimeException
+	 *             if the buffer does not contain a snapshot of the supported
+	 *             version.
+	 */
+	public MapSnapshot(ByteBuffer buffer) {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new OsmRuntimeException("Data is not a binary map snapshot.");
+		if (buffer.getInt(4) != VERSION)
+			throw new OsmRuntimeException("Unsupported map snapshot version " + buffer.getInt(4) + ".");
+		boundingBox = new BoundingBox(buffer.getFloat(8), buffer.getFloat(12), buffer.getFloat(16),
+				buffer.getFloat(20));
+		nodeCount = buffer.getInt(24);
+		wayCount = buffer.getInt(28);
+		tileCount = buffer.getInt(32);
+		strings = new String[buffer.getInt(44)];
+		tilesPos = (int) buffer.getLong(48);
+		nodesPos = (int) buffer.getLong(56);
+		waysPos = (int) buffer.getLong(64);
+		attsPos = (int) buffer.getLong(72);
+		wayNodesPos = (int) buffer.getLong(80);
+		stringOffsetsPos = (int) buffer.getLong(88);
+		stringDataPos = (int) buffer.getLong(96);
+	}
+
+	/** Returns the bounding box of the map from which the snapshot was created. */
+	public BoundingBox getBoundingBox() {
+		return boundingBox;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getWayCount() {
+		return wayCount;
+	}
+
+	public int getTileCount() {
+		return tileCount;
+	}
+
+	// tiles
+
+	public BoundingBox getTileBoundingBox(int tile) {
+		int pos = tilesPos + tile * TILE_SIZE;
+		return new BoundingBox(buffer.getFloat(pos), buffer.getFloat(pos + 4), buffer.getFloat(pos + 8),
+				buffer.getFloat(pos + 12));
+	}
+
+	/** Checks whether the bounding box of the tile intersects with the given box. */
+	public boolean tileIntersects(int tile, BoundingBox bb) {
+		return intersects(tilesPos + tile * TILE_SIZE, bb);
+	}
+
+	/** Returns the index of the first node of the tile. */
+	public int getTileFirstNode(int tile) {
+		return buffer.getInt(tilesPos + tile * TILE_SIZE + 16);
+	}
+
+	public int getTileNodeCount(int tile) {
+		return buffer.getInt(tilesPos + tile * TILE_SIZE + 20);
+	}
+
+	// nodes
+
+	public long getNodeId(int node) {
+		return buffer.getLong(nodesPos + node * NODE_SIZE);
+	}
+
+	public float getNodeLat(int node) {
+		return buffer.getFloat(nodesPos + node * NODE_SIZE + 8);
+	}
+
+	public float getNodeLon(int node) {
+		return buffer.getFloat(nodesPos + node * NODE_SIZE + 12);
+	}
+
+	/** Returns the name of the node or null. */
+	public String getNodeName(int node) {
+		return getString(buffer.getInt(nodesPos + node * NODE_SIZE + 16));
+	}
+
+	public List<EntityAttribute> getNodeAttributes(int node) {
+		int pos = nodesPos + node * NODE_SIZE + 20;
+		return getAttributes(buffer.getInt(pos), buffer.getInt(pos + 4));
+	}
+
+	// ways
+
+	public long getWayId(int way) {
+		return buffer.getLong(waysPos + way * WAY_SIZE);
+	}
+
+	/** Returns the name of the way or null. */
+	public String getWayName(int way) {
+		return getString(buffer.getInt(waysPos + way * WAY_SIZE + 8));
+	}
+
+	public List<EntityAttribute> getWayAttributes(int way) {
+		int pos = waysPos + way * WAY_SIZE + 12;
+		return getAttributes(buffer.getInt(pos), buffer.getInt(pos + 4));
+	}
+
+	public int getWayNodeCount(int way) {
+		return buffer.getInt(waysPos + way * WAY_SIZE + 24);
+	}
+
+	/** Returns the node index of the i-th node of the way. */
+	public int getWayNode(int way, int i) {
+		int first = buffer.getInt(waysPos + way * WAY_SIZE + 20);
+		return buffer.getInt(wayNodesPos + 4 * (first + i));
+	}
+
+	/** Checks whether the bounding box of the way intersects with the given box. */
+	public boolean wayIntersects(int way, BoundingBox bb) {
+		return intersects(waysPos + way * WAY_SIZE + 28, bb);
+	}
+
+	// strings and attributes
+
+	/** Returns the string with the specified dictionary index or null for index -1. */
+	public String getString(int idx) {
+		if (idx == -1)
+			return null;
+		String result = strings[idx];
+		if (result == null) {
+			int start = buffer.getInt(stringOffsetsPos + 4 * idx);
+			int end = buffer.getInt(stringOffsetsPos + 4 * (idx + 1));
+			byte[] bytes = new byte[end - start];
+			// cast for compatibility with Java 8, where position() is not overridden by ByteBuffer
+			((Buffer) buffer).position(stringDataPos + start);
+			buffer.get(bytes);
+			result = new String(bytes, StandardCharsets.UTF_8);
+			strings[idx] = result;
+		}
+		return result;
+	}
+
+	private List<EntityAttribute> getAttributes(int first, int count) {
+		List<EntityAttribute> result = new ArrayList<EntityAttribute>(count);
+		for (int i = first; i < first + count; i++) {
+			int pos = attsPos + i * ATT_SIZE;
+			result.add(new EntityAttribute(getString(buffer.getInt(pos)), getString(buffer.getInt(pos + 4))));
+		}
+		return result;
+	}
+
+	private boolean intersects(int bbPos, BoundingBox bb) {
+		return buffer.getFloat(bbPos) <= bb.getLatMax() && buffer.getFloat(bbPos + 4) <= bb.getLonMax()
+				&& buffer.getFloat(bbPos + 8) >= bb.getLatMin() && buffer.getFloat(bbPos + 12) >= bb.getLonMin();
+	}
+}
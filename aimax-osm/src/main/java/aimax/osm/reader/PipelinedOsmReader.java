@@ -0,0 +1,487 @@
+package aimax.osm.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+import javax.xml.parsers.SAXParser;
+
+import org.xml.sax.SAXException;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.EntityClassifier;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.EntityAttribute;
+import aimax.osm.data.entities.EntityViewInfo;
+
+/**
+ * OSM reader which processes map files in three pipelined stages, each
+ * running in its own thread:
+ * <ol>
+ * <li>Decompression: Reads (and, for bz2 files, decompresses) the input in
+ * chunks of 64 KB.</li>
+ * <li>Tokenizing: Parses the chunks with a SAX parser and the usual element
+ * processors, and collects nodes and ways in batches of primitive arrays
+ * instead of passing them to the builder one by one.</li>
+ * <li>Building: Passes the batched entities to the map builder. This stage
+ * runs in the calling thread, so builders need not be thread-safe.</li>
+ * </ol>
+ * Stages are connected by bounded queues, so memory consumption does not
+ * depend on the size of the file, and a slow stage blocks its predecessors.
+ * For compressed files, decompression, parsing, and map building overlap, so
+ * up to three cores are used. Filters work as in {@link FilteringOsmReader}
+ * because they are applied in the building stage.
+ * <br>
+ * After each parser run, throughput and waiting times of all stages are
+ * logged and can be obtained by {@link #getStatistics()}.
+ */
+public class PipelinedOsmReader extends Bz2OsmReader {
+	private static final int CHUNK_SIZE = 1 << 16;
+	private static final int BATCH_SIZE = 1024;
+	private static final int QUEUE_CAPACITY = 16;
+
+	private volatile List<StageStatistics> statistics = Collections.emptyList();
+
+	/** Returns the statistics of the last parser run (one entry per stage). */
+	public List<StageStatistics> getStatistics() {
+		return statistics;
+	}
+
+	/** Parses the input with a pipeline of three threads. */
+	@Override
+	protected void parseMap(InputStream inputStream, MapBuilder consumer) throws SAXException, IOException {
+		Pipeline pipeline = new Pipeline(inputStream, consumer);
+		try {
+			pipeline.run();
+		} finally {
+			statistics = Collections.unmodifiableList(Arrays.asList(pipeline.decompression,
+					pipeline.tokenizing, pipeline.building));
+			for (StageStatistics stats : statistics)
+				LOG.info(stats.toString());
+		}
+	}
+
+	/** Throughput information for one pipeline stage. */
+	public static class StageStatistics {
+		private final String name;
+		private long elements;
+		private long bytes;
+		private long startNanos;
+		private long endNanos;
+		private long waitingNanos;
+
+		StageStatistics(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/** Returns the number of processed entities (or chunks for decompression). */
+		public long getElements() {
+			return elements;
+		}
+
+		/** Returns the number of processed (uncompressed) bytes, 0 for the building stage. */
+		public long getBytes() {
+			return bytes;
+		}
+
+		public long getTimeMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+		}
+
+		/** Returns the time during which the stage waited for input or for space in its output queue. */
+		public long getWaitingTimeMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(waitingNanos);
+		}
+
+		public double getElementsPerSecond() {
+			return endNanos > startNanos ? elements * 1e9 / (endNanos - startNanos) : 0;
+		}
+
+		public double getMegabytesPerSecond() {
+			return endNanos > startNanos ? bytes * 1e9 / (endNanos - startNanos) / (1 << 20) : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %d elements (%.0f/s), %.1f MB (%.1f MB/s), time=%dms, waiting=%dms", name,
+					elements, getElementsPerSecond(), bytes / (double) (1 << 20), getMegabytesPerSecond(),
+					getTimeMillis(), getWaitingTimeMillis());
+		}
+	}
+
+	/** State of one parser run. */
+	private class Pipeline {
+		final InputStream inputStream;
+		final MapBuilder consumer;
+		final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<byte[]>(QUEUE_CAPACITY);
+		final BlockingQueue<ElementBatch> batches = new ArrayBlockingQueue<ElementBatch>(QUEUE_CAPACITY);
+		final byte[] endOfChunks = new byte[0];
+		final ElementBatch endOfBatches = new ElementBatch(ElementBatch.BOUND);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final StageStatistics decompression = new StageStatistics("decompression");
+		final StageStatistics tokenizing = new StageStatistics("tokenizing");
+		final StageStatistics building = new StageStatistics("building");
+
+		Pipeline(InputStream inputStream, MapBuilder consumer) {
+			this.inputStream = inputStream;
+			this.consumer = consumer;
+		}
+
+		void run() throws SAXException, IOException {
+			Thread decompressor = new Thread(this::decompress, "osm-decompression");
+			Thread tokenizer = new Thread(this::tokenize, "osm-tokenizing");
+			decompressor.setDaemon(true);
+			tokenizer.setDaemon(true);
+			decompressor.start();
+			tokenizer.start();
+			try {
+				build();
+			} catch (RuntimeException e) {
+				fail(e);
+			} finally {
+				try {
+					decompressor.join();
+					tokenizer.join();
+				} catch (InterruptedException e) {
+					fail(e);
+					Thread.currentThread().interrupt();
+				}
+			}
+			Throwable t = failure.get();
+			if (t instanceof SAXException)
+				throw (SAXException) t;
+			else if (t instanceof IOException)
+				throw (IOException) t;
+			else if (t instanceof RuntimeException)
+				throw (RuntimeException) t;
+			else if (t != null)
+				throw new OsmRuntimeException("Map reading pipeline failed.", t);
+		}
+
+		/** Stage 1, reads the input stream. */
+		void decompress() {
+			decompression.startNanos = System.nanoTime();
+			try {
+				while (!isFailed()) {
+					byte[] chunk = new byte[CHUNK_SIZE];
+					int size = 0;
+					int count;
+					while (size < CHUNK_SIZE && (count = inputStream.read(chunk, size, CHUNK_SIZE - size)) != -1)
+						size += count;
+					if (size == 0)
+						break;
+					decompression.elements++;
+					decompression.bytes += size;
+					if (!put(chunks, size < CHUNK_SIZE ? Arrays.copyOf(chunk, size) : chunk, decompression))
+						break;
+				}
+			} catch (IOException | RuntimeException e) {
+				fail(e);
+			} finally {
+				try {
+					inputStream.close();
+				} catch (IOException e) {
+					LOG.log(Level.SEVERE, "Unable to close input stream.", e);
+				}
+				put(chunks, endOfChunks, decompression);
+				decompression.endNanos = System.nanoTime();
+			}
+		}
+
+		/** Stage 2, parses the chunks and creates batches. */
+		void tokenize() {
+			tokenizing.startNanos = System.nanoTime();
+			BatchingBuilder batcher = new BatchingBuilder();
+			try {
+				SAXParser parser = createParser();
+				parser.parse(new ChunkInputStream(), new OsmHandler(batcher));
+				batcher.buildMap();
+			} catch (SAXException | IOException | RuntimeException e) {
+				fail(e);
+			} finally {
+				// drain the chunk queue so that the decompressor cannot block
+				while (chunks.poll() != null && isFailed())
+					;
+				put(batches, endOfBatches, tokenizing);
+				tokenizing.endNanos = System.nanoTime();
+			}
+		}
+
+		/** Stage 3, passes the batched entities to the consumer. */
+		void build() {
+			building.startNanos = System.nanoTime();
+			List<EntityAttribute> atts = new ArrayList<EntityAttribute>();
+			List<Long> wayNodeIds = new ArrayList<Long>();
+			try {
+				while (true) {
+					ElementBatch batch = take(batches, building);
+					if (batch == null || batch == endOfBatches)
+						break;
+					if (batch.kind == ElementBatch.BOUND) {
+						consumer.setBoundingBox(batch.boundingBox);
+						continue;
+					}
+					for (int i = 0; i < batch.size; i++) {
+						atts.clear();
+						for (int a = batch.attOffsets[i]; a < batch.attOffsets[i + 1]; a++)
+							atts.add(batch.atts[a]);
+						if (batch.kind == ElementBatch.NODES) {
+							consumer.addNode(batch.ids[i], batch.names[i], atts, batch.lats[i], batch.lons[i]);
+						} else {
+							wayNodeIds.clear();
+							for (int n = batch.wayNodeOffsets[i]; n < batch.wayNodeOffsets[i + 1]; n++)
+								wayNodeIds.add(batch.wayNodeIds[n]);
+							consumer.addWay(batch.ids[i], batch.names[i], atts, wayNodeIds);
+						}
+					}
+					building.elements += batch.size;
+				}
+			} finally {
+				building.endNanos = System.nanoTime();
+			}
+		}
+
+		boolean isFailed() {
+			return failure.get() != null;
+		}
+
+		void fail(Throwable t) {
+			failure.compareAndSet(null, t);
+		}
+
+		/** Blocks until the item is queued. Returns false if the pipeline failed before. */
+		<T> boolean put(BlockingQueue<T> queue, T item, StageStatistics stats) {
+			long start = System.nanoTime();
+			try {
+				while (!queue.offer(item, 50, TimeUnit.MILLISECONDS))
+					if (isFailed())
+						return false;
+				return true;
+			} catch (InterruptedException e) {
+				fail(e);
+				return false;
+			} finally {
+				stats.waitingNanos += System.nanoTime() - start;
+			}
+		}
+
+		/** Blocks until an item is available. Returns null if the pipeline failed before. */
+		<T> T take(BlockingQueue<T> queue, StageStatistics stats) {
+			long start = System.nanoTime();
+			try {
+				T result;
+				while ((result = queue.poll(50, TimeUnit.MILLISECONDS)) == null)
+					if (isFailed())
+						return null;
+				return result;
+			} catch (InterruptedException e) {
+				fail(e);
+				return null;
+			} finally {
+				stats.waitingNanos += System.nanoTime() - start;
+			}
+		}
+
+		/** Input stream for the parser which reads from the chunk queue. */
+		private class ChunkInputStream extends InputStream {
+			private byte[] chunk = new byte[0];
+			private int pos;
+
+			@Override
+			public int read() throws IOException {
+				return nextChunk() ? chunk[pos++] & 0xFF : -1;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if (len == 0)
+					return 0;
+				if (!nextChunk())
+					return -1;
+				int count = Math.min(len, chunk.length - pos);
+				System.arraycopy(chunk, pos, b, off, count);
+				pos += count;
+				return count;
+			}
+
+			/** Makes sure that unread bytes are available, returns false at the end of the input. */
+			private boolean nextChunk() throws IOException {
+				if (chunk == endOfChunks)
+					return false;
+				if (pos == chunk.length) {
+					chunk = take(chunks, tokenizing);
+					pos = 0;
+					if (chunk == null)
+						throw new IOException("Map reading pipeline failed.");
+					if (chunk == endOfChunks)
+						return false;
+					tokenizing.bytes += chunk.length;
+				}
+				return true;
+			}
+		}
+
+		/**
+		 * Builder for the tokenizing stage which collects the entities in
+		 * batches. Element processors ask whether entities are already
+		 * defined to skip them. This builder always says no and leaves the
+		 * decision to the consumer.
+		 */
+		private class BatchingBuilder implements MapBuilder {
+			private ElementBatch batch;
+
+			@Override
+			public void setEntityClassifier(EntityClassifier<EntityViewInfo> classifier) {
+			}
+
+			@Override
+			public void setBoundingBox(BoundingBox bb) {
+				flush();
+				ElementBatch boundBatch = new ElementBatch(ElementBatch.BOUND);
+				boundBatch.boundingBox = bb;
+				send(boundBatch);
+			}
+
+			@Override
+			public boolean isNodeDefined(long id, BoundingBox bb) {
+				return false;
+			}
+
+			@Override
+			public boolean isNodeReferenced(long id) {
+				return false;
+			}
+
+			@Override
+			public void addNode(long id, String name, List<EntityAttribute> atts, float lat, float lon) {
+				ElementBatch b = getBatch(ElementBatch.NODES);
+				b.lats[b.size] = lat;
+				b.lons[b.size] = lon;
+				b.add(id, name, atts);
+				tokenizing.elements++;
+			}
+
+			@Override
+			public boolean isWayDefined(long id) {
+				return false;
+			}
+
+			@Override
+			public void addWay(long id, String name, List<EntityAttribute> atts, List<Long> wayNodeIds) {
+				ElementBatch b = getBatch(ElementBatch.WAYS);
+				b.addWayNodes(wayNodeIds);
+				b.add(id, name, atts);
+				tokenizing.elements++;
+			}
+
+			@Override
+			public boolean nodeRefsWithoutDefsAdded() {
+				return false;
+			}
+
+			/**
+			 * Sends the last batch. The map is built by the consumer in the
+			 * building stage, so null is returned.
+			 */
+			@Override
+			public OsmMap buildMap() {
+				flush();
+				return null;
+			}
+
+			private ElementBatch getBatch(int kind) {
+				if (batch != null && (batch.kind != kind || batch.size == BATCH_SIZE))
+					flush();
+				if (batch == null)
+					batch = new ElementBatch(kind);
+				return batch;
+			}
+
+			void flush() {
+				if (batch != null) {
+					send(batch);
+					batch = null;
+				}
+			}
+
+			private void send(ElementBatch b) {
+				if (!put(batches, b, tokenizing))
+					throw new OsmRuntimeException("Map reading pipeline failed.");
+			}
+		}
+	}
+
+	/**
+	 * Nodes or ways in primitive arrays. Attributes and way node ids of
+	 * element i are stored from offset i (inclusive) to offset i + 1
+	 * (exclusive) in flat arrays.
+	 */
+	private static class ElementBatch {
+		static final int BOUND = 0;
+		static final int NODES = 1;
+		static final int WAYS = 2;
+
+		final int kind;
+		int size;
+		BoundingBox boundingBox;
+		long[] ids;
+		String[] names;
+		float[] lats;
+		float[] lons;
+		int[] attOffsets;
+		EntityAttribute[] atts;
+		int[] wayNodeOffsets;
+		long[] wayNodeIds;
+
+		ElementBatch(int kind) {
+			this.kind = kind;
+			if (kind != BOUND) {
+				ids = new long[BATCH_SIZE];
+				names = new String[BATCH_SIZE];
+				attOffsets = new int[BATCH_SIZE + 1];
+				atts = new EntityAttribute[BATCH_SIZE];
+			}
+			if (kind == NODES) {
+				lats = new float[BATCH_SIZE];
+				lons = new float[BATCH_SIZE];
+			} else if (kind == WAYS) {
+				wayNodeOffsets = new int[BATCH_SIZE + 1];
+				wayNodeIds = new long[8 * BATCH_SIZE];
+			}
+		}
+
+		/** Adds id, name, and attributes of the next element (coordinates and way nodes must be set before). */
+		void add(long id, String name, List<EntityAttribute> elementAtts) {
+			ids[size] = id;
+			names[size] = name;
+			int attCount = attOffsets[size];
+			if (attCount + elementAtts.size() > atts.length)
+				atts = Arrays.copyOf(atts, Math.max(2 * atts.length, attCount + elementAtts.size()));
+			for (EntityAttribute att : elementAtts)
+				atts[attCount++] = att;
+			attOffsets[++size] = attCount;
+		}
+
+		void addWayNodes(List<Long> nodeIds) {
+			int count = wayNodeOffsets[size];
+			if (count + nodeIds.size() > wayNodeIds.length)
+				wayNodeIds = Arrays.copyOf(wayNodeIds, Math.max(2 * wayNodeIds.length, count + nodeIds.size()));
+			for (long nodeId : nodeIds)
+				wayNodeIds[count++] = nodeId;
+			wayNodeOffsets[size + 1] = count;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package aimax.osm.routing;
+
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe service which computes many routes on the same map
+ * concurrently. Requests are queued and processed by a bounded pool of worker
+ * threads. All workers share the map and the route calculator. This works
+ * because a built map is only read during route calculation (way node lookup
+ * and successor generation), and because route calculators create a new
+ * problem and search for each route segment. So the map must not be modified
+ * (e.g. by reading new map data) while requests are processed. Markers and
+ * tracks may change, as they are not used for routing. Route calculator
+ * subclasses which are used with this service must not keep state between
+ * calls either.
+ */
+public class BatchRouteService {
+
+	private final OsmMap map;
+	private final RouteCalculator routeCalculator;
+	private final ExecutorService executor;
+
+	/** Creates a service which uses one worker thread per available processor. */
+	public BatchRouteService(OsmMap map, RouteCalculator routeCalculator) {
+		this(map, routeCalculator, Runtime.getRuntime().availableProcessors());
+	}
+
+	public BatchRouteService(OsmMap map, RouteCalculator routeCalculator, int threadCount) {
+		this.map = map;
+		this.routeCalculator = routeCalculator;
+		executor = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory());
+	}
+
+	public OsmMap getMap() {
+		return map;
+	}
+
+	/**
+	 * Queues a route request and returns immediately. If route calculation
+	 * fails, the future completes exceptionally with the cause of the
+	 * failure.
+	 *
+	 * @param from
+	 *            Start node (e.g. a marker), not necessarily a way node.
+	 * @param to
+	 *            Destination node, not necessarily a way node.
+	 * @param taskSelection
+	 *            Number, indicating which kinds of ways are relevant (see
+	 *            {@link RouteCalculator#getTaskSelectionOptions()}).
+	 */
+	public CompletableFuture<Result> submit(MapNode from, MapNode to, int taskSelection) {
+		return submit(Arrays.asList(from, to), taskSelection);
+	}
+
+	/**
+	 * Queues a route request with via nodes. The first marker is used as
+	 * start, the last as finish, all others as via nodes.
+	 */
+	public CompletableFuture<Result> submit(List<MapNode> markers, int taskSelection) {
+		List<MapNode> markersCopy = Collections.unmodifiableList(new ArrayList<>(markers));
+		long submitTime = System.nanoTime();
+		return CompletableFuture.supplyAsync(() -> {
+			long startTime = System.nanoTime();
+			List<Position> route = routeCalculator.computeRoute(markersCopy, map, taskSelection);
+			return new Result(markersCopy, route, startTime - submitTime, System.nanoTime() - startTime);
+		}, executor);
+	}
+
+	/**
+	 * Queues a route request for each origin/destination pair and returns the
+	 * futures in the same order.
+	 */
+	public List<CompletableFuture<Result>> submitAll(List<MapNode[]> pairs, int taskSelection) {
+		List<CompletableFuture<Result>> result = new ArrayList<>(pairs.size());
+		for (MapNode[] pair : pairs)
+			result.add(submit(pair[0], pair[1], taskSelection));
+		return result;
+	}
+
+	/**
+	 * Stops accepting new requests. Requests which have already been
+	 * submitted are still processed.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/** Blocks until all requests have been processed after shutdown. */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+
+	/** Route and timing information for one request. */
+	public static class Result {
+		private final List<MapNode> markers;
+		private final List<Position> route;
+		private final long waitingTimeNanos;
+		private final long computationTimeNanos;
+
+		Result(List<MapNode> markers, List<Position> route, long waitingTimeNanos, long computationTimeNanos) {
+			this.markers = markers;
+			this.route = route;
+			this.waitingTimeNanos = waitingTimeNanos;
+			this.computationTimeNanos = computationTimeNanos;
+		}
+
+		public List<MapNode> getMarkers() {
+			return markers;
+		}
+
+		/** Returns the positions of the route or an empty list if no route was found. */
+		public List<Position> getRoute() {
+			return route;
+		}
+
+		public boolean isRouteFound() {
+			return !route.isEmpty();
+		}
+
+		/** Time between submission and start of the computation. */
+		public long getWaitingTimeMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(waitingTimeNanos);
+		}
+
+		/** Time needed to compute the route. */
+		public long getComputationTimeMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(computationTimeNanos);
+		}
+
+		@Override
+		public String toString() {
+			return "Result{routeLength=" + route.size() + ", waitingTime=" + getWaitingTimeMillis()
+					+ "ms, computationTime=" + getComputationTimeMillis() + "ms}";
+		}
+	}
+
+	/** Creates daemon threads, so an unused service does not block VM shutdown. */
+	private static class WorkerThreadFactory implements ThreadFactory {
+		private static final AtomicInteger poolCount = new AtomicInteger();
+		private final int poolId = poolCount.incrementAndGet();
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread result = new Thread(r, "route-service-" + poolId + "-" + threadCount.incrementAndGet());
+			result.setDaemon(true);
+			return result;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package aimax.osm.routing;
+
+import aima.core.search.framework.Node;
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.informed.BidirectionalAStarSearch;
+import aimax.osm.data.entities.MapNode;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Route calculator which uses bidirectional A* search with straight-line
+ * distance heuristics in both directions. The problems created by the
+ * default implementation are bidirectional, so only the search needs to be
+ * replaced. Routes are optimal. See the <code>ParallelRoutingBenchmark</code>
+ * of the test sources for a comparison with the default A* search.
+ */
+public class BidirectionalRouteCalculator extends RouteCalculator {
+
+	/** Returns a bidirectional search, the heuristic of the default search is not needed. */
+	@Override
+	protected SearchForActions<MapNode, OsmMoveAction> createSearch(ToDoubleFunction<Node<MapNode, OsmMoveAction>> h,
+			int taskSelection) {
+		return new BidirectionalAStarSearch<>(OsmSldHeuristicFunction::new);
+	}
+}
@@ -0,0 +1,412 @@
+package aimax.osm.routing;
+
+import java.util.Arrays;
+
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+
+/**
+ * Contraction hierarchy (Geisberger et al. 2008) for a {@link RoadGraph}.
+ * During preprocessing, all nodes are contracted one after another in the
+ * order of their importance. Contracting a node removes it from the remaining
+ * graph and adds shortcut arcs between its neighbors where the node was part
+ * of the only shortest path between them (checked by local witness searches).
+ * The order is determined by a priority queue with lazy updates. The priority
+ * of a node is its edge difference (shortcuts needed minus arcs removed) plus
+ * the number of already contracted neighbors, which leads to a uniform
+ * contraction.
+ * <br>
+ * The result consists of an upward graph containing all arcs which lead to
+ * more important nodes, and a downward graph containing all arcs which lead
+ * to less important nodes (stored at their targets). Shortest path queries
+ * only need to search upward from the start and (backwards) upward from the
+ * goal, which settles a few hundred nodes even on large maps (see
+ * {@link ContractionHierarchyRouter}). Shortcuts know the two arcs they
+ * replace, so that paths can be unpacked into graph edges.
+ * <br>
+ * A hierarchy is built for one routing profile, i.e. one way filter and one
+ * one-way mode. It is immutable and can be shared by several routers.
+ */
+public class ContractionHierarchy {
+	/** Maximal number of nodes settled by a witness search. */
+	private static final int WITNESS_SETTLE_LIMIT = 200;
+
+	private final RoadGraph graph;
+	private final OneWayMode oneWayMode;
+	private final int[] ranks;
+	private final int shortcutCount;
+
+	// arcs leading to nodes of higher rank, stored at the arc source
+	private final int[] firstUpArc;
+	private final int[] upTargets;
+	private final double[] upWeights;
+	private final int[] upArcIds;
+	// arcs leading to nodes of lower rank, stored at the arc target
+	private final int[] firstDownArc;
+	private final int[] downSources;
+	private final double[] downWeights;
+	private final int[] downArcIds;
+
+	// replaced arcs of shortcut arcs; for arcs which correspond to a graph edge,
+	// the first entry is -1 and the second is the edge index
+	private final int[] arcChildren1;
+	private final int[] arcChildren2;
+
+	/**
+	 * Builds a hierarchy for all ways of the map which are accepted by the
+	 * filter.
+	 */
+	public static ContractionHierarchy create(OsmMap map, MapWayFilter filter, boolean ignoreOneWays) {
+		return create(RoadGraph.create(map, filter), ignoreOneWays ? OneWayMode.IGNORE : OneWayMode.TRAVEL_FORWARD);
+	}
+
+	/**
+	 * Builds a hierarchy for all edges of the graph which are allowed with
+	 * respect to the specified one-way mode.
+	 */
+	public static ContractionHierarchy create(RoadGraph graph, OneWayMode oneWayMode) {
+		Contractor contractor = new Contractor(graph, oneWayMode);
+		contractor.contractAll();
+		return new ContractionHierarchy(graph, oneWayMode, contractor);
+	}
+
+	private ContractionHierarchy(RoadGraph graph, OneWayMode oneWayMode, Contractor c) {
+		this.graph = graph;
+		this.oneWayMode = oneWayMode;
+		int n = graph.getNodeCount();
+		ranks = c.ranks;
+		shortcutCount = c.arcCount - c.edgeArcCount;
+		arcChildren1 = Arrays.copyOf(c.arcChildren1, c.arcCount);
+		arcChildren2 = Arrays.copyOf(c.arcChildren2, c.arcCount);
+
+		firstUpArc = new int[n + 1];
+		firstDownArc = new int[n + 1];
+		for (int arc = 0; arc < c.arcCount; arc++) {
+			if (isUpward(c, arc))
+				firstUpArc[c.arcSources[arc] + 1]++;
+			else
+				firstDownArc[c.arcTargets[arc] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			firstUpArc[i + 1] += firstUpArc[i];
+			firstDownArc[i + 1] += firstDownArc[i];
+		}
+		upTargets = new int[firstUpArc[n]];
+		upWeights = new double[firstUpArc[n]];
+		upArcIds = new int[firstUpArc[n]];
+		downSources = new int[firstDownArc[n]];
+		downWeights = new double[firstDownArc[n]];
+		downArcIds = new int[firstDownArc[n]];
+		int[] nextUp = Arrays.copyOf(firstUpArc, n);
+		int[] nextDown = Arrays.copyOf(firstDownArc, n);
+		for (int arc = 0; arc < c.arcCount; arc++) {
+			if (isUpward(c, arc)) {
+				int pos = nextUp[c.arcSources[arc]]++;
+				upTargets[pos] = c.arcTargets[arc];
+				upWeights[pos] = c.arcWeights[arc];
+				upArcIds[pos] = arc;
+			} else {
+				int pos = nextDown[c.arcTargets[arc]]++;
+				downSources[pos] = c.arcSources[arc];
+				downWeights[pos] = c.arcWeights[arc];
+				downArcIds[pos] = arc;
+			}
+		}
+	}
+
+	private boolean isUpward(Contractor c, int arc) {
+		return ranks[c.arcTargets[arc]] > ranks[c.arcSources[arc]];
+	}
+
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+	public OneWayMode getOneWayMode() {
+		return oneWayMode;
+	}
+
+	/** Returns the position of the node in the contraction order. */
+	public int getRank(int node) {
+		return ranks[node];
+	}
+
+	/** Returns the number of shortcut arcs added during preprocessing. */
+	public int getShortcutCount() {
+		return shortcutCount;
+	}
+
+	/** Returns the number of bytes used by the arrays of this hierarchy (estimated, without graph). */
+	public long estimateMemoryUsage() {
+		long nodeBytes = ranks.length * (4L + 4 + 4);
+		long arcBytes = (upTargets.length + downSources.length) * (4L + 8 + 4 + 4 + 4);
+		return nodeBytes + arcBytes;
+	}
+
+	// access methods for the query engine
+
+	int getFirstUpArc(int node) {
+		return firstUpArc[node];
+	}
+
+	int getUpTarget(int pos) {
+		return upTargets[pos];
+	}
+
+	double getUpWeight(int pos) {
+		return upWeights[pos];
+	}
+
+	int getUpArcId(int pos) {
+		return upArcIds[pos];
+	}
+
+	int getFirstDownArc(int node) {
+		return firstDownArc[node];
+	}
+
+	int getDownSource(int pos) {
+		return downSources[pos];
+	}
+
+	double getDownWeight(int pos) {
+		return downWeights[pos];
+	}
+
+	int getDownArcId(int pos) {
+		return downArcIds[pos];
+	}
+
+	/** Checks whether the arc is a shortcut or corresponds to a graph edge. */
+	boolean isShortcut(int arc) {
+		return arcChildren1[arc] != -1;
+	}
+
+	/** Returns the first arc replaced by the shortcut. */
+	int getFirstChild(int arc) {
+		return arcChildren1[arc];
+	}
+
+	/** Returns the second arc replaced by the shortcut. */
+	int getSecondChild(int arc) {
+		return arcChildren2[arc];
+	}
+
+	/** Returns the index of the graph edge which corresponds to the (non-shortcut) arc. */
+	int getEdge(int arc) {
+		return arcChildren2[arc];
+	}
+
+	/** Preprocessing data which is only needed during contraction. */
+	private static class Contractor {
+		final RoadGraph graph;
+		final int n;
+		final int[] ranks;
+
+		int arcCount;
+		int edgeArcCount;
+		int[] arcSources = new int[64];
+		int[] arcTargets = new int[64];
+		double[] arcWeights = new double[64];
+		int[] arcChildren1 = new int[64];
+		int[] arcChildren2 = new int[64];
+
+		// incident arcs of the nodes (including arcs to contracted nodes)
+		final int[][] outArcs;
+		final int[] outSizes;
+		final int[][] inArcs;
+		final int[] inSizes;
+
+		final boolean[] contracted;
+		final int[] contractedNeighbors;
+		final int[] priorities;
+
+		// witness search data
+		final double[] dists;
+		final int[] visited;
+		int search;
+		final NodeHeap heap = new NodeHeap();
+
+		Contractor(RoadGraph graph, OneWayMode oneWayMode) {
+			this.graph = graph;
+			n = graph.getNodeCount();
+			ranks = new int[n];
+			outArcs = new int[n][];
+			outSizes = new int[n];
+			inArcs = new int[n][];
+			inSizes = new int[n];
+			contracted = new boolean[n];
+			contractedNeighbors = new int[n];
+			priorities = new int[n];
+			dists = new double[n];
+			visited = new int[n];
+			for (int node = 0; node < n; node++) {
+				int end = graph.getFirstEdge(node + 1);
+				for (int edge = graph.getFirstEdge(node); edge < end; edge++)
+					if (graph.isAllowed(edge, oneWayMode))
+						addArc(node, graph.getEdgeTarget(edge), graph.getEdgeLength(edge), -1, edge);
+			}
+			edgeArcCount = arcCount;
+		}
+
+		void contractAll() {
+			NodeHeap queue = new NodeHeap();
+			for (int node = 0; node < n; node++) {
+				priorities[node] = computePriority(node);
+				queue.insert(node, priorities[node]);
+			}
+			int[] updated = new int[n];
+			Arrays.fill(updated, -1);
+			int rank = 0;
+			while (!queue.isEmpty()) {
+				int node = queue.peekNode();
+				double key = queue.peekKey();
+				queue.removeFirst();
+				if (contracted[node] || key != priorities[node])
+					continue; // outdated queue entry
+				// lazy update: the priority may have changed since the node was queued
+				int priority = computePriority(node);
+				if (priority > queue.peekKey()) {
+					priorities[node] = priority;
+					queue.insert(node, priority);
+					continue;
+				}
+				contract(node, false);
+				contracted[node] = true;
+				ranks[node] = rank;
+				for (int pass = 0; pass < 2; pass++) {
+					int[] arcs = pass == 0 ? outArcs[node] : inArcs[node];
+					int size = pass == 0 ? outSizes[node] : inSizes[node];
+					for (int i = 0; i < size; i++) {
+						int neighbor = pass == 0 ? arcTargets[arcs[i]] : arcSources[arcs[i]];
+						if (!contracted[neighbor] && updated[neighbor] != rank) {
+							updated[neighbor] = rank;
+							contractedNeighbors[neighbor]++;
+							priorities[neighbor] = computePriority(neighbor);
+							queue.insert(neighbor, priorities[neighbor]);
+						}
+					}
+				}
+				rank++;
+			}
+		}
+
+		private int computePriority(int node) {
+			int degree = 0;
+			for (int i = 0; i < outSizes[node]; i++)
+				if (!contracted[arcTargets[outArcs[node][i]]])
+					degree++;
+			for (int i = 0; i < inSizes[node]; i++)
+				if (!contracted[arcSources[inArcs[node][i]]])
+					degree++;
+			return contract(node, true) - degree + contractedNeighbors[node];
+		}
+
+		/**
+		 * Adds shortcuts for all pairs of uncontracted neighbors whose shortest
+		 * connection might lead through the node, or only counts them if
+		 * <code>simulate</code> is true. Returns the number of shortcuts.
+		 */
+		private int contract(int node, boolean simulate) {
+			int result = 0;
+			for (int i = 0; i < inSizes[node]; i++) {
+				int inArc = inArcs[node][i];
+				int source = arcSources[inArc];
+				if (contracted[source])
+					continue;
+				double maxWeight = -1;
+				for (int j = 0; j < outSizes[node]; j++) {
+					int target = arcTargets[outArcs[node][j]];
+					if (!contracted[target] && target != source)
+						maxWeight = Math.max(maxWeight, arcWeights[inArc] + arcWeights[outArcs[node][j]]);
+				}
+				if (maxWeight < 0)
+					continue;
+				findWitnesses(source, node, maxWeight);
+				for (int j = 0; j < outSizes[node]; j++) {
+					int outArc = outArcs[node][j];
+					int target = arcTargets[outArc];
+					if (contracted[target] || target == source)
+						continue;
+					double weight = arcWeights[inArc] + arcWeights[outArc];
+					if (getWitnessDist(target) > weight) {
+						result++;
+						if (!simulate) {
+							addArc(source, target, weight, inArc, outArc);
+							// prevents redundant shortcuts for parallel arcs
+							visited[target] = search;
+							dists[target] = weight;
+						}
+					}
+				}
+			}
+			return result;
+		}
+
+		/** Dijkstra search in the remaining graph without the excluded node. */
+		private void findWitnesses(int source, int excluded, double maxWeight) {
+			if (++search == 0) {
+				Arrays.fill(visited, 0);
+				search = 1;
+			}
+			heap.clear();
+			visited[source] = search;
+			dists[source] = 0;
+			heap.insert(source, 0);
+			int settled = 0;
+			while (!heap.isEmpty()) {
+				int node = heap.peekNode();
+				double dist = heap.peekKey();
+				heap.removeFirst();
+				if (dist > dists[node])
+					continue; // outdated heap entry
+				if (dist > maxWeight || ++settled > WITNESS_SETTLE_LIMIT)
+					break;
+				for (int i = 0; i < outSizes[node]; i++) {
+					int arc = outArcs[node][i];
+					int target = arcTargets[arc];
+					if (contracted[target] || target == excluded)
+						continue;
+					double d = dist + arcWeights[arc];
+					if (visited[target] != search || d < dists[target]) {
+						visited[target] = search;
+						dists[target] = d;
+						heap.insert(target, d);
+					}
+				}
+			}
+		}
+
+		private double getWitnessDist(int node) {
+			return visited[node] == search ? dists[node] : Double.POSITIVE_INFINITY;
+		}
+
+		private void addArc(int source, int target, double weight, int child1, int child2) {
+			if (arcCount == arcSources.length) {
+				int capacity = 2 * arcCount;
+				arcSources = Arrays.copyOf(arcSources, capacity);
+				arcTargets = Arrays.copyOf(arcTargets, capacity);
+				arcWeights = Arrays.copyOf(arcWeights, capacity);
+				arcChildren1 = Arrays.copyOf(arcChildren1, capacity);
+				arcChildren2 = Arrays.copyOf(arcChildren2, capacity);
+			}
+			int arc = arcCount++;
+			arcSources[arc] = source;
+			arcTargets[arc] = target;
+			arcWeights[arc] = weight;
+			arcChildren1[arc] = child1;
+			arcChildren2[arc] = child2;
+			addIncidence(outArcs, outSizes, source, arc);
+			addIncidence(inArcs, inSizes, target, arc);
+		}
+
+		private static void addIncidence(int[][] lists, int[] sizes, int node, int arc) {
+			if (lists[node] == null)
+				lists[node] = new int[4];
+			else if (sizes[node] == lists[node].length)
+				lists[node] = Arrays.copyOf(lists[node], 2 * sizes[node]);
+			lists[node][sizes[node]++] = arc;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package aimax.osm.routing;
+
+import aima.core.search.framework.Node;
+import aima.core.search.framework.SearchForActions;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Route calculator which answers queries with contraction hierarchies instead
+ * of A* search. Hierarchies are built for one map, one per task selection
+ * (with the way filter and one-way handling of the corresponding task).
+ * Preprocessing takes some time, so hierarchies are built on first use or in
+ * advance by calling {@link #prepare(int)}. Afterwards, queries are answered
+ * orders of magnitude faster than by A* search. For other maps, the
+ * calculator falls back to the default implementation.
+ * <br>
+ * Like the default implementation, the calculator can be used by several
+ * threads concurrently. Each thread uses its own query engines.
+ */
+public class ContractionHierarchyRouteCalculator extends RouteCalculator {
+
+	private final OsmMap map;
+	private final ContractionHierarchy[] hierarchies = new ContractionHierarchy[getTaskSelectionOptions().length];
+	private final ThreadLocal<ContractionHierarchyRouter[]> routers = ThreadLocal
+			.withInitial(() -> new ContractionHierarchyRouter[hierarchies.length]);
+
+	/**
+	 * Creates a calculator for the given map. The map must not be changed
+	 * afterwards.
+	 */
+	public ContractionHierarchyRouteCalculator(OsmMap map) {
+		this.map = map;
+	}
+
+	/** Builds the hierarchy for the specified task selection if not done before. */
+	public synchronized ContractionHierarchy prepare(int taskSelection) {
+		if (hierarchies[taskSelection] == null)
+			hierarchies[taskSelection] = ContractionHierarchy.create(map, createMapWayFilter(map, taskSelection),
+					taskSelection == 0);
+		return hierarchies[taskSelection];
+	}
+
+	@Override
+	public List<Position> computeRoute(List<MapNode> markers, OsmMap map, int taskSelection) {
+		if (map != this.map)
+			return new RouteCalculator().computeRoute(markers, map, taskSelection);
+		return super.computeRoute(markers, map, taskSelection);
+	}
+
+	/** Returns a search which uses the hierarchy of the task selection. */
+	@Override
+	protected SearchForActions<MapNode, OsmMoveAction> createSearch(ToDoubleFunction<Node<MapNode, OsmMoveAction>> h,
+			int taskSelection) {
+		ContractionHierarchyRouter[] threadRouters = routers.get();
+		if (threadRouters[taskSelection] == null)
+			threadRouters[taskSelection] = new ContractionHierarchyRouter(prepare(taskSelection));
+		return new ContractionHierarchySearch(threadRouters[taskSelection]);
+	}
+}
@@ -0,0 +1,156 @@
+package aimax.osm.routing;
+
+import java.util.Arrays;
+
+/**
+ * Bidirectional shortest path search on a {@link ContractionHierarchy}. The
+ * forward search starts at the start node and only uses arcs of the upward
+ * graph, the backward search starts at the goal and only uses arcs of the
+ * downward graph (in reverse direction). Both searches are Dijkstra searches.
+ * They are interleaved (the one with the smaller key settles the next node)
+ * and stop when no remaining key is smaller than the best connection found
+ * so far. The resulting path is unpacked into edges of the underlying
+ * {@link RoadGraph}.
+ * <br>
+ * Like {@link RoadGraphRouter}, routers reuse their arrays between queries
+ * and are not thread-safe. Use one router per thread; the hierarchy can be
+ * shared.
+ */
+public class ContractionHierarchyRouter {
+
+	private static final int FORWARD = 0;
+	private static final int BACKWARD = 1;
+
+	private final ContractionHierarchy hierarchy;
+	// search data per direction
+	private final double[][] dists = new double[2][];
+	private final int[][] predecessorArcs = new int[2][];
+	private final int[][] predecessors = new int[2][];
+	// query number for which the entries above are valid
+	private final int[][] visited = new int[2][];
+	private final NodeHeap[] heaps = { new NodeHeap(), new NodeHeap() };
+	private int query;
+
+	// buffer for path unpacking
+	private int[] edges = new int[64];
+	private int edgeCount;
+
+	private long nodesSettled;
+	private double pathCost;
+
+	public ContractionHierarchyRouter(ContractionHierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+		int n = hierarchy.getGraph().getNodeCount();
+		for (int dir = FORWARD; dir <= BACKWARD; dir++) {
+			dists[dir] = new double[n];
+			predecessorArcs[dir] = new int[n];
+			predecessors[dir] = new int[n];
+			visited[dir] = new int[n];
+		}
+	}
+
+	public ContractionHierarchy getHierarchy() {
+		return hierarchy;
+	}
+
+	/**
+	 * Computes a shortest path and returns the indices of its graph edges.
+	 *
+	 * @return An array of edge indices (empty if start and goal are equal) or
+	 *         {@link RoadGraphRouter#NO_PATH}.
+	 */
+	public int[] findPath(int from, int to) {
+		if (++query == 0) {
+			// counter overflow: reset markers
+			Arrays.fill(visited[FORWARD], 0);
+			Arrays.fill(visited[BACKWARD], 0);
+			query = 1;
+		}
+		nodesSettled = 0;
+		pathCost = Double.POSITIVE_INFINITY;
+		int meetingNode = -1;
+		heaps[FORWARD].clear();
+		heaps[BACKWARD].clear();
+		visit(FORWARD, from, 0, -1, -1);
+		visit(BACKWARD, to, 0, -1, -1);
+		while (true) {
+			int dir = heaps[FORWARD].peekKey() <= heaps[BACKWARD].peekKey() ? FORWARD : BACKWARD;
+			NodeHeap heap = heaps[dir];
+			if (heap.peekKey() >= pathCost)
+				break; // also true if both heaps are empty
+			int node = heap.peekNode();
+			double dist = heap.peekKey();
+			heap.removeFirst();
+			if (dist > dists[dir][node])
+				continue; // outdated heap entry
+			nodesSettled++;
+			int other = 1 - dir;
+			if (visited[other][node] == query && dist + dists[other][node] < pathCost) {
+				pathCost = dist + dists[other][node];
+				meetingNode = node;
+			}
+			if (dir == FORWARD) {
+				int end = hierarchy.getFirstUpArc(node + 1);
+				for (int pos = hierarchy.getFirstUpArc(node); pos < end; pos++)
+					relax(FORWARD, hierarchy.getUpTarget(pos), dist + hierarchy.getUpWeight(pos),
+							hierarchy.getUpArcId(pos), node);
+			} else {
+				int end = hierarchy.getFirstDownArc(node + 1);
+				for (int pos = hierarchy.getFirstDownArc(node); pos < end; pos++)
+					relax(BACKWARD, hierarchy.getDownSource(pos), dist + hierarchy.getDownWeight(pos),
+							hierarchy.getDownArcId(pos), node);
+			}
+		}
+		return meetingNode != -1 ? createPath(meetingNode) : RoadGraphRouter.NO_PATH;
+	}
+
+	/** Returns the length of the path found by the last query in KM (infinity if no path was found). */
+	public double getPathCost() {
+		return pathCost;
+	}
+
+	/** Returns the number of nodes settled by both searches during the last query. */
+	public long getNodesSettled() {
+		return nodesSettled;
+	}
+
+	private void relax(int dir, int node, double dist, int arc, int predecessor) {
+		if (visited[dir][node] != query || dist < dists[dir][node])
+			visit(dir, node, dist, arc, predecessor);
+	}
+
+	private void visit(int dir, int node, double dist, int arc, int predecessor) {
+		visited[dir][node] = query;
+		dists[dir][node] = dist;
+		predecessorArcs[dir][node] = arc;
+		predecessors[dir][node] = predecessor;
+		heaps[dir].insert(node, dist);
+	}
+
+	private int[] createPath(int meetingNode) {
+		edgeCount = 0;
+		// forward arcs are found in reverse order
+		int arcCount = 0;
+		for (int node = meetingNode; predecessors[FORWARD][node] != -1; node = predecessors[FORWARD][node])
+			arcCount++;
+		int[] forwardArcs = new int[arcCount];
+		for (int node = meetingNode; predecessors[FORWARD][node] != -1; node = predecessors[FORWARD][node])
+			forwardArcs[--arcCount] = predecessorArcs[FORWARD][node];
+		for (int arc : forwardArcs)
+			unpack(arc);
+		for (int node = meetingNode; predecessors[BACKWARD][node] != -1; node = predecessors[BACKWARD][node])
+			unpack(predecessorArcs[BACKWARD][node]);
+		return Arrays.copyOf(edges, edgeCount);
+	}
+
+	/** Appends the graph edges which are represented by the arc to the edge buffer. */
+	private void unpack(int arc) {
+		while (hierarchy.isShortcut(arc)) {
+			unpack(hierarchy.getFirstChild(arc));
+			arc = hierarchy.getSecondChild(arc);
+		}
+		if (edgeCount == edges.length)
+			edges = Arrays.copyOf(edges, 2 * edgeCount);
+		edges[edgeCount++] = hierarchy.getEdge(arc);
+	}
+}
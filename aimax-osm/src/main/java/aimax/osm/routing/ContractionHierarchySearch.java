@@ -0,0 +1,81 @@
+package aimax.osm.routing;
+
+import aima.core.search.framework.Metrics;
+import aima.core.search.framework.Node;
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.metrics.Counter;
+import aima.core.search.framework.metrics.DoubleGauge;
+import aima.core.search.framework.metrics.MetricsRegistry;
+import aima.core.search.framework.problem.Problem;
+import aimax.osm.data.entities.MapNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Adapter which makes contraction hierarchy queries available as search for
+ * route finding problems. Start and goal are taken from the problem; its
+ * action and step cost functions are not used. So the problem must have been
+ * created for the same way filter and one-way handling as the hierarchy, and
+ * step costs must be distances (see {@link ContractionHierarchyRouteCalculator}).
+ * <br>
+ * The search works on primitive arrays and creates no search tree nodes. So
+ * node listeners are never notified. The metric <code>nodesExpanded</code>
+ * counts the nodes settled by forward and backward search.
+ */
+public class ContractionHierarchySearch implements SearchForActions<MapNode, OsmMoveAction> {
+
+	public static final String METRIC_NODES_EXPANDED = "nodesExpanded";
+	public static final String METRIC_PATH_COST = "pathCost";
+
+	private final ContractionHierarchyRouter router;
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final DoubleGauge pathCost = metrics.doubleGauge(METRIC_PATH_COST);
+
+	public ContractionHierarchySearch(ContractionHierarchyRouter router) {
+		this.router = router;
+	}
+
+	/**
+	 * Computes the shortest route from the initial state to the goal of the
+	 * problem, which must be a {@link RouteFindingProblem}.
+	 */
+	@Override
+	public Optional<List<OsmMoveAction>> findActions(Problem<MapNode, OsmMoveAction> p) {
+		if (!(p instanceof RouteFindingProblem))
+			throw new IllegalArgumentException("Contraction hierarchy search needs a route finding problem.");
+		metrics.reset();
+		RoadGraph graph = router.getHierarchy().getGraph();
+		int from = graph.getNodeIndex(p.getInitialState());
+		int to = graph.getNodeIndex(((RouteFindingProblem) p).getGoal());
+		if (from == -1 || to == -1)
+			return Optional.empty();
+		int[] path = router.findPath(from, to);
+		nodesExpanded.add(router.getNodesSettled());
+		if (path == RoadGraphRouter.NO_PATH)
+			return Optional.empty();
+		pathCost.set(router.getPathCost());
+		List<OsmMoveAction> result = new ArrayList<>(path.length);
+		for (int edge : path)
+			result.add(graph.createAction(edge));
+		return Optional.of(result);
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics.snapshot();
+	}
+
+	/** Node listeners are not supported, the call has no effect. */
+	@Override
+	public void addNodeListener(Consumer<Node<MapNode, OsmMoveAction>> listener) {
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<MapNode, OsmMoveAction>> listener) {
+		return false;
+	}
+}
@@ -0,0 +1,385 @@
+package aimax.osm.routing;
+
+import java.util.Arrays;
+
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+
+/**
+ * Incremental shortest path search on a {@link RoadGraph}, based on D* Lite
+ * (Koenig and Likhachev 2002). The search runs backwards from the goal, so
+ * that path costs are goal distances which stay valid when the start moves.
+ * Search state is kept between queries for the same goal. When the vehicle
+ * deviates from the route or ways are blocked, only the affected part of the
+ * search tree is repaired, which is usually much faster than a new search.
+ * Straight-line distance is used as heuristic, like in
+ * {@link RoadGraphRouter}. A new search is started when the goal changes, or
+ * when a repair needs more expansions than the last search from scratch
+ * (which can happen after changes close to the goal).
+ * <br>
+ * Routers are not thread-safe. The graph can be shared, blocked ways are
+ * maintained by the router.
+ */
+public class DStarLiteRouter {
+	/**
+	 * Scales the straight-line distance slightly down to keep the heuristic
+	 * consistent despite the rounding of edge lengths to float.
+	 */
+	private static final double HEURISTIC_FACTOR = 0.9999;
+	/** Minimal number of expansions allowed for repairing the search state. */
+	private static final long MIN_REPAIR_LIMIT = 1000;
+
+	private final RoadGraph graph;
+	private final OneWayMode forwardMode;
+	private final OneWayMode backwardMode;
+	private final boolean[] blocked;
+
+	// goal distances and one-step lookahead values
+	private final double[] g;
+	private final double[] rhs;
+	// current queue keys of the inconsistent nodes
+	private final boolean[] inQueue;
+	private final double[] queueKeys1;
+	private final double[] queueKeys2;
+	private final KeyHeap heap = new KeyHeap();
+
+	private int start = -1;
+	private int goal = -1;
+	private double keyModifier;
+	private long nodesExpanded;
+	// expansions of the last search from scratch, limits the effort of repairs
+	private long searchExpansions;
+
+	public DStarLiteRouter(RoadGraph graph, boolean ignoreOneWays) {
+		this.graph = graph;
+		forwardMode = ignoreOneWays ? OneWayMode.IGNORE : OneWayMode.TRAVEL_FORWARD;
+		backwardMode = ignoreOneWays ? OneWayMode.IGNORE : OneWayMode.TRAVEL_BACKWARDS;
+		int n = graph.getNodeCount();
+		blocked = new boolean[graph.getEdgeCount()];
+		g = new double[n];
+		rhs = new double[n];
+		inQueue = new boolean[n];
+		queueKeys1 = new double[n];
+		queueKeys2 = new double[n];
+	}
+
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Computes a shortest path and returns the indices of its edges. If the
+	 * goal is the same as in the previous query, the previous search state is
+	 * repaired instead of starting a new search.
+	 *
+	 * @return An array of edge indices (empty if start and goal are equal) or
+	 *         {@link RoadGraphRouter#NO_PATH}.
+	 */
+	public int[] findPath(int from, int to) {
+		nodesExpanded = 0;
+		if (to != goal) {
+			initialize(from, to);
+			computeShortestPath(Long.MAX_VALUE);
+			searchExpansions = nodesExpanded;
+		} else {
+			if (from != start) {
+				keyModifier += getHeuristic(start, from);
+				start = from;
+			}
+			if (!computeShortestPath(Math.max(MIN_REPAIR_LIMIT, searchExpansions))) {
+				// repair is more expensive than a new search (e.g. after closures near the goal)
+				initialize(from, to);
+				long repairExpansions = nodesExpanded;
+				computeShortestPath(Long.MAX_VALUE);
+				searchExpansions = nodesExpanded - repairExpansions;
+			}
+		}
+		return createPath();
+	}
+
+	/** Discards the search state, so that the next query starts a new search. */
+	public void reset() {
+		goal = -1;
+	}
+
+	/**
+	 * Blocks or releases all edges of a way. The change is taken into account
+	 * by the next query.
+	 */
+	public void setBlocked(MapWay way, boolean value) {
+		for (int edge = 0; edge < blocked.length; edge++)
+			if (blocked[edge] != value && graph.getEdgeWay(edge).getId() == way.getId())
+				setBlocked(edge, value);
+	}
+
+	public boolean isBlocked(MapWay way) {
+		for (int edge = 0; edge < blocked.length; edge++)
+			if (blocked[edge] && graph.getEdgeWay(edge).getId() == way.getId())
+				return true;
+		return false;
+	}
+
+	/** Returns the length of the path found by the last query in KM (infinity if no path was found). */
+	public double getPathCost() {
+		return goal != -1 ? rhs[start] : Double.POSITIVE_INFINITY;
+	}
+
+	/** Returns the number of nodes expanded during the last query. */
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
+
+	private void setBlocked(int edge, boolean value) {
+		blocked[edge] = value;
+		int source = getEdgeSource(edge);
+		if (goal != -1 && source != goal) {
+			rhs[source] = computeRhs(source);
+			updateNode(source);
+		}
+	}
+
+	private int getEdgeSource(int edge) {
+		// edges are stored in CSR format, so the source is found by binary search
+		int low = 0;
+		int high = graph.getNodeCount() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (graph.getFirstEdge(mid) <= edge)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		return low;
+	}
+
+	private void initialize(int from, int to) {
+		Arrays.fill(g, Double.POSITIVE_INFINITY);
+		Arrays.fill(rhs, Double.POSITIVE_INFINITY);
+		Arrays.fill(inQueue, false);
+		heap.clear();
+		start = from;
+		goal = to;
+		keyModifier = 0;
+		rhs[goal] = 0;
+		updateNode(goal);
+	}
+
+	/**
+	 * Expands nodes until the start is consistent. Returns false if the
+	 * search was stopped because the expansion limit was reached.
+	 */
+	private boolean computeShortestPath(long limit) {
+		long expansionsBefore = nodesExpanded;
+		while (true) {
+			// drop entries of nodes which have been removed or re-inserted
+			while (!heap.isEmpty() && !isValid(heap.peekNode(), heap.peekKey1(), heap.peekKey2()))
+				heap.removeFirst();
+			if (heap.isEmpty())
+				return true;
+			double startKey2 = Math.min(g[start], rhs[start]);
+			double startKey1 = startKey2 + keyModifier;
+			if (!isLess(heap.peekKey1(), heap.peekKey2(), startKey1, startKey2) && rhs[start] <= g[start])
+				return true;
+			if (nodesExpanded - expansionsBefore >= limit)
+				return false;
+			int node = heap.peekNode();
+			double oldKey1 = heap.peekKey1();
+			double oldKey2 = heap.peekKey2();
+			heap.removeFirst();
+			inQueue[node] = false;
+			double newKey2 = Math.min(g[node], rhs[node]);
+			double newKey1 = newKey2 + getHeuristic(start, node) + keyModifier;
+			if (isLess(oldKey1, oldKey2, newKey1, newKey2)) {
+				insert(node, newKey1, newKey2);
+				continue;
+			}
+			nodesExpanded++;
+			int end = graph.getFirstEdge(node + 1);
+			if (g[node] > rhs[node]) {
+				// overconsistent: the goal distance of the node is now known
+				g[node] = rhs[node];
+				for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+					int pred = graph.getEdgeTarget(edge);
+					if (pred != goal && graph.isAllowed(edge, backwardMode)) {
+						double cost = getReverseCost(edge) + g[node];
+						if (cost < rhs[pred]) {
+							rhs[pred] = cost;
+							updateNode(pred);
+						}
+					}
+				}
+			} else {
+				// underconsistent: predecessors which depended on the node are recomputed
+				double oldG = g[node];
+				g[node] = Double.POSITIVE_INFINITY;
+				for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+					int pred = graph.getEdgeTarget(edge);
+					if (pred != goal && graph.isAllowed(edge, backwardMode)
+							&& rhs[pred] == getReverseCost(edge) + oldG) {
+						rhs[pred] = computeRhs(pred);
+						updateNode(pred);
+					}
+				}
+				if (node != goal)
+					rhs[node] = computeRhs(node);
+				updateNode(node);
+			}
+		}
+	}
+
+	/** Returns the minimal cost of reaching the goal via one of the successors. */
+	private double computeRhs(int node) {
+		double result = Double.POSITIVE_INFINITY;
+		int end = graph.getFirstEdge(node + 1);
+		for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+			if (graph.isAllowed(edge, forwardMode) && !blocked[edge])
+				result = Math.min(result, graph.getEdgeLength(edge) + g[graph.getEdgeTarget(edge)]);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cost of the edge which leads in the opposite direction.
+	 * Ways are blocked as a whole, so it equals the cost of the edge itself.
+	 */
+	private double getReverseCost(int edge) {
+		return blocked[edge] ? Double.POSITIVE_INFINITY : graph.getEdgeLength(edge);
+	}
+
+	private void updateNode(int node) {
+		if (g[node] != rhs[node]) {
+			double key2 = Math.min(g[node], rhs[node]);
+			double key1 = key2 + getHeuristic(start, node) + keyModifier;
+			if (!inQueue[node] || queueKeys1[node] != key1 || queueKeys2[node] != key2)
+				insert(node, key1, key2);
+		} else {
+			inQueue[node] = false;
+		}
+	}
+
+	private void insert(int node, double key1, double key2) {
+		inQueue[node] = true;
+		queueKeys1[node] = key1;
+		queueKeys2[node] = key2;
+		heap.insert(node, key1, key2);
+	}
+
+	private boolean isValid(int node, double key1, double key2) {
+		return inQueue[node] && queueKeys1[node] == key1 && queueKeys2[node] == key2;
+	}
+
+	private double getHeuristic(int from, int to) {
+		return HEURISTIC_FACTOR * graph.getDistKM(from, to);
+	}
+
+	private int[] createPath() {
+		if (rhs[start] == Double.POSITIVE_INFINITY)
+			return RoadGraphRouter.NO_PATH;
+		int[] result = new int[16];
+		int length = 0;
+		int node = start;
+		while (node != goal && length < graph.getNodeCount()) {
+			int bestEdge = -1;
+			double bestCost = Double.POSITIVE_INFINITY;
+			int end = graph.getFirstEdge(node + 1);
+			for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+				if (graph.isAllowed(edge, forwardMode) && !blocked[edge]) {
+					double cost = graph.getEdgeLength(edge) + g[graph.getEdgeTarget(edge)];
+					if (cost < bestCost) {
+						bestCost = cost;
+						bestEdge = edge;
+					}
+				}
+			}
+			if (bestEdge == -1)
+				return RoadGraphRouter.NO_PATH;
+			if (length == result.length)
+				result = Arrays.copyOf(result, 2 * length);
+			result[length++] = bestEdge;
+			node = graph.getEdgeTarget(bestEdge);
+		}
+		return node == goal ? Arrays.copyOf(result, length) : RoadGraphRouter.NO_PATH;
+	}
+
+	private static boolean isLess(double a1, double a2, double b1, double b2) {
+		return a1 < b1 || a1 == b1 && a2 < b2;
+	}
+
+	/**
+	 * Binary min-heap of node indices with lexicographically ordered pairs of
+	 * keys. Like {@link NodeHeap}, it does not support decrease-key or removal.
+	 * Outdated entries are skipped when they reach the top.
+	 */
+	private static class KeyHeap {
+		private int[] nodes = new int[64];
+		private double[] keys1 = new double[64];
+		private double[] keys2 = new double[64];
+		private int size;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		int peekNode() {
+			return nodes[0];
+		}
+
+		double peekKey1() {
+			return keys1[0];
+		}
+
+		double peekKey2() {
+			return keys2[0];
+		}
+
+		void insert(int node, double key1, double key2) {
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, 2 * size);
+				keys1 = Arrays.copyOf(keys1, 2 * size);
+				keys2 = Arrays.copyOf(keys2, 2 * size);
+			}
+			int pos = size++;
+			while (pos > 0) {
+				int parent = (pos - 1) >>> 1;
+				if (!isLess(key1, key2, keys1[parent], keys2[parent]))
+					break;
+				move(parent, pos);
+				pos = parent;
+			}
+			nodes[pos] = node;
+			keys1[pos] = key1;
+			keys2[pos] = key2;
+		}
+
+		void removeFirst() {
+			int node = nodes[--size];
+			double key1 = keys1[size];
+			double key2 = keys2[size];
+			int pos = 0;
+			while (true) {
+				int child = 2 * pos + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && isLess(keys1[child + 1], keys2[child + 1], keys1[child], keys2[child]))
+					child++;
+				if (!isLess(keys1[child], keys2[child], key1, key2))
+					break;
+				move(child, pos);
+				pos = child;
+			}
+			nodes[pos] = node;
+			keys1[pos] = key1;
+			keys2[pos] = key2;
+		}
+
+		private void move(int from, int to) {
+			nodes[to] = nodes[from];
+			keys1[to] = keys1[from];
+			keys2[to] = keys2[from];
+		}
+	}
+}
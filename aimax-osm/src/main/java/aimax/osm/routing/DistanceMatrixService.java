@@ -0,0 +1,221 @@
+package aimax.osm.routing;
+
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe service which computes travel distances between all pairs of
+ * sources and targets (e.g. depots and customers). Instead of one route
+ * search per pair, one Dijkstra search is run per source on a
+ * {@link RoadGraph}. It stops as soon as all targets are settled, so the
+ * costs of a row are obtained with about the effort of a single search to the
+ * most distant target. Rows are computed concurrently by a bounded pool of
+ * worker threads which share the graph. Each worker keeps its own search
+ * arrays, which are reused by subsequent searches.
+ */
+public class DistanceMatrixService {
+
+	private final RoadGraph graph;
+	private final OneWayMode oneWayMode;
+	// only needed to find way nodes for markers which are not part of the graph
+	private final OsmMap map;
+	private final MapWayFilter filter;
+	private final ExecutorService executor;
+	private final ThreadLocal<OneToManySearch> searches;
+
+	/**
+	 * Creates a service for all ways of the map which are accepted by the
+	 * filter. One worker thread per available processor is used.
+	 */
+	public DistanceMatrixService(OsmMap map, MapWayFilter filter, boolean ignoreOneWays) {
+		this(map, filter, ignoreOneWays, Runtime.getRuntime().availableProcessors());
+	}
+
+	public DistanceMatrixService(OsmMap map, MapWayFilter filter, boolean ignoreOneWays, int threadCount) {
+		this(RoadGraph.create(map, filter), ignoreOneWays ? OneWayMode.IGNORE : OneWayMode.TRAVEL_FORWARD, map,
+				filter, threadCount);
+	}
+
+	/**
+	 * Creates a service for an existing graph. Sources and targets must be
+	 * nodes of the graph.
+	 */
+	public DistanceMatrixService(RoadGraph graph, OneWayMode oneWayMode, int threadCount) {
+		this(graph, oneWayMode, null, null, threadCount);
+	}
+
+	private DistanceMatrixService(RoadGraph graph, OneWayMode oneWayMode, OsmMap map, MapWayFilter filter,
+								  int threadCount) {
+		this.graph = graph;
+		this.oneWayMode = oneWayMode;
+		this.map = map;
+		this.filter = filter;
+		executor = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory());
+		searches = ThreadLocal.withInitial(() -> new OneToManySearch(graph));
+	}
+
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Computes the lengths of the shortest paths in KM from each source to
+	 * each target. Nodes which are not part of the graph are replaced by the
+	 * nearest way node which complies with the filter of the service.
+	 *
+	 * @return A matrix with one row per source and one column per target.
+	 *         Entries for unreachable targets are infinite.
+	 */
+	public double[][] computeMatrix(List<MapNode> sources, List<MapNode> targets) {
+		return computeMatrix(toNodeIndices(sources), toNodeIndices(targets));
+	}
+
+	/**
+	 * Computes the lengths of the shortest paths in KM between graph nodes,
+	 * given by their indices. Negative indices stand for nodes without
+	 * connection to the graph.
+	 *
+	 * @return A matrix with one row per source and one column per target.
+	 *         Entries for unreachable targets are infinite.
+	 */
+	public double[][] computeMatrix(int[] sources, int[] targets) {
+		int[] targetsCopy = targets.clone();
+		List<CompletableFuture<double[]>> rows = new ArrayList<>(sources.length);
+		for (int source : sources)
+			rows.add(CompletableFuture.supplyAsync(
+					() -> searches.get().computeRow(source, targetsCopy, oneWayMode), executor));
+		double[][] result = new double[sources.length][];
+		for (int i = 0; i < result.length; i++)
+			result[i] = rows.get(i).join();
+		return result;
+	}
+
+	/**
+	 * Stops the worker threads. Matrices which are already being computed are
+	 * completed.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	private int[] toNodeIndices(List<MapNode> nodes) {
+		int[] result = new int[nodes.size()];
+		for (int i = 0; i < result.length; i++) {
+			MapNode node = nodes.get(i);
+			int idx = graph.getNodeIndex(node);
+			if (idx == -1 && map != null) {
+				MapNode wayNode = map.getNearestWayNode(new Position(node), filter);
+				if (wayNode != null)
+					idx = graph.getNodeIndex(wayNode);
+			}
+			result[i] = idx;
+		}
+		return result;
+	}
+
+	/**
+	 * One-to-many Dijkstra search on primitive arrays. As in
+	 * {@link RoadGraphRouter}, array entries are invalidated by a query
+	 * counter instead of clearing them.
+	 */
+	private static class OneToManySearch {
+		private final RoadGraph graph;
+		private final double[] pathCosts;
+		// query number for which the path cost is valid
+		private final int[] visited;
+		// query number in which the node was settled
+		private final int[] closed;
+		// query number in which the node is a target which has not been settled yet
+		private final int[] pending;
+		private int query;
+		private final NodeHeap heap = new NodeHeap();
+
+		OneToManySearch(RoadGraph graph) {
+			this.graph = graph;
+			int n = graph.getNodeCount();
+			pathCosts = new double[n];
+			visited = new int[n];
+			closed = new int[n];
+			pending = new int[n];
+		}
+
+		double[] computeRow(int source, int[] targets, OneWayMode oneWayMode) {
+			if (++query == 0) {
+				// counter overflow: reset markers
+				Arrays.fill(visited, 0);
+				Arrays.fill(closed, 0);
+				Arrays.fill(pending, 0);
+				query = 1;
+			}
+			int pendingCount = 0;
+			for (int target : targets) {
+				if (target >= 0 && pending[target] != query) {
+					pending[target] = query;
+					pendingCount++;
+				}
+			}
+			heap.clear();
+			if (source >= 0) {
+				visited[source] = query;
+				pathCosts[source] = 0;
+				heap.insert(source, 0);
+			}
+			while (pendingCount > 0 && !heap.isEmpty()) {
+				int node = heap.peekNode();
+				double cost = heap.peekKey();
+				heap.removeFirst();
+				if (closed[node] == query || cost > pathCosts[node])
+					continue; // outdated heap entry
+				closed[node] = query;
+				if (pending[node] == query) {
+					pending[node] = 0;
+					pendingCount--;
+				}
+				int end = graph.getFirstEdge(node + 1);
+				for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+					if (graph.isAllowed(edge, oneWayMode)) {
+						int target = graph.getEdgeTarget(edge);
+						double newCost = cost + graph.getEdgeLength(edge);
+						if (visited[target] != query || newCost < pathCosts[target]) {
+							visited[target] = query;
+							pathCosts[target] = newCost;
+							heap.insert(target, newCost);
+						}
+					}
+				}
+			}
+			double[] result = new double[targets.length];
+			for (int i = 0; i < targets.length; i++) {
+				int target = targets[i];
+				result[i] = target >= 0 && closed[target] == query ? pathCosts[target] : Double.POSITIVE_INFINITY;
+			}
+			return result;
+		}
+	}
+
+	/** Creates daemon threads, so an unused service does not block VM shutdown. */
+	private static class WorkerThreadFactory implements ThreadFactory {
+		private static final AtomicInteger poolCount = new AtomicInteger();
+		private final int poolId = poolCount.incrementAndGet();
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread result = new Thread(r, "distance-matrix-" + poolId + "-" + threadCount.incrementAndGet());
+			result.setDaemon(true);
+			return result;
+		}
+	}
+}
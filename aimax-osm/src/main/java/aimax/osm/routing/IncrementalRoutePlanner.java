@@ -0,0 +1,129 @@
+package aimax.osm.routing;
+
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.gps.GpsFix;
+import aimax.osm.gps.GpsPositionListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a route from the current GPS position to a destination up to date.
+ * The planner can be registered directly at a
+ * {@link aimax.osm.gps.GpsLocator}. For each valid fix, the nearest way node
+ * is determined. If it differs from the previous one, the route is re-planned
+ * by a {@link DStarLiteRouter}, which repairs the search state of the previous
+ * query instead of starting from scratch. Blocked ways are handled the same
+ * way. Route listeners are informed about each new route, in the thread which
+ * caused the re-planning (for fixes, usually the NMEA reader thread).
+ */
+public class IncrementalRoutePlanner implements GpsPositionListener {
+
+	private final OsmMap map;
+	private final MapWayFilter filter;
+	private final DStarLiteRouter router;
+	private final List<Consumer<List<Position>>> routeListeners = new CopyOnWriteArrayList<>();
+
+	private int destination = -1;
+	private int current = -1;
+	private List<Position> route = Collections.emptyList();
+	private long replanningTimeNanos;
+
+	/**
+	 * Creates a planner for all ways of the map which are accepted by the
+	 * filter. The map must not be changed afterwards.
+	 */
+	public IncrementalRoutePlanner(OsmMap map, MapWayFilter filter, boolean ignoreOneWays) {
+		this.map = map;
+		this.filter = filter;
+		router = new DStarLiteRouter(RoadGraph.create(map, filter), ignoreOneWays);
+	}
+
+	public void addRouteListener(Consumer<List<Position>> listener) {
+		routeListeners.add(listener);
+	}
+
+	public void removeRouteListener(Consumer<List<Position>> listener) {
+		routeListeners.remove(listener);
+	}
+
+	/**
+	 * Sets the destination, not necessarily a way node. If a position is
+	 * known, a new route is computed immediately.
+	 */
+	public synchronized void setDestination(MapNode node) {
+		destination = getWayNodeIndex(new Position(node));
+		replan();
+	}
+
+	/** Re-plans the route if the fix leads to another nearest way node. */
+	@Override
+	public synchronized void positionUpdated(GpsFix pos) {
+		if (pos.isPosOk()) {
+			int node = getWayNodeIndex(pos);
+			if (node != -1 && node != current) {
+				current = node;
+				replan();
+			}
+		}
+	}
+
+	/** Blocks or releases a way (e.g. because of a road closure) and re-plans the route. */
+	public synchronized void setWayBlocked(MapWay way, boolean value) {
+		router.setBlocked(way, value);
+		replan();
+	}
+
+	/** Returns the positions of the current route or an empty list if no route is known. */
+	public synchronized List<Position> getRoute() {
+		return route;
+	}
+
+	/** Returns the length of the current route in KM (infinity if no route is known). */
+	public synchronized double getRouteCost() {
+		return route.isEmpty() ? Double.POSITIVE_INFINITY : router.getPathCost();
+	}
+
+	/** Returns the time needed for the last re-planning in microseconds. */
+	public synchronized long getReplanningTimeMicros() {
+		return replanningTimeNanos / 1000;
+	}
+
+	private int getWayNodeIndex(Position pos) {
+		MapNode node = map.getNearestWayNode(pos, filter);
+		return node != null ? router.getGraph().getNodeIndex(node) : -1;
+	}
+
+	private void replan() {
+		if (current == -1 || destination == -1)
+			return;
+		long start = System.nanoTime();
+		int[] path = router.findPath(current, destination);
+		replanningTimeNanos = System.nanoTime() - start;
+		List<Position> positions = new ArrayList<>();
+		if (path != RoadGraphRouter.NO_PATH) {
+			MapNode prevNode = null;
+			MapNode first = router.getGraph().getNode(current);
+			if (path.length == 0)
+				positions.add(new Position(first.getLat(), first.getLon()));
+			for (int edge : path) {
+				for (MapNode node : router.getGraph().createAction(edge).getNodes()) {
+					if (prevNode == null || prevNode.getId() != node.getId()) {
+						positions.add(new Position(node.getLat(), node.getLon()));
+						prevNode = node;
+					}
+				}
+			}
+		}
+		route = Collections.unmodifiableList(positions);
+		for (Consumer<List<Position>> listener : routeListeners)
+			listener.accept(route);
+	}
+}
@@ -0,0 +1,73 @@
+package aimax.osm.routing;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node indices with double keys, stored in two primitive
+ * arrays. The heap does not support decrease-key. Instead, nodes are inserted
+ * again with the smaller key and callers skip outdated entries when they are
+ * removed (lazy deletion). The arrays grow on demand and are kept between
+ * queries.
+ */
+class NodeHeap {
+	private int[] nodes = new int[64];
+	private double[] keys = new double[64];
+	private int size;
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	/** Returns the node with the smallest key. The heap must not be empty. */
+	int peekNode() {
+		return nodes[0];
+	}
+
+	/** Returns the smallest key or infinity if the heap is empty. */
+	double peekKey() {
+		return size > 0 ? keys[0] : Double.POSITIVE_INFINITY;
+	}
+
+	void insert(int node, double key) {
+		if (size == nodes.length) {
+			nodes = Arrays.copyOf(nodes, 2 * size);
+			keys = Arrays.copyOf(keys, 2 * size);
+		}
+		int pos = size++;
+		while (pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if (keys[parent] <= key)
+				break;
+			nodes[pos] = nodes[parent];
+			keys[pos] = keys[parent];
+			pos = parent;
+		}
+		nodes[pos] = node;
+		keys[pos] = key;
+	}
+
+	/** Removes the node with the smallest key. The heap must not be empty. */
+	void removeFirst() {
+		int node = nodes[--size];
+		double key = keys[size];
+		int pos = 0;
+		while (true) {
+			int child = 2 * pos + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && keys[child + 1] < keys[child])
+				child++;
+			if (keys[child] >= key)
+				break;
+			nodes[pos] = nodes[child];
+			keys[pos] = keys[child];
+			pos = child;
+		}
+		nodes[pos] = node;
+		keys[pos] = key;
+	}
+}
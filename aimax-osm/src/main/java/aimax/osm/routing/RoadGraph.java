@@ -0,0 +1,246 @@
+package aimax.osm.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+
+/**
+ * Compact, immutable routing graph which is compiled from the ways of a map
+ * accepted by a way filter (the routing profile, e.g. car or bicycle).
+ * Way nodes are identified by int indices, and edges are stored in
+ * compressed sparse row (CSR) format: The outgoing edges of node
+ * <code>u</code> have the indices from <code>getFirstEdge(u)</code>
+ * (inclusive) to <code>getFirstEdge(u + 1)</code> (exclusive). For each edge,
+ * target node index, length in KM, and one-way flags are stored in primitive
+ * arrays. So an edge needs less than twenty bytes, whereas the object graph
+ * ({@link MapWay}, {@link MapNode}, {@link aimax.osm.data.entities.WayRef},
+ * and {@link OsmMoveAction} objects created during search) needs an order of
+ * magnitude more.
+ * <br>
+ * Each pair of consecutive way nodes results in two edges, one in each
+ * direction. Edges of one-way streets are marked, so that searches can
+ * decide how to handle them (see {@link #isAllowed(int, OneWayMode)}).
+ * Edges also reference their way, so that paths can be converted back into
+ * {@link OsmMoveAction}s.
+ * <br>
+ * Use {@link RoadGraphProblem} to apply the search algorithms of the
+ * framework, or {@link RoadGraphRouter} for allocation-free shortest path
+ * computation.
+ */
+public class RoadGraph {
+	/** Flag of edges which follow the direction of a one-way street. */
+	public static final byte ONEWAY_FORWARD = 1;
+	/** Flag of edges which lead against the direction of a one-way street. */
+	public static final byte ONEWAY_BACKWARD = 2;
+	/** Flag of edges which lead against the node order of their way. */
+	public static final byte REVERSED = 4;
+
+	private final MapNode[] nodes;
+	private final float[] lats;
+	private final float[] lons;
+	// node ids in ascending order and the corresponding node indices
+	private final long[] sortedIds;
+	private final int[] sortedIndices;
+
+	private final int[] firstEdge;
+	private final int[] edgeTargets;
+	private final float[] edgeLengths;
+	private final byte[] edgeFlags;
+	// way and position of the edge source within the way, needed to create actions
+	private final MapWay[] ways;
+	private final int[] edgeWays;
+	private final int[] edgeWayNodeIdx;
+
+	/**
+	 * Compiles a graph from all ways of the map which are accepted by the
+	 * filter.
+	 */
+	public static RoadGraph create(OsmMap map, MapWayFilter filter) {
+		return create(map.getWays(map.getBoundingBox()), filter);
+	}
+
+	/**
+	 * Compiles a graph from the given ways.
+	 *
+	 * @param filter
+	 *            Possibly null (all ways are accepted).
+	 */
+	public static RoadGraph create(Collection<MapWay> ways, MapWayFilter filter) {
+		Map<MapNode, Integer> nodeIndices = new HashMap<MapNode, Integer>();
+		List<MapWay> acceptedWays = new ArrayList<MapWay>();
+		int[] degrees = new int[16];
+		for (MapWay way : ways) {
+			if (filter != null && !filter.isAccepted(way))
+				continue;
+			acceptedWays.add(way);
+			List<MapNode> wayNodes = way.getNodes();
+			for (int i = 0; i < wayNodes.size(); i++) {
+				Integer idx = nodeIndices.get(wayNodes.get(i));
+				if (idx == null) {
+					idx = nodeIndices.size();
+					nodeIndices.put(wayNodes.get(i), idx);
+					if (idx == degrees.length)
+						degrees = Arrays.copyOf(degrees, 2 * idx);
+				}
+				if (i > 0 && wayNodes.get(i - 1).getId() != wayNodes.get(i).getId()) {
+					degrees[idx]++;
+					degrees[nodeIndices.get(wayNodes.get(i - 1))]++;
+				}
+			}
+		}
+		return new RoadGraph(acceptedWays, nodeIndices, degrees);
+	}
+
+	private RoadGraph(List<MapWay> acceptedWays, Map<MapNode, Integer> nodeIndices, int[] degrees) {
+		int nodeCount = nodeIndices.size();
+		nodes = new MapNode[nodeCount];
+		lats = new float[nodeCount];
+		lons = new float[nodeCount];
+		for (Map.Entry<MapNode, Integer> e : nodeIndices.entrySet()) {
+			int idx = e.getValue();
+			nodes[idx] = e.getKey();
+			lats[idx] = e.getKey().getLat();
+			lons[idx] = e.getKey().getLon();
+		}
+		sortedIds = new long[nodeCount];
+		sortedIndices = new int[nodeCount];
+		Integer[] order = new Integer[nodeCount];
+		for (int i = 0; i < nodeCount; i++)
+			order[i] = i;
+		Arrays.sort(order, (i1, i2) -> Long.compare(nodes[i1].getId(), nodes[i2].getId()));
+		for (int i = 0; i < nodeCount; i++) {
+			sortedIndices[i] = order[i];
+			sortedIds[i] = nodes[order[i]].getId();
+		}
+
+		firstEdge = new int[nodeCount + 1];
+		for (int i = 0; i < nodeCount; i++)
+			firstEdge[i + 1] = firstEdge[i] + degrees[i];
+		int edgeCount = firstEdge[nodeCount];
+		edgeTargets = new int[edgeCount];
+		edgeLengths = new float[edgeCount];
+		edgeFlags = new byte[edgeCount];
+		ways = acceptedWays.toArray(new MapWay[acceptedWays.size()]);
+		edgeWays = new int[edgeCount];
+		edgeWayNodeIdx = new int[edgeCount];
+		int[] next = Arrays.copyOf(firstEdge, nodeCount);
+		for (int w = 0; w < ways.length; w++) {
+			List<MapNode> wayNodes = ways[w].getNodes();
+			boolean oneway = ways[w].isOneway();
+			for (int i = 1; i < wayNodes.size(); i++) {
+				int from = nodeIndices.get(wayNodes.get(i - 1));
+				int to = nodeIndices.get(wayNodes.get(i));
+				if (from != to) {
+					float length = (float) Position.getDistKM(lats[from], lons[from], lats[to], lons[to]);
+					addEdge(next[from]++, to, length, oneway ? ONEWAY_FORWARD : 0, w, i - 1);
+					addEdge(next[to]++, from, length, (byte) (REVERSED | (oneway ? ONEWAY_BACKWARD : 0)), w, i);
+				}
+			}
+		}
+	}
+
+	private void addEdge(int edge, int target, float length, byte flags, int way, int wayNodeIdx) {
+		edgeTargets[edge] = target;
+		edgeLengths[edge] = length;
+		edgeFlags[edge] = flags;
+		edgeWays[edge] = way;
+		edgeWayNodeIdx[edge] = wayNodeIdx;
+	}
+
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	public int getEdgeCount() {
+		return edgeTargets.length;
+	}
+
+	public MapNode getNode(int node) {
+		return nodes[node];
+	}
+
+	/** Returns the index of the node or -1 if the node is not part of the graph. */
+	public int getNodeIndex(MapNode node) {
+		int pos = Arrays.binarySearch(sortedIds, node.getId());
+		return pos >= 0 && nodes[sortedIndices[pos]].equals(node) ? sortedIndices[pos] : -1;
+	}
+
+	public float getLat(int node) {
+		return lats[node];
+	}
+
+	public float getLon(int node) {
+		return lons[node];
+	}
+
+	/** Returns the straight-line distance between two nodes in KM. */
+	public double getDistKM(int node1, int node2) {
+		return Position.getDistKM(lats[node1], lons[node1], lats[node2], lons[node2]);
+	}
+
+	/**
+	 * Returns the index of the first outgoing edge of the node. For
+	 * <code>node == getNodeCount()</code>, the number of edges is returned.
+	 */
+	public int getFirstEdge(int node) {
+		return firstEdge[node];
+	}
+
+	public int getEdgeTarget(int edge) {
+		return edgeTargets[edge];
+	}
+
+	/** Returns the length of the edge in KM. */
+	public float getEdgeLength(int edge) {
+		return edgeLengths[edge];
+	}
+
+	public byte getEdgeFlags(int edge) {
+		return edgeFlags[edge];
+	}
+
+	/**
+	 * Checks whether the edge can be used. One-way streets can be ignored,
+	 * travelled in forward direction (normal search), or travelled in backward
+	 * direction (search from the goal to the start).
+	 */
+	public boolean isAllowed(int edge, OneWayMode mode) {
+		switch (mode) {
+		case TRAVEL_FORWARD:
+			return (edgeFlags[edge] & ONEWAY_BACKWARD) == 0;
+		case TRAVEL_BACKWARDS:
+			return (edgeFlags[edge] & ONEWAY_FORWARD) == 0;
+		default:
+			return true;
+		}
+	}
+
+	/** Returns the way from which the edge was created. */
+	public MapWay getEdgeWay(int edge) {
+		return ways[edgeWays[edge]];
+	}
+
+	/** Creates an action which corresponds to the edge. */
+	public OsmMoveAction createAction(int edge) {
+		int fromIdx = edgeWayNodeIdx[edge];
+		int toIdx = (edgeFlags[edge] & REVERSED) != 0 ? fromIdx - 1 : fromIdx + 1;
+		return new OsmMoveAction(ways[edgeWays[edge]], fromIdx, toIdx);
+	}
+
+	/** Returns the number of bytes used by the arrays of this graph (estimated). */
+	public long estimateMemoryUsage() {
+		long nodeBytes = nodes.length * (4L + 4 + 4 + 8 + 4 + 4);
+		long edgeBytes = edgeTargets.length * (4L + 4 + 1 + 4 + 4);
+		return nodeBytes + edgeBytes;
+	}
+}
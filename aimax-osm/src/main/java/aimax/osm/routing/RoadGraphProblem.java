@@ -0,0 +1,110 @@
+package aimax.osm.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import aima.core.search.framework.Node;
+import aima.core.search.framework.problem.BidirectionalProblem;
+import aima.core.search.framework.problem.Problem;
+import aimax.osm.data.Position;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+
+/**
+ * Route finding problem on a compiled {@link RoadGraph}. States are node
+ * indices, actions are edge indices of the graph. This adapter makes the
+ * search algorithms of the framework applicable to compiled graphs. For
+ * allocation-free shortest path computation, use {@link RoadGraphRouter}.
+ */
+public class RoadGraphProblem implements Problem<Integer, Integer>, BidirectionalProblem<Integer, Integer> {
+
+	private final RoadGraph graph;
+	private final int from;
+	private final int to;
+	private final OneWayMode oneWayMode;
+	private RoadGraphProblem reverseProblem;
+
+	/**
+	 * Creates a new route planning problem.
+	 *
+	 * @param from
+	 *            Index of the start node.
+	 * @param to
+	 *            Index of the goal node.
+	 */
+	public RoadGraphProblem(RoadGraph graph, int from, int to, boolean ignoreOneWays) {
+		this(graph, from, to, ignoreOneWays ? OneWayMode.IGNORE : OneWayMode.TRAVEL_FORWARD);
+	}
+
+	private RoadGraphProblem(RoadGraph graph, int from, int to, OneWayMode oneWayMode) {
+		this.graph = graph;
+		this.from = from;
+		this.to = to;
+		this.oneWayMode = oneWayMode;
+	}
+
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+	@Override
+	public Integer getInitialState() {
+		return from;
+	}
+
+	@Override
+	public List<Integer> getActions(Integer state) {
+		int end = graph.getFirstEdge(state + 1);
+		List<Integer> result = new ArrayList<>(end - graph.getFirstEdge(state));
+		for (int edge = graph.getFirstEdge(state); edge < end; edge++)
+			if (graph.isAllowed(edge, oneWayMode))
+				result.add(edge);
+		return result;
+	}
+
+	@Override
+	public Integer getResult(Integer state, Integer action) {
+		return graph.getEdgeTarget(action);
+	}
+
+	@Override
+	public boolean testGoal(Integer state) {
+		return state == to;
+	}
+
+	@Override
+	public double getStepCosts(Integer state, Integer action, Integer stateDelta) {
+		return graph.getEdgeLength(action);
+	}
+
+	@Override
+	public Problem<Integer, Integer> getOriginalProblem() {
+		return this;
+	}
+
+	/** Returns the problem of finding a path from the goal to the start. */
+	@Override
+	public Problem<Integer, Integer> getReverseProblem() {
+		if (reverseProblem == null) {
+			OneWayMode mode = oneWayMode == OneWayMode.IGNORE ? OneWayMode.IGNORE : OneWayMode.TRAVEL_BACKWARDS;
+			reverseProblem = new RoadGraphProblem(graph, to, from, mode);
+		}
+		return reverseProblem;
+	}
+
+	/** Returns the straight-line distance heuristic (in KM) for this problem. */
+	public ToDoubleFunction<Node<Integer, Integer>> createHeuristicFunction() {
+		return node -> graph.getDistKM(node.getState(), to);
+	}
+
+	/** Converts a sequence of edges starting at the initial state into positions. */
+	public List<Position> toPositions(List<Integer> edges) {
+		List<Position> result = new ArrayList<>(edges.size() + 1);
+		result.add(new Position(graph.getLat(from), graph.getLon(from)));
+		for (int edge : edges) {
+			int node = graph.getEdgeTarget(edge);
+			result.add(new Position(graph.getLat(node), graph.getLon(node)));
+		}
+		return result;
+	}
+}
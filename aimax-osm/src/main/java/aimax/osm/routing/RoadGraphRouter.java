@@ -0,0 +1,122 @@
+package aimax.osm.routing;
+
+import java.util.Arrays;
+
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+
+/**
+ * A* shortest path search on a {@link RoadGraph} which works on primitive
+ * arrays only. All search data (path costs, predecessor edges, and the
+ * priority queue) is kept in arrays which are allocated once and reused by
+ * subsequent queries. Array entries are invalidated by a query counter
+ * instead of clearing them. So after the first few queries, route
+ * computation allocates no objects except the resulting path array.
+ * <br>
+ * Routers are not thread-safe. Use one router per thread; the graph can be
+ * shared.
+ */
+public class RoadGraphRouter {
+	/** Return value of {@link #findPath(int, int, OneWayMode)} if no path exists. */
+	public static final int[] NO_PATH = new int[0];
+
+	private final RoadGraph graph;
+	private final double[] pathCosts;
+	private final int[] predecessorEdges;
+	private final int[] predecessors;
+	// query number for which the entries above are valid
+	private final int[] visited;
+	// query number in which the node was expanded
+	private final int[] closed;
+	private int query;
+
+	private final NodeHeap heap = new NodeHeap();
+
+	private long nodesExpanded;
+	private double pathCost;
+
+	public RoadGraphRouter(RoadGraph graph) {
+		this.graph = graph;
+		int n = graph.getNodeCount();
+		pathCosts = new double[n];
+		predecessorEdges = new int[n];
+		predecessors = new int[n];
+		visited = new int[n];
+		closed = new int[n];
+	}
+
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Computes a shortest path and returns the indices of its edges.
+	 *
+	 * @return An array of edge indices (empty if start and goal are equal) or
+	 *         {@link #NO_PATH}.
+	 */
+	public int[] findPath(int from, int to, OneWayMode oneWayMode) {
+		if (++query == 0) {
+			// counter overflow: reset markers
+			Arrays.fill(visited, 0);
+			Arrays.fill(closed, 0);
+			query = 1;
+		}
+		nodesExpanded = 0;
+		pathCost = Double.POSITIVE_INFINITY;
+		heap.clear();
+		visit(from, 0, -1, -1, to);
+		while (!heap.isEmpty()) {
+			int node = heap.peekNode();
+			double key = heap.peekKey();
+			heap.removeFirst();
+			if (closed[node] == query || key > pathCosts[node] + graph.getDistKM(node, to))
+				continue; // outdated heap entry
+			if (node == to) {
+				pathCost = pathCosts[node];
+				return createPath(to);
+			}
+			closed[node] = query;
+			nodesExpanded++;
+			int end = graph.getFirstEdge(node + 1);
+			for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+				if (graph.isAllowed(edge, oneWayMode)) {
+					int target = graph.getEdgeTarget(edge);
+					double cost = pathCosts[node] + graph.getEdgeLength(edge);
+					if (visited[target] != query || cost < pathCosts[target])
+						visit(target, cost, edge, node, to);
+				}
+			}
+		}
+		return NO_PATH;
+	}
+
+	/** Returns the length of the path found by the last query in KM (infinity if no path was found). */
+	public double getPathCost() {
+		return pathCost;
+	}
+
+	/** Returns the number of nodes expanded during the last query. */
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
+
+	private void visit(int node, double cost, int edge, int predecessor, int goal) {
+		visited[node] = query;
+		pathCosts[node] = cost;
+		predecessorEdges[node] = edge;
+		predecessors[node] = predecessor;
+		if (closed[node] == query)
+			closed[node] = 0; // reopen (only needed for inconsistent edge lengths)
+		heap.insert(node, cost + graph.getDistKM(node, goal));
+	}
+
+	private int[] createPath(int to) {
+		int length = 0;
+		for (int node = to; predecessors[node] != -1; node = predecessors[node])
+			length++;
+		int[] result = new int[length];
+		for (int node = to; predecessors[node] != -1; node = predecessors[node])
+			result[--length] = predecessorEdges[node];
+		return result;
+	}
+}
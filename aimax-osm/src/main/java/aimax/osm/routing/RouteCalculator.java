@@ -20,6 +20,8 @@ import java.util.function.ToDoubleFunction;
 /**
  * Implements a search engine for shortest path calculations. Modified versions
  * can be implemented quite easily by overriding the various factory methods.
+ * Route calculators do not store state between calls. So one instance can be
+ * used by several threads concurrently (see {@link BatchRouteService}).
  * 
  * @author Ruediger Lunde
  */
@@ -45,40 +47,52 @@ public class RouteCalculator {
 	 *            The information source.
 	 * @param taskSelection
 	 *            Number, indicating which kinds of ways are relevant.
+	 * @return The positions of the route. The list is empty if route
+	 *         calculation fails.
 	 */
 	public List<Position> calculateRoute(List<MapNode> markers, OsmMap map,
 			int taskSelection) {
-		List<Position> result = new ArrayList<>();
 		try {
-			MapWayFilter wayFilter = createMapWayFilter(map, taskSelection);
-			boolean ignoreOneways = (taskSelection == 0);
-			List<MapNode[]> pNodeList = subdivideProblem(markers, map, wayFilter);
-			MapNode prevNode = null;
-			for (int i = 0; i < pNodeList.size()
-					&& !Tasks.currIsCancelled(); i++) {
-				Problem<MapNode, OsmMoveAction> problem = createProblem(pNodeList.get(i), map, wayFilter,
-						ignoreOneways, taskSelection);
-				ToDoubleFunction<Node<MapNode, OsmMoveAction>> h = createHeuristicFunction(pNodeList.get(i),
-						taskSelection);
-				SearchForActions<MapNode, OsmMoveAction> search = createSearch(h, taskSelection);
-				Optional<List<OsmMoveAction>> actions = search.findActions(problem);
-				if (!actions.isPresent())
-					break;
-				for (Object action : actions.get()) {
-					if (action instanceof OsmMoveAction) {
-						OsmMoveAction a = (OsmMoveAction) action;
-						for (MapNode node : a.getNodes()) {
-							if (prevNode != node) {
-								result.add(new Position(node.getLat(), node
-										.getLon()));
-								prevNode = node;
-							}
+			return computeRoute(markers, map, taskSelection);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Computes the route like {@link #calculateRoute(List, OsmMap, int)}, but
+	 * passes exceptions to the caller instead of reporting them.
+	 */
+	public List<Position> computeRoute(List<MapNode> markers, OsmMap map,
+			int taskSelection) {
+		List<Position> result = new ArrayList<>();
+		MapWayFilter wayFilter = createMapWayFilter(map, taskSelection);
+		boolean ignoreOneways = (taskSelection == 0);
+		List<MapNode[]> pNodeList = subdivideProblem(markers, map, wayFilter);
+		MapNode prevNode = null;
+		for (int i = 0; i < pNodeList.size()
+				&& !Tasks.currIsCancelled(); i++) {
+			Problem<MapNode, OsmMoveAction> problem = createProblem(pNodeList.get(i), map, wayFilter,
+					ignoreOneways, taskSelection);
+			ToDoubleFunction<Node<MapNode, OsmMoveAction>> h = createHeuristicFunction(pNodeList.get(i),
+					taskSelection);
+			SearchForActions<MapNode, OsmMoveAction> search = createSearch(h, taskSelection);
+			Optional<List<OsmMoveAction>> actions = search.findActions(problem);
+			if (!actions.isPresent())
+				break;
+			for (Object action : actions.get()) {
+				if (action instanceof OsmMoveAction) {
+					OsmMoveAction a = (OsmMoveAction) action;
+					for (MapNode node : a.getNodes()) {
+						if (prevNode == null || prevNode.getId() != node.getId()) {
+							result.add(new Position(node.getLat(), node
+									.getLon()));
+							prevNode = node;
 						}
 					}
 				}
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
 		}
 		return result;
 	}
@@ -19,6 +19,7 @@ public class RouteFindingProblem extends GeneralProblem<MapNode, OsmMoveAction>
 		implements BidirectionalProblem<MapNode, OsmMoveAction> {
 
 	private Problem<MapNode, OsmMoveAction> reverseProblem;
+	private MapNode goal;
 
 	/**
 	 * Creates a new route planning problem.
@@ -51,12 +52,18 @@ public class RouteFindingProblem extends GeneralProblem<MapNode, OsmMoveAction>
 		super(from, OsmFunctions.createActionFunction
 						(filter, ignoreOneWays ? OneWayMode.IGNORE : OneWayMode.TRAVEL_FORWARD, to),
 				OsmFunctions::getResult, Predicate.isEqual(to), costs);
+		goal = to;
 
 		reverseProblem = new GeneralProblem<>(to, OsmFunctions.createActionFunction
 						(filter, ignoreOneWays ? OneWayMode.IGNORE : OneWayMode.TRAVEL_BACKWARDS, from),
 				OsmFunctions::getResult, Predicate.isEqual(from), costs);
 	}
 
+	/** Returns the way node to which a route is searched. */
+	public MapNode getGoal() {
+		return goal;
+	}
+
 	public Problem<MapNode, OsmMoveAction> getOriginalProblem() {
 		return this;
 	}
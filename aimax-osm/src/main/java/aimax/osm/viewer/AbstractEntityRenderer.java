@@ -1,5 +1,7 @@
 package aimax.osm.viewer;
 
+import java.lang.reflect.Constructor;
+
 import aimax.osm.data.EntityVisitor;
 import aimax.osm.data.WayNodeProvider;
 import aimax.osm.data.entities.MapNode;
@@ -57,6 +59,35 @@ public abstract class AbstractEntityRenderer implements EntityVisitor {
 		displayFactor = factor;
 	}
 
+	/**
+	 * Returns true if the result of rendering only depends on the map
+	 * entities, their view information, and the settings of this renderer.
+	 * Renderers which highlight entities based on other state should return
+	 * false, so that rendered map tiles are not reused.
+	 */
+	public boolean isRenderingCacheable() {
+		return true;
+	}
+
+	/**
+	 * Creates a new renderer of the same class with the same settings. Needed
+	 * to render several map tiles concurrently. This implementation uses the
+	 * default constructor, which may be private.
+	 */
+	public AbstractEntityRenderer createCopy() {
+		try {
+			Constructor<? extends AbstractEntityRenderer> constructor = getClass().getDeclaredConstructor();
+			constructor.setAccessible(true);
+			AbstractEntityRenderer result = constructor.newInstance();
+			result.backgroundColor = backgroundColor;
+			result.debugMode = debugMode;
+			result.displayFactor = displayFactor;
+			return result;
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Renderer " + getClass() + " cannot be copied.", e);
+		}
+	}
+
 	/** Resets the renderer. */
 	public void initForRendering(UnifiedImageBuilder<?> imageBdr, CoordTransformer transformer,
 			WayNodeProvider wnProvider) {
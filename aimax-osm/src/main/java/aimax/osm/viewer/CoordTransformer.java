@@ -10,14 +10,19 @@ import aimax.osm.data.Position;
  * in pixel coordinates (x and y). The actual screen resolution is maintained
  * for scale computation. Additionally, a unit-per-inch factor is maintained
  * for transforming logical symbol size into pixels. 
+ * <br>
+ * Besides view coordinates, global pixel coordinates are supported. They
+ * are computed with the same scale but relative to latitude and longitude
+ * zero. So they do not change when the view is panned, which makes them
+ * suitable for addressing map tiles.
  * @author Ruediger Lunde
  *
  */
 public class CoordTransformer {
 	/** Longitude of left upper corner. */
-	private float originLon;
+	private double originLon;
 	/** Latitude of left upper corner. */
-	private float originLat;
+	private double originLat;
 	/** Correction factor for longitude values. */
 	private float lonCorr;
 	/** Number of pixels corresponding to one degree of latitude. */
@@ -38,6 +43,19 @@ public class CoordTransformer {
 	 */
 	private float dotsPerInch = unitsPerInch;
 	
+	/** Creates a transformer for the whole world. */
+	public CoordTransformer() {
+	}
+
+	/** Creates a transformer with the same settings as the given one. */
+	public CoordTransformer(CoordTransformer other) {
+		originLon = other.originLon;
+		originLat = other.originLat;
+		lonCorr = other.lonCorr;
+		dotsPerDeg = other.dotsPerDeg;
+		dotsPerInch = other.dotsPerInch;
+	}
+
 	/** Sets the screen resolution (used for scale computation). */
 	public void setScreenResolution(int dotsPerInch) {
 		this.dotsPerInch = dotsPerInch;
@@ -76,9 +94,18 @@ public class CoordTransformer {
 	 * specified view focus keep at their position.
 	 */
 	public void zoom(float factor, int focusX, int focusY) {
+		setDotsPerDeg(dotsPerDeg * factor, focusX, focusY);
+	}
+
+	/**
+	 * Sets the number of pixels per degree of latitude and adjusts the view so
+	 * that the objects shown at the specified view focus keep at their
+	 * position.
+	 */
+	public void setDotsPerDeg(float dotsPerDeg, int focusX, int focusY) {
 		float focusLon = lon(focusX);
 		float focusLat = lat(focusY);
-		dotsPerDeg *= factor;
+		this.dotsPerDeg = dotsPerDeg;
 		int focusXNew = x(focusLon);
 		int focusYNew = y(focusLat);
 		adjust(focusX-focusXNew, focusY-focusYNew);
@@ -101,18 +128,42 @@ public class CoordTransformer {
 	
 	/** Computes the corresponding longitude for a given view x coordinate. */
 	public float lon(int x) {
-		return x / (dotsPerDeg * lonCorr) + originLon;
+		return (float) (x / (dotsPerDeg * lonCorr) + originLon);
 	}
 	
 	/** Computes the corresponding latitude for a given view y coordinate. */
 	public float lat(int y) {
-		return originLat - y / dotsPerDeg;
+		return (float) (originLat - y / dotsPerDeg);
+	}
+
+	/** Returns the global pixel x coordinate of the left upper view corner. */
+	public double getGlobalOriginX() {
+		return (double) dotsPerDeg * lonCorr * originLon;
+	}
+
+	/** Returns the global pixel y coordinate of the left upper view corner. */
+	public double getGlobalOriginY() {
+		return -(double) dotsPerDeg * originLat;
+	}
+
+	/**
+	 * Moves the view so that its left upper corner is shown at the specified
+	 * global pixel coordinates.
+	 */
+	public void moveOriginTo(double globalX, double globalY) {
+		originLon = globalX / ((double) dotsPerDeg * lonCorr);
+		originLat = -globalY / dotsPerDeg;
 	}
 	
 	/** Returns the current {@link #dotsPerDeg} value. */
 	public float getDotsPerDeg() {
 		return dotsPerDeg;
 	}
+
+	/** Returns the correction factor for longitude values. */
+	public float getLonCorrection() {
+		return lonCorr;
+	}
 	
 	/**
 	 * Returns the scale. 1 / 100 000 means one cm on the screen corresponds to
@@ -70,6 +70,14 @@ public class DefaultEntityRenderer extends AbstractEntityRenderer {
 		// count = 0;
 	}
 
+	/** Creates a copy which also uses the default font size of this renderer. */
+	@Override
+	public AbstractEntityRenderer createCopy() {
+		DefaultEntityRenderer result = (DefaultEntityRenderer) super.createCopy();
+		result.defaultFontSize = defaultFontSize;
+		return result;
+	}
+
 	protected List<MapNode> getWayNodes(MapWay way) {
 		List<MapNode> result = wayNodeHash.get(way.getId());
 		if (result == null) {
@@ -118,7 +126,7 @@ public class DefaultEntityRenderer extends AbstractEntityRenderer {
 		List<MapNode> nodes = getWayNodes(way);
 		if (!nodes.isEmpty() && pInfo.wayColor != null) {
 			if (pInfo.wayFillColor != null
-					&& nodes.get(0) == nodes.get(nodes.size() - 1)
+					&& nodes.get(0).equals(nodes.get(nodes.size() - 1))
 					&& (way.isArea() || !pInfo.fillAreasOnly))
 				// alternative solution:
 				// && (way.isArea() ||
@@ -0,0 +1,331 @@
+package aimax.osm.viewer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.MapEvent;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.MapEntity;
+import aimax.osm.data.entities.MapNode;
+
+/**
+ * Map drawer which renders the map in square tiles of {@link #TILE_SIZE}
+ * pixels. Tiles are addressed by zoom level and by their position in the
+ * global pixel grid of the {@link CoordTransformer}. To make tiles reusable,
+ * the scale is restricted to discrete zoom levels ({@link #LEVELS_PER_OCTAVE}
+ * levels per factor two) and the view origin to whole pixels. Missing tiles
+ * are rendered in parallel, each with its own copy of the renderer, and kept
+ * in a least-recently-used cache which is bounded by memory. So after panning,
+ * only the newly exposed tiles have to be rendered, and zooming back to a
+ * previous level reuses the tiles rendered before.
+ * <br>
+ * Markers and tracks change frequently and are therefore not part of the
+ * tiles. Platform-specific views place the tiles returned by
+ * {@link #updateTiles(int, int, boolean)} and then call
+ * {@link #drawOverlay(Object)} to draw markers and tracks on top.
+ */
+public class TiledMapDrawer<IMAGE_TYPE> extends UnifiedMapDrawer<IMAGE_TYPE> {
+	public static final int TILE_SIZE = 256;
+	public static final int LEVELS_PER_OCTAVE = 8;
+	/** Entities up to this number of pixels outside the tile are rendered, so that icons and names are not cut. */
+	private static final int TILE_MARGIN = 64;
+	private static final UColor TRANSPARENT = new UColor(0, 0, 0, 0);
+
+	private static Logger LOG = Logger.getLogger("aimax.osm");
+
+	private final TileFactory<IMAGE_TYPE> tileFactory;
+	/** Tiles in access order (least recently used first). */
+	private final LinkedHashMap<TileKey, Tile<IMAGE_TYPE>> cache = new LinkedHashMap<TileKey, Tile<IMAGE_TYPE>>(
+			64, 0.75f, true);
+	private long maxCacheBytes = 64L << 20;
+	private long cacheBytes;
+	/** Renderer and map settings which were used to render the cached tiles. */
+	private List<Object> cacheContext;
+	private ExecutorService executor;
+	private int viewWidth;
+	private int viewHeight;
+	private long cacheHits;
+	private long cacheMisses;
+
+	/** Creates images and image builders for tiles. */
+	public interface TileFactory<IMAGE_TYPE> {
+		IMAGE_TYPE createImage(int width, int height);
+
+		UnifiedImageBuilder<IMAGE_TYPE> createImageBuilder();
+	}
+
+	public TiledMapDrawer(UnifiedImageBuilder<IMAGE_TYPE> imgBdr, OsmMap map, TileFactory<IMAGE_TYPE> tileFactory) {
+		super(imgBdr, map);
+		this.tileFactory = tileFactory;
+	}
+
+	@Override
+	public void setMap(OsmMap map) {
+		super.setMap(map);
+		clearTileCache();
+	}
+
+	/** Limits the memory used by cached tiles (4 bytes per pixel). */
+	public void setMaxCacheBytes(long maxCacheBytes) {
+		this.maxCacheBytes = maxCacheBytes;
+	}
+
+	/** Removes all tiles from the cache. */
+	public synchronized void clearTileCache() {
+		cache.clear();
+		cacheBytes = 0;
+	}
+
+	/**
+	 * Discards the cached tiles if the event indicates changes of map
+	 * entities or view information. Markers and tracks are drawn on top of
+	 * the tiles, so their changes need no new tiles.
+	 */
+	public void mapChanged(MapEvent event) {
+		switch (event.getType()) {
+		case MARKER_ADDED:
+		case MARKER_REMOVED:
+		case TRACK_MODIFIED:
+			break;
+		default:
+			clearTileCache();
+		}
+	}
+
+	public synchronized int getCachedTileCount() {
+		return cache.size();
+	}
+
+	public synchronized long getCacheHits() {
+		return cacheHits;
+	}
+
+	public synchronized long getCacheMisses() {
+		return cacheMisses;
+	}
+
+	/**
+	 * Returns the tiles which cover a view of the given size and sets their
+	 * view positions. The scale of the transformer is rounded to the nearest
+	 * zoom level (keeping the view center) and the view origin to whole
+	 * pixels. Missing tiles are rendered in parallel before this method
+	 * returns.
+	 */
+	public synchronized List<Tile<IMAGE_TYPE>> updateTiles(int viewWidth, int viewHeight, boolean adjustToFit) {
+		this.viewWidth = viewWidth;
+		this.viewHeight = viewHeight;
+		if (viewWidth <= 0 || viewHeight <= 0 || map == null)
+			return Collections.emptyList();
+		long startTime = System.currentTimeMillis();
+		if (adjustToFit)
+			transformer.adjustTransformation(map.getBoundingBox(), viewWidth, viewHeight);
+		int level = (int) Math.round(Math.log(transformer.getDotsPerDeg()) / Math.log(2) * LEVELS_PER_OCTAVE);
+		transformer.setDotsPerDeg((float) Math.pow(2, (double) level / LEVELS_PER_OCTAVE), viewWidth / 2,
+				viewHeight / 2);
+		long originX = Math.round(transformer.getGlobalOriginX());
+		long originY = Math.round(transformer.getGlobalOriginY());
+		transformer.moveOriginTo(originX, originY);
+
+		AbstractEntityRenderer renderer = getRenderer();
+		List<Object> context = Arrays.<Object> asList(map, renderer, renderer.getDisplayFactor(),
+				renderer.isDebugModeEnabled(), renderer.getBackgroundColor(), transformer.getLonCorrection(),
+				transformer.getDotsPerUnit());
+		if (!context.equals(cacheContext) || !renderer.isRenderingCacheable()) {
+			clearTileCache();
+			cacheContext = context;
+		}
+
+		List<Tile<IMAGE_TYPE>> result = new ArrayList<Tile<IMAGE_TYPE>>();
+		List<TileKey> missingKeys = new ArrayList<TileKey>();
+		for (long row = Math.floorDiv(originY, TILE_SIZE); row <= Math.floorDiv(originY + viewHeight - 1,
+				TILE_SIZE); row++) {
+			for (long col = Math.floorDiv(originX, TILE_SIZE); col <= Math.floorDiv(originX + viewWidth - 1,
+					TILE_SIZE); col++) {
+				TileKey key = new TileKey(level, col, row);
+				Tile<IMAGE_TYPE> tile = cache.get(key);
+				if (tile != null)
+					result.add(tile);
+				else
+					missingKeys.add(key);
+			}
+		}
+		cacheHits += result.size();
+		cacheMisses += missingKeys.size();
+		for (Tile<IMAGE_TYPE> tile : renderTiles(missingKeys)) {
+			cache.put(tile.key, tile);
+			cacheBytes += 4L * TILE_SIZE * TILE_SIZE;
+			result.add(tile);
+		}
+		// visible tiles are the most recently used ones and are not evicted
+		Iterator<Tile<IMAGE_TYPE>> iter = cache.values().iterator();
+		while (cacheBytes > maxCacheBytes && cache.size() > result.size()) {
+			iter.next();
+			iter.remove();
+			cacheBytes -= 4L * TILE_SIZE * TILE_SIZE;
+		}
+		for (Tile<IMAGE_TYPE> tile : result) {
+			tile.viewX = (int) (tile.key.col * TILE_SIZE - originX);
+			tile.viewY = (int) (tile.key.row * TILE_SIZE - originY);
+		}
+		LOG.fine("Tiles: " + result.size() + " visible, " + missingKeys.size() + " rendered, " + cache.size()
+				+ " cached, " + (System.currentTimeMillis() - startTime) + "ms");
+		return result;
+	}
+
+	/**
+	 * Draws markers, tracks, and debug information on top of an image which
+	 * shows the tiles at their view positions.
+	 */
+	public void drawOverlay(IMAGE_TYPE image) {
+		UnifiedImageBuilder<IMAGE_TYPE> imageBdr = getImageBuilder();
+		imageBdr.initialize(image);
+		if (imageBdr.getWidth() > 0 && map != null) {
+			AbstractEntityRenderer renderer = getRenderer();
+			UColor bgColor = renderer.getBackgroundColor();
+			renderer.setBackgroundColor(TRANSPARENT);
+			try {
+				renderer.initForRendering(imageBdr, transformer, map);
+			} finally {
+				renderer.setBackgroundColor(bgColor);
+			}
+			float viewScale = transformer.computeScale() / renderer.getDisplayFactor();
+			for (MapEntity entity : map.getVisibleMarkersAndTracks(viewScale))
+				entity.accept(renderer);
+			renderer.printBufferedObjects();
+			drawDebugInfo(imageBdr);
+		}
+		imageBdr.getResult();
+	}
+
+	/**
+	 * Returns the visible map node which is the nearest with respect to the
+	 * specified view coordinates. The renderer is prepared with the entities
+	 * of the whole view for this purpose, but nothing is printed.
+	 */
+	public MapNode getNextNode(int x, int y) {
+		if (viewWidth <= 0 || viewHeight <= 0 || map == null)
+			return null;
+		AbstractEntityRenderer renderer = getRenderer();
+		UnifiedImageBuilder<IMAGE_TYPE> imageBdr = tileFactory.createImageBuilder();
+		imageBdr.initialize(tileFactory.createImage(1, 1));
+		renderer.initForRendering(imageBdr, transformer, map);
+		BoundingBox vbox = new BoundingBox(transformer.lat(viewHeight), transformer.lon(0), transformer.lat(0),
+				transformer.lon(viewWidth));
+		float viewScale = transformer.computeScale() / renderer.getDisplayFactor();
+		map.visitEntities(renderer, vbox, viewScale);
+		return renderer.getNextNode(x, y);
+	}
+
+	/** Renders the specified tiles, in parallel if more than one is missing. */
+	private List<Tile<IMAGE_TYPE>> renderTiles(List<TileKey> keys) {
+		List<Callable<Tile<IMAGE_TYPE>>> tasks = new ArrayList<Callable<Tile<IMAGE_TYPE>>>();
+		for (TileKey key : keys) {
+			final CoordTransformer tileTransformer = new CoordTransformer(transformer);
+			tileTransformer.moveOriginTo(key.col * TILE_SIZE, key.row * TILE_SIZE);
+			final AbstractEntityRenderer tileRenderer = getRenderer().createCopy();
+			tasks.add(() -> renderTile(key, tileTransformer, tileRenderer));
+		}
+		List<Tile<IMAGE_TYPE>> result = new ArrayList<Tile<IMAGE_TYPE>>(keys.size());
+		try {
+			if (tasks.size() == 1) {
+				result.add(tasks.get(0).call());
+			} else if (!tasks.isEmpty()) {
+				if (executor == null)
+					executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+						Thread thread = new Thread(r, "map-tile-renderer");
+						thread.setDaemon(true);
+						return thread;
+					});
+				for (Future<Tile<IMAGE_TYPE>> future : executor.invokeAll(tasks))
+					result.add(future.get());
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException("Tile rendering failed.", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			throw new IllegalStateException("Tile rendering failed.", e);
+		}
+		return result;
+	}
+
+	private Tile<IMAGE_TYPE> renderTile(TileKey key, CoordTransformer tileTransformer,
+			AbstractEntityRenderer tileRenderer) {
+		UnifiedImageBuilder<IMAGE_TYPE> imageBdr = tileFactory.createImageBuilder();
+		imageBdr.initialize(tileFactory.createImage(TILE_SIZE, TILE_SIZE));
+		tileRenderer.initForRendering(imageBdr, tileTransformer, map);
+		BoundingBox vbox = new BoundingBox(tileTransformer.lat(TILE_SIZE + TILE_MARGIN),
+				tileTransformer.lon(-TILE_MARGIN), tileTransformer.lat(-TILE_MARGIN),
+				tileTransformer.lon(TILE_SIZE + TILE_MARGIN));
+		float viewScale = tileTransformer.computeScale() / tileRenderer.getDisplayFactor();
+		map.visitEntities(tileRenderer, vbox, viewScale);
+		tileRenderer.printBufferedObjects();
+		return new Tile<IMAGE_TYPE>(key, imageBdr.getResult());
+	}
+
+	/** A rendered tile and its position in the current view. */
+	public static class Tile<IMAGE_TYPE> {
+		private final TileKey key;
+		private final IMAGE_TYPE image;
+		private int viewX;
+		private int viewY;
+
+		Tile(TileKey key, IMAGE_TYPE image) {
+			this.key = key;
+			this.image = image;
+		}
+
+		public IMAGE_TYPE getImage() {
+			return image;
+		}
+
+		/** Returns the x view coordinate of the left upper corner. */
+		public int getViewX() {
+			return viewX;
+		}
+
+		/** Returns the y view coordinate of the left upper corner. */
+		public int getViewY() {
+			return viewY;
+		}
+	}
+
+	/** Zoom level and grid position of a tile. */
+	private static class TileKey {
+		final int level;
+		final long col;
+		final long row;
+
+		TileKey(int level, long col, long row) {
+			this.level = level;
+			this.col = col;
+			this.row = row;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof TileKey))
+				return false;
+			TileKey other = (TileKey) obj;
+			return level == other.level && col == other.col && row == other.row;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (31 * (31 * level + col) + row);
+		}
+	}
+}
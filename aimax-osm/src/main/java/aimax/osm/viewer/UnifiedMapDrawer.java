@@ -90,19 +90,29 @@ public class UnifiedMapDrawer<IMAGE_TYPE> {
             for (MapEntity entity : map.getVisibleMarkersAndTracks(viewScale))
                 entity.accept(renderer);
             renderer.printBufferedObjects();
-            if (renderer.isDebugModeEnabled() && map instanceof DefaultMap) {
-                List<double[]> splits = ((DefaultMap) map).getEntityTree()
-                        .getSplitCoords();
-                imageBdr.setColor(UColor.LIGHT_GRAY);
-                imageBdr.setLineStyle(false, 1f);
-                imageBdr.setAreaFilled(false);
-                CoordTransformer trans = renderer.getTransformer();
-                for (double[] split : splits)
-                    imageBdr.drawLine(renderer.getTransformer().x(split[1]),
-                            trans.y(split[0]), trans.x(split[3]),
-                            trans.y(split[2]));
-            }
+            drawDebugInfo(imageBdr);
         }
         image = imageBdr.getResult();
     }
+
+    protected UnifiedImageBuilder<IMAGE_TYPE> getImageBuilder() {
+        return imageBdr;
+    }
+
+    /** Draws the kd-tree splits if the renderer is in debug mode. */
+    protected void drawDebugInfo(UnifiedImageBuilder<IMAGE_TYPE> imageBdr) {
+        if (renderer.isDebugModeEnabled() && map instanceof DefaultMap
+                && ((DefaultMap) map).getEntityTree() != null) {
+            List<double[]> splits = ((DefaultMap) map).getEntityTree()
+                    .getSplitCoords();
+            imageBdr.setColor(UColor.LIGHT_GRAY);
+            imageBdr.setLineStyle(false, 1f);
+            imageBdr.setAreaFilled(false);
+            CoordTransformer trans = renderer.getTransformer();
+            for (double[] split : splits)
+                imageBdr.drawLine(renderer.getTransformer().x(split[1]),
+                        trans.y(split[0]), trans.x(split[3]),
+                        trans.y(split[2]));
+        }
+    }
 }
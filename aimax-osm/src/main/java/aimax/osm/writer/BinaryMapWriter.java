@@ -0,0 +1,237 @@
+package aimax.osm.writer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.EntityAttribute;
+import aimax.osm.data.entities.MapEntity;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.reader.BinaryMapReader;
+import aimax.osm.reader.MapSnapshot;
+import aimax.osm.reader.OsmRuntimeException;
+
+/**
+ * Writes a map to file using the binary snapshot format which is described in
+ * {@link MapSnapshot}. The same entities are written as by
+ * {@link OsmWriter}: all ways intersecting the bounding box with their nodes
+ * and all points of interest inside the box. Nodes are ordered by tiles
+ * (kd-tree layout) to support fast bounding box queries.
+ * <br>
+ * Snapshots are binary data, so this class does not implement
+ * {@link MapWriter}, whose stream method is based on character streams.
+ * {@link Bz2OsmWriter} uses this writer for files with extension
+ * {@link BinaryMapReader#FILE_EXTENSION}.
+ */
+public class BinaryMapWriter {
+
+	/**
+	 * Writes all data within the bounding box to file.
+	 *
+	 * @throws OsmRuntimeException
+	 *             if the file cannot be written
+	 */
+	public void writeMap(File file, OsmMap map, BoundingBox bb) {
+		try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+			writeMap(os, map, bb);
+		} catch (IOException e) {
+			throw new OsmRuntimeException("Unable to write map snapshot " + file + ".", e);
+		}
+	}
+
+	/** Writes all data within the bounding box to an output stream. */
+	public void writeMap(OutputStream os, OsmMap map, BoundingBox bb) throws IOException {
+		Collection<MapWay> ways = map.getWays(bb);
+		LinkedHashSet<MapNode> nodeSet = new LinkedHashSet<MapNode>();
+		for (MapWay way : ways)
+			nodeSet.addAll(way.getNodes());
+		nodeSet.addAll(map.getPois(bb));
+		List<MapNode> nodes = new ArrayList<MapNode>(nodeSet);
+		List<int[]> tiles = new ArrayList<int[]>();
+		createTiles(nodes, 0, nodes.size(), tiles);
+
+		Map<MapNode, Integer> nodeIndices = new HashMap<MapNode, Integer>();
+		for (MapNode node : nodes)
+			nodeIndices.put(node, nodeIndices.size());
+		StringDictionary strings = new StringDictionary();
+		int attCount = 0;
+		int wayNodeCount = 0;
+		for (MapNode node : nodes)
+			attCount += strings.addAll(node);
+		for (MapWay way : ways) {
+			attCount += strings.addAll(way);
+			wayNodeCount += way.getNodes().size();
+		}
+
+		long tilesPos = MapSnapshot.HEADER_SIZE;
+		long nodesPos = tilesPos + (long) tiles.size() * MapSnapshot.TILE_SIZE;
+		long waysPos = nodesPos + (long) nodes.size() * MapSnapshot.NODE_SIZE;
+		long attsPos = waysPos + (long) ways.size() * MapSnapshot.WAY_SIZE;
+		long wayNodesPos = attsPos + (long) attCount * MapSnapshot.ATT_SIZE;
+		long stringOffsetsPos = wayNodesPos + 4L * wayNodeCount;
+		long stringDataPos = stringOffsetsPos + 4L * (strings.size() + 1);
+		if (stringDataPos + strings.dataSize > Integer.MAX_VALUE)
+			throw new OsmRuntimeException("Map too large for a snapshot.");
+
+		DataOutputStream out = new DataOutputStream(os);
+		BoundingBox mapBB = map.getBoundingBox() != null ? map.getBoundingBox() : bb;
+		out.writeInt(MapSnapshot.MAGIC);
+		out.writeInt(MapSnapshot.VERSION);
+		writeBoundingBox(out, mapBB.getLatMin(), mapBB.getLonMin(), mapBB.getLatMax(), mapBB.getLonMax());
+		out.writeInt(nodes.size());
+		out.writeInt(ways.size());
+		out.writeInt(tiles.size());
+		out.writeInt(attCount);
+		out.writeInt(wayNodeCount);
+		out.writeInt(strings.size());
+		for (long pos : new long[] { tilesPos, nodesPos, waysPos, attsPos, wayNodesPos, stringOffsetsPos,
+				stringDataPos })
+			out.writeLong(pos);
+
+		for (int[] tile : tiles) {
+			BoundingBox tileBB = new BoundingBox();
+			tileBB.adjust(nodes.subList(tile[0], tile[0] + tile[1]));
+			writeBoundingBox(out, tileBB.getLatMin(), tileBB.getLonMin(), tileBB.getLatMax(), tileBB.getLonMax());
+			out.writeInt(tile[0]);
+			out.writeInt(tile[1]);
+		}
+		int firstAtt = 0;
+		for (MapNode node : nodes) {
+			out.writeLong(node.getId());
+			out.writeFloat(node.getLat());
+			out.writeFloat(node.getLon());
+			out.writeInt(strings.indexOf(node.getName()));
+			out.writeInt(firstAtt);
+			out.writeInt(node.getAttributes().length);
+			firstAtt += node.getAttributes().length;
+		}
+		int firstWayNode = 0;
+		for (MapWay way : ways) {
+			out.writeLong(way.getId());
+			out.writeInt(strings.indexOf(way.getName()));
+			out.writeInt(firstAtt);
+			out.writeInt(way.getAttributes().length);
+			out.writeInt(firstWayNode);
+			out.writeInt(way.getNodes().size());
+			BoundingBox wayBB = way.computeBoundingBox();
+			writeBoundingBox(out, wayBB.getLatMin(), wayBB.getLonMin(), wayBB.getLatMax(), wayBB.getLonMax());
+			firstAtt += way.getAttributes().length;
+			firstWayNode += way.getNodes().size();
+		}
+		for (MapNode node : nodes)
+			writeAttributes(out, node, strings);
+		for (MapWay way : ways)
+			writeAttributes(out, way, strings);
+		for (MapWay way : ways)
+			for (MapNode node : way.getNodes())
+				out.writeInt(nodeIndices.get(node));
+		int offset = 0;
+		for (byte[] bytes : strings.data) {
+			out.writeInt(offset);
+			offset += bytes.length;
+		}
+		out.writeInt(offset);
+		for (byte[] bytes : strings.data)
+			out.write(bytes);
+		out.flush();
+	}
+
+	/**
+	 * Orders the nodes in the range by recursive median splits along the
+	 * wider dimension and adds a (first node, node count) entry for each
+	 * resulting tile.
+	 */
+	private void createTiles(List<MapNode> nodes, int from, int to, List<int[]> tiles) {
+		if (to - from <= MapSnapshot.MAX_TILE_SIZE) {
+			if (to > from)
+				tiles.add(new int[] { from, to - from });
+			return;
+		}
+		List<MapNode> range = nodes.subList(from, to);
+		BoundingBox bb = new BoundingBox();
+		bb.adjust(range);
+		float latMid = (bb.getLatMin() + bb.getLatMax()) / 2f;
+		double width = (bb.getLonMax() - bb.getLonMin()) * Math.cos(Math.toRadians(latMid));
+		if (bb.getLatMax() - bb.getLatMin() > width)
+			range.sort(Comparator.comparingDouble(MapNode::getLat));
+		else
+			range.sort(Comparator.comparingDouble(MapNode::getLon));
+		int mid = (from + to) >>> 1;
+		createTiles(nodes, from, mid, tiles);
+		createTiles(nodes, mid, to, tiles);
+	}
+
+	private void writeAttributes(DataOutputStream out, MapEntity entity, StringDictionary strings)
+			throws IOException {
+		for (EntityAttribute att : entity.getAttributes()) {
+			out.writeInt(strings.indexOf(att.getKey()));
+			out.writeInt(strings.indexOf(att.getValue()));
+		}
+	}
+
+	private void writeBoundingBox(DataOutputStream out, float latMin, float lonMin, float latMax, float lonMax)
+			throws IOException {
+		out.writeFloat(latMin);
+		out.writeFloat(lonMin);
+		out.writeFloat(latMax);
+		out.writeFloat(lonMax);
+	}
+
+	/** Describes the supported file format. */
+	public String[] fileFormatDescriptions() {
+		return new String[] { "Map Snapshot (" + BinaryMapReader.FILE_EXTENSION + ")" };
+	}
+
+	/** Contains the file extension of snapshots. */
+	public String[] fileFormatExtensions() {
+		return new String[] { BinaryMapReader.FILE_EXTENSION };
+	}
+
+	/** Assigns indices to names, attribute keys, and attribute values. */
+	private static class StringDictionary {
+		final Map<String, Integer> indices = new HashMap<String, Integer>();
+		final List<byte[]> data = new ArrayList<byte[]>();
+		long dataSize;
+
+		int size() {
+			return data.size();
+		}
+
+		/** Adds all strings of the entity and returns its number of attributes. */
+		int addAll(MapEntity entity) {
+			add(entity.getName());
+			for (EntityAttribute att : entity.getAttributes()) {
+				add(att.getKey());
+				add(att.getValue());
+			}
+			return entity.getAttributes().length;
+		}
+
+		void add(String text) {
+			if (text != null && !indices.containsKey(text)) {
+				indices.put(text, data.size());
+				byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+				data.add(bytes);
+				dataSize += bytes.length;
+			}
+		}
+
+		int indexOf(String text) {
+			return text != null ? indices.get(text) : -1;
+		}
+	}
+}
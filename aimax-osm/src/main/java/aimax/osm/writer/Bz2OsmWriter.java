@@ -12,13 +12,15 @@ import java.util.logging.Logger;
 
 import aimax.osm.data.BoundingBox;
 import aimax.osm.data.OsmMap;
+import aimax.osm.reader.BinaryMapReader;
 
 /** 
  * Adds bz2 extraction functionality to the basic OsmWriter. The
  * implementation uses the Apache Commons Compress library
  * (see http://commons.apache.org/compress/). Please add the
  * corresponding jar file to your class path, otherwise the
- * pack functionality will not be available.
+ * pack functionality will not be available. Binary map snapshots
+ * are written by a {@link BinaryMapWriter}.
  * @author Ruediger Lunde
  */
 public class Bz2OsmWriter implements MapWriter {
@@ -26,6 +28,7 @@ public class Bz2OsmWriter implements MapWriter {
 	private static Logger LOG = Logger.getLogger("aimax.osm");
 	private OsmWriter osmReader = new OsmWriter();
 	private Class<?> compressorClass;
+	private BinaryMapWriter snapshotWriter = new BinaryMapWriter();
 	
 	/**
 	 * Tries to find the <code>BZip2CompressorInputStream</code> class using
@@ -46,6 +49,10 @@ public class Bz2OsmWriter implements MapWriter {
 	@SuppressWarnings("resource")
 	@Override
 	public void writeMap(File file, OsmMap mapData, BoundingBox bb) {
+		if (file.getName().endsWith("." + BinaryMapReader.FILE_EXTENSION)) {
+			snapshotWriter.writeMap(file, mapData, bb);
+			return;
+		}
 		try  {
 			OutputStream os = new BufferedOutputStream
 			(new FileOutputStream(file));
@@ -76,16 +83,17 @@ public class Bz2OsmWriter implements MapWriter {
 	@Override
 	public String[] fileFormatDescriptions() {
 		if (compressorClass != null)
-			return new String[] {"OSM File (osm)", "OSM BZip2 (osm.bz2)"};
+			return new String[] {"OSM File (osm)", "OSM BZip2 (osm.bz2)",
+					snapshotWriter.fileFormatDescriptions()[0]};
 		else
-			return new String[] {"OSM File (osm)"};
+			return new String[] {"OSM File (osm)", snapshotWriter.fileFormatDescriptions()[0]};
 	}
 	
 	@Override
 	public String[] fileFormatExtensions() {
 		if (compressorClass != null)
-			return new String[] {"osm", "bz2"};
+			return new String[] {"osm", "bz2", BinaryMapReader.FILE_EXTENSION};
 		else
-			return new String[] {"osm"};
+			return new String[] {"osm", BinaryMapReader.FILE_EXTENSION};
 	}
 }
@@ -0,0 +1,66 @@
+package aimax.test.osm.benchmark;
+
+import java.io.File;
+
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.impl.CompactMap;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.reader.Bz2OsmReader;
+import aimax.osm.viewer.MapStyleFactory;
+
+/**
+ * Compares the memory consumption of {@link DefaultMap} and
+ * {@link CompactMap}. Each map is loaded from the same file, and the heap
+ * occupancy after garbage collection is measured before and after loading.
+ * Results are reported in bytes per map node. Best run with a fixed heap size
+ * (e.g. <code>-Xms2g -Xmx2g</code>).
+ * Usage: <code>CompactMapBenchmark &lt;osm-file&gt;</code>.
+ */
+public class CompactMapBenchmark {
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: CompactMapBenchmark <osm-file>");
+			return;
+		}
+		File file = new File(args[0]);
+		measure("DefaultMap", new DefaultMap(), file);
+		measure("CompactMap", new CompactMap(), file);
+	}
+
+	private static void measure(String name, DefaultMap map, File file) {
+		long before = getUsedMemory();
+		long start = System.currentTimeMillis();
+		MapBuilder builder = map.getBuilder();
+		builder.setEntityClassifier(new MapStyleFactory().createDefaultClassifier());
+		new Bz2OsmReader().readMap(file, builder);
+		OsmMap result = builder.buildMap();
+		long time = System.currentTimeMillis() - start;
+		// the builder may hold temporary data
+		builder = null;
+		long used = getUsedMemory() - before;
+		System.out.println(String.format("%s: %d nodes, %d ways, %d POIs, loading %dms, heap %.1fMB, %.1f bytes per node",
+				name, result.getNodeCount(), result.getWayCount(), result.getPoiCount(), time, used / 1e6,
+				used / (double) Math.max(1, result.getNodeCount())));
+		if (map instanceof CompactMap)
+			System.out.println(String.format("%s arrays: %.1f bytes per node", name,
+					((CompactMap) map).getByteCount() / (double) Math.max(1, result.getNodeCount())));
+		// keep the map reachable until measurement is complete
+		if (result.isEmpty())
+			System.out.println("Map is empty.");
+	}
+
+	private static long getUsedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,101 @@
+package aimax.test.osm.benchmark;
+
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.qsearch.GraphSearch;
+import aima.core.search.informed.AStarSearch;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.reader.Bz2OsmReader;
+import aimax.osm.routing.ContractionHierarchy;
+import aimax.osm.routing.ContractionHierarchyRouteCalculator;
+import aimax.osm.routing.ContractionHierarchyRouter;
+import aimax.osm.routing.ContractionHierarchySearch;
+import aimax.osm.routing.OsmMoveAction;
+import aimax.osm.routing.OsmSldHeuristicFunction;
+import aimax.osm.routing.RouteCalculator;
+import aimax.osm.routing.RouteFindingProblem;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark which compares contraction hierarchy queries with A* graph search
+ * on random route finding problems for all task selections of the
+ * {@link RouteCalculator}. For each task selection, preprocessing time,
+ * number of shortcuts, query time, and settled (expanded) nodes are
+ * reported. Path costs are compared to detect deviations.
+ * Usage: <code>ContractionHierarchyBenchmark &lt;osm-file&gt; [problem-count]</code>.
+ */
+public class ContractionHierarchyBenchmark {
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: ContractionHierarchyBenchmark <osm-file> [problem-count]");
+			return;
+		}
+		OsmMap map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		new Bz2OsmReader().readMap(new File(args[0]), builder);
+		builder.buildMap();
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		System.out.println("ContractionHierarchyBenchmark (" + map.getNodeCount() + " nodes)");
+
+		Calculator calculator = new Calculator(map);
+		String[] options = calculator.getTaskSelectionOptions();
+		for (int taskSelection = 0; taskSelection < options.length; taskSelection++) {
+			long start = System.currentTimeMillis();
+			ContractionHierarchy hierarchy = calculator.prepare(taskSelection);
+			long preprocessingTime = System.currentTimeMillis() - start;
+			System.out.println(options[taskSelection] + ": preprocessing=" + preprocessingTime + "ms, graph nodes="
+					+ hierarchy.getGraph().getNodeCount() + ", graph edges=" + hierarchy.getGraph().getEdgeCount()
+					+ ", shortcuts=" + hierarchy.getShortcutCount());
+
+			MapWayFilter filter = calculator.getMapWayFilter(map, taskSelection);
+			List<MapNode[]> tasks = ParallelRoutingBenchmark.createRandomTasks(map, filter, count, new Random(42));
+			ContractionHierarchySearch chSearch = new ContractionHierarchySearch(
+					new ContractionHierarchyRouter(hierarchy));
+			long aStarTime = 0;
+			long aStarNodes = 0;
+			long chTime = 0;
+			long chNodes = 0;
+			int deviations = 0;
+			for (MapNode[] task : tasks) {
+				RouteFindingProblem problem = new RouteFindingProblem(task[0], task[1], filter, taskSelection == 0);
+				SearchForActions<MapNode, OsmMoveAction> aStar = new AStarSearch<>(new GraphSearch<>(),
+						new OsmSldHeuristicFunction(task[1]));
+				start = System.nanoTime();
+				boolean aStarFound = aStar.findActions(problem).isPresent();
+				aStarTime += System.nanoTime() - start;
+				aStarNodes += aStar.getMetrics().getInt(ContractionHierarchySearch.METRIC_NODES_EXPANDED);
+
+				start = System.nanoTime();
+				boolean chFound = chSearch.findActions(problem).isPresent();
+				chTime += System.nanoTime() - start;
+				chNodes += chSearch.getMetrics().getInt(ContractionHierarchySearch.METRIC_NODES_EXPANDED);
+
+				if (aStarFound != chFound || aStarFound && Math.abs(aStar.getMetrics().getDouble("pathCost")
+						- chSearch.getMetrics().getDouble(ContractionHierarchySearch.METRIC_PATH_COST)) > 1e-6)
+					deviations++;
+			}
+			int n = Math.max(1, tasks.size());
+			System.out.println("  A*: avg. time=" + aStarTime / n / 1000 + "us, avg. nodesExpanded=" + aStarNodes / n);
+			System.out.println("  CH: avg. time=" + chTime / n / 1000 + "us, avg. nodesSettled=" + chNodes / n);
+			System.out.println("  " + tasks.size() + " routes, path cost deviations: " + deviations);
+		}
+	}
+
+	/** Provides access to the way filters of the task selections. */
+	private static class Calculator extends ContractionHierarchyRouteCalculator {
+		Calculator(OsmMap map) {
+			super(map);
+		}
+
+		MapWayFilter getMapWayFilter(OsmMap map, int taskSelection) {
+			return createMapWayFilter(map, taskSelection);
+		}
+	}
+}
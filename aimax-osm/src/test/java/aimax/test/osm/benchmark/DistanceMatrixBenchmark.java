@@ -0,0 +1,78 @@
+package aimax.test.osm.benchmark;
+
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayAttFilter;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.reader.Bz2OsmReader;
+import aimax.osm.routing.DistanceMatrixService;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+import aimax.osm.routing.RoadGraph;
+import aimax.osm.routing.RoadGraphRouter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark which compares the computation of distance matrices by
+ * {@link DistanceMatrixService} (one Dijkstra search per source) with one A*
+ * search per source/target pair ({@link RoadGraphRouter}). Sources and
+ * targets are random way nodes, the car profile is used. Matrix entries are
+ * compared to detect deviations.
+ * Usage: <code>DistanceMatrixBenchmark &lt;osm-file&gt; [matrix-size]</code>.
+ */
+public class DistanceMatrixBenchmark {
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: DistanceMatrixBenchmark <osm-file> [matrix-size]");
+			return;
+		}
+		OsmMap map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		new Bz2OsmReader().readMap(new File(args[0]), builder);
+		builder.buildMap();
+		int size = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		MapWayFilter filter = MapWayAttFilter.createCarWayFilter();
+		List<MapNode> sources = new ArrayList<>();
+		List<MapNode> targets = new ArrayList<>();
+		for (MapNode[] pair : ParallelRoutingBenchmark.createRandomTasks(map, filter, size, new Random(42))) {
+			sources.add(pair[0]);
+			targets.add(pair[1]);
+		}
+		RoadGraph graph = RoadGraph.create(map, filter);
+		System.out.println("DistanceMatrixBenchmark (" + sources.size() + "x" + targets.size() + " matrix, "
+				+ graph.getNodeCount() + " graph nodes)");
+
+		RoadGraphRouter router = new RoadGraphRouter(graph);
+		long start = System.currentTimeMillis();
+		double[][] expected = new double[sources.size()][targets.size()];
+		for (int i = 0; i < sources.size(); i++) {
+			for (int j = 0; j < targets.size(); j++) {
+				router.findPath(graph.getNodeIndex(sources.get(i)), graph.getNodeIndex(targets.get(j)),
+						OneWayMode.TRAVEL_FORWARD);
+				expected[i][j] = router.getPathCost();
+			}
+		}
+		System.out.println("A* per pair: time=" + (System.currentTimeMillis() - start) + "ms");
+
+		for (int threads = 1; threads <= Math.max(4, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+			DistanceMatrixService service = new DistanceMatrixService(graph, OneWayMode.TRAVEL_FORWARD, threads);
+			start = System.currentTimeMillis();
+			double[][] matrix = service.computeMatrix(sources, targets);
+			long time = System.currentTimeMillis() - start;
+			service.shutdown();
+			int deviations = 0;
+			for (int i = 0; i < matrix.length; i++)
+				for (int j = 0; j < matrix[i].length; j++)
+					if (matrix[i][j] != expected[i][j] && Math.abs(matrix[i][j] - expected[i][j]) > 1e-6)
+						deviations++;
+			System.out.println("Distance matrix (" + threads + " threads): time=" + time + "ms, deviations="
+					+ deviations);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package aimax.test.osm.benchmark;
+
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayAttFilter;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.reader.Bz2OsmReader;
+import aimax.osm.routing.DStarLiteRouter;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+import aimax.osm.routing.RoadGraph;
+import aimax.osm.routing.RoadGraphRouter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark which compares incremental re-planning by {@link DStarLiteRouter}
+ * with full re-computation of the route. For random routes, a vehicle is
+ * simulated which follows the route, takes a wrong turn now and then, and
+ * occasionally finds the next way of its route blocked. After each deviation,
+ * the route is re-planned incrementally, from scratch with D* Lite, and from
+ * scratch with A* ({@link RoadGraphRouter}, which ignores blocked ways).
+ * Route costs of incremental and full re-planning are compared to detect
+ * deviations.
+ * Usage: <code>IncrementalRoutingBenchmark &lt;osm-file&gt; [route-count]</code>.
+ */
+public class IncrementalRoutingBenchmark {
+	/** Number of edges driven along the route between two deviations. */
+	private static final int STEPS_PER_DEVIATION = 10;
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: IncrementalRoutingBenchmark <osm-file> [route-count]");
+			return;
+		}
+		OsmMap map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		new Bz2OsmReader().readMap(new File(args[0]), builder);
+		builder.buildMap();
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		MapWayFilter filter = MapWayAttFilter.createCarWayFilter();
+		RoadGraph graph = RoadGraph.create(map, filter);
+		List<MapNode[]> tasks = ParallelRoutingBenchmark.createRandomTasks(map, filter, count, new Random(42));
+		System.out.println("IncrementalRoutingBenchmark (" + tasks.size() + " routes, " + graph.getNodeCount()
+				+ " graph nodes)");
+
+		DStarLiteRouter incremental = new DStarLiteRouter(graph, false);
+		DStarLiteRouter full = new DStarLiteRouter(graph, false);
+		RoadGraphRouter aStar = new RoadGraphRouter(graph);
+		Random random = new Random(42);
+		// statistics for wrong turns (index 0) and road closures (index 1)
+		long initialTime = 0;
+		long[] incrementalTime = new long[2];
+		long[] fullTime = new long[2];
+		long[] aStarTime = new long[2];
+		long[] incrementalNodes = new long[2];
+		long[] fullNodes = new long[2];
+		int[] replans = new int[2];
+		int deviations = 0;
+		for (MapNode[] task : tasks) {
+			int goal = graph.getNodeIndex(task[1]);
+			int pos = graph.getNodeIndex(task[0]);
+			long start = System.nanoTime();
+			int[] path = incremental.findPath(pos, goal);
+			initialTime += System.nanoTime() - start;
+			List<MapWay> blockedWays = new ArrayList<>();
+			int step = 0;
+			while (path.length > 0 && path != RoadGraphRouter.NO_PATH) {
+				int edge = path[0];
+				if (++step % STEPS_PER_DEVIATION == 0) {
+					int kind = step % (3 * STEPS_PER_DEVIATION) == 0 ? 1 : 0;
+					if (kind == 1) {
+						// road closure ahead
+						blockedWays.add(graph.getEdgeWay(edge));
+						incremental.setBlocked(graph.getEdgeWay(edge), true);
+						full.setBlocked(graph.getEdgeWay(edge), true);
+					} else {
+						// wrong turn
+						int first = graph.getFirstEdge(pos);
+						int degree = graph.getFirstEdge(pos + 1) - first;
+						for (int i = 0; i < degree; i++) {
+							int e = first + random.nextInt(degree);
+							if (e != edge && graph.isAllowed(e, OneWayMode.TRAVEL_FORWARD)) {
+								edge = e;
+								break;
+							}
+						}
+						pos = graph.getEdgeTarget(edge);
+					}
+					start = System.nanoTime();
+					path = incremental.findPath(pos, goal);
+					incrementalTime[kind] += System.nanoTime() - start;
+					incrementalNodes[kind] += incremental.getNodesExpanded();
+
+					full.reset();
+					start = System.nanoTime();
+					full.findPath(pos, goal);
+					fullTime[kind] += System.nanoTime() - start;
+					fullNodes[kind] += full.getNodesExpanded();
+
+					start = System.nanoTime();
+					aStar.findPath(pos, goal, OneWayMode.TRAVEL_FORWARD);
+					aStarTime[kind] += System.nanoTime() - start;
+
+					replans[kind]++;
+					if (Math.abs(incremental.getPathCost() - full.getPathCost()) > 1e-6
+							&& incremental.getPathCost() != full.getPathCost())
+						deviations++;
+				} else {
+					pos = graph.getEdgeTarget(edge);
+					path = incremental.findPath(pos, goal);
+				}
+			}
+			for (MapWay way : blockedWays) {
+				incremental.setBlocked(way, false);
+				full.setBlocked(way, false);
+			}
+		}
+		System.out.println("Initial planning: avg. time=" + initialTime / Math.max(1, tasks.size()) / 1000 + "us");
+		String[] kinds = { "Wrong turns", "Road closures" };
+		for (int kind = 0; kind < 2; kind++) {
+			int n = Math.max(1, replans[kind]);
+			System.out.println(kinds[kind] + " (" + replans[kind] + " re-plannings):");
+			System.out.println("  incremental: avg. time=" + incrementalTime[kind] / n / 1000
+					+ "us, avg. nodesExpanded=" + incrementalNodes[kind] / n);
+			System.out.println("  full (D* Lite): avg. time=" + fullTime[kind] / n / 1000
+					+ "us, avg. nodesExpanded=" + fullNodes[kind] / n);
+			System.out.println("  full (A*): avg. time=" + aStarTime[kind] / n / 1000 + "us");
+		}
+		System.out.println("Path cost deviations: " + deviations);
+	}
+}
@@ -0,0 +1,84 @@
+package aimax.test.osm.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.reader.BinaryMapReader;
+import aimax.osm.reader.Bz2OsmReader;
+import aimax.osm.reader.MapSnapshot;
+import aimax.osm.writer.BinaryMapWriter;
+
+/**
+ * Compares map loading from OSM XML files with loading from binary map
+ * snapshots. For each variant, the time needed until the map is ready and the
+ * heap memory which remains in use afterwards are reported. The snapshot is
+ * written next to the OSM file unless a snapshot file is specified.
+ * Usage: <code>MapSnapshotBenchmark &lt;osm-file&gt; [snapshot-file]</code>.
+ */
+public class MapSnapshotBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.out.println("Usage: MapSnapshotBenchmark <osm-file> [snapshot-file]");
+			return;
+		}
+		File osmFile = new File(args[0]);
+		File snapshotFile = new File(args.length > 1 ? args[1]
+				: args[0].replaceFirst("\\.osm(\\.bz2)?$", "") + "." + BinaryMapReader.FILE_EXTENSION);
+		long baseline = getUsedHeap();
+
+		long start = System.currentTimeMillis();
+		OsmMap map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		new Bz2OsmReader().readMap(osmFile, builder);
+		builder.buildMap();
+		long time = System.currentTimeMillis() - start;
+		System.out.println("MapSnapshotBenchmark (" + map.getNodeCount() + " nodes, " + map.getWayCount()
+				+ " ways)");
+		print("XML (" + osmFile.length() / 1024 + "KB)", time, getUsedHeap() - baseline);
+
+		start = System.currentTimeMillis();
+		new BinaryMapWriter().writeMap(snapshotFile, map, map.getBoundingBox());
+		System.out.println("Snapshot written (" + snapshotFile.length() / 1024 + "KB): "
+				+ (System.currentTimeMillis() - start) + "ms");
+		map = null;
+		builder = null;
+		baseline = getUsedHeap();
+
+		start = System.currentTimeMillis();
+		map = new DefaultMap();
+		builder = map.getBuilder();
+		new BinaryMapReader().readMap(snapshotFile, builder);
+		builder.buildMap();
+		time = System.currentTimeMillis() - start;
+		print("Snapshot -> DefaultMap", time, getUsedHeap() - baseline);
+		map = null;
+		builder = null;
+		baseline = getUsedHeap();
+
+		start = System.currentTimeMillis();
+		MapSnapshot snapshot = BinaryMapReader.openSnapshot(snapshotFile);
+		time = System.currentTimeMillis() - start;
+		print("Snapshot (mapped)", time, Math.max(0, getUsedHeap() - baseline));
+		start = System.currentTimeMillis();
+		double latSum = 0;
+		for (int node = 0; node < snapshot.getNodeCount(); node++)
+			latSum += snapshot.getNodeLat(node);
+		System.out.println("  scan of all node positions: " + (System.currentTimeMillis() - start)
+				+ "ms (checksum " + Math.round(latSum) + ")");
+	}
+
+	private static void print(String name, long time, long heapBytes) {
+		System.out.println(name + ": startup=" + time + "ms, heap=" + heapBytes / 1024 + "KB");
+	}
+
+	private static long getUsedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,92 @@
+package aimax.test.osm.benchmark;
+
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.qsearch.GraphSearch;
+import aima.core.search.informed.AStarSearch;
+import aima.core.search.informed.BidirectionalAStarSearch;
+import aima.core.search.informed.ParallelAStarSearch;
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayAttFilter;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.reader.Bz2OsmReader;
+import aimax.osm.routing.OsmMoveAction;
+import aimax.osm.routing.OsmSldHeuristicFunction;
+import aimax.osm.routing.RouteFindingProblem;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Scaling benchmark which compares sequential A* graph search with bidirectional
+ * A* and with parallel A* (HDA*) for different numbers of threads on random route finding problems.
+ * Usage: <code>ParallelRoutingBenchmark &lt;osm-file&gt; [problem-count]</code>.
+ */
+public class ParallelRoutingBenchmark {
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: ParallelRoutingBenchmark <osm-file> [problem-count]");
+			return;
+		}
+		OsmMap map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		new Bz2OsmReader().readMap(new File(args[0]), builder);
+		builder.buildMap();
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		List<MapNode[]> tasks = createRandomTasks(map, MapWayAttFilter.createAnyWayFilter(), count, new Random(42));
+		System.out.println("ParallelRoutingBenchmark (" + tasks.size() + " random routes, "
+				+ map.getNodeCount() + " nodes)");
+
+		benchmark("A* (GraphSearch)", tasks, to -> new AStarSearch<>(new GraphSearch<>(),
+				new OsmSldHeuristicFunction(to)));
+		benchmark("Bidirectional A*", tasks, to -> new BidirectionalAStarSearch<>(OsmSldHeuristicFunction::new));
+		for (int threads = 1; threads <= Math.max(4, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+			int t = threads;
+			benchmark("HDA* (" + t + " threads)", tasks,
+					to -> new ParallelAStarSearch<>(new OsmSldHeuristicFunction(to), t));
+		}
+	}
+
+	private static void benchmark(String name, List<MapNode[]> tasks,
+								  Function<MapNode, SearchForActions<MapNode, OsmMoveAction>> factory) {
+		MapWayFilter filter = MapWayAttFilter.createAnyWayFilter();
+		long nodes = 0;
+		double costs = 0;
+		long start = System.currentTimeMillis();
+		for (MapNode[] task : tasks) {
+			SearchForActions<MapNode, OsmMoveAction> search = factory.apply(task[1]);
+			search.findActions(new RouteFindingProblem(task[0], task[1], filter, true));
+			nodes += search.getMetrics().getInt("nodesExpanded");
+			costs += search.getMetrics().getDouble("pathCost");
+		}
+		long time = System.currentTimeMillis() - start;
+		System.out.println(name + ": time=" + time + "ms, nodesExpanded=" + nodes
+				+ ", sum of path costs=" + Math.round(costs));
+	}
+
+	/** Returns pairs of random way nodes which comply with the filter. */
+	static List<MapNode[]> createRandomTasks(OsmMap map, MapWayFilter filter, int count, Random random) {
+		BoundingBox bb = map.getBoundingBox();
+		List<MapNode[]> result = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			MapNode from = map.getNearestWayNode(randomPosition(bb, random), filter);
+			MapNode to = map.getNearestWayNode(randomPosition(bb, random), filter);
+			if (from != null && to != null)
+				result.add(new MapNode[] { from, to });
+		}
+		return result;
+	}
+
+	private static Position randomPosition(BoundingBox bb, Random random) {
+		return new Position(bb.getLatMin() + random.nextFloat() * (bb.getLatMax() - bb.getLatMin()),
+				bb.getLonMin() + random.nextFloat() * (bb.getLonMax() - bb.getLonMin()));
+	}
+}
@@ -0,0 +1,87 @@
+package aimax.test.osm.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.reader.Bz2OsmReader;
+
+/**
+ * Compares the latency of the R-tree based bounding box queries of
+ * {@link DefaultMap} with linear scans over all ways and points of interest.
+ * Queries are centered at random way nodes and use several radii, as the
+ * entity finder does when it extends its search area. Results of both
+ * variants are compared to detect deviations.
+ * Usage: <code>SpatialQueryBenchmark &lt;osm-file&gt; [query-count]</code>.
+ */
+public class SpatialQueryBenchmark {
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: SpatialQueryBenchmark <osm-file> [query-count]");
+			return;
+		}
+		DefaultMap map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		new Bz2OsmReader().readMap(new File(args[0]), builder);
+		long start = System.currentTimeMillis();
+		builder.buildMap();
+		System.out.println("SpatialQueryBenchmark (" + map.getWayCount() + " ways, " + map.getPoiCount()
+				+ " POIs, compilation " + (System.currentTimeMillis() - start) + "ms)");
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		List<MapNode> wayNodes = new ArrayList<MapNode>();
+		for (MapWay way : map.getWays(map.getBoundingBox()))
+			wayNodes.add(way.getNodes().get(0));
+		if (wayNodes.isEmpty())
+			return;
+		Collection<MapWay> allWays = map.getWays(new BoundingBox(-90, -180, 90, 180));
+		Collection<MapNode> allPois = map.getPois(new BoundingBox(-90, -180, 90, 180));
+
+		for (int radius : new int[] { 1, 5, 20, 100 }) {
+			Random random = new Random(42);
+			List<BoundingBox> boxes = new ArrayList<BoundingBox>();
+			for (int i = 0; i < count; i++) {
+				MapNode node = wayNodes.get(random.nextInt(wayNodes.size()));
+				boxes.add(new BoundingBox(new Position(node), radius));
+			}
+			long indexTime = 0;
+			long scanTime = 0;
+			long results = 0;
+			int deviations = 0;
+			for (BoundingBox bb : boxes) {
+				start = System.nanoTime();
+				Collection<MapWay> ways = map.getWays(bb);
+				List<MapNode> pois = map.getPois(bb);
+				indexTime += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				List<MapWay> scannedWays = new ArrayList<MapWay>();
+				for (MapWay way : allWays)
+					if (way.computeBoundingBox().intersectsWith(bb))
+						scannedWays.add(way);
+				List<MapNode> scannedPois = new ArrayList<MapNode>();
+				for (MapNode poi : allPois)
+					if (bb.isInside(poi.getLat(), poi.getLon()))
+						scannedPois.add(poi);
+				scanTime += System.nanoTime() - start;
+
+				results += ways.size() + pois.size();
+				if (!new HashSet<MapWay>(ways).equals(new HashSet<MapWay>(scannedWays))
+						|| !new HashSet<MapNode>(pois).equals(new HashSet<MapNode>(scannedPois)))
+					deviations++;
+			}
+			System.out.println(String.format("radius=%dkm: results=%.1f, R-tree=%.1fus, scan=%.1fus, deviations=%d",
+					radius, results / (double) count, indexTime / 1000.0 / count, scanTime / 1000.0 / count,
+					deviations));
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package aimax.test.osm.unit;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+import aimax.test.osm.unit.data.impl.DataImplTestSuite;
+import aimax.test.osm.unit.reader.ReaderTestSuite;
+import aimax.test.osm.unit.routing.RoutingTestSuite;
+import aimax.test.osm.unit.viewer.ViewerTestSuite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({ DataImplTestSuite.class, ReaderTestSuite.class, RoutingTestSuite.class,
+		ViewerTestSuite.class })
+public class AllAimaxOsmUnitTestSuite {
+}
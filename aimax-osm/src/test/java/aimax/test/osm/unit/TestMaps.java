@@ -0,0 +1,119 @@
+package aimax.test.osm.unit;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.EntityAttribute;
+import aimax.osm.data.entities.MapEntity;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import org.junit.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Creates small synthetic maps for tests. A grid map consists of
+ * <code>size x size</code> way nodes with slightly disturbed positions,
+ * connected by one way per row and one way per column. Node IDs are
+ * <code>row * size + col + 1</code>, row way IDs are <code>row + 1</code>
+ * and column way IDs are <code>1000 + col + 1</code>. Row 0 is a primary road,
+ * every third row way is a one-way street, and the ways of odd columns are
+ * footways, which cars must not use. Named points of interest can be added
+ * separately.
+ */
+public class TestMaps {
+
+	public static final float LAT = 50.0f;
+	public static final float LON = 8.0f;
+	public static final float SPACING = 0.001f;
+	public static final String[] PLACE_NAMES = { "Aachen", "Aalen", "Augsburg", "Berlin", "Köln", "Überlingen" };
+
+	/** Adds the nodes and ways of a grid map to the builder without building the map. */
+	public static void addGrid(MapBuilder builder, int size, Random random) {
+		for (int row = 0; row < size; row++)
+			for (int col = 0; col < size; col++)
+				builder.addNode(getNodeId(size, row, col), null, Collections.<EntityAttribute>emptyList(),
+						LAT + row * SPACING + (random.nextFloat() - 0.5f) * SPACING / 2,
+						LON + col * SPACING + (random.nextFloat() - 0.5f) * SPACING / 2);
+		for (int row = 0; row < size; row++) {
+			List<EntityAttribute> atts = new ArrayList<EntityAttribute>();
+			atts.add(new EntityAttribute("highway", row == 0 ? "primary" : "residential"));
+			if (row % 3 == 2)
+				atts.add(new EntityAttribute("oneway", "yes"));
+			List<Long> wayNodeIds = new ArrayList<Long>();
+			for (int col = 0; col < size; col++)
+				wayNodeIds.add(getNodeId(size, row, col));
+			builder.addWay(row + 1, "Row " + row, atts, wayNodeIds);
+		}
+		for (int col = 0; col < size; col++) {
+			List<EntityAttribute> atts = new ArrayList<EntityAttribute>();
+			atts.add(new EntityAttribute("highway", col % 2 == 0 ? "residential" : "footway"));
+			List<Long> wayNodeIds = new ArrayList<Long>();
+			for (int row = 0; row < size; row++)
+				wayNodeIds.add(getNodeId(size, row, col));
+			builder.addWay(1000 + col + 1, "Column " + col, atts, wayNodeIds);
+		}
+	}
+
+	public static long getNodeId(int size, int row, int col) {
+		return row * size + col + 1;
+	}
+
+	/**
+	 * Adds places named by {@link #PLACE_NAMES} along the diagonal of a grid
+	 * with the given size, and a cafe next to the first place. POI IDs start
+	 * at 10001.
+	 */
+	public static void addPois(MapBuilder builder, int size) {
+		for (int i = 0; i < PLACE_NAMES.length; i++) {
+			float offset = (float) i * (size - 1) / (PLACE_NAMES.length - 1) * SPACING;
+			builder.addNode(10001 + i, PLACE_NAMES[i],
+					Collections.singletonList(new EntityAttribute("place", i % 2 == 0 ? "town" : "village")),
+					LAT + offset, LON + offset);
+		}
+		List<EntityAttribute> atts = new ArrayList<EntityAttribute>();
+		atts.add(new EntityAttribute("amenity", "cafe"));
+		atts.add(new EntityAttribute("cuisine", "coffee_shop"));
+		builder.addNode(10001 + PLACE_NAMES.length, "Café Aachen", atts, LAT + SPACING / 4, LON);
+	}
+
+	/** Checks that both maps contain the same ways and points of interest. */
+	public static void assertSameEntities(OsmMap expected, OsmMap actual) {
+		Assert.assertEquals(expected.getWayCount(), actual.getWayCount());
+		Assert.assertEquals(expected.getPoiCount(), actual.getPoiCount());
+		Assert.assertEquals(expected.getNodeCount(), actual.getNodeCount());
+		BoundingBox bb = expected.getBoundingBox();
+		Collection<MapWay> ways = expected.getWays(bb);
+		Assert.assertEquals(expected.getWayCount(), ways.size());
+		for (MapWay way : ways) {
+			MapWay way2 = actual.getWay(way.getId());
+			assertSameEntity(way, way2);
+			Assert.assertEquals(way.isOneway(), way2.isOneway());
+			Assert.assertEquals(way.getNodes().size(), way2.getNodes().size());
+			for (int i = 0; i < way.getNodes().size(); i++)
+				assertSameEntity(way.getNodes().get(i), way2.getNodes().get(i));
+		}
+		Map<Long, MapNode> pois = new HashMap<Long, MapNode>();
+		for (MapNode poi : actual.getPois(actual.getBoundingBox()))
+			pois.put(poi.getId(), poi);
+		for (MapNode poi : expected.getPois(bb))
+			assertSameEntity(poi, pois.get(poi.getId()));
+	}
+
+	private static void assertSameEntity(MapEntity expected, MapEntity actual) {
+		Assert.assertNotNull("Missing entity " + expected.getId(), actual);
+		Assert.assertEquals(expected.getId(), actual.getId());
+		Assert.assertEquals(expected.getName(), actual.getName());
+		Assert.assertArrayEquals(expected.getAttributes(), actual.getAttributes());
+		if (expected instanceof MapNode) {
+			Assert.assertEquals(((MapNode) expected).getLat(), ((MapNode) actual).getLat(), 0);
+			Assert.assertEquals(((MapNode) expected).getLon(), ((MapNode) actual).getLon(), 0);
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package aimax.test.osm.unit.data.impl;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({ EntityRTreeTest.class, NameIndexTest.class, WayNodeIndexTest.class,
+		WaySimplifierTest.class })
+public class DataImplTestSuite {
+
+}
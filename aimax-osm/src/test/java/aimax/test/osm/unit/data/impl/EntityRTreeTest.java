@@ -0,0 +1,123 @@
+package aimax.test.osm.unit.data.impl;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.entities.EntityAttribute;
+import aimax.osm.data.entities.MapEntity;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.data.impl.EntityRTree;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class EntityRTreeTest {
+
+	private static final int SIZE = 40;
+	private static final int POI_COUNT = 500;
+
+	private DefaultMap map;
+	private List<MapNode> wayNodes;
+	private List<MapNode> pois;
+
+	@Before
+	public void setUp() {
+		map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		Random random = new Random(1);
+		TestMaps.addGrid(builder, SIZE, random);
+		for (int i = 0; i < POI_COUNT; i++)
+			builder.addNode(100001 + i, "Poi " + i,
+					Collections.singletonList(new EntityAttribute("amenity", "cafe")),
+					TestMaps.LAT + random.nextFloat() * SIZE * TestMaps.SPACING,
+					TestMaps.LON + random.nextFloat() * SIZE * TestMaps.SPACING);
+		builder.buildMap();
+		wayNodes = new ArrayList<MapNode>();
+		for (int i = 0; i < SIZE * SIZE; i++)
+			wayNodes.add(map.getNode(i + 1));
+		pois = new ArrayList<MapNode>();
+		for (MapNode poi : map.getPois(map.getBoundingBox()))
+			pois.add(poi);
+	}
+
+	@Test
+	public void testNodeQueries() {
+		// more entities than two tree levels can hold
+		EntityRTree<MapNode> tree = new EntityRTree<MapNode>(wayNodes);
+		Assert.assertTrue(tree.size() > EntityRTree.NODE_CAPACITY * EntityRTree.NODE_CAPACITY);
+		Assert.assertEquals(SIZE * SIZE, tree.size());
+		for (BoundingBox bb : createBoxes(new Random(2))) {
+			List<MapNode> expected = new ArrayList<MapNode>();
+			for (MapNode node : wayNodes)
+				if (bb.isInside(node.getLat(), node.getLon()))
+					expected.add(node);
+			assertSameIds(expected, tree.query(bb));
+		}
+	}
+
+	@Test
+	public void testMapQueries() {
+		Assert.assertEquals(POI_COUNT, pois.size());
+		List<MapWay> ways = new ArrayList<MapWay>();
+		for (int i = 0; i < SIZE; i++) {
+			ways.add(map.getWay(i + 1));
+			ways.add(map.getWay(1000 + i + 1));
+		}
+		Assert.assertEquals(map.getWayCount(), ways.size());
+		for (BoundingBox bb : createBoxes(new Random(3))) {
+			List<MapWay> expectedWays = new ArrayList<MapWay>();
+			for (MapWay way : ways)
+				if (way.computeBoundingBox().intersectsWith(bb))
+					expectedWays.add(way);
+			assertSameIds(expectedWays, map.getWays(bb));
+			List<MapNode> expectedPois = new ArrayList<MapNode>();
+			for (MapNode poi : pois)
+				if (bb.isInside(poi.getLat(), poi.getLon()))
+					expectedPois.add(poi);
+			assertSameIds(expectedPois, map.getPois(bb));
+		}
+	}
+
+	@Test
+	public void testEmptyTree() {
+		EntityRTree<MapNode> tree = new EntityRTree<MapNode>(Collections.<MapNode>emptyList());
+		Assert.assertEquals(0, tree.size());
+		Assert.assertTrue(tree.query(map.getBoundingBox()).isEmpty());
+	}
+
+	/** Returns random boxes of different sizes, a box covering all and a box outside of the map. */
+	private List<BoundingBox> createBoxes(Random random) {
+		List<BoundingBox> result = new ArrayList<BoundingBox>();
+		float extent = SIZE * TestMaps.SPACING;
+		for (int i = 0; i < 200; i++) {
+			float lat = TestMaps.LAT + (random.nextFloat() * 1.2f - 0.1f) * extent;
+			float lon = TestMaps.LON + (random.nextFloat() * 1.2f - 0.1f) * extent;
+			float size = random.nextFloat() * random.nextFloat() * extent;
+			result.add(new BoundingBox(lat, lon, lat + size, lon + random.nextFloat() * extent / 2));
+		}
+		result.add(new BoundingBox(TestMaps.LAT - 1, TestMaps.LON - 1, TestMaps.LAT + 1, TestMaps.LON + 1));
+		result.add(new BoundingBox(TestMaps.LAT + 1, TestMaps.LON + 1, TestMaps.LAT + 2, TestMaps.LON + 2));
+		return result;
+	}
+
+	private void assertSameIds(Collection<? extends MapEntity> expected, Collection<? extends MapEntity> actual) {
+		Set<Long> expectedIds = new TreeSet<Long>();
+		for (MapEntity entity : expected)
+			expectedIds.add(entity.getId());
+		Set<Long> actualIds = new TreeSet<Long>();
+		for (MapEntity entity : actual)
+			actualIds.add(entity.getId());
+		Assert.assertEquals(expected.size(), actual.size());
+		Assert.assertEquals(expectedIds, actualIds);
+	}
+}
@@ -0,0 +1,162 @@
+package aimax.test.osm.unit.data.impl;
+
+import aimax.osm.data.EntityFinder;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapEntity;
+import aimax.osm.data.impl.DefaultEntityFinder;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.data.impl.NameIndex;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class NameIndexTest {
+
+	private static final int SIZE = 10;
+
+	private DefaultMap map;
+	private NameIndex index;
+	private Position center;
+
+	@Before
+	public void setUp() {
+		map = createMap(new DefaultMap());
+		index = map.getNameIndex();
+		center = new Position(TestMaps.LAT + SIZE / 2 * TestMaps.SPACING, TestMaps.LON + SIZE / 2 * TestMaps.SPACING);
+	}
+
+	private static DefaultMap createMap(DefaultMap map) {
+		MapBuilder builder = map.getBuilder();
+		TestMaps.addGrid(builder, SIZE, new Random(1));
+		TestMaps.addPois(builder, SIZE);
+		builder.buildMap();
+		return map;
+	}
+
+	@Test
+	public void testPrefixQueries() {
+		Assert.assertNotNull(index);
+		// places only, the cafe has no place attribute
+		Assert.assertEquals(names("Aachen", "Aalen", "Augsburg"), getNames(index.getPlaces("a")));
+		Assert.assertEquals(names("Aachen", "Aalen"), getNames(index.getPlaces("AA")));
+		Assert.assertEquals(names("Überlingen"), getNames(index.getPlaces("über")));
+		Assert.assertEquals(names("Köln"), getNames(index.getPlaces("KÖLN")));
+		Assert.assertTrue(index.getPlaces("x").isEmpty());
+		Assert.assertEquals(getNames(map.getPlaces("a")), getNames(index.getPlaces("a")));
+
+		// complete names only, ignoring case
+		Assert.assertEquals(names("Row 3"), getNames(index.getEntities("row 3")));
+		Assert.assertEquals(names("Café Aachen"), getNames(index.getEntities("CAFÉ AACHEN")));
+		Assert.assertTrue(index.getEntities("Row").isEmpty());
+		Assert.assertTrue(index.getEntities("Aachen Café").isEmpty());
+
+		// name words
+		Assert.assertEquals(names("Aachen", "Café Aachen"), getNames(index.findNearest("aachen", false, null, center, 10)));
+		Assert.assertEquals(names("Aachen"), getNames(index.findNearest("aachen", true, null, center, 10)));
+		Assert.assertEquals(names("Column 3", "Row 3"), getNames(index.findNearest("3", false, null, center, 100)));
+	}
+
+	@Test
+	public void testPlaceTypeFilter() {
+		Assert.assertEquals(names("Aachen", "Augsburg"), getNames(index.findNearest("a", false, "town", center, 10)));
+		Assert.assertEquals(names("Aalen"), getNames(index.findNearest("a", false, "village", center, 10)));
+		Assert.assertEquals(names("Aachen", "Aalen", "Augsburg"), getNames(index.findNearest("a", false, "*", center, 10)));
+		Assert.assertEquals(names("Berlin", "Köln", "Überlingen"),
+				getNames(index.findNearest("", false, "*", center, 100)).tailSet("B"));
+		Assert.assertTrue(index.findNearest("row", false, "*", center, 10).isEmpty());
+		Assert.assertTrue(index.findNearest("a", false, "city", center, 10).isEmpty());
+	}
+
+	@Test
+	public void testLimitAndDistanceOrder() {
+		List<MapEntity> all = index.findNearest("", false, null, center, 1000);
+		// all ways and points of interest
+		Assert.assertEquals(map.getWayCount() + map.getPoiCount(), all.size());
+		List<MapEntity> sorted = new ArrayList<MapEntity>(all);
+		sorted.sort(Comparator.comparingDouble(center::getDistKM));
+		Assert.assertEquals(sorted, all);
+		for (int k : new int[] { 1, 3, 7, 25 }) {
+			List<MapEntity> nearest = index.findNearest("", false, null, center, k);
+			Assert.assertEquals(k, nearest.size());
+			for (int i = 0; i < k; i++)
+				Assert.assertEquals(center.getDistKM(sorted.get(i)), center.getDistKM(nearest.get(i)), 0);
+		}
+		List<MapEntity> rows = index.findNearest("row", false, null, center, 4);
+		Assert.assertEquals(4, rows.size());
+		for (int i = 1; i < rows.size(); i++)
+			Assert.assertTrue(center.getDistKM(rows.get(i - 1)) <= center.getDistKM(rows.get(i)));
+		Assert.assertTrue(index.findNearest("row", false, null, center, 0).isEmpty());
+	}
+
+	@Test
+	public void testEntityFinderMatchesLinearSearch() {
+		DefaultMap mapWithoutIndex = createMap(new DefaultMap() {
+			@Override
+			public NameIndex getNameIndex() {
+				return null;
+			}
+		});
+		EntityFinder finder = map.getEntityFinder();
+		EntityFinder linearFinder = new DefaultEntityFinder(mapWithoutIndex);
+		for (String pattern : new String[] { "Aachen", "aachen", "Café Aachen", "cafe", "coffee_shop", "amenity",
+				"Row 3", "row", "KÖLN", "Überlingen", "xyz" }) {
+			finder.findEntity(pattern, center);
+			linearFinder.findEntity(pattern, center);
+			Assert.assertEquals(pattern, getIds(linearFinder.getResults()), getIds(finder.getResults()));
+			finder.findNode(pattern, center);
+			linearFinder.findNode(pattern, center);
+			Assert.assertEquals(pattern, getIds(linearFinder.getResults()), getIds(finder.getResults()));
+			finder.findWay(pattern, center, null);
+			linearFinder.findWay(pattern, center, null);
+			Assert.assertEquals(pattern, getIds(linearFinder.getResults()), getIds(finder.getResults()));
+		}
+		finder.findEntity("Aachen", center);
+		Assert.assertEquals(Arrays.asList(10001L), getIds(finder.getResults()));
+		finder.findEntity("cafe", center);
+		Assert.assertEquals(Arrays.asList(10001L + TestMaps.PLACE_NAMES.length), getIds(finder.getResults()));
+		finder.findWay("Row 3", center, null);
+		Assert.assertEquals(Arrays.asList(4L), getIds(finder.getResults()));
+
+		for (String address : new String[] { "A", "Aa", "Berlin", "Berlin, Row 3", "x" }) {
+			finder.findAddress(address, center);
+			linearFinder.findAddress(address, center);
+			Assert.assertEquals(address, getIds(linearFinder.getIntermediateResults()),
+					getIds(finder.getIntermediateResults()));
+			Assert.assertEquals(address, getIds(linearFinder.getResults()), getIds(finder.getResults()));
+		}
+		finder.findAddress("Aa", center);
+		Assert.assertEquals(names("Aachen", "Aalen"), getNames(finder.getIntermediateResults()));
+		for (int i = 1; i < finder.getIntermediateResults().size(); i++)
+			Assert.assertTrue(center.getDistKM(finder.getIntermediateResults().get(i - 1))
+					<= center.getDistKM(finder.getIntermediateResults().get(i)));
+	}
+
+	private static Set<String> names(String... names) {
+		return new TreeSet<String>(Arrays.asList(names));
+	}
+
+	private static TreeSet<String> getNames(Collection<? extends MapEntity> entities) {
+		TreeSet<String> result = new TreeSet<String>();
+		for (MapEntity entity : entities)
+			Assert.assertTrue(result.add(entity.getName()));
+		return result;
+	}
+
+	private static List<Long> getIds(List<MapEntity> entities) {
+		List<Long> result = new ArrayList<Long>();
+		for (MapEntity entity : entities)
+			result.add(entity.getId());
+		return result;
+	}
+}
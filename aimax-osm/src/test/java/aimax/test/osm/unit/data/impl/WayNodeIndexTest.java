@@ -0,0 +1,66 @@
+package aimax.test.osm.unit.data.impl;
+
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayAttFilter;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.data.impl.WayNodeIndex;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class WayNodeIndexTest {
+
+	private static final int SIZE = 12;
+
+	private OsmMap map;
+	private List<MapNode> wayNodes;
+
+	@Before
+	public void setUp() {
+		map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		TestMaps.addGrid(builder, SIZE, new Random(1));
+		builder.buildMap();
+		wayNodes = new ArrayList<MapNode>();
+		for (int i = 0; i < SIZE * SIZE; i++)
+			wayNodes.add(map.getNode(i + 1));
+	}
+
+	@Test
+	public void testNearestWayNode() {
+		WayNodeIndex index = new WayNodeIndex(wayNodes);
+		Assert.assertEquals(SIZE * SIZE, index.size());
+		MapWayFilter[] filters = new MapWayFilter[] { null, MapWayAttFilter.createAnyWayFilter(),
+				MapWayAttFilter.createCarWayFilter(), way -> way.getId() == 1003 };
+		Random random = new Random(2);
+		for (int i = 0; i < 200; i++) {
+			// positions inside and around the grid
+			Position pos = new Position(TestMaps.LAT + (random.nextFloat() * 1.4f - 0.2f) * SIZE * TestMaps.SPACING,
+					TestMaps.LON + (random.nextFloat() * 1.4f - 0.2f) * SIZE * TestMaps.SPACING);
+			for (MapWayFilter filter : filters) {
+				MapNode expected = pos.selectNearest(wayNodes, filter);
+				MapNode actual = index.getNearest(pos, filter);
+				Assert.assertEquals(pos.getDistKM(expected), pos.getDistKM(actual), 1e-9);
+				Assert.assertEquals(expected.getId(), map.getNearestWayNode(pos, filter).getId());
+			}
+		}
+	}
+
+	@Test
+	public void testNoMatchingNode() {
+		WayNodeIndex index = new WayNodeIndex(wayNodes);
+		Assert.assertNull(index.getNearest(new Position(TestMaps.LAT, TestMaps.LON), way -> false));
+		index = new WayNodeIndex(new ArrayList<MapNode>());
+		Assert.assertEquals(0, index.size());
+		Assert.assertNull(index.getNearest(new Position(TestMaps.LAT, TestMaps.LON), null));
+	}
+}
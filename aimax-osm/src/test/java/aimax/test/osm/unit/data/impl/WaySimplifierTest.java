@@ -0,0 +1,144 @@
+package aimax.test.osm.unit.data.impl;
+
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMapNode;
+import aimax.osm.data.impl.WaySimplifier;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class WaySimplifierTest {
+
+	private static final double KM_PER_DEG = 111.195;
+
+	private long nextId = 1;
+
+	@Test
+	public void testCoarserLevelsAreSubsets() {
+		Random random = new Random(1);
+		for (int i = 0; i < 100; i++) {
+			// random walks with steps of up to 1 km
+			List<MapNode> nodes = new ArrayList<MapNode>();
+			float lat = TestMaps.LAT;
+			float lon = TestMaps.LON;
+			int size = 2 + random.nextInt(50);
+			for (int n = 0; n < size; n++) {
+				nodes.add(createNode(lat, lon));
+				lat += (random.nextFloat() - 0.5f) * 0.02f;
+				lon += (random.nextFloat() - 0.5f) * 0.02f;
+			}
+			List<MapNode>[] levels = WaySimplifier.simplify(nodes);
+			Assert.assertEquals(WaySimplifier.LEVEL_COUNT + 1, levels.length);
+			Assert.assertEquals(nodes, levels[0]);
+			byte[] nodeLevels = WaySimplifier.computeLevels(nodes);
+			for (int level = 1; level <= WaySimplifier.LEVEL_COUNT; level++) {
+				Assert.assertTrue(isSubsequence(levels[level], levels[level - 1]));
+				// end nodes are always kept
+				Assert.assertSame(nodes.get(0), levels[level].get(0));
+				Assert.assertSame(nodes.get(size - 1), levels[level].get(levels[level].size() - 1));
+				Assert.assertEquals(WaySimplifier.getNodeCount(nodes, nodeLevels, 0, level), levels[level].size());
+			}
+		}
+	}
+
+	@Test
+	public void testCollinearNodes() {
+		List<MapNode> nodes = new ArrayList<MapNode>();
+		for (int n = 0; n < 10; n++)
+			nodes.add(createNode(TestMaps.LAT, TestMaps.LON + n * 0.001f));
+		List<MapNode>[] levels = WaySimplifier.simplify(nodes);
+		Assert.assertEquals(10, levels[0].size());
+		for (int level = 1; level <= WaySimplifier.LEVEL_COUNT; level++) {
+			Assert.assertEquals(2, levels[level].size());
+			Assert.assertSame(nodes.get(0), levels[level].get(0));
+			Assert.assertSame(nodes.get(9), levels[level].get(1));
+		}
+	}
+
+	@Test
+	public void testDeviatingNode() {
+		for (int level = 1; level <= WaySimplifier.LEVEL_COUNT; level++) {
+			double tolerance = WaySimplifier.getTolerance(level);
+			Assert.assertTrue(tolerance > WaySimplifier.getTolerance(level - 1));
+			// a node slightly farther from the line than the tolerance survives the level
+			List<MapNode>[] levels = WaySimplifier.simplify(createPeak(tolerance * 1.05));
+			Assert.assertEquals(3, levels[level].size());
+			if (level < WaySimplifier.LEVEL_COUNT)
+				Assert.assertEquals(2, levels[level + 1].size());
+			// a slightly closer node does not
+			levels = WaySimplifier.simplify(createPeak(tolerance * 0.95));
+			Assert.assertEquals(2, levels[level].size());
+			Assert.assertEquals(3, levels[level - 1].size());
+		}
+	}
+
+	@Test
+	public void testClosedWays() {
+		// a small square, which is reduced to less than four nodes
+		List<MapNode> small = createSquare(0.001);
+		List<MapNode>[] levels = WaySimplifier.simplify(small);
+		Assert.assertEquals(5, levels[0].size());
+		for (int level = 1; level <= WaySimplifier.LEVEL_COUNT; level++)
+			Assert.assertTrue(levels[level].isEmpty());
+
+		// a large square keeps its corners on all levels
+		List<MapNode> large = createSquare(WaySimplifier.getTolerance(WaySimplifier.LEVEL_COUNT) * 4);
+		levels = WaySimplifier.simplify(large);
+		for (int level = 1; level <= WaySimplifier.LEVEL_COUNT; level++)
+			Assert.assertEquals(5, levels[level].size());
+	}
+
+	@Test
+	public void testGetLevel() {
+		Assert.assertEquals(0, WaySimplifier.getLevel(1f / 1000));
+		Assert.assertEquals(0, WaySimplifier.getLevel(1f / 349000));
+		Assert.assertEquals(1, WaySimplifier.getLevel(1f / 350000));
+		Assert.assertEquals(1, WaySimplifier.getLevel(1f / 749000));
+		Assert.assertEquals(2, WaySimplifier.getLevel(1f / 750000));
+		Assert.assertEquals(2, WaySimplifier.getLevel(1f / 9990000));
+		Assert.assertEquals(3, WaySimplifier.getLevel(1f / 10000000));
+		Assert.assertEquals(3, WaySimplifier.getLevel(1f / 100000000));
+		Assert.assertEquals(0, WaySimplifier.getTolerance(0), 0);
+	}
+
+	/** Creates a horizontal line of three nodes with the middle node moved north by the distance (in km). */
+	private List<MapNode> createPeak(double distKM) {
+		List<MapNode> result = new ArrayList<MapNode>();
+		float lat = TestMaps.LAT;
+		result.add(createNode(lat, TestMaps.LON));
+		result.add(createNode((float) (lat + distKM / KM_PER_DEG), TestMaps.LON + 0.5f));
+		result.add(createNode(lat, TestMaps.LON + 1));
+		return result;
+	}
+
+	/** Creates a closed way (first node equal to last node) around a square with the given side length in km. */
+	private List<MapNode> createSquare(double sideKM) {
+		float dLat = (float) (sideKM / KM_PER_DEG);
+		float dLon = (float) (sideKM / KM_PER_DEG / Math.cos(Math.toRadians(TestMaps.LAT)));
+		List<MapNode> result = new ArrayList<MapNode>();
+		result.add(createNode(TestMaps.LAT, TestMaps.LON));
+		result.add(createNode(TestMaps.LAT, TestMaps.LON + dLon));
+		result.add(createNode(TestMaps.LAT + dLat, TestMaps.LON + dLon));
+		result.add(createNode(TestMaps.LAT + dLat, TestMaps.LON));
+		result.add(result.get(0));
+		return result;
+	}
+
+	private MapNode createNode(float lat, float lon) {
+		DefaultMapNode result = new DefaultMapNode(nextId++);
+		result.setPosition(lat, lon);
+		return result;
+	}
+
+	private static boolean isSubsequence(List<MapNode> sub, List<MapNode> list) {
+		int i = 0;
+		for (MapNode node : list)
+			if (i < sub.size() && sub.get(i) == node)
+				i++;
+		return i == sub.size();
+	}
+}
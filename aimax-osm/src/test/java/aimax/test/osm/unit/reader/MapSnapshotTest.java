@@ -0,0 +1,126 @@
+package aimax.test.osm.unit.reader;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.reader.BinaryMapReader;
+import aimax.osm.reader.Bz2OsmReader;
+import aimax.osm.reader.MapSnapshot;
+import aimax.osm.reader.OsmRuntimeException;
+import aimax.osm.writer.BinaryMapWriter;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class MapSnapshotTest {
+
+	private static final int SIZE = 10;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private OsmMap map;
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		TestMaps.addGrid(builder, SIZE, new Random(1));
+		TestMaps.addPois(builder, SIZE);
+		builder.buildMap();
+		file = folder.newFile("map." + BinaryMapReader.FILE_EXTENSION);
+		new BinaryMapWriter().writeMap(file, map, map.getBoundingBox());
+	}
+
+	@Test
+	public void testRoundTrip() {
+		OsmMap map2 = new DefaultMap();
+		MapBuilder builder = map2.getBuilder();
+		new BinaryMapReader().readMap(file, builder);
+		builder.buildMap();
+		TestMaps.assertSameEntities(map, map2);
+
+		// the general reader detects snapshots by file extension
+		OsmMap map3 = new DefaultMap();
+		builder = map3.getBuilder();
+		new Bz2OsmReader().readMap(file, builder);
+		builder.buildMap();
+		TestMaps.assertSameEntities(map, map3);
+	}
+
+	@Test
+	public void testMemoryMappedAccess() throws IOException {
+		MapSnapshot snapshot = BinaryMapReader.openSnapshot(file);
+		Assert.assertEquals(SIZE * SIZE + map.getPoiCount(), snapshot.getNodeCount());
+		Assert.assertEquals(map.getWayCount(), snapshot.getWayCount());
+		Set<String> names = new HashSet<String>();
+		int tileNodes = 0;
+		for (int tile = 0; tile < snapshot.getTileCount(); tile++)
+			tileNodes += snapshot.getTileNodeCount(tile);
+		Assert.assertEquals(snapshot.getNodeCount(), tileNodes);
+		for (int node = 0; node < snapshot.getNodeCount(); node++) {
+			MapNode original = map.getNode(snapshot.getNodeId(node));
+			if (original == null) // after compilation, only way nodes can be accessed by id
+				continue;
+			Assert.assertEquals(original.getLat(), snapshot.getNodeLat(node), 0);
+			Assert.assertEquals(original.getLon(), snapshot.getNodeLon(node), 0);
+		}
+		for (int node = 0; node < snapshot.getNodeCount(); node++)
+			if (snapshot.getNodeName(node) != null)
+				names.add(snapshot.getNodeName(node));
+		// names with multi-byte characters are decoded correctly
+		Assert.assertTrue(names.contains("Köln"));
+		Assert.assertTrue(names.contains("Überlingen"));
+		Assert.assertTrue(names.contains("Café Aachen"));
+		for (int way = 0; way < snapshot.getWayCount(); way++) {
+			Assert.assertEquals(map.getWay(snapshot.getWayId(way)).getName(), snapshot.getWayName(way));
+			Assert.assertEquals(SIZE, snapshot.getWayNodeCount(way));
+		}
+	}
+
+	@Test
+	public void testBoundingBoxFilter() {
+		BoundingBox bb = new BoundingBox(TestMaps.LAT - TestMaps.SPACING, TestMaps.LON - TestMaps.SPACING,
+				TestMaps.LAT + 2.5f * TestMaps.SPACING, TestMaps.LON + 2.5f * TestMaps.SPACING);
+		OsmMap map2 = new DefaultMap();
+		MapBuilder builder = map2.getBuilder();
+		BinaryMapReader reader = new BinaryMapReader();
+		reader.setFilter(bb);
+		reader.readMap(file, builder);
+		builder.buildMap();
+		// rows 0 to 2 and columns 0 to 2 intersect the box, and are read with all their nodes
+		Assert.assertEquals(6, map2.getWayCount());
+		// two places and the cafe are inside the box
+		Assert.assertEquals(3, map2.getPoiCount());
+		Assert.assertEquals(6 * SIZE - 9 + 3, map2.getNodeCount());
+		for (MapNode poi : map2.getPois(map2.getBoundingBox()))
+			Assert.assertTrue(bb.isInside(poi.getLat(), poi.getLon()));
+	}
+
+	@Test(expected = OsmRuntimeException.class)
+	public void testMissingFile() {
+		new BinaryMapReader().readMap(new File(folder.getRoot(), "missing.aimap"), new DefaultMap().getBuilder());
+	}
+
+	@Test(expected = OsmRuntimeException.class)
+	public void testInvalidFile() throws IOException {
+		File invalid = folder.newFile("invalid.aimap");
+		try (FileOutputStream os = new FileOutputStream(invalid)) {
+			os.write(new byte[MapSnapshot.HEADER_SIZE]);
+		}
+		new BinaryMapReader().readMap(invalid, new DefaultMap().getBuilder());
+	}
+}
@@ -0,0 +1,99 @@
+package aimax.test.osm.unit.reader;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.reader.Bz2OsmReader;
+import aimax.osm.reader.PipelinedOsmReader;
+import aimax.osm.writer.OsmWriter;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+public class PipelinedOsmReaderTest {
+
+	private static final int SIZE = 10;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private OsmMap map;
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		TestMaps.addGrid(builder, SIZE, new Random(1));
+		TestMaps.addPois(builder, SIZE);
+		builder.buildMap();
+		file = folder.newFile("map.osm");
+		new OsmWriter().writeMap(file, map, map.getBoundingBox());
+	}
+
+	@Test
+	public void testSameMapAsSequentialReader() {
+		OsmMap expected = readMap(new Bz2OsmReader(), null);
+		TestMaps.assertSameEntities(map, expected);
+		PipelinedOsmReader reader = new PipelinedOsmReader();
+		TestMaps.assertSameEntities(expected, readMap(reader, null));
+		Assert.assertEquals(3, reader.getStatistics().size());
+		Assert.assertEquals(file.length(), reader.getStatistics().get(0).getBytes());
+	}
+
+	@Test
+	public void testSameMapWithBoundingBoxFilter() {
+		// the lower half of the grid; referenced nodes outside are read in a second pass
+		BoundingBox bb = new BoundingBox(TestMaps.LAT - TestMaps.SPACING, TestMaps.LON - TestMaps.SPACING,
+				TestMaps.LAT + (SIZE / 2 - 0.5f) * TestMaps.SPACING, TestMaps.LON + SIZE * TestMaps.SPACING);
+		OsmMap expected = readMap(new Bz2OsmReader(), bb);
+		Assert.assertTrue(expected.getWayCount() < map.getWayCount());
+		TestMaps.assertSameEntities(expected, readMap(new PipelinedOsmReader(), bb));
+	}
+
+	@Test
+	public void testInputStreamsClosed() {
+		final int[] counts = new int[2];
+		PipelinedOsmReader reader = new PipelinedOsmReader() {
+			@Override
+			protected InputStream createFileStream(File file) throws Exception {
+				counts[0]++;
+				return new FilterInputStream(super.createFileStream(file)) {
+					@Override
+					public void close() throws IOException {
+						counts[1]++;
+						super.close();
+					}
+				};
+			}
+		};
+		readMap(reader, null);
+		Assert.assertEquals(1, counts[0]);
+		Assert.assertTrue(counts[1] >= counts[0]);
+		// two passes with a bounding box filter
+		readMap(reader, new BoundingBox(TestMaps.LAT - TestMaps.SPACING, TestMaps.LON - TestMaps.SPACING,
+				TestMaps.LAT + TestMaps.SPACING, TestMaps.LON + SIZE * TestMaps.SPACING));
+		Assert.assertEquals(3, counts[0]);
+		Assert.assertTrue(counts[1] >= counts[0]);
+	}
+
+	private OsmMap readMap(Bz2OsmReader reader, BoundingBox filter) {
+		OsmMap result = new DefaultMap();
+		MapBuilder builder = result.getBuilder();
+		if (filter != null)
+			reader.setFilter(filter);
+		reader.readMap(file, builder);
+		builder.buildMap();
+		return result;
+	}
+}
@@ -0,0 +1,10 @@
+package aimax.test.osm.unit.reader;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({ MapSnapshotTest.class, PipelinedOsmReaderTest.class })
+public class ReaderTestSuite {
+
+}
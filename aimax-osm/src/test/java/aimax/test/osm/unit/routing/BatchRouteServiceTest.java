@@ -0,0 +1,107 @@
+package aimax.test.osm.unit.routing;
+
+import aima.core.search.framework.Node;
+import aima.core.search.framework.SearchForActions;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.routing.BatchRouteService;
+import aimax.osm.routing.OsmMoveAction;
+import aimax.osm.routing.RouteCalculator;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+public class BatchRouteServiceTest {
+
+	private static final int SIZE = 8;
+
+	private OsmMap map;
+	private BatchRouteService service;
+
+	@Before
+	public void setUp() {
+		map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		TestMaps.addGrid(builder, SIZE, new Random(1));
+		builder.buildMap();
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		if (service != null) {
+			service.shutdown();
+			Assert.assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void testBatchResults() throws Exception {
+		RouteCalculator routeCalculator = new RouteCalculator();
+		service = new BatchRouteService(map, routeCalculator, 3);
+		List<MapNode[]> pairs = new ArrayList<>();
+		Random random = new Random(2);
+		for (int i = 0; i < 20; i++)
+			pairs.add(new MapNode[] { getRandomNode(random), getRandomNode(random) });
+		for (int taskSelection = 0; taskSelection < 3; taskSelection++) {
+			List<CompletableFuture<BatchRouteService.Result>> futures = service.submitAll(pairs, taskSelection);
+			Assert.assertEquals(pairs.size(), futures.size());
+			for (int i = 0; i < pairs.size(); i++) {
+				BatchRouteService.Result result = futures.get(i).get(10, TimeUnit.SECONDS);
+				Assert.assertSame(pairs.get(i)[0], result.getMarkers().get(0));
+				Assert.assertSame(pairs.get(i)[1], result.getMarkers().get(1));
+				// same route as computed sequentially
+				List<Position> expected = routeCalculator.calculateRoute(result.getMarkers(), map, taskSelection);
+				Assert.assertEquals(!expected.isEmpty(), result.isRouteFound());
+				assertSameRoute(expected, result.getRoute());
+			}
+		}
+	}
+
+	@Test
+	public void testErrorPropagation() throws Exception {
+		RouteCalculator routeCalculator = new RouteCalculator() {
+			@Override
+			protected SearchForActions<MapNode, OsmMoveAction> createSearch(
+					ToDoubleFunction<Node<MapNode, OsmMoveAction>> h, int taskSelection) {
+				throw new IllegalStateException("No search for task " + taskSelection);
+			}
+		};
+		service = new BatchRouteService(map, routeCalculator, 2);
+		MapNode from = map.getNode(TestMaps.getNodeId(SIZE, 0, 0));
+		MapNode to = map.getNode(TestMaps.getNodeId(SIZE, SIZE - 1, SIZE - 1));
+		CompletableFuture<BatchRouteService.Result> future = service.submit(from, to, 1);
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			Assert.fail("Exception expected.");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			Assert.assertEquals("No search for task 1", e.getCause().getMessage());
+		}
+		Assert.assertTrue(future.isCompletedExceptionally());
+	}
+
+	private MapNode getRandomNode(Random random) {
+		return map.getNode(TestMaps.getNodeId(SIZE, random.nextInt(SIZE), random.nextInt(SIZE)));
+	}
+
+	private static void assertSameRoute(List<Position> expected, List<Position> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).getLat(), actual.get(i).getLat(), 0);
+			Assert.assertEquals(expected.get(i).getLon(), actual.get(i).getLon(), 0);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package aimax.test.osm.unit.routing;
+
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayAttFilter;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.data.impl.CompactMap;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.gps.GpsFix;
+import aimax.osm.routing.ContractionHierarchyRouteCalculator;
+import aimax.osm.routing.DStarLiteRouter;
+import aimax.osm.routing.DistanceMatrixService;
+import aimax.osm.routing.IncrementalRoutePlanner;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+import aimax.osm.routing.RoadGraph;
+import aimax.osm.routing.RoadGraphRouter;
+import aimax.osm.routing.RouteCalculator;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Routes on a compact map, whose entities are flyweight views which are equal
+ * but not identical, and compares the results with a default map containing
+ * the same data.
+ */
+public class CompactMapRoutingTest {
+
+	private static final int SIZE = 6;
+	/** Compact maps store coordinates as fixed-point values. */
+	private static final double DELTA = 1e-4;
+
+	private final MapWayFilter filter = MapWayAttFilter.createCarWayFilter();
+	private OsmMap map;
+	private CompactMap compactMap;
+
+	@Before
+	public void setUp() {
+		map = new DefaultMap();
+		compactMap = new CompactMap();
+		for (OsmMap m : new OsmMap[] { map, compactMap }) {
+			MapBuilder builder = m.getBuilder();
+			TestMaps.addGrid(builder, SIZE, new Random(1));
+			builder.buildMap();
+		}
+	}
+
+	@Test
+	public void testRoadGraph() {
+		RoadGraph graph = RoadGraph.create(map, filter);
+		RoadGraph compactGraph = RoadGraph.create(compactMap, filter);
+		Assert.assertEquals(graph.getNodeCount(), compactGraph.getNodeCount());
+		Assert.assertEquals(graph.getEdgeCount(), compactGraph.getEdgeCount());
+		for (int i = 1; i <= SIZE * SIZE; i++) {
+			MapNode node = compactMap.getNode(i);
+			Assert.assertNotSame(node, compactMap.getNode(i));
+			int idx = compactGraph.getNodeIndex(compactMap.getNode(i));
+			Assert.assertNotEquals(-1, idx);
+			Assert.assertEquals(node, compactGraph.getNode(idx));
+		}
+		RoadGraphRouter router = new RoadGraphRouter(graph);
+		RoadGraphRouter compactRouter = new RoadGraphRouter(compactGraph);
+		for (int i = 1; i <= SIZE * SIZE; i += 5) {
+			for (int j = 1; j <= SIZE * SIZE; j += 3) {
+				router.findPath(graph.getNodeIndex(map.getNode(i)), graph.getNodeIndex(map.getNode(j)),
+						OneWayMode.TRAVEL_FORWARD);
+				compactRouter.findPath(compactGraph.getNodeIndex(compactMap.getNode(i)),
+						compactGraph.getNodeIndex(compactMap.getNode(j)), OneWayMode.TRAVEL_FORWARD);
+				Assert.assertEquals(router.getPathCost(), compactRouter.getPathCost(), DELTA);
+			}
+		}
+	}
+
+	@Test
+	public void testRouteCalculators() {
+		RouteCalculator calculator = new RouteCalculator();
+		ContractionHierarchyRouteCalculator chCalculator = new ContractionHierarchyRouteCalculator(compactMap);
+		Random random = new Random(2);
+		for (int i = 0; i < 10; i++) {
+			long from = 1 + random.nextInt(SIZE * SIZE);
+			long to = 1 + random.nextInt(SIZE * SIZE);
+			List<Position> expected = calculator.computeRoute(Arrays.asList(map.getNode(from), map.getNode(to)),
+					map, 0);
+			List<MapNode> markers = Arrays.asList(compactMap.getNode(from), compactMap.getNode(to));
+			List<Position> route = calculator.computeRoute(markers, compactMap, 0);
+			// no duplicate positions where actions meet
+			Assert.assertEquals(expected.size(), route.size());
+			Assert.assertEquals(getLength(expected), getLength(route), DELTA);
+			Assert.assertEquals(getLength(expected), getLength(chCalculator.computeRoute(markers, compactMap, 0)),
+					DELTA);
+		}
+	}
+
+	@Test
+	public void testDistanceMatrix() {
+		List<MapNode> nodes = Arrays.asList(map.getNode(1), map.getNode(8), map.getNode(SIZE * SIZE));
+		List<MapNode> compactNodes = Arrays.asList(compactMap.getNode(1), compactMap.getNode(8),
+				compactMap.getNode(SIZE * SIZE));
+		DistanceMatrixService service = new DistanceMatrixService(map, filter, false, 2);
+		DistanceMatrixService compactService = new DistanceMatrixService(compactMap, filter, false, 2);
+		try {
+			double[][] expected = service.computeMatrix(nodes, nodes);
+			double[][] matrix = compactService.computeMatrix(compactNodes, compactNodes);
+			for (int i = 0; i < expected.length; i++) {
+				Assert.assertEquals(0, matrix[i][i], 0);
+				Assert.assertArrayEquals(expected[i], matrix[i], DELTA);
+			}
+		} finally {
+			service.shutdown();
+			compactService.shutdown();
+		}
+	}
+
+	@Test
+	public void testBlockedWays() {
+		RoadGraph graph = RoadGraph.create(compactMap, filter);
+		DStarLiteRouter router = new DStarLiteRouter(graph, true);
+		int from = graph.getNodeIndex(compactMap.getNode(TestMaps.getNodeId(SIZE, 0, 0)));
+		int to = graph.getNodeIndex(compactMap.getNode(TestMaps.getNodeId(SIZE, 0, SIZE - 1)));
+		router.findPath(from, to);
+		double cost = router.getPathCost();
+		// row 0 is the direct connection
+		router.setBlocked(compactMap.getWay(1), true);
+		Assert.assertTrue(router.isBlocked(compactMap.getWay(1)));
+		router.findPath(from, to);
+		Assert.assertTrue(router.getPathCost() > cost + DELTA);
+		router.setBlocked(compactMap.getWay(1), false);
+		Assert.assertFalse(router.isBlocked(compactMap.getWay(1)));
+		router.findPath(from, to);
+		Assert.assertEquals(cost, router.getPathCost(), 1e-9);
+
+		IncrementalRoutePlanner planner = new IncrementalRoutePlanner(compactMap, filter, true);
+		MapNode start = compactMap.getNode(TestMaps.getNodeId(SIZE, 0, 0));
+		planner.positionUpdated(new GpsFix(true, start.getLat(), start.getLon()));
+		planner.setDestination(compactMap.getNode(TestMaps.getNodeId(SIZE, 0, SIZE - 1)));
+		Assert.assertEquals(SIZE, planner.getRoute().size());
+		Assert.assertEquals(cost, planner.getRouteCost(), 1e-9);
+		MapWay row = compactMap.getWay(1);
+		planner.setWayBlocked(row, true);
+		Assert.assertTrue(planner.getRouteCost() > cost + DELTA);
+	}
+
+	private static double getLength(List<Position> route) {
+		double result = 0;
+		for (int i = 1; i < route.size(); i++)
+			result += Position.getDistKM(route.get(i - 1).getLat(), route.get(i - 1).getLon(),
+					route.get(i).getLat(), route.get(i).getLon());
+		return result;
+	}
+}
@@ -0,0 +1,124 @@
+package aimax.test.osm.unit.routing;
+
+import aima.core.search.framework.qsearch.QueueSearch;
+import aima.core.search.uninformed.UniformCostSearch;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayAttFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.EntityAttribute;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.routing.ContractionHierarchy;
+import aimax.osm.routing.ContractionHierarchyRouteCalculator;
+import aimax.osm.routing.ContractionHierarchyRouter;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+import aimax.osm.routing.RoadGraph;
+import aimax.osm.routing.RoadGraphProblem;
+import aimax.osm.routing.RoadGraphRouter;
+import aimax.osm.routing.RouteCalculator;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class ContractionHierarchyTest {
+
+	private static final int SIZE = 7;
+
+	private OsmMap map;
+
+	@Before
+	public void setUp() {
+		map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		Random random = new Random(1);
+		TestMaps.addGrid(builder, SIZE, random);
+		// some random shortcuts, half of them one-way streets
+		for (int i = 0; i < 10; i++) {
+			List<EntityAttribute> atts = new ArrayList<EntityAttribute>();
+			atts.add(new EntityAttribute("highway", "residential"));
+			if (i % 2 == 0)
+				atts.add(new EntityAttribute("oneway", "yes"));
+			builder.addWay(2000 + i, null, atts, Arrays.asList(1L + random.nextInt(SIZE * SIZE),
+					1L + random.nextInt(SIZE * SIZE), 1L + random.nextInt(SIZE * SIZE)));
+		}
+		builder.buildMap();
+	}
+
+	@Test
+	public void testDistancesWithOneWays() {
+		RoadGraph graph = RoadGraph.create(map, MapWayAttFilter.createCarWayFilter());
+		checkAllPairs(ContractionHierarchy.create(graph, OneWayMode.TRAVEL_FORWARD));
+	}
+
+	@Test
+	public void testDistancesIgnoringOneWays() {
+		RoadGraph graph = RoadGraph.create(map, MapWayAttFilter.createAnyWayFilter());
+		checkAllPairs(ContractionHierarchy.create(graph, OneWayMode.IGNORE));
+	}
+
+	/** Compares the hierarchy with A* search (all pairs) and with Dijkstra's algorithm (some pairs). */
+	private void checkAllPairs(ContractionHierarchy hierarchy) {
+		RoadGraph graph = hierarchy.getGraph();
+		OneWayMode mode = hierarchy.getOneWayMode();
+		ContractionHierarchyRouter chRouter = new ContractionHierarchyRouter(hierarchy);
+		RoadGraphRouter router = new RoadGraphRouter(graph);
+		for (int from = 0; from < graph.getNodeCount(); from++) {
+			for (int to = 0; to < graph.getNodeCount(); to++) {
+				int[] path = chRouter.findPath(from, to);
+				int[] expectedPath = router.findPath(from, to, mode);
+				Assert.assertEquals(expectedPath == RoadGraphRouter.NO_PATH, path == RoadGraphRouter.NO_PATH);
+				Assert.assertEquals(router.getPathCost(), chRouter.getPathCost(), 1e-5);
+				// shortcuts are unpacked into allowed edges of the graph
+				double length = 0;
+				int node = from;
+				for (int edge : path) {
+					Assert.assertTrue(edge >= graph.getFirstEdge(node) && edge < graph.getFirstEdge(node + 1));
+					Assert.assertTrue(graph.isAllowed(edge, mode));
+					length += graph.getEdgeLength(edge);
+					node = graph.getEdgeTarget(edge);
+				}
+				Assert.assertEquals(to, node);
+				Assert.assertEquals(chRouter.getPathCost(), length, 1e-5);
+
+				if ((from + to) % 7 == 0) {
+					UniformCostSearch<Integer, Integer> dijkstra = new UniformCostSearch<>();
+					Assert.assertTrue(dijkstra.findActions(
+							new RoadGraphProblem(graph, from, to, mode == OneWayMode.IGNORE)).isPresent());
+					Assert.assertEquals(dijkstra.getMetrics().getDouble(QueueSearch.METRIC_PATH_COST),
+							chRouter.getPathCost(), 1e-5);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRouteCalculator() {
+		ContractionHierarchyRouteCalculator chCalculator = new ContractionHierarchyRouteCalculator(map);
+		RouteCalculator calculator = new RouteCalculator();
+		Random random = new Random(2);
+		for (int i = 0; i < 20; i++) {
+			List<MapNode> markers = Arrays.asList(map.getNode(1 + random.nextInt(SIZE * SIZE)),
+					map.getNode(1 + random.nextInt(SIZE * SIZE)));
+			for (int taskSelection = 0; taskSelection < 2; taskSelection++) {
+				List<Position> expected = calculator.calculateRoute(markers, map, taskSelection);
+				List<Position> route = chCalculator.calculateRoute(markers, map, taskSelection);
+				Assert.assertEquals(getLength(expected), getLength(route), 1e-5);
+			}
+		}
+	}
+
+	private static double getLength(List<Position> route) {
+		double result = 0;
+		for (int i = 1; i < route.size(); i++)
+			result += Position.getDistKM(route.get(i - 1).getLat(), route.get(i - 1).getLon(),
+					route.get(i).getLat(), route.get(i).getLon());
+		return result;
+	}
+}
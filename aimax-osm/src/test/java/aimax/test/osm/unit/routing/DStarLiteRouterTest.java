@@ -0,0 +1,215 @@
+package aimax.test.osm.unit.routing;
+
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayAttFilter;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.Position;
+import aimax.osm.data.entities.EntityAttribute;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.entities.MapWay;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.gps.GpsFix;
+import aimax.osm.routing.DStarLiteRouter;
+import aimax.osm.routing.IncrementalRoutePlanner;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+import aimax.osm.routing.RoadGraph;
+import aimax.osm.routing.RoadGraphRouter;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class DStarLiteRouterTest {
+
+	private static final int SIZE = 8;
+
+	private final MapWayFilter filter = MapWayAttFilter.createCarWayFilter();
+	private OsmMap map;
+	private List<MapWay> ways;
+
+	@Before
+	public void setUp() {
+		map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		Random random = new Random(1);
+		TestMaps.addGrid(builder, SIZE, random);
+		// some random shortcuts, half of them one-way streets
+		for (int i = 0; i < 10; i++) {
+			List<EntityAttribute> atts = new ArrayList<EntityAttribute>();
+			atts.add(new EntityAttribute("highway", "residential"));
+			if (i % 2 == 0)
+				atts.add(new EntityAttribute("oneway", "yes"));
+			builder.addWay(2000 + i, null, atts, Arrays.asList(1L + random.nextInt(SIZE * SIZE),
+					1L + random.nextInt(SIZE * SIZE)));
+		}
+		builder.buildMap();
+		ways = new ArrayList<MapWay>();
+		for (MapWay way : map.getWays(map.getBoundingBox()))
+			if (filter.isAccepted(way))
+				ways.add(way);
+	}
+
+	@Test
+	public void testMovingStart() {
+		for (boolean ignoreOneWays : new boolean[] { false, true }) {
+			RoadGraph graph = RoadGraph.create(map, filter);
+			DStarLiteRouter router = new DStarLiteRouter(graph, ignoreOneWays);
+			RoadGraphRouter reference = new RoadGraphRouter(graph);
+			OneWayMode mode = ignoreOneWays ? OneWayMode.IGNORE : OneWayMode.TRAVEL_FORWARD;
+			Random random = new Random(2);
+			for (int i = 0; i < 10; i++) {
+				int from = random.nextInt(graph.getNodeCount());
+				int to = random.nextInt(graph.getNodeCount());
+				// follow the path; each query after the first repairs the search state
+				while (true) {
+					int[] path = router.findPath(from, to);
+					reference.findPath(from, to, mode);
+					Assert.assertEquals(reference.getPathCost(), router.getPathCost(), 1e-6);
+					assertValidPath(graph, path, from, to, router.getPathCost(), Collections.<Long>emptySet());
+					if (path.length == 0)
+						break;
+					from = graph.getEdgeTarget(path[0]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBlockedWays() {
+		RoadGraph graph = RoadGraph.create(map, filter);
+		DStarLiteRouter router = new DStarLiteRouter(graph, false);
+		Random random = new Random(3);
+		Set<Long> blockedIds = new HashSet<Long>();
+		int to = random.nextInt(graph.getNodeCount());
+		for (int i = 0; i < 20; i++) {
+			MapWay way = ways.get(random.nextInt(ways.size()));
+			boolean block = !blockedIds.contains(way.getId());
+			router.setBlocked(way, block);
+			Assert.assertEquals(block, router.isBlocked(way));
+			if (block)
+				blockedIds.add(way.getId());
+			else
+				blockedIds.remove(way.getId());
+
+			// compare with a search on a graph without the blocked ways
+			RoadGraph refGraph = RoadGraph.create(map,
+					w -> filter.isAccepted(w) && !blockedIds.contains(w.getId()));
+			RoadGraphRouter reference = new RoadGraphRouter(refGraph);
+			int from = random.nextInt(graph.getNodeCount());
+			int[] path = router.findPath(from, to);
+			int refFrom = refGraph.getNodeIndex(graph.getNode(from));
+			int refTo = refGraph.getNodeIndex(graph.getNode(to));
+			if (refFrom == -1 || refTo == -1) {
+				Assert.assertTrue(from == to || path == RoadGraphRouter.NO_PATH);
+			} else {
+				reference.findPath(refFrom, refTo, OneWayMode.TRAVEL_FORWARD);
+				Assert.assertEquals(reference.getPathCost(), router.getPathCost(), 1e-6);
+			}
+			assertValidPath(graph, path, from, to, router.getPathCost(), blockedIds);
+		}
+		for (MapWay way : ways)
+			Assert.assertEquals(blockedIds.contains(way.getId()), router.isBlocked(way));
+	}
+
+	@Test
+	public void testIncrementalRoutePlanner() {
+		IncrementalRoutePlanner planner = new IncrementalRoutePlanner(map, filter, false);
+		List<List<Position>> routes = new ArrayList<List<Position>>();
+		planner.addRouteListener(routes::add);
+		Assert.assertTrue(planner.getRoute().isEmpty());
+		Assert.assertEquals(Double.POSITIVE_INFINITY, planner.getRouteCost(), 0);
+
+		// destination without position: no route yet
+		MapNode dest = map.getNode(TestMaps.getNodeId(SIZE, SIZE - 1, SIZE - 1));
+		planner.setDestination(map.addMarker(dest.getLat(), dest.getLon()));
+		Assert.assertTrue(routes.isEmpty());
+		planner.positionUpdated(new GpsFix(false, TestMaps.LAT, TestMaps.LON));
+		Assert.assertTrue(routes.isEmpty());
+
+		RoadGraph graph = RoadGraph.create(map, filter);
+		RoadGraphRouter reference = new RoadGraphRouter(graph);
+		MapNode start = map.getNode(1);
+		planner.positionUpdated(new GpsFix(true, start.getLat(), start.getLon()));
+		Assert.assertEquals(1, routes.size());
+		List<Position> route = planner.getRoute();
+		Assert.assertSame(route, routes.get(0));
+		reference.findPath(graph.getNodeIndex(start), graph.getNodeIndex(dest), OneWayMode.TRAVEL_FORWARD);
+		Assert.assertEquals(reference.getPathCost(), planner.getRouteCost(), 1e-6);
+		Assert.assertEquals(reference.getPathCost(), getLength(route), 1e-4);
+		assertSamePosition(start, route.get(0));
+		assertSamePosition(dest, route.get(route.size() - 1));
+
+		// fixes near the same way node do not cause re-planning
+		planner.positionUpdated(new GpsFix(true, start.getLat() + TestMaps.SPACING / 20, start.getLon()));
+		Assert.assertEquals(1, routes.size());
+
+		// drive along the route
+		Position next = route.get(1);
+		planner.positionUpdated(new GpsFix(true, next.getLat(), next.getLon()));
+		Assert.assertEquals(2, routes.size());
+		List<Position> rest = planner.getRoute();
+		Assert.assertEquals(route.size() - 1, rest.size());
+		for (int i = 0; i < rest.size(); i++) {
+			Assert.assertEquals(route.get(i + 1).getLat(), rest.get(i).getLat(), 0);
+			Assert.assertEquals(route.get(i + 1).getLon(), rest.get(i).getLon(), 0);
+		}
+
+		// block all ways of the first route step and release them again
+		double cost = planner.getRouteCost();
+		MapNode nextNode = map.getNearestWayNode(next, filter);
+		List<MapWay> blocked = new ArrayList<MapWay>();
+		for (MapWay way : ways)
+			if (way.getNodes().contains(nextNode) && way.getNodes().contains(
+					map.getNearestWayNode(planner.getRoute().get(1), filter)))
+				blocked.add(way);
+		Assert.assertFalse(blocked.isEmpty());
+		for (MapWay way : blocked)
+			planner.setWayBlocked(way, true);
+		Assert.assertTrue(planner.getRouteCost() > cost);
+		for (MapWay way : blocked)
+			planner.setWayBlocked(way, false);
+		Assert.assertEquals(cost, planner.getRouteCost(), 1e-9);
+		Assert.assertEquals(2 + 2 * blocked.size(), routes.size());
+	}
+
+	/** Checks that consecutive edges are connected and avoid blocked ways. */
+	private static void assertValidPath(RoadGraph graph, int[] path, int from, int to, double cost,
+			Set<Long> blockedIds) {
+		if (path == RoadGraphRouter.NO_PATH && from != to) {
+			Assert.assertEquals(Double.POSITIVE_INFINITY, cost, 0);
+			return;
+		}
+		int node = from;
+		double length = 0;
+		for (int edge : path) {
+			Assert.assertTrue(edge >= graph.getFirstEdge(node) && edge < graph.getFirstEdge(node + 1));
+			Assert.assertFalse(blockedIds.contains(graph.getEdgeWay(edge).getId()));
+			length += graph.getEdgeLength(edge);
+			node = graph.getEdgeTarget(edge);
+		}
+		Assert.assertEquals(to, node);
+		Assert.assertEquals(cost, length, 1e-6);
+	}
+
+	private static void assertSamePosition(MapNode expected, Position actual) {
+		Assert.assertEquals(expected.getLat(), actual.getLat(), 0);
+		Assert.assertEquals(expected.getLon(), actual.getLon(), 0);
+	}
+
+	private static double getLength(List<Position> route) {
+		double result = 0;
+		for (int i = 1; i < route.size(); i++)
+			result += Position.getDistKM(route.get(i - 1).getLat(), route.get(i - 1).getLon(),
+					route.get(i).getLat(), route.get(i).getLon());
+		return result;
+	}
+}
@@ -0,0 +1,147 @@
+package aimax.test.osm.unit.routing;
+
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayAttFilter;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.EntityAttribute;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.routing.DistanceMatrixService;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+import aimax.osm.routing.RoadGraph;
+import aimax.osm.routing.RoadGraphRouter;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class DistanceMatrixServiceTest {
+
+	private static final int SIZE = 7;
+	/** IDs of the nodes of a separate road far away from the grid. */
+	private static final long ISLAND_NODE1 = 5001;
+	private static final long ISLAND_NODE2 = 5002;
+
+	private final MapWayFilter filter = MapWayAttFilter.createCarWayFilter();
+	private OsmMap map;
+	private DistanceMatrixService service;
+
+	@Before
+	public void setUp() {
+		map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		TestMaps.addGrid(builder, SIZE, new Random(1));
+		builder.addNode(ISLAND_NODE1, null, Collections.<EntityAttribute>emptyList(), TestMaps.LAT + 0.1f,
+				TestMaps.LON);
+		builder.addNode(ISLAND_NODE2, null, Collections.<EntityAttribute>emptyList(), TestMaps.LAT + 0.1f,
+				TestMaps.LON + TestMaps.SPACING);
+		builder.addWay(3001, "Island", Collections.singletonList(new EntityAttribute("highway", "residential")),
+				Arrays.asList(ISLAND_NODE1, ISLAND_NODE2));
+		builder.buildMap();
+		service = new DistanceMatrixService(map, filter, false, 3);
+	}
+
+	@After
+	public void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	public void testMatrixMatchesPointToPointRouting() {
+		RoadGraph graph = service.getGraph();
+		RoadGraphRouter router = new RoadGraphRouter(graph);
+		int[] nodes = new int[graph.getNodeCount()];
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i] = i;
+		double[][] matrix = service.computeMatrix(nodes, nodes);
+		Assert.assertEquals(nodes.length, matrix.length);
+		for (int from = 0; from < nodes.length; from++) {
+			Assert.assertEquals(nodes.length, matrix[from].length);
+			for (int to = 0; to < nodes.length; to++) {
+				router.findPath(from, to, OneWayMode.TRAVEL_FORWARD);
+				Assert.assertEquals(router.getPathCost(), matrix[from][to], 1e-9);
+			}
+		}
+		// one-way streets make the matrix asymmetric
+		boolean asymmetric = false;
+		for (int from = 0; from < nodes.length; from++)
+			for (int to = 0; to < nodes.length; to++)
+				asymmetric |= Math.abs(matrix[from][to] - matrix[to][from]) > 1e-9;
+		Assert.assertTrue(asymmetric);
+	}
+
+	@Test
+	public void testIgnoringOneWays() {
+		DistanceMatrixService symmetricService = new DistanceMatrixService(service.getGraph(), OneWayMode.IGNORE, 2);
+		try {
+			List<MapNode> nodes = getGridNodes(new Random(2), 15);
+			double[][] matrix = symmetricService.computeMatrix(nodes, nodes);
+			double[][] oneWayMatrix = service.computeMatrix(nodes, nodes);
+			for (int i = 0; i < nodes.size(); i++) {
+				for (int j = 0; j < nodes.size(); j++) {
+					Assert.assertEquals(matrix[i][j], matrix[j][i], 1e-9);
+					Assert.assertTrue(matrix[i][j] <= oneWayMatrix[i][j] + 1e-9);
+				}
+			}
+		} finally {
+			symmetricService.shutdown();
+		}
+	}
+
+	@Test
+	public void testUnreachableAndMissingNodes() {
+		MapNode gridNode = map.getNode(1);
+		MapNode islandNode = map.getNode(ISLAND_NODE1);
+		List<MapNode> nodes = Arrays.asList(gridNode, islandNode, map.getNode(ISLAND_NODE2));
+		double[][] matrix = service.computeMatrix(nodes, nodes);
+		Assert.assertEquals(0, matrix[0][0], 0);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, matrix[0][1], 0);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, matrix[1][0], 0);
+		Assert.assertTrue(matrix[1][2] > 0 && matrix[1][2] < Double.POSITIVE_INFINITY);
+
+		// markers are replaced by the nearest way node
+		MapNode marker = map.addMarker(gridNode.getLat(), gridNode.getLon() + TestMaps.SPACING / 10);
+		matrix = service.computeMatrix(Arrays.asList(marker), nodes);
+		Assert.assertEquals(0, matrix[0][0], 0);
+
+		// negative indices stand for nodes without connection to the graph
+		matrix = service.computeMatrix(new int[] { -1, 0 }, new int[] { 0, -1 });
+		Assert.assertArrayEquals(new double[] { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY }, matrix[0], 0);
+		Assert.assertArrayEquals(new double[] { 0, Double.POSITIVE_INFINITY }, matrix[1], 0);
+	}
+
+	@Test
+	public void testRepeatedAndConcurrentQueries() {
+		List<MapNode> sources = getGridNodes(new Random(3), 20);
+		// duplicate targets
+		List<MapNode> targets = new ArrayList<MapNode>(getGridNodes(new Random(4), 10));
+		targets.addAll(targets);
+		double[][] expected = service.computeMatrix(sources, targets);
+		DistanceMatrixService singleThreaded = new DistanceMatrixService(map, filter, false, 1);
+		try {
+			for (int i = 0; i < 5; i++) {
+				Assert.assertArrayEquals(expected, service.computeMatrix(sources, targets));
+				Assert.assertArrayEquals(expected, singleThreaded.computeMatrix(sources, targets));
+			}
+		} finally {
+			singleThreaded.shutdown();
+		}
+		for (double[] row : expected)
+			Assert.assertArrayEquals(Arrays.copyOf(row, 10), Arrays.copyOfRange(row, 10, 20), 0);
+	}
+
+	private List<MapNode> getGridNodes(Random random, int count) {
+		List<MapNode> result = new ArrayList<MapNode>();
+		for (int i = 0; i < count; i++)
+			result.add(map.getNode(1 + random.nextInt(SIZE * SIZE)));
+		return result;
+	}
+}
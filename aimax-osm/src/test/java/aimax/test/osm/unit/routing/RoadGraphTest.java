@@ -0,0 +1,140 @@
+package aimax.test.osm.unit.routing;
+
+import aima.core.search.framework.SearchForActions;
+import aima.core.search.framework.qsearch.GraphSearch;
+import aima.core.search.framework.qsearch.QueueSearch;
+import aima.core.search.informed.AStarSearch;
+import aima.core.search.uninformed.UniformCostSearch;
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.MapWayAttFilter;
+import aimax.osm.data.MapWayFilter;
+import aimax.osm.data.OsmMap;
+import aimax.osm.data.entities.MapNode;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.routing.OsmFunctions.OneWayMode;
+import aimax.osm.routing.OsmMoveAction;
+import aimax.osm.routing.OsmSldHeuristicFunction;
+import aimax.osm.routing.RoadGraph;
+import aimax.osm.routing.RoadGraphProblem;
+import aimax.osm.routing.RoadGraphRouter;
+import aimax.osm.routing.RouteFindingProblem;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+public class RoadGraphTest {
+
+	private static final int SIZE = 6;
+
+	private OsmMap map;
+
+	@Before
+	public void setUp() {
+		map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		TestMaps.addGrid(builder, SIZE, new Random(1));
+		builder.buildMap();
+	}
+
+	@Test
+	public void testStructure() {
+		RoadGraph graph = RoadGraph.create(map, MapWayAttFilter.createAnyWayFilter());
+		Assert.assertEquals(SIZE * SIZE, graph.getNodeCount());
+		// two edges per segment of each row and column way
+		Assert.assertEquals(2 * 2 * SIZE * (SIZE - 1), graph.getEdgeCount());
+		Assert.assertEquals(graph.getEdgeCount(), graph.getFirstEdge(graph.getNodeCount()));
+		for (int i = 0; i < SIZE * SIZE; i++) {
+			MapNode node = map.getNode(i + 1);
+			int idx = graph.getNodeIndex(node);
+			Assert.assertSame(node, graph.getNode(idx));
+			Assert.assertEquals(node.getLat(), graph.getLat(idx), 0);
+			Assert.assertEquals(node.getLon(), graph.getLon(idx), 0);
+			for (int edge = graph.getFirstEdge(idx); edge < graph.getFirstEdge(idx + 1); edge++) {
+				// actions lead from the source to the target of the edge
+				OsmMoveAction action = graph.createAction(edge);
+				Assert.assertSame(node, action.getFrom());
+				Assert.assertSame(graph.getNode(graph.getEdgeTarget(edge)), action.getTo());
+				Assert.assertSame(graph.getEdgeWay(edge), action.getWay());
+				Assert.assertEquals(action.getTravelDistance(), graph.getEdgeLength(edge), 1e-6);
+			}
+		}
+		Assert.assertEquals(-1, graph.getNodeIndex(map.addMarker(TestMaps.LAT, TestMaps.LON)));
+
+		// footways of odd columns are not part of the car graph
+		graph = RoadGraph.create(map, MapWayAttFilter.createCarWayFilter());
+		Assert.assertEquals(SIZE * SIZE, graph.getNodeCount());
+		Assert.assertEquals(2 * SIZE * (SIZE - 1) + 2 * (SIZE / 2) * (SIZE - 1), graph.getEdgeCount());
+	}
+
+	@Test
+	public void testOneWayEdges() {
+		RoadGraph graph = RoadGraph.create(map, MapWayAttFilter.createAnyWayFilter());
+		// row 2 is a one-way street
+		int from = graph.getNodeIndex(map.getNode(TestMaps.getNodeId(SIZE, 2, 0)));
+		int to = graph.getNodeIndex(map.getNode(TestMaps.getNodeId(SIZE, 2, 1)));
+		int forward = findEdge(graph, from, to);
+		int backward = findEdge(graph, to, from);
+		Assert.assertEquals(RoadGraph.ONEWAY_FORWARD, graph.getEdgeFlags(forward));
+		Assert.assertEquals(RoadGraph.ONEWAY_BACKWARD | RoadGraph.REVERSED, graph.getEdgeFlags(backward));
+		Assert.assertTrue(graph.isAllowed(forward, OneWayMode.TRAVEL_FORWARD));
+		Assert.assertFalse(graph.isAllowed(backward, OneWayMode.TRAVEL_FORWARD));
+		Assert.assertFalse(graph.isAllowed(forward, OneWayMode.TRAVEL_BACKWARDS));
+		Assert.assertTrue(graph.isAllowed(backward, OneWayMode.TRAVEL_BACKWARDS));
+		Assert.assertTrue(graph.isAllowed(backward, OneWayMode.IGNORE));
+	}
+
+	private static int findEdge(RoadGraph graph, int from, int to) {
+		for (int edge = graph.getFirstEdge(from); edge < graph.getFirstEdge(from + 1); edge++)
+			if (graph.getEdgeTarget(edge) == to)
+				return edge;
+		throw new IllegalArgumentException("No edge from " + from + " to " + to);
+	}
+
+	@Test
+	public void testShortestPaths() {
+		Random random = new Random(2);
+		for (int taskSelection = 0; taskSelection < 2; taskSelection++) {
+			MapWayFilter filter = taskSelection == 0 ? MapWayAttFilter.createAnyWayFilter()
+					: MapWayAttFilter.createCarWayFilter();
+			boolean ignoreOneWays = taskSelection == 0;
+			RoadGraph graph = RoadGraph.create(map, filter);
+			RoadGraphRouter router = new RoadGraphRouter(graph);
+			for (int i = 0; i < 30; i++) {
+				MapNode from = map.getNode(1 + random.nextInt(SIZE * SIZE));
+				MapNode to = map.getNode(1 + random.nextInt(SIZE * SIZE));
+				// reference: A* search on the object graph of the map
+				SearchForActions<MapNode, OsmMoveAction> search = new AStarSearch<>(new GraphSearch<>(),
+						new OsmSldHeuristicFunction(to));
+				Assert.assertTrue(search.findActions(new RouteFindingProblem(from, to, filter, ignoreOneWays))
+						.isPresent());
+				double expected = search.getMetrics().getDouble(QueueSearch.METRIC_PATH_COST);
+
+				int[] path = router.findPath(graph.getNodeIndex(from), graph.getNodeIndex(to),
+						ignoreOneWays ? OneWayMode.IGNORE : OneWayMode.TRAVEL_FORWARD);
+				Assert.assertEquals(expected, router.getPathCost(), 1e-5);
+				double length = 0;
+				int node = graph.getNodeIndex(from);
+				for (int edge : path) {
+					Assert.assertTrue(edge >= graph.getFirstEdge(node) && edge < graph.getFirstEdge(node + 1));
+					length += graph.getEdgeLength(edge);
+					node = graph.getEdgeTarget(edge);
+				}
+				Assert.assertEquals(graph.getNodeIndex(to), node);
+				Assert.assertEquals(expected, length, 1e-5);
+
+				RoadGraphProblem problem = new RoadGraphProblem(graph, graph.getNodeIndex(from),
+						graph.getNodeIndex(to), ignoreOneWays);
+				UniformCostSearch<Integer, Integer> ucs = new UniformCostSearch<>();
+				Optional<List<Integer>> edges = ucs.findActions(problem);
+				Assert.assertTrue(edges.isPresent());
+				Assert.assertEquals(expected, ucs.getMetrics().getDouble(QueueSearch.METRIC_PATH_COST), 1e-5);
+				Assert.assertEquals(edges.get().size() + 1, problem.toPositions(edges.get()).size());
+			}
+		}
+	}
+}
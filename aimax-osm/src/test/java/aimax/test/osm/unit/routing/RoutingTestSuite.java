@@ -0,0 +1,11 @@
+package aimax.test.osm.unit.routing;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({ BatchRouteServiceTest.class, CompactMapRoutingTest.class, ContractionHierarchyTest.class,
+		DStarLiteRouterTest.class, DistanceMatrixServiceTest.class, RoadGraphTest.class })
+public class RoutingTestSuite {
+
+}
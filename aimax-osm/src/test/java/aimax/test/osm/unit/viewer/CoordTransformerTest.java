@@ -0,0 +1,94 @@
+package aimax.test.osm.unit.viewer;
+
+import aimax.osm.data.BoundingBox;
+import aimax.osm.viewer.CoordTransformer;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CoordTransformerTest {
+
+	private static final int WIDTH = 800;
+	private static final int HEIGHT = 600;
+
+	private CoordTransformer transformer;
+
+	@Before
+	public void setUp() {
+		transformer = new CoordTransformer();
+		transformer.adjustTransformation(new BoundingBox(TestMaps.LAT, TestMaps.LON, TestMaps.LAT + 0.01f,
+				TestMaps.LON + 0.01f), WIDTH, HEIGHT);
+	}
+
+	@Test
+	public void testGlobalOrigin() {
+		double dotsPerLon = (double) transformer.getDotsPerDeg() * transformer.getLonCorrection();
+		double globalX = transformer.getGlobalOriginX();
+		double globalY = transformer.getGlobalOriginY();
+		Assert.assertEquals(globalX, dotsPerLon * transformer.lon(0), 0.5);
+		Assert.assertEquals(globalY, -transformer.getDotsPerDeg() * (double) transformer.lat(0), 0.5);
+		// view coordinates are global coordinates relative to the origin
+		Assert.assertEquals(dotsPerLon * TestMaps.LON - globalX, transformer.x(TestMaps.LON), 0.5);
+		Assert.assertEquals(-transformer.getDotsPerDeg() * (double) TestMaps.LAT - globalY,
+				transformer.y(TestMaps.LAT), 0.5);
+	}
+
+	@Test
+	public void testMoveOriginToCurrentOrigin() {
+		float[] lats = viewLats();
+		float[] lons = viewLons();
+		transformer.moveOriginTo(transformer.getGlobalOriginX(), transformer.getGlobalOriginY());
+		Assert.assertArrayEquals(lats, viewLats(), 0f);
+		Assert.assertArrayEquals(lons, viewLons(), 0f);
+	}
+
+	@Test
+	public void testMoveOriginTo() {
+		double globalX = transformer.getGlobalOriginX();
+		double globalY = transformer.getGlobalOriginY();
+		int x = transformer.x(TestMaps.LON);
+		int y = transformer.y(TestMaps.LAT);
+		transformer.moveOriginTo(globalX + 100, globalY - 50);
+		Assert.assertEquals(globalX + 100, transformer.getGlobalOriginX(), 1e-3);
+		Assert.assertEquals(globalY - 50, transformer.getGlobalOriginY(), 1e-3);
+		Assert.assertEquals(x - 100, transformer.x(TestMaps.LON));
+		Assert.assertEquals(y + 50, transformer.y(TestMaps.LAT));
+		// adjust shifts the shown objects, so the origin moves the other way
+		transformer.adjust(100, -50);
+		Assert.assertEquals(globalX, transformer.getGlobalOriginX(), 1e-3);
+		Assert.assertEquals(globalY, transformer.getGlobalOriginY(), 1e-3);
+	}
+
+	@Test
+	public void testSetDotsPerDeg() {
+		int focusX = 300;
+		int focusY = 200;
+		for (float factor : new float[] { 2f, 0.25f, (float) Math.pow(2, 1.0 / 8) }) {
+			float lat = transformer.lat(focusY);
+			float lon = transformer.lon(focusX);
+			float dotsPerDeg = transformer.getDotsPerDeg();
+			transformer.setDotsPerDeg(dotsPerDeg * factor, focusX, focusY);
+			Assert.assertEquals(dotsPerDeg * factor, transformer.getDotsPerDeg(), 0f);
+			Assert.assertEquals(focusX, transformer.x(lon), 1);
+			Assert.assertEquals(focusY, transformer.y(lat), 1);
+			// global coordinates scale with the zoom factor
+			Assert.assertEquals(transformer.getDotsPerDeg() * transformer.getLonCorrection() * (double) lon
+					- focusX, transformer.getGlobalOriginX(), 1);
+		}
+	}
+
+	private float[] viewLats() {
+		float[] result = new float[HEIGHT / 100 + 1];
+		for (int i = 0; i < result.length; i++)
+			result[i] = transformer.lat(i * 100);
+		return result;
+	}
+
+	private float[] viewLons() {
+		float[] result = new float[WIDTH / 100 + 1];
+		for (int i = 0; i < result.length; i++)
+			result[i] = transformer.lon(i * 100);
+		return result;
+	}
+}
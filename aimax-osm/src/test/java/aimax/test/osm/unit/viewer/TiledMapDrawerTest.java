@@ -0,0 +1,288 @@
+package aimax.test.osm.unit.viewer;
+
+import aimax.osm.data.MapBuilder;
+import aimax.osm.data.impl.DefaultMap;
+import aimax.osm.viewer.CoordTransformer;
+import aimax.osm.viewer.TiledMapDrawer;
+import aimax.osm.viewer.TiledMapDrawer.Tile;
+import aimax.osm.viewer.UColor;
+import aimax.osm.viewer.UnifiedImageBuilder;
+import aimax.test.osm.unit.TestMaps;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class TiledMapDrawerTest {
+
+	private static final int SIZE = 10;
+	private static final int WIDTH = 700;
+	private static final int HEIGHT = 500;
+	private static final int TILE_SIZE = TiledMapDrawer.TILE_SIZE;
+	private static final long TILE_BYTES = 4L * TILE_SIZE * TILE_SIZE;
+
+	private TiledMapDrawer<StubImage> drawer;
+	private CoordTransformer transformer;
+
+	@Before
+	public void setUp() {
+		DefaultMap map = new DefaultMap();
+		MapBuilder builder = map.getBuilder();
+		TestMaps.addGrid(builder, SIZE, new Random(1));
+		builder.buildMap();
+		drawer = new TiledMapDrawer<StubImage>(new StubImageBuilder(), map, new StubTileFactory());
+		transformer = drawer.getTransformer();
+	}
+
+	@Test
+	public void testZoomLevelSnapping() {
+		drawer.updateTiles(WIDTH, HEIGHT, true);
+		for (float factor : new float[] { 1.3f, 0.9f, 1.05f, 0.5f }) {
+			float lat = transformer.lat(HEIGHT / 2);
+			float lon = transformer.lon(WIDTH / 2);
+			transformer.zoom(factor, WIDTH / 2, HEIGHT / 2);
+			drawer.updateTiles(WIDTH, HEIGHT, false);
+			double level = Math.log(transformer.getDotsPerDeg()) / Math.log(2) * TiledMapDrawer.LEVELS_PER_OCTAVE;
+			Assert.assertEquals(Math.round(level), level, 1e-4);
+			// the view center keeps its position
+			Assert.assertEquals(WIDTH / 2, transformer.x(lon), 1);
+			Assert.assertEquals(HEIGHT / 2, transformer.y(lat), 1);
+		}
+	}
+
+	@Test
+	public void testTileGrid() {
+		List<Tile<StubImage>> tiles = drawer.updateTiles(WIDTH, HEIGHT, true);
+		double originX = transformer.getGlobalOriginX();
+		double originY = transformer.getGlobalOriginY();
+		// the origin is moved to whole pixels
+		Assert.assertEquals(Math.rint(originX), originX, 1e-6);
+		Assert.assertEquals(Math.rint(originY), originY, 1e-6);
+		Set<Long> cols = new HashSet<Long>();
+		Set<Long> rows = new HashSet<Long>();
+		for (Tile<StubImage> tile : tiles) {
+			Assert.assertEquals(TILE_SIZE, tile.getImage().width);
+			Assert.assertEquals(TILE_SIZE, tile.getImage().height);
+			cols.add(getCol(tile));
+			rows.add(getRow(tile));
+		}
+		// tiles are aligned to the global grid and cover the view exactly once
+		long col0 = Math.floorDiv((long) originX, TILE_SIZE);
+		long row0 = Math.floorDiv((long) originY, TILE_SIZE);
+		long col1 = Math.floorDiv((long) originX + WIDTH - 1, TILE_SIZE);
+		long row1 = Math.floorDiv((long) originY + HEIGHT - 1, TILE_SIZE);
+		Assert.assertEquals(col1 - col0 + 1, cols.size());
+		Assert.assertEquals(row1 - row0 + 1, rows.size());
+		Assert.assertEquals(cols.size() * rows.size(), tiles.size());
+		Assert.assertEquals(getKeys(tiles).size(), tiles.size());
+		for (Tile<StubImage> tile : tiles) {
+			Assert.assertTrue(getCol(tile) >= col0 && getCol(tile) <= col1);
+			Assert.assertTrue(getRow(tile) >= row0 && getRow(tile) <= row1);
+		}
+	}
+
+	@Test
+	public void testPanWithinTile() {
+		List<Tile<StubImage>> tiles = drawer.updateTiles(WIDTH, HEIGHT, true);
+		Assert.assertEquals(0, drawer.getCacheHits());
+		Assert.assertEquals(tiles.size(), drawer.getCacheMisses());
+		// all tiles stay cached, so only tiles never shown before are rendered
+		Set<String> shownKeys = getKeys(tiles);
+		int[][] moves = { { 100, 0 }, { 0, -150 }, { -255, 255 }, { 30, 40 } };
+		for (int[] move : moves) {
+			long hits = drawer.getCacheHits();
+			long misses = drawer.getCacheMisses();
+			transformer.adjust(move[0], move[1]);
+			tiles = drawer.updateTiles(WIDTH, HEIGHT, false);
+			Set<String> newKeys = getKeys(tiles);
+			newKeys.removeAll(shownKeys);
+			Assert.assertEquals(newKeys.size(), drawer.getCacheMisses() - misses);
+			Assert.assertEquals(tiles.size() - newKeys.size(), drawer.getCacheHits() - hits);
+			shownKeys.addAll(newKeys);
+		}
+		// no move, no rendering
+		long misses = drawer.getCacheMisses();
+		drawer.updateTiles(WIDTH, HEIGHT, false);
+		Assert.assertEquals(misses, drawer.getCacheMisses());
+	}
+
+	@Test
+	public void testZoomBack() {
+		List<Tile<StubImage>> tiles = drawer.updateTiles(WIDTH, HEIGHT, true);
+		transformer.zoom(2f, WIDTH / 2, HEIGHT / 2);
+		List<Tile<StubImage>> zoomedTiles = drawer.updateTiles(WIDTH, HEIGHT, false);
+		for (Tile<StubImage> tile : zoomedTiles)
+			Assert.assertFalse(tiles.contains(tile));
+		long misses = drawer.getCacheMisses();
+		long hits = drawer.getCacheHits();
+		transformer.zoom(0.5f, WIDTH / 2, HEIGHT / 2);
+		List<Tile<StubImage>> backTiles = drawer.updateTiles(WIDTH, HEIGHT, false);
+		Assert.assertEquals(misses, drawer.getCacheMisses());
+		Assert.assertEquals(hits + tiles.size(), drawer.getCacheHits());
+		Assert.assertEquals(tiles.size(), backTiles.size());
+		for (Tile<StubImage> tile : backTiles)
+			Assert.assertTrue(tiles.contains(tile));
+	}
+
+	@Test
+	public void testEviction() {
+		// less than needed for the visible tiles
+		drawer.setMaxCacheBytes(2 * TILE_BYTES);
+		List<Tile<StubImage>> tiles = drawer.updateTiles(WIDTH, HEIGHT, true);
+		Assert.assertTrue(tiles.size() > 2);
+		Assert.assertEquals(tiles.size(), drawer.getCachedTileCount());
+		long misses = drawer.getCacheMisses();
+		drawer.updateTiles(WIDTH, HEIGHT, false);
+		Assert.assertEquals(misses, drawer.getCacheMisses());
+
+		int maxTiles = tiles.size() + 3;
+		drawer.setMaxCacheBytes(maxTiles * TILE_BYTES);
+		for (int i = 0; i < 10; i++) {
+			transformer.adjust(TILE_SIZE / 2, TILE_SIZE / 3);
+			tiles = drawer.updateTiles(WIDTH, HEIGHT, false);
+			Assert.assertTrue(drawer.getCachedTileCount() <= Math.max(maxTiles, tiles.size()));
+			// the visible tiles are still cached
+			misses = drawer.getCacheMisses();
+			List<Tile<StubImage>> sameTiles = drawer.updateTiles(WIDTH, HEIGHT, false);
+			Assert.assertEquals(misses, drawer.getCacheMisses());
+			Assert.assertEquals(new HashSet<Tile<StubImage>>(tiles), new HashSet<Tile<StubImage>>(sameTiles));
+		}
+		// tiles left behind were evicted
+		transformer.adjust(-10 * TILE_SIZE / 2, -10 * TILE_SIZE / 3);
+		misses = drawer.getCacheMisses();
+		tiles = drawer.updateTiles(WIDTH, HEIGHT, false);
+		Assert.assertEquals(misses + tiles.size(), drawer.getCacheMisses());
+	}
+
+	@Test
+	public void testMoveOriginToCurrentOrigin() {
+		drawer.updateTiles(WIDTH, HEIGHT, true);
+		float lat = transformer.lat(HEIGHT);
+		float lon = transformer.lon(WIDTH);
+		transformer.moveOriginTo(transformer.getGlobalOriginX(), transformer.getGlobalOriginY());
+		Assert.assertEquals(lat, transformer.lat(HEIGHT), 0f);
+		Assert.assertEquals(lon, transformer.lon(WIDTH), 0f);
+		long misses = drawer.getCacheMisses();
+		long hits = drawer.getCacheHits();
+		List<Tile<StubImage>> tiles = drawer.updateTiles(WIDTH, HEIGHT, false);
+		Assert.assertEquals(misses, drawer.getCacheMisses());
+		Assert.assertEquals(hits + tiles.size(), drawer.getCacheHits());
+	}
+
+	private long getCol(Tile<StubImage> tile) {
+		double x = tile.getViewX() + transformer.getGlobalOriginX();
+		Assert.assertEquals(0, Math.floorMod(Math.round(x), TILE_SIZE));
+		return Math.round(x) / TILE_SIZE;
+	}
+
+	private long getRow(Tile<StubImage> tile) {
+		double y = tile.getViewY() + transformer.getGlobalOriginY();
+		Assert.assertEquals(0, Math.floorMod(Math.round(y), TILE_SIZE));
+		return Math.floorDiv(Math.round(y), TILE_SIZE);
+	}
+
+	private Set<String> getKeys(List<Tile<StubImage>> tiles) {
+		Set<String> result = new HashSet<String>();
+		for (Tile<StubImage> tile : tiles)
+			result.add(getCol(tile) + "/" + getRow(tile));
+		return result;
+	}
+
+	private static class StubImage {
+		final int width;
+		final int height;
+
+		StubImage(int width, int height) {
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	private static class StubTileFactory implements TiledMapDrawer.TileFactory<StubImage> {
+		@Override
+		public StubImage createImage(int width, int height) {
+			return new StubImage(width, height);
+		}
+
+		@Override
+		public UnifiedImageBuilder<StubImage> createImageBuilder() {
+			return new StubImageBuilder();
+		}
+	}
+
+	/** Image builder which draws nothing. */
+	private static class StubImageBuilder implements UnifiedImageBuilder<StubImage> {
+		private StubImage image;
+		private float fontSize = 12;
+
+		@Override
+		public void initialize(StubImage image) {
+			this.image = image;
+		}
+
+		@Override
+		public int getWidth() {
+			return image.width;
+		}
+
+		@Override
+		public int getHeight() {
+			return image.height;
+		}
+
+		@Override
+		public void drawLine(int x1, int y1, int x2, int y2) {
+		}
+
+		@Override
+		public void drawRect(int x, int y, int width, int height) {
+		}
+
+		@Override
+		public void drawOval(int x, int y, int width, int height) {
+		}
+
+		@Override
+		public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+		}
+
+		@Override
+		public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+		}
+
+		@Override
+		public void drawString(String text, int x, int y) {
+		}
+
+		@Override
+		public StubImage getResult() {
+			return image;
+		}
+
+		@Override
+		public void setColor(UColor color) {
+		}
+
+		@Override
+		public void setLineStyle(boolean dashed, float width) {
+		}
+
+		@Override
+		public void setAreaFilled(boolean value) {
+		}
+
+		@Override
+		public void setFontSize(float size) {
+			fontSize = size;
+		}
+
+		@Override
+		public float getFontSize() {
+			return fontSize;
+		}
+	}
+}
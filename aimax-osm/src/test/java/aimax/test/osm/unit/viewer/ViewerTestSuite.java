@@ -0,0 +1,10 @@
+package aimax.test.osm.unit.viewer;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({ CoordTransformerTest.class, TiledMapDrawerTest.class })
+public class ViewerTestSuite {
+
+}